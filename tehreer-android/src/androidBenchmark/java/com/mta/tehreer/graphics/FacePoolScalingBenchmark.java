@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics;
+
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Color;
+
+import com.mta.tehreer.sfnt.SfntTag;
+import com.mta.tehreer.sfnt.ShapingEngine;
+import com.mta.tehreer.sfnt.ShapingResult;
+import com.mta.tehreer.sfnt.WritingDirection;
+import com.mta.tehreer.util.BenchmarkHarness;
+import com.mta.tehreer.util.TypefaceStore;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Measures how shaping and rasterization with a single typeface scale with the number of threads.
+ * Each thread shapes the same paragraph and rasterizes its glyphs with its own shaping engine and
+ * rasterizer, so the threads only share the faces of the typeface.
+ */
+public class FacePoolScalingBenchmark {
+    private static final String TAG = "FacePoolScalingBenchmark";
+    private static final int[] THREAD_COUNTS = { 1, 2, 4 };
+    private static final int TEXT_REPEAT_COUNT = 16;
+    private static final int ROUND_COUNT = 50;
+
+    private Typeface typeface;
+    private String text;
+
+    @Before
+    public void setUp() {
+        typeface = TypefaceStore.getNafeesWeb();
+        text = BenchmarkHarness.repeatSample(TEXT_REPEAT_COUNT);
+    }
+
+    private void shapeAndRasterize(int roundCount) {
+        ShapingEngine shapingEngine = new ShapingEngine();
+        shapingEngine.setTypeface(typeface);
+        shapingEngine.setTypeSize(16.0f);
+        shapingEngine.setScriptTag(SfntTag.make("arab"));
+        shapingEngine.setWritingDirection(WritingDirection.RIGHT_TO_LEFT);
+
+        GlyphKey.Data key = new GlyphKey.Data();
+        key.setTypeface(typeface);
+        key.setPixelWidth(16 * 64);
+        key.setPixelHeight(16 * 64);
+
+        GlyphRasterizer rasterizer = new GlyphRasterizer(key);
+        int checksum = 0;
+
+        for (int i = 0; i < roundCount; i++) {
+            ShapingResult shapingResult = shapingEngine.shapeText(text, 0, text.length());
+            int[] glyphIds = shapingResult.getGlyphIds().toArray();
+
+            for (int glyphId : glyphIds) {
+                if (rasterizer.getGlyphImage(glyphId, Color.TRANSPARENT) != null) {
+                    checksum += 1;
+                }
+            }
+
+            shapingResult.dispose();
+        }
+
+        rasterizer.dispose();
+        shapingEngine.dispose();
+
+        assertTrue(checksum > 0);
+    }
+
+    private long runThreads(int threadCount) throws InterruptedException {
+        return BenchmarkHarness.runThreads(threadCount, new BenchmarkHarness.ThreadTask() {
+            @Override
+            public void run(int threadIndex) {
+                shapeAndRasterize(ROUND_COUNT);
+            }
+        });
+    }
+
+    @Test
+    public void benchmarkSingleTypeface() throws InterruptedException {
+        // Warm up the caches of the typeface and open its additional faces.
+        runThreads(THREAD_COUNTS[THREAD_COUNTS.length - 1]);
+
+        double singleRate = 0.0;
+
+        for (int threadCount : THREAD_COUNTS) {
+            long elapsedTime = runThreads(threadCount);
+            double paragraphRate = (double) threadCount * ROUND_COUNT * 1_000_000_000L / elapsedTime;
+
+            if (threadCount == 1) {
+                singleRate = paragraphRate;
+            }
+
+            BenchmarkHarness.report(TAG, "%d threads: %.1f paragraphs per second (%.2fx)",
+                                    threadCount, paragraphRate, paragraphRate / singleRate);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics;
+
+import static org.junit.Assert.assertNotNull;
+
+import com.mta.tehreer.util.BenchmarkHarness;
+import com.mta.tehreer.util.TypefaceStore;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Measures the throughput of looking up already rasterized glyphs from several threads at once,
+ * comparing lookups serialized on the cache instance, as they were when every lookup synchronized
+ * on the single cache monitor, with the striped lookups which never block each other.
+ */
+public class GlyphCacheContentionBenchmark {
+    private static final String TAG = "GlyphCacheContentionBenchmark";
+    private static final int[] THREAD_COUNTS = { 1, 4, 8 };
+    private static final int LOOKUP_COUNT = 200_000;
+    private static final int ROUND_COUNT = 5;
+
+    private GlyphCache cache;
+    private GlyphAttributes attributes;
+    private int[] glyphIds;
+
+    @Before
+    public void setUp() {
+        Typeface typeface = TypefaceStore.getNafeesWeb();
+
+        cache = new GlyphCache(8 * 1024 * 1024);
+        attributes = new GlyphAttributes();
+        attributes.setTypeface(typeface);
+        attributes.setPixelWidth(16.0f);
+        attributes.setPixelHeight(16.0f);
+
+        int[] distinctChars = BenchmarkHarness.distinctSampleChars();
+        glyphIds = new int[distinctChars.length];
+
+        for (int i = 0; i < distinctChars.length; i++) {
+            glyphIds[i] = typeface.getGlyphId(distinctChars[i]);
+        }
+
+        // Rasterize all the glyphs so that only the hits are measured.
+        for (int glyphId : glyphIds) {
+            cache.getGlyphImage(attributes, glyphId);
+        }
+    }
+
+    private void lookupGlyphs(GlyphAttributes threadAttributes, boolean isSerialized) {
+        Object checksum = null;
+
+        for (int i = 0; i < LOOKUP_COUNT; i++) {
+            int glyphId = glyphIds[i % glyphIds.length];
+
+            if (isSerialized) {
+                synchronized (cache) {
+                    checksum = cache.getGlyphImage(threadAttributes, glyphId);
+                }
+            } else {
+                checksum = cache.getGlyphImage(threadAttributes, glyphId);
+            }
+        }
+
+        assertNotNull(checksum);
+    }
+
+    private long runThreads(int threadCount, final boolean isSerialized) throws InterruptedException {
+        final GlyphAttributes[] threadAttributes = new GlyphAttributes[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            threadAttributes[i] = attributes.copy();
+        }
+
+        return BenchmarkHarness.runThreads(threadCount, new BenchmarkHarness.ThreadTask() {
+            @Override
+            public void run(int threadIndex) {
+                lookupGlyphs(threadAttributes[threadIndex], isSerialized);
+            }
+        });
+    }
+
+    @Test
+    public void benchmarkConcurrentLookups() throws InterruptedException {
+        // Warm up both paths before measuring them.
+        runThreads(THREAD_COUNTS[THREAD_COUNTS.length - 1], true);
+        runThreads(THREAD_COUNTS[THREAD_COUNTS.length - 1], false);
+
+        for (int threadCount : THREAD_COUNTS) {
+            long serializedTime = 0;
+            long stripedTime = 0;
+
+            for (int i = 0; i < ROUND_COUNT; i++) {
+                serializedTime += runThreads(threadCount, true);
+                stripedTime += runThreads(threadCount, false);
+            }
+
+            double lookupCount = (double) LOOKUP_COUNT * threadCount * ROUND_COUNT;
+            double serializedRate = lookupCount * 1000.0 / serializedTime;
+            double stripedRate = lookupCount * 1000.0 / stripedTime;
+
+            BenchmarkHarness.report(TAG, "%d threads: single monitor %.2f, striped %.2f lookups"
+                                    + " per us (%.2fx)",
+                                    threadCount, serializedRate, stripedRate,
+                                    stripedRate / serializedRate);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics;
+
+import static org.junit.Assert.assertTrue;
+
+import android.content.res.AssetManager;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.mta.tehreer.sfnt.SfntTag;
+import com.mta.tehreer.sfnt.ShapingEngine;
+import com.mta.tehreer.sfnt.ShapingResult;
+import com.mta.tehreer.sfnt.WritingDirection;
+import com.mta.tehreer.util.BenchmarkHarness;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Measures the per code point cost of mapping characters to glyphs, comparing the first lookup of
+ * each code point in a freshly opened typeface, which goes through FreeType, with the repeated
+ * lookups served by the character map cache.
+ */
+public class GlyphLookupBenchmark {
+    private static final String TAG = "GlyphLookupBenchmark";
+    private static final int TEXT_REPEAT_COUNT = 64;
+    private static final int ROUND_COUNT = 20;
+
+    private AssetManager assetManager;
+    private String text;
+    private int[] codePoints;
+    private int[] distinctCodePoints;
+
+    @Before
+    public void setUp() {
+        assetManager = InstrumentationRegistry.getInstrumentation().getContext().getAssets();
+
+        text = BenchmarkHarness.repeatSample(TEXT_REPEAT_COUNT);
+        codePoints = new int[text.codePointCount(0, text.length())];
+
+        for (int i = 0, index = 0; i < codePoints.length; i++) {
+            codePoints[i] = text.codePointAt(index);
+            index += Character.charCount(codePoints[i]);
+        }
+
+        distinctCodePoints = BenchmarkHarness.distinctSampleChars();
+    }
+
+    private long lookupGlyphs(Typeface typeface) {
+        long startTime = System.nanoTime();
+        int checksum = 0;
+
+        for (int codePoint : distinctCodePoints) {
+            checksum += typeface.getGlyphId(codePoint);
+        }
+
+        long elapsedTime = System.nanoTime() - startTime;
+        assertTrue(checksum > 0);
+
+        return elapsedTime;
+    }
+
+    private long shapeText(Typeface typeface) {
+        ShapingEngine shapingEngine = new ShapingEngine();
+        shapingEngine.setTypeface(typeface);
+        shapingEngine.setScriptTag(SfntTag.make("arab"));
+        shapingEngine.setWritingDirection(WritingDirection.RIGHT_TO_LEFT);
+
+        long startTime = System.nanoTime();
+        ShapingResult shapingResult = shapingEngine.shapeText(text, 0, text.length());
+        long elapsedTime = System.nanoTime() - startTime;
+
+        assertTrue(shapingResult.getGlyphCount() > 0);
+
+        shapingResult.dispose();
+        shapingEngine.dispose();
+
+        return elapsedTime;
+    }
+
+    private void report(String name, int codePointCount, long coldTime, long warmTime) {
+        double count = (double) codePointCount * ROUND_COUNT;
+
+        BenchmarkHarness.report(TAG, "%s: cold %.1f ns, warm %.1f ns per code point",
+                                name, coldTime / count, warmTime / count);
+    }
+
+    @Test
+    public void benchmarkGlyphIdLookup() {
+        long coldTime = 0;
+        long warmTime = 0;
+
+        for (int i = 0; i < ROUND_COUNT; i++) {
+            Typeface typeface = new Typeface(assetManager, "NafeesWeb.ttf");
+
+            coldTime += lookupGlyphs(typeface);
+            warmTime += lookupGlyphs(typeface);
+        }
+
+        report("getGlyphId", distinctCodePoints.length, coldTime, warmTime);
+    }
+
+    @Test
+    public void benchmarkShapingLookup() {
+        long coldTime = 0;
+        long warmTime = 0;
+
+        for (int i = 0; i < ROUND_COUNT; i++) {
+            Typeface typeface = new Typeface(assetManager, "NafeesWeb.ttf");
+
+            coldTime += shapeText(typeface);
+            warmTime += shapeText(typeface);
+        }
+
+        report("shapeText", codePoints.length, coldTime, warmTime);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics;
+
+import static org.junit.Assert.assertNotNull;
+
+import android.content.res.AssetManager;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.mta.tehreer.util.BenchmarkHarness;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Measures the cost of constructing typefaces the way an application registers its bundled fonts
+ * at startup, i.e. reading only the names and design characteristics, and separately the cost of
+ * loading the variation and palette properties on first access.
+ */
+public class TypefaceStartupBenchmark {
+    private static final String TAG = "TypefaceStartupBenchmark";
+    private static final String[] FONT_PATHS = { "NafeesWeb.ttf", "RocherColor.ttf", "Sudo.ttf" };
+    private static final int TYPEFACE_COUNT = 60;
+
+    private AssetManager assetManager;
+
+    @Before
+    public void setUp() {
+        assetManager = InstrumentationRegistry.getInstrumentation().getContext().getAssets();
+    }
+
+    private void report(String name, long elapsedTime) {
+        BenchmarkHarness.report(TAG, "%s: %.3f ms for %d typefaces, %.1f us per typeface",
+                                name, elapsedTime / 1e6, TYPEFACE_COUNT,
+                                elapsedTime / 1e3 / TYPEFACE_COUNT);
+    }
+
+    @Test
+    public void benchmarkTypefaceConstruction() {
+        Typeface[] typefaces = new Typeface[TYPEFACE_COUNT];
+
+        long startTime = System.nanoTime();
+
+        for (int i = 0; i < TYPEFACE_COUNT; i++) {
+            Typeface typeface = new Typeface(assetManager, FONT_PATHS[i % FONT_PATHS.length]);
+            assertNotNull(typeface.getFamilyName());
+            assertNotNull(typeface.getWeight());
+
+            typefaces[i] = typeface;
+        }
+
+        long constructionTime = System.nanoTime() - startTime;
+        startTime = System.nanoTime();
+
+        for (Typeface typeface : typefaces) {
+            typeface.getVariationAxes();
+            typeface.getPredefinedPalettes();
+        }
+
+        long propertiesTime = System.nanoTime() - startTime;
+
+        report("construction", constructionTime);
+        report("first property access", propertiesTime);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.sfnt;
+
+import static org.junit.Assert.assertTrue;
+
+import com.mta.tehreer.graphics.Typeface;
+import com.mta.tehreer.util.BenchmarkHarness;
+import com.mta.tehreer.util.TypefaceStore;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Measures the per run cost of shaping short runs, comparing a shaping result read through its
+ * lists with the buffered shaping which fills the caller's arrays in a single native call, and
+ * with the batch shaping which shapes all runs in a single native call.
+ */
+public class ShapingCallBenchmark {
+    private static final String TAG = "ShapingCallBenchmark";
+    private static final int ROUND_COUNT = 200;
+
+    private ShapingEngine shapingEngine;
+    private String text;
+    private int[] wordBounds;
+
+    @Before
+    public void setUp() {
+        Typeface typeface = TypefaceStore.getNafeesWeb();
+
+        shapingEngine = new ShapingEngine();
+        shapingEngine.setTypeface(typeface);
+        shapingEngine.setTypeSize(16.0f);
+        shapingEngine.setScriptTag(SfntTag.make("arab"));
+        shapingEngine.setWritingDirection(WritingDirection.RIGHT_TO_LEFT);
+
+        text = BenchmarkHarness.SAMPLE_TEXT;
+        wordBounds = new int[text.length() + 1];
+
+        int boundCount = 0;
+        wordBounds[boundCount++] = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == ' ') {
+                wordBounds[boundCount++] = i + 1;
+            }
+        }
+
+        wordBounds = Arrays.copyOf(wordBounds, boundCount);
+    }
+
+    @After
+    public void tearDown() {
+        shapingEngine.dispose();
+    }
+
+    private long shapeWithResults() {
+        long startTime = System.nanoTime();
+        int checksum = 0;
+
+        for (int i = 1; i < wordBounds.length; i++) {
+            ShapingResult result = shapingEngine.shapeText(text, wordBounds[i - 1], wordBounds[i]);
+
+            int[] glyphIds = result.getGlyphIds().toArray();
+            float[] glyphOffsets = result.getGlyphOffsets().toArray();
+            float[] glyphAdvances = result.getGlyphAdvances().toArray();
+            int[] clusterMap = result.getClusterMap().toArray();
+            float[] caretEdges = result.getCaretEdges(null);
+
+            checksum += glyphIds.length + glyphOffsets.length + glyphAdvances.length
+                      + clusterMap.length + caretEdges.length;
+
+            result.dispose();
+        }
+
+        long elapsedTime = System.nanoTime() - startTime;
+        assertTrue(checksum > 0);
+
+        return elapsedTime;
+    }
+
+    private long shapeWithBuffer(ShapingBuffer buffer) {
+        long startTime = System.nanoTime();
+        int checksum = 0;
+
+        for (int i = 1; i < wordBounds.length; i++) {
+            checksum += shapingEngine.shapeText(text, wordBounds[i - 1], wordBounds[i],
+                                                1.0f, 0.0f, buffer);
+        }
+
+        long elapsedTime = System.nanoTime() - startTime;
+        assertTrue(checksum > 0);
+
+        return elapsedTime;
+    }
+
+    private long shapeWithBatch(ShapingBatch batch) {
+        long startTime = System.nanoTime();
+
+        batch.clear();
+
+        for (int i = 1; i < wordBounds.length; i++) {
+            batch.addRun(wordBounds[i - 1], wordBounds[i],
+                         shapingEngine.getTypeface(), shapingEngine.getTypeSize(),
+                         SfntTag.make("arab"), 0, WritingDirection.RIGHT_TO_LEFT,
+                         ShapingOrder.FORWARD);
+        }
+        shapingEngine.shapeRuns(text, batch);
+
+        long elapsedTime = System.nanoTime() - startTime;
+        assertTrue(batch.getGlyphCount() > 0);
+
+        return elapsedTime;
+    }
+
+    @Test
+    public void benchmarkShortRuns() {
+        ShapingBuffer buffer = new ShapingBuffer();
+        ShapingBatch batch = new ShapingBatch();
+        int runCount = (wordBounds.length - 1) * ROUND_COUNT;
+
+        // Warm up the caches of the typeface and the shape plans.
+        shapeWithResults();
+        shapeWithBuffer(buffer);
+        shapeWithBatch(batch);
+
+        long resultTime = 0;
+        long bufferTime = 0;
+        long batchTime = 0;
+
+        for (int i = 0; i < ROUND_COUNT; i++) {
+            resultTime += shapeWithResults();
+            bufferTime += shapeWithBuffer(buffer);
+            batchTime += shapeWithBatch(batch);
+        }
+
+        BenchmarkHarness.report(TAG, "Shaping result: %.1f ns, shaping buffer: %.1f ns, "
+                                + "shaping batch: %.1f ns per run",
+                                (double) resultTime / runCount, (double) bufferTime / runCount,
+                                (double) batchTime / runCount);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.util;
+
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Provides the pieces shared by the benchmarks. The benchmarks are compiled into the
+ * instrumentation tests only when the build is run with the <code>benchmark</code> property, e.g.
+ * <code>./gradlew connectedAndroidTest -Pbenchmark</code>, so that the regular test runs skip
+ * them.
+ */
+public final class BenchmarkHarness {
+    /**
+     * An Urdu sentence made of short, frequently repeating words and letters.
+     */
+    public static final String SAMPLE_TEXT = "یہ ایک اردو جملہ ہے جس میں کئی چھوٹے الفاظ ہیں ";
+
+    public interface ThreadTask {
+        void run(int threadIndex);
+    }
+
+    /**
+     * Returns the sample text repeated the given number of times.
+     */
+    public static String repeatSample(int count) {
+        StringBuilder builder = new StringBuilder(SAMPLE_TEXT.length() * count);
+        for (int i = 0; i < count; i++) {
+            builder.append(SAMPLE_TEXT);
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Returns the distinct characters of the sample text in the order of their first occurrence.
+     */
+    public static int[] distinctSampleChars() {
+        int[] chars = new int[SAMPLE_TEXT.length()];
+        int count = 0;
+
+        for (int i = 0; i < SAMPLE_TEXT.length(); i++) {
+            char ch = SAMPLE_TEXT.charAt(i);
+            if (SAMPLE_TEXT.indexOf(ch) == i) {
+                chars[count++] = ch;
+            }
+        }
+
+        return Arrays.copyOf(chars, count);
+    }
+
+    /**
+     * Runs the task on the given number of threads, releasing all of them at once, and returns
+     * the nanoseconds elapsed until the last one finishes.
+     */
+    public static long runThreads(int threadCount, final ThreadTask task)
+            throws InterruptedException {
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        Thread[] threads = new Thread[threadCount];
+
+        for (int i = 0; i < threadCount; i++) {
+            final int threadIndex = i;
+
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startSignal.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+
+                    task.run(threadIndex);
+                }
+            });
+            threads[i].start();
+        }
+
+        long startTime = System.nanoTime();
+        startSignal.countDown();
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        return System.nanoTime() - startTime;
+    }
+
+    /**
+     * Logs a measurement, formatting the numbers the same way regardless of the device locale.
+     */
+    public static void report(String tag, String format, Object... args) {
+        Log.i(tag, String.format(Locale.US, format, args));
+    }
+
+    private BenchmarkHarness() { }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics;
+
+import static org.junit.Assert.assertEquals;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import com.mta.tehreer.collections.FloatList;
+import com.mta.tehreer.collections.IntList;
+import com.mta.tehreer.collections.PointList;
+import com.mta.tehreer.util.TypefaceStore;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.Executor;
+
+public class RendererPrefetchTest {
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private Renderer renderer;
+    private int alefGlyph;
+    private int behGlyph;
+    private int pehGlyph;
+
+    @Before
+    public void setUp() {
+        Typeface typeface = TypefaceStore.getNafeesWeb();
+
+        renderer = new Renderer();
+        renderer.setTypeface(typeface);
+        renderer.setTypeSize(29.0f);
+
+        alefGlyph = typeface.getGlyphId('ا');
+        behGlyph = typeface.getGlyphId('ب');
+        pehGlyph = typeface.getGlyphId('پ');
+
+        // Start from an empty cache and fresh counters.
+        GlyphCache.getInstance().clear();
+        GlyphCacheStats.snapshotAndReset();
+    }
+
+    @Test
+    public void testPrefetchedGlyphsAreDrawnWithoutRasterizing() {
+        IntList glyphIds = IntList.of(alefGlyph, behGlyph, alefGlyph);
+
+        renderer.prefetchGlyphs(glyphIds, DIRECT_EXECUTOR);
+
+        GlyphCacheStats prefetchStats = GlyphCacheStats.snapshotAndReset();
+        assertEquals(2, prefetchStats.getMissCount(GlyphCacheStats.Kind.MASK));
+        assertEquals(2, prefetchStats.getRasterizationCount());
+
+        Bitmap bitmap = Bitmap.createBitmap(128, 64, Bitmap.Config.ARGB_8888);
+        renderer.drawGlyphs(new Canvas(bitmap), glyphIds,
+                            PointList.of(0, 0, 0, 0, 0, 0), FloatList.of(20, 20, 20));
+
+        GlyphCacheStats drawStats = GlyphCacheStats.snapshotAndReset();
+        assertEquals(3, drawStats.getHitCount(GlyphCacheStats.Kind.MASK));
+        assertEquals(0, drawStats.getMissCount(GlyphCacheStats.Kind.MASK));
+        assertEquals(0, drawStats.getRasterizationCount());
+    }
+
+    @Test
+    public void testGlyphsRepeatedAcrossRunsAreRasterizedOnce() {
+        // Each run of a line is prefetched with a separate call.
+        renderer.prefetchGlyphs(IntList.of(alefGlyph, behGlyph), DIRECT_EXECUTOR);
+        renderer.prefetchGlyphs(IntList.of(behGlyph, pehGlyph, alefGlyph), DIRECT_EXECUTOR);
+
+        GlyphCacheStats stats = GlyphCacheStats.snapshotAndReset();
+        assertEquals(3, stats.getMissCount(GlyphCacheStats.Kind.MASK));
+        assertEquals(2, stats.getHitCount(GlyphCacheStats.Kind.MASK));
+        assertEquals(3, stats.getRasterizationCount());
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.internal.layout
+
+import com.mta.tehreer.sfnt.ShapingOrder
+import com.mta.tehreer.sfnt.SfntTag
+import com.mta.tehreer.sfnt.WritingDirection
+import com.mta.tehreer.util.TypefaceStore
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Before
+import org.junit.Test
+
+internal class ShapingCacheLookupTest {
+    private lateinit var context: ShapingContext
+
+    @Before
+    fun setUp() {
+        context = ShapingContext(
+            typeface = TypefaceStore.getNafeesWeb(),
+            typeSize = 16.0f,
+            scriptTag = SfntTag.make("arab"),
+            languageTag = SfntTag.make("dflt"),
+            writingDirection = WritingDirection.RIGHT_TO_LEFT,
+            shapingOrder = ShapingOrder.FORWARD,
+            openTypeFeatures = emptySet()
+        )
+    }
+
+    private fun shapedText(glyphCount: Int, charCount: Int): ShapedText {
+        return ShapedText(
+            glyphIds = IntArray(glyphCount),
+            glyphOffsets = FloatArray(glyphCount * 2),
+            glyphAdvances = FloatArray(glyphCount),
+            clusterMap = IntArray(charCount)
+        )
+    }
+
+    @Test
+    fun testHitsAndMissesAreCounted() {
+        val cache = ShapingCache(4096)
+        val text = "abc def"
+        val word = shapedText(3, 3)
+
+        assertNull(cache.getWord(context, text.substring(0, 3)))
+        cache.putWord(context, text.substring(0, 3), word)
+        assertSame(word, cache.getWord(context, text.substring(0, 3)))
+        assertSame(word, cache.getWord(context, "xabc".substring(1, 4)))
+
+        assertEquals(2L, cache.hitCount(false))
+        assertEquals(1L, cache.missCount(true))
+        assertEquals(0L, cache.missCount(false))
+    }
+
+    @Test
+    fun testEntriesAreEvictedByBytes() {
+        // Each entry takes (3 * 6) + (3 * 16) + 128 = 194 bytes, so only two of them fit.
+        val cache = ShapingCache(400)
+        cache.putWord(context, "abc", shapedText(3, 3))
+        cache.putWord(context, "def", shapedText(3, 3))
+        cache.putWord(context, "ghi", shapedText(3, 3))
+
+        assertEquals(388, cache.size())
+        assertEquals(1L, cache.evictionCount())
+        assertNull(cache.getWord(context, "abc"))
+        assertNotNull(cache.getWord(context, "def"))
+        assertNotNull(cache.getWord(context, "ghi"))
+    }
+
+    @Test
+    fun testLongWordsBypassCache() {
+        val cache = ShapingCache(65536)
+        val text = "a".repeat(65)
+
+        cache.putWord(context, text, shapedText(65, 65))
+
+        assertNull(cache.getWord(context, text))
+        assertEquals(0, cache.size())
+        assertEquals(0L, cache.hitCount(false))
+        assertEquals(0L, cache.missCount(false))
+    }
+}
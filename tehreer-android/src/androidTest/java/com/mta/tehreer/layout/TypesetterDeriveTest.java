@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.layout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import android.text.SpannableString;
+import android.text.Spanned;
+import android.text.style.RelativeSizeSpan;
+
+import com.mta.tehreer.graphics.Typeface;
+import com.mta.tehreer.layout.style.TypeSizeSpan;
+import com.mta.tehreer.layout.style.TypefaceSpan;
+import com.mta.tehreer.util.TypefaceStore;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TypesetterDeriveTest {
+    private static final String TEXT = "یہ ایک مثال ہے۔ This is an example.";
+
+    private Typeface typeface;
+
+    @Before
+    public void setUp() {
+        typeface = TypefaceStore.getNafeesWeb();
+    }
+
+    private static void assertLinesEqual(ComposedLine expected, ComposedLine actual) {
+        assertEquals(expected.getWidth(), actual.getWidth(), 0.01f);
+        assertEquals(expected.getAscent(), actual.getAscent(), 0.01f);
+        assertEquals(expected.getDescent(), actual.getDescent(), 0.01f);
+    }
+
+    @Test
+    public void testPlainTextIsRescaled() {
+        Typesetter source = new Typesetter(TEXT, typeface, 16.0f);
+        Typesetter derived = source.deriveTypesetter(24.0f);
+        Typesetter expected = new Typesetter(TEXT, typeface, 24.0f);
+
+        assertSame(source.getParagraphs(), derived.getParagraphs());
+        assertLinesEqual(expected.createSimpleLine(0, TEXT.length()),
+                         derived.createSimpleLine(0, TEXT.length()));
+    }
+
+    @Test
+    public void testSpannedSizesAreResolved() {
+        SpannableString spanned = new SpannableString(TEXT);
+        spanned.setSpan(new RelativeSizeSpan(2.0f), 0, 3, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        spanned.setSpan(new TypeSizeSpan(20.0f), 4, 10, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+
+        List<Object> defaultSpans = new ArrayList<>();
+        defaultSpans.add(new TypefaceSpan(typeface));
+        defaultSpans.add(new TypeSizeSpan(16.0f));
+
+        List<Object> expectedSpans = new ArrayList<>();
+        expectedSpans.add(new TypefaceSpan(typeface));
+        expectedSpans.add(new TypeSizeSpan(30.0f));
+
+        Typesetter derived = new Typesetter(spanned, defaultSpans).deriveTypesetter(30.0f);
+        Typesetter expected = new Typesetter(spanned, expectedSpans);
+
+        assertEquals(expected.getRuns().size(), derived.getRuns().size());
+        assertLinesEqual(expected.createSimpleLine(0, TEXT.length()),
+                         derived.createSimpleLine(0, TEXT.length()));
+    }
+}
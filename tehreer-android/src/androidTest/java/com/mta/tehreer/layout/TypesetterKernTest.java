@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.layout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import android.content.Context;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.mta.tehreer.collections.FloatList;
+import com.mta.tehreer.graphics.Typeface;
+import com.mta.tehreer.sfnt.SfntTag;
+import com.mta.tehreer.sfnt.ShapingEngine;
+import com.mta.tehreer.sfnt.ShapingResult;
+import com.mta.tehreer.util.TypefaceStore;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class TypesetterKernTest {
+    private static final String TEXT = "ا ا ا";
+    private static final float TYPE_SIZE = 16.0f;
+
+    private Typeface typeface;
+
+    @Before
+    public void setUp() throws IOException {
+        Typeface source = TypefaceStore.getNafeesWeb();
+        int spaceGlyph = source.getGlyphId(' ');
+        int alefGlyph = source.getGlyphId('ا');
+
+        typeface = new Typeface(new ByteArrayInputStream(createKernFont(spaceGlyph, alefGlyph)));
+    }
+
+    private static byte[] readAsset(String fileName) throws IOException {
+        Context context = InstrumentationRegistry.getInstrumentation().getContext();
+        InputStream stream = context.getAssets().open(fileName);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+
+        try {
+            int count;
+            while ((count = stream.read(buffer)) > 0) {
+                output.write(buffer, 0, count);
+            }
+        } finally {
+            stream.close();
+        }
+
+        return output.toByteArray();
+    }
+
+    private static byte[] createKernTable(int leftGlyph, int rightGlyph, int value) {
+        ByteBuffer table = ByteBuffer.allocate(24);
+        table.putShort((short) 0);      // Table version.
+        table.putShort((short) 1);      // Number of subtables.
+        table.putShort((short) 0);      // Subtable version.
+        table.putShort((short) 20);     // Subtable length.
+        table.putShort((short) 1);      // Horizontal kerning in format 0.
+        table.putShort((short) 1);      // Number of pairs.
+        table.putShort((short) 6);      // Search range.
+        table.putShort((short) 0);      // Entry selector.
+        table.putShort((short) 0);      // Range shift.
+        table.putShort((short) leftGlyph);
+        table.putShort((short) rightGlyph);
+        table.putShort((short) value);
+
+        return table.array();
+    }
+
+    /**
+     * Derives a font from Nafees Web without any OpenType layout table, so that the only kerning
+     * applied by HarfBuzz comes from a legacy kern table holding a pair across the space.
+     */
+    private static byte[] createKernFont(int spaceGlyph, int alefGlyph) throws IOException {
+        byte[] source = readAsset("NafeesWeb.ttf");
+        ByteBuffer input = ByteBuffer.wrap(source);
+        Charset ascii = Charset.forName("US-ASCII");
+        Map<String, byte[]> tables = new TreeMap<>();
+
+        int tableCount = input.getShort(4) & 0xFFFF;
+        for (int i = 0; i < tableCount; i++) {
+            int record = 12 + (i * 16);
+            String tag = new String(source, record, 4, ascii);
+            int offset = input.getInt(record + 8);
+            int length = input.getInt(record + 12);
+
+            if (!tag.equals("GDEF") && !tag.equals("GSUB") && !tag.equals("GPOS")) {
+                tables.put(tag, Arrays.copyOfRange(source, offset, offset + length));
+            }
+        }
+        tables.put("kern", createKernTable(spaceGlyph, alefGlyph, -400));
+
+        int dataOffset = 12 + (tables.size() * 16);
+        int fontSize = dataOffset;
+        for (byte[] data : tables.values()) {
+            fontSize += (data.length + 3) & ~3;
+        }
+
+        int searchRange = Integer.highestOneBit(tables.size()) * 16;
+        ByteBuffer output = ByteBuffer.allocate(fontSize);
+        output.putInt(input.getInt(0));
+        output.putShort((short) tables.size());
+        output.putShort((short) searchRange);
+        output.putShort((short) Integer.numberOfTrailingZeros(searchRange / 16));
+        output.putShort((short) ((tables.size() * 16) - searchRange));
+
+        for (Map.Entry<String, byte[]> entry : tables.entrySet()) {
+            byte[] data = entry.getValue();
+            int checksum = 0;
+            for (int i = 0; i < data.length; i += 4) {
+                int word = 0;
+                for (int j = 0; j < 4; j++) {
+                    word = (word << 8) | (i + j < data.length ? data[i + j] & 0xFF : 0);
+                }
+                checksum += word;
+            }
+
+            output.put(entry.getKey().getBytes(ascii));
+            output.putInt(checksum);
+            output.putInt(dataOffset);
+            output.putInt(data.length);
+
+            int position = output.position();
+            output.position(dataOffset);
+            output.put(data);
+            output.position(position);
+
+            dataOffset += (data.length + 3) & ~3;
+        }
+
+        return output.array();
+    }
+
+    private float measureUncached(int fromIndex, int toIndex) {
+        ShapingEngine shapingEngine = new ShapingEngine();
+
+        try {
+            shapingEngine.setTypeface(typeface);
+            shapingEngine.setTypeSize(TYPE_SIZE);
+            shapingEngine.setScriptTag(SfntTag.make("arab"));
+            shapingEngine.setWritingDirection(
+                    ShapingEngine.getScriptDirection(SfntTag.make("arab")));
+
+            ShapingResult shapingResult = shapingEngine.shapeText(TEXT, fromIndex, toIndex);
+            FloatList advances = shapingResult.getGlyphAdvances();
+            float width = 0.0f;
+
+            for (int i = 0; i < advances.size(); i++) {
+                width += advances.get(i);
+            }
+
+            shapingResult.dispose();
+
+            return width;
+        } finally {
+            shapingEngine.dispose();
+        }
+    }
+
+    @Test
+    public void testKernPairAcrossSpaceIsApplied() {
+        // The pair between a space and the following alef is only seen when shaping whole runs.
+        float splitWidth = measureUncached(0, 2) + measureUncached(2, 4) + measureUncached(4, 5);
+
+        assertNotEquals(splitWidth, measureUncached(0, TEXT.length()), 0.01f);
+    }
+
+    @Test
+    public void testCachedShapingMatchesUncachedShaping() {
+        float expectedWidth = measureUncached(0, TEXT.length());
+
+        // The second typesetter is served from the shaping cache.
+        new Typesetter(TEXT, typeface, TYPE_SIZE);
+        Typesetter typesetter = new Typesetter(TEXT, typeface, TYPE_SIZE);
+        ComposedLine line = typesetter.createSimpleLine(0, TEXT.length());
+
+        assertEquals(expectedWidth, line.getWidth(), 0.01f);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.layout;
+
+import static org.junit.Assert.assertEquals;
+
+import android.text.SpannableString;
+
+import com.mta.tehreer.graphics.Typeface;
+import com.mta.tehreer.internal.layout.ParagraphCollection;
+import com.mta.tehreer.internal.layout.RunCollection;
+import com.mta.tehreer.internal.layout.TextRun;
+import com.mta.tehreer.layout.style.TypeSizeSpan;
+import com.mta.tehreer.layout.style.TypefaceSpan;
+import com.mta.tehreer.unicode.BidiParagraph;
+import com.mta.tehreer.util.TypefaceStore;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class TypesetterParallelTest {
+    private static final String PARAGRAPH = "یہ ایک مثال ہے۔ This is an example.\n";
+
+    private ExecutorService executor;
+    private List<Object> defaultSpans;
+
+    @Before
+    public void setUp() {
+        Typeface typeface = TypefaceStore.getNafeesWeb();
+
+        executor = Executors.newFixedThreadPool(4);
+        defaultSpans = new ArrayList<>();
+        defaultSpans.add(new TypefaceSpan(typeface));
+        defaultSpans.add(new TypeSizeSpan(16.0f));
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    private static SpannableString createText(int paragraphCount) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < paragraphCount; i++) {
+            builder.append(PARAGRAPH);
+        }
+
+        return new SpannableString(builder);
+    }
+
+    private static void assertRunsEqual(RunCollection expected, RunCollection actual) {
+        assertEquals(expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            TextRun expectedRun = expected.get(i);
+            TextRun actualRun = actual.get(i);
+
+            assertEquals(expectedRun.getStartIndex(), actualRun.getStartIndex());
+            assertEquals(expectedRun.getEndIndex(), actualRun.getEndIndex());
+            assertEquals(expectedRun.getBidiLevel(), actualRun.getBidiLevel());
+            assertEquals(expectedRun.getGlyphIds(), actualRun.getGlyphIds());
+        }
+    }
+
+    @Test
+    public void testParallelMatchesSequential() {
+        SpannableString spanned = createText(1000);
+
+        Typesetter expected = new Typesetter(spanned, defaultSpans);
+        Typesetter actual = new Typesetter(spanned, defaultSpans, executor);
+
+        assertEquals(expected.getParagraphs().size(), actual.getParagraphs().size());
+        assertRunsEqual(expected.getRuns(), actual.getRuns());
+    }
+
+    @Test
+    public void testDirectExecutorIsSupported() {
+        SpannableString spanned = createText(1000);
+
+        Typesetter expected = new Typesetter(spanned, defaultSpans);
+        Typesetter actual = new Typesetter(spanned, defaultSpans, Runnable::run);
+
+        assertRunsEqual(expected.getRuns(), actual.getRuns());
+    }
+
+    @Test
+    public void testParagraphsSurviveCollectedChunks() {
+        SpannableString spanned = createText(1000);
+
+        Typesetter expected = new Typesetter(spanned, defaultSpans);
+        Typesetter actual = new Typesetter(spanned, defaultSpans, executor);
+
+        // Finalize the collections of the chunks which have been merged into the typesetter.
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            System.runFinalization();
+        }
+
+        ParagraphCollection expectedParagraphs = expected.getParagraphs();
+        ParagraphCollection actualParagraphs = actual.getParagraphs();
+
+        assertEquals(expectedParagraphs.size(), actualParagraphs.size());
+
+        for (int i = 0; i < expectedParagraphs.size(); i++) {
+            BidiParagraph expectedParagraph = expectedParagraphs.get(i);
+            BidiParagraph actualParagraph = actualParagraphs.get(i);
+            int charStart = actualParagraph.getCharStart();
+            int charEnd = actualParagraph.getCharEnd();
+
+            assertEquals(expectedParagraph.getCharStart(), charStart);
+            assertEquals(expectedParagraph.getCharEnd(), charEnd);
+            assertEquals(expectedParagraph.getBaseLevel(), actualParagraph.getBaseLevel());
+
+            ComposedLine expectedLine = expected.createJustifiedLine(charStart, charEnd,
+                                                                     0.0f, 0.0f);
+            ComposedLine actualLine = actual.createJustifiedLine(charStart, charEnd,
+                                                                 0.0f, 0.0f);
+
+            assertEquals(expectedLine.getRuns().size(), actualLine.getRuns().size());
+            assertEquals(expectedLine.getWidth(), actualLine.getWidth(), 0.0f);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.sfnt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.mta.tehreer.graphics.Typeface;
+import com.mta.tehreer.util.TypefaceStore;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Verifies that the buffered shaping and the batch shaping of short runs produce the same output
+ * as a shaping result.
+ */
+public class ShapingCallTest {
+    private static final String SAMPLE_TEXT = "یہ ایک اردو جملہ ہے جس میں کئی چھوٹے الفاظ ہیں ";
+
+    private ShapingEngine shapingEngine;
+    private String text;
+    private int[] wordBounds;
+
+    @Before
+    public void setUp() {
+        Typeface typeface = TypefaceStore.getNafeesWeb();
+
+        shapingEngine = new ShapingEngine();
+        shapingEngine.setTypeface(typeface);
+        shapingEngine.setTypeSize(16.0f);
+        shapingEngine.setScriptTag(SfntTag.make("arab"));
+        shapingEngine.setWritingDirection(WritingDirection.RIGHT_TO_LEFT);
+
+        text = SAMPLE_TEXT;
+        wordBounds = new int[text.length() + 1];
+
+        int boundCount = 0;
+        wordBounds[boundCount++] = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == ' ') {
+                wordBounds[boundCount++] = i + 1;
+            }
+        }
+
+        wordBounds = Arrays.copyOf(wordBounds, boundCount);
+    }
+
+    @After
+    public void tearDown() {
+        shapingEngine.dispose();
+    }
+
+    private void shapeWithBatch(ShapingBatch batch) {
+        batch.clear();
+
+        for (int i = 1; i < wordBounds.length; i++) {
+            batch.addRun(wordBounds[i - 1], wordBounds[i],
+                         shapingEngine.getTypeface(), shapingEngine.getTypeSize(),
+                         SfntTag.make("arab"), 0, WritingDirection.RIGHT_TO_LEFT,
+                         ShapingOrder.FORWARD);
+        }
+        shapingEngine.shapeRuns(text, batch);
+    }
+
+    @Test
+    public void testBatchMatchesResult() {
+        ShapingBatch batch = new ShapingBatch();
+        shapeWithBatch(batch);
+
+        assertEquals(wordBounds.length - 1, batch.getRunCount());
+
+        for (int i = 1; i < wordBounds.length; i++) {
+            int start = wordBounds[i - 1];
+            int end = wordBounds[i];
+            int runIndex = i - 1;
+
+            ShapingResult result = shapingEngine.shapeText(text, start, end);
+            int glyphStart = batch.getGlyphStart(runIndex);
+            int glyphEnd = batch.getGlyphEnd(runIndex);
+            int clusterStart = batch.getClusterStart(runIndex);
+
+            assertEquals(result.getGlyphCount(), glyphEnd - glyphStart);
+            assertArrayEquals(result.getGlyphIds().toArray(),
+                              Arrays.copyOfRange(batch.getGlyphIds(), glyphStart, glyphEnd));
+            assertArrayEquals(result.getGlyphOffsets().toArray(),
+                              Arrays.copyOfRange(batch.getGlyphOffsets(),
+                                                 glyphStart * 2, glyphEnd * 2), 0.0f);
+            assertArrayEquals(result.getGlyphAdvances().toArray(),
+                              Arrays.copyOfRange(batch.getGlyphAdvances(), glyphStart, glyphEnd),
+                              0.0f);
+            assertArrayEquals(result.getClusterMap().toArray(),
+                              Arrays.copyOfRange(batch.getClusterMap(),
+                                                 clusterStart, clusterStart + (end - start)));
+
+            result.dispose();
+        }
+    }
+
+    @Test
+    public void testBatchKeepsEngineProperties() {
+        ShapingBatch batch = new ShapingBatch();
+        batch.addRun(0, text.length(), shapingEngine.getTypeface(), 32.0f,
+                     SfntTag.make("latn"), 0, WritingDirection.LEFT_TO_RIGHT,
+                     ShapingOrder.BACKWARD);
+        shapingEngine.shapeRuns(text, batch);
+
+        assertEquals(16.0f, shapingEngine.getTypeSize(), 0.0f);
+        assertEquals(SfntTag.make("arab"), shapingEngine.getScriptTag());
+        assertEquals(WritingDirection.RIGHT_TO_LEFT, shapingEngine.getWritingDirection());
+        assertEquals(ShapingOrder.FORWARD, shapingEngine.getShapingOrder());
+    }
+
+    @Test
+    public void testBufferMatchesResult() {
+        ShapingBuffer buffer = new ShapingBuffer();
+
+        for (int i = 1; i < wordBounds.length; i++) {
+            int start = wordBounds[i - 1];
+            int end = wordBounds[i];
+
+            ShapingResult result = shapingEngine.shapeText(text, start, end);
+            int glyphCount = shapingEngine.shapeText(text.toCharArray(), start, end,
+                                                     1.0f, 0.0f, buffer);
+            int charCount = end - start;
+
+            assertEquals(result.getGlyphCount(), glyphCount);
+            assertEquals(result.isRTL(), buffer.isRTL());
+            assertArrayEquals(result.getGlyphIds().toArray(),
+                              Arrays.copyOf(buffer.getGlyphIds(), glyphCount));
+            assertArrayEquals(result.getGlyphOffsets().toArray(),
+                              Arrays.copyOf(buffer.getGlyphOffsets(), glyphCount * 2), 0.0f);
+            assertArrayEquals(result.getGlyphAdvances().toArray(),
+                              Arrays.copyOf(buffer.getGlyphAdvances(), glyphCount), 0.0f);
+            assertArrayEquals(result.getClusterMap().toArray(),
+                              Arrays.copyOf(buffer.getClusterMap(), charCount));
+            assertArrayEquals(result.getCaretEdges(null),
+                              Arrays.copyOf(buffer.getCaretEdges(), charCount + 1), 0.0f);
+
+            result.dispose();
+        }
+    }
+}
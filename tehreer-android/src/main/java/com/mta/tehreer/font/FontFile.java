@@ -19,15 +19,18 @@ package com.mta.tehreer.font;
 import android.content.res.AssetManager;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.mta.tehreer.graphics.Typeface;
 import com.mta.tehreer.internal.JniBridge;
 
 import java.io.File;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
+import static com.mta.tehreer.internal.util.Preconditions.checkArgument;
 import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
 
 /**
@@ -55,9 +58,9 @@ public final class FontFile {
 
     /**
      * Constructs a font file instance representing the specified asset. The data of the asset is
-     * not copied to an in-memory buffer. Rather, it is directly read from a stream of the asset
-     * when needed. So the typefaces obtained from resulting font file might be slower and should be
-     * used with caution.
+     * not copied to an in-memory buffer. Rather, it is mapped directly from the application package
+     * if the asset is stored uncompressed, and read from a stream of the asset when needed
+     * otherwise, in which case the typefaces obtained from resulting font file might be slower.
      *
      * @param assetManager The application's asset manager.
      * @param filePath The path of the font in the assets directory.
@@ -77,7 +80,7 @@ public final class FontFile {
 
     /**
      * Constructs a font file instance representing the specified file path. The data of the font
-     * is directly read from a stream of the file when needed.
+     * is mapped into the memory rather than being copied.
      *
      * @param file The file describing the path of the font.
      *
@@ -95,8 +98,8 @@ public final class FontFile {
 
     /**
      * Constructs a font file instance from the specified input stream by copying its data into a
-     * native memory buffer. It may take time to create the instance if the stream holds larger
-     * data.
+     * native memory buffer. The stream is read in large chunks, so it may still take time to create
+     * the instance if the stream holds larger data.
      *
      * @param stream The input stream that contains the data of the font.
      *
@@ -112,6 +115,28 @@ public final class FontFile {
         }
     }
 
+    /**
+     * Constructs a font file instance from the data of a direct byte buffer between its current
+     * position and limit. The data is used in place without being copied, so the buffer is
+     * retained until the font file and all of its typefaces have been released. The content of
+     * the buffer must not be modified during this time.
+     *
+     * @param buffer The direct byte buffer that contains the data of the font.
+     *
+     * @throws NullPointerException if <code>buffer</code> is null.
+     * @throws IllegalArgumentException if <code>buffer</code> is not direct.
+     * @throws RuntimeException if an error occurred while initialization.
+     */
+    public FontFile(@NonNull ByteBuffer buffer) {
+        checkNotNull(buffer, "buffer");
+        checkArgument(buffer.isDirect(), "The buffer is not direct");
+
+        nativeFontFile = nCreateFromBuffer(buffer, buffer.position(), buffer.remaining());
+        if (nativeFontFile == 0) {
+            throw new RuntimeException("Could not create typeface from specified buffer");
+        }
+    }
+
     private void loadTypefaces() {
         List<Typeface> allTypefaces = new ArrayList<>();
         int faceCount = nGetFaceCount(nativeFontFile);
@@ -152,6 +177,36 @@ public final class FontFile {
         return mTypefaces;
     }
 
+    int getFaceCount() {
+        return nGetFaceCount(nativeFontFile);
+    }
+
+    /**
+     * Creates the typeface of a single face, or of one of its named instances, without loading
+     * the other faces of this font file.
+     *
+     * @param faceIndex The index of the face in this font file.
+     * @param instanceIndex The index of the named instance, or <code>-1</code> for the face itself.
+     * @return A new typeface, or <code>null</code> if either index is out of range.
+     */
+    @Nullable Typeface createTypeface(int faceIndex, int instanceIndex) {
+        if (faceIndex < 0 || faceIndex >= nGetFaceCount(nativeFontFile)) {
+            return null;
+        }
+
+        Typeface faceTypeface = nCreateTypeface(nativeFontFile, faceIndex);
+        if (faceTypeface == null || instanceIndex < 0) {
+            return faceTypeface;
+        }
+
+        List<NamedStyle> namedStyles = faceTypeface.getNamedStyles();
+        if (namedStyles == null || instanceIndex >= namedStyles.size()) {
+            return null;
+        }
+
+        return faceTypeface.getVariationInstance(namedStyles.get(instanceIndex).coordinates());
+    }
+
     void release() {
         nRelease(nativeFontFile);
     }
@@ -159,6 +214,7 @@ public final class FontFile {
     private static native long nCreateFromAsset(AssetManager assetManager, String path);
     private static native long nCreateFromPath(String path);
     private static native long nCreateFromStream(InputStream stream);
+    private static native long nCreateFromBuffer(ByteBuffer buffer, int offset, int length);
     private static native void nRelease(long nativeFontFile);
 
     private static native int nGetFaceCount(long nativeFontFile);
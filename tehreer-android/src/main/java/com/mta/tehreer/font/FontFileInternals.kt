@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.font
+
+import com.mta.tehreer.graphics.Typeface
+
+/**
+ * Gives the other packages access to the details of font files which are not part of the public
+ * API.
+ */
+internal object FontFileInternals {
+    @JvmStatic
+    fun getFaceCount(fontFile: FontFile): Int {
+        return fontFile.faceCount
+    }
+
+    @JvmStatic
+    fun createTypeface(fontFile: FontFile, faceIndex: Int, instanceIndex: Int): Typeface? {
+        return fontFile.createTypeface(faceIndex, instanceIndex)
+    }
+}
@@ -16,13 +16,10 @@
 
 package com.mta.tehreer.graphics
 
-import android.graphics.Path
-
 internal class Glyph {
-    var type = 0
-    var image: GlyphImage? = null
-    var outline: GlyphOutline? = null
-    var path: Path? = null
+    @Volatile var type = 0
+    @Volatile var image: GlyphImage? = null
+    @Volatile var outline: GlyphOutline? = null
 
     val isLoaded: Boolean
         get() = type != 0
@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics
+
+import android.graphics.Bitmap
+import android.graphics.BitmapShader
+import android.graphics.Canvas
+import android.graphics.Paint
+import android.graphics.PorterDuff
+import android.graphics.PorterDuffXfermode
+import android.graphics.Shader
+import androidx.annotation.GuardedBy
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Packs glyph images into shared pages so that a whole run of glyphs can be drawn from a few
+ * bitmaps. Alpha and color glyphs are kept in separate pages as they differ in pixel format, and
+ * each kind is packed under its own lock.
+ *
+ * The glyphs are copied into a private bitmap of the page which is handed to a canvas only after
+ * the page is full. It is then published as a sheet whose pixels never change, so a hardware canvas
+ * uploads each page only once. Until then, the packed images are drawn from their own bitmaps.
+ *
+ * The regions of a page are never reused. Instead, the glyph cache accounts the whole page in its
+ * byte budget. A page is closed either when all of its glyphs have been released or when the cache
+ * evicts the page itself, in which case the glyphs still holding it are evicted along with it. A
+ * closed page never receives new glyphs.
+ */
+internal class GlyphAtlas(
+    private val pageSize: Int,
+    private val pageAdded: (Page) -> Unit
+) {
+    /**
+     * The pixels of a sealed page.
+     */
+    class Sheet(val bitmap: Bitmap) {
+        /**
+         * The shader for drawing the regions of this sheet as textured vertices.
+         */
+        val shader: Shader by lazy {
+            BitmapShader(bitmap, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP)
+        }
+    }
+
+    class Page(val config: Bitmap.Config, size: Int, val id: Int) {
+        private val bitmap = Bitmap.createBitmap(size, size, config)
+        private val canvas = Canvas(bitmap)
+        internal val packer = SkylinePacker(size, size)
+
+        // The images packed into this page until it is sealed, guarded by the lock of the kind.
+        private val images = ArrayList<GlyphImage>()
+
+        // The removers of the cache entries holding the images of this page, guarded by the lock
+        // of the glyph cache.
+        internal val holders = HashMap<GlyphImage, () -> Unit>()
+        @Volatile internal var isClosed = false
+
+        /**
+         * The number of bytes taken by the pixels of this page. The images packed into the open page
+         * of each kind also keep their own bitmaps until it is sealed.
+         */
+        val byteCount: Int
+            get() = bitmap.rowBytes * bitmap.height
+
+        internal fun add(image: GlyphImage, paint: Paint) {
+            canvas.drawBitmap(
+                image.bitmap()!!,
+                image.sourceLeft().toFloat(),
+                image.sourceTop().toFloat(),
+                paint
+            )
+
+            images.add(image)
+        }
+
+        /**
+         * Publishes the pixels of this page as they are, after which they are never written again.
+         */
+        internal fun seal() {
+            val sheet = Sheet(bitmap)
+            for (image in images) {
+                image.publish(sheet)
+            }
+
+            images.clear()
+        }
+    }
+
+    private class Kind(val config: Bitmap.Config) {
+        @GuardedBy("this") var page: Page? = null
+    }
+
+    private val copyPaint = Paint().apply {
+        xfermode = PorterDuffXfermode(PorterDuff.Mode.SRC)
+    }
+
+    private val alphaKind = Kind(Bitmap.Config.ALPHA_8)
+    private val colorKind = Kind(Bitmap.Config.ARGB_8888)
+    private val pageIds = AtomicInteger()
+    private val pageCount = AtomicInteger()
+
+    val livePageCount: Int
+        get() = pageCount.get()
+
+    /**
+     * Returns the number of bytes taken by the pixels of a page of the given configuration.
+     */
+    fun pageByteCount(config: Bitmap.Config): Int {
+        val bytesPerPixel = if (config == Bitmap.Config.ALPHA_8) 1 else 4
+        return pageSize * pageSize * bytesPerPixel
+    }
+
+    /**
+     * Packs the given standalone image into a page. Returns the packed image, or the same image if
+     * it is too large to be shared with other glyphs.
+     */
+    fun pack(image: GlyphImage): GlyphImage {
+        if (image.isPacked()) {
+            return image
+        }
+
+        val bitmap = image.bitmap()!!
+        val width = bitmap.width
+        val height = bitmap.height
+
+        if (width > pageSize / 2 || height > pageSize / 2) {
+            return image
+        }
+
+        val kind = if (bitmap.config == Bitmap.Config.ALPHA_8) alphaKind else colorKind
+
+        // Keep a gap between the glyphs so that they never bleed into each other.
+        val paddedWidth = width + PADDING
+        val paddedHeight = height + PADDING
+
+        synchronized(kind) {
+            var page = kind.page
+            var position = -1
+
+            if (page != null && !page.isClosed) {
+                position = page.packer.pack(paddedWidth, paddedHeight)
+            }
+            if (position < 0) {
+                // The page is full, so publish whatever is left in it.
+                if (page != null && !page.isClosed) {
+                    page.seal()
+                }
+
+                page = Page(kind.config, pageSize, pageIds.incrementAndGet())
+                position = page.packer.pack(paddedWidth, paddedHeight)
+
+                kind.page = page
+                pageCount.incrementAndGet()
+                pageAdded(page)
+            }
+
+            val packedImage = GlyphImage(
+                bitmap, page,
+                SkylinePacker.unpackX(position), SkylinePacker.unpackY(position),
+                width, height, image.left(), image.top()
+            )
+            page!!.add(packedImage, copyPaint)
+
+            return packedImage
+        }
+    }
+
+    /**
+     * Registers a cache entry holding the packed image, along with the way to remove it when the
+     * page is evicted. Returns `false` if the page has already been closed, in which case the entry
+     * should be removed right away. Must be called with the cache lock held.
+     */
+    fun attach(image: GlyphImage, remover: () -> Unit): Boolean {
+        val page = image.page() ?: return true
+        if (page.isClosed) {
+            return false
+        }
+
+        page.holders[image] = remover
+        return true
+    }
+
+    /**
+     * Releases the region of a packed image. Releasing an image more than once has no effect.
+     * Returns `true` if the page has been closed as nothing else is left in it. Must be called with
+     * the cache lock held.
+     */
+    fun release(image: GlyphImage): Boolean {
+        val page = image.page() ?: return false
+
+        if (page.holders.remove(image) != null && page.holders.isEmpty()) {
+            return close(page)
+        }
+
+        return false
+    }
+
+    /**
+     * Closes the page so that no more glyphs are packed into it, and returns the removers of the
+     * entries still holding its images. Must be called with the cache lock held.
+     */
+    fun evict(page: Page): List<() -> Unit> {
+        close(page)
+
+        val removers = ArrayList(page.holders.values)
+        page.holders.clear()
+
+        return removers
+    }
+
+    private fun close(page: Page): Boolean {
+        if (page.isClosed) {
+            return false
+        }
+
+        // The page might still be referenced by an ongoing draw call, so let the garbage collector
+        // reclaim its bitmap instead of recycling it here.
+        page.isClosed = true
+        pageCount.decrementAndGet()
+
+        return true
+    }
+
+    companion object {
+        const val DEFAULT_PAGE_SIZE = 512
+
+        private const val PADDING = 1
+    }
+}
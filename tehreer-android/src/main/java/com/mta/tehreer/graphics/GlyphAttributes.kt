@@ -29,6 +29,8 @@ internal class GlyphAttributes {
     annotation class LineJoin
 
     private val dataKey = GlyphKey.Data()
+    private val referenceKey = GlyphKey.Data()
+    private val fieldKey = GlyphKey.Field()
     private val colorKey = GlyphKey.Color()
     private val strokeKey = GlyphKey.Stroke()
 
@@ -68,6 +70,21 @@ internal class GlyphAttributes {
         strokeKey.miterLimit = (miterLimit * 0x10000).roundToInt()
     }
 
+    /**
+     * Returns an independent copy of these attributes, such as for using them on another thread.
+     */
+    fun copy(): GlyphAttributes {
+        val attributes = GlyphAttributes()
+        attributes.dataKey.set(dataKey)
+        attributes.colorKey.foregroundColor = colorKey.foregroundColor
+        attributes.strokeKey.lineRadius = strokeKey.lineRadius
+        attributes.strokeKey.lineCap = strokeKey.lineCap
+        attributes.strokeKey.lineJoin = strokeKey.lineJoin
+        attributes.strokeKey.miterLimit = strokeKey.miterLimit
+
+        return attributes
+    }
+
     // Minimum size supported by FreeType is 64x64.
     val isRenderable: Boolean
         get() = dataKey.pixelWidth >= 64 && dataKey.pixelHeight >= 64
@@ -76,6 +93,24 @@ internal class GlyphAttributes {
         return dataKey
     }
 
+    /**
+     * Returns the key of the glyphs at the reference size of distance fields, irrespective of the
+     * actual pixel sizes.
+     */
+    fun referenceKey(): GlyphKey.Data {
+        referenceKey.typeface = dataKey.typeface
+        referenceKey.pixelWidth = GlyphCache.FIELD_REFERENCE_SIZE * 64
+        referenceKey.pixelHeight = GlyphCache.FIELD_REFERENCE_SIZE * 64
+        referenceKey.skewX = dataKey.skewX
+
+        return referenceKey
+    }
+
+    fun fieldKey(): GlyphKey.Field {
+        fieldKey.set(referenceKey())
+        return fieldKey
+    }
+
     fun colorKey(): GlyphKey.Color {
         colorKey.set(dataKey)
         return colorKey
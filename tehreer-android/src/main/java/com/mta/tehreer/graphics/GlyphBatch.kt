@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics
+
+import android.graphics.Canvas
+import android.graphics.Paint
+import android.graphics.Rect
+import android.os.Build
+
+/**
+ * Collects the packed glyph images of a run and draws the ones sharing an atlas sheet with a single
+ * call of `Canvas.drawVertices`. Each glyph is mapped as a textured quad made of two triangles.
+ */
+internal class GlyphBatch {
+    private val vertices = FloatArray(MAX_GLYPHS * 8)
+    private val textures = FloatArray(MAX_GLYPHS * 8)
+    private val indices = ShortArray(MAX_GLYPHS * 6)
+    private val sourceRect = Rect()
+    private val targetRect = Rect()
+
+    private var canvas: Canvas? = null
+    private var paint: Paint? = null
+    private var isBatchable = false
+
+    private var sheet: GlyphAtlas.Sheet? = null
+    private var glyphCount = 0
+
+    init {
+        for (i in 0 until MAX_GLYPHS) {
+            val index = i * 6
+            val vertex = i * 4
+
+            indices[index + 0] = (vertex + 0).toShort()
+            indices[index + 1] = (vertex + 1).toShort()
+            indices[index + 2] = (vertex + 2).toShort()
+            indices[index + 3] = (vertex + 2).toShort()
+            indices[index + 4] = (vertex + 1).toShort()
+            indices[index + 5] = (vertex + 3).toShort()
+        }
+    }
+
+    /**
+     * Starts drawing the glyph images on the given canvas with the given paint.
+     */
+    fun begin(canvas: Canvas, paint: Paint, hasShadow: Boolean) {
+        this.canvas = canvas
+        this.paint = paint
+        // Vertices are neither supported by hardware accelerated canvases before Android 10, nor do
+        // they cast the shadow of the paint.
+        this.isBatchable = !hasShadow && paint.shader == null
+                && (!canvas.isHardwareAccelerated || Build.VERSION.SDK_INT >= 29)
+    }
+
+    /**
+     * Draws a glyph image at the given location, either right away or as part of the current
+     * batch.
+     */
+    fun draw(image: GlyphImage, left: Int, top: Int) {
+        val canvas = canvas!!
+        val paint = paint!!
+        // Read the bitmap before the sheet as the image drops its bitmap after being published.
+        val imageBitmap = image.bitmap()
+        val imageSheet = image.sheet()
+
+        if (imageSheet == null) {
+            canvas.drawBitmap(imageBitmap!!, left.toFloat(), top.toFloat(), paint)
+            return
+        }
+
+        if (!isBatchable) {
+            val sourceLeft = image.sourceLeft()
+            val sourceTop = image.sourceTop()
+            val width = image.width()
+            val height = image.height()
+
+            sourceRect.set(sourceLeft, sourceTop, sourceLeft + width, sourceTop + height)
+            targetRect.set(left, top, left + width, top + height)
+
+            canvas.drawBitmap(imageSheet.bitmap, sourceRect, targetRect, paint)
+            return
+        }
+
+        if (sheet !== imageSheet || glyphCount == MAX_GLYPHS) {
+            flush()
+            sheet = imageSheet
+        }
+
+        addQuad(image, left.toFloat(), top.toFloat())
+    }
+
+    private fun addQuad(image: GlyphImage, left: Float, top: Float) {
+        val offset = glyphCount * 8
+        val right = left + image.width()
+        val bottom = top + image.height()
+        val sourceLeft = image.sourceLeft().toFloat()
+        val sourceTop = image.sourceTop().toFloat()
+        val sourceRight = sourceLeft + image.width()
+        val sourceBottom = sourceTop + image.height()
+
+        vertices[offset + 0] = left
+        vertices[offset + 1] = top
+        vertices[offset + 2] = right
+        vertices[offset + 3] = top
+        vertices[offset + 4] = left
+        vertices[offset + 5] = bottom
+        vertices[offset + 6] = right
+        vertices[offset + 7] = bottom
+
+        textures[offset + 0] = sourceLeft
+        textures[offset + 1] = sourceTop
+        textures[offset + 2] = sourceRight
+        textures[offset + 3] = sourceTop
+        textures[offset + 4] = sourceLeft
+        textures[offset + 5] = sourceBottom
+        textures[offset + 6] = sourceRight
+        textures[offset + 7] = sourceBottom
+
+        glyphCount += 1
+    }
+
+    private fun flush() {
+        val canvas = canvas!!
+        val paint = paint!!
+        val currentSheet = sheet
+
+        if (currentSheet != null && glyphCount > 0) {
+            val shader = paint.shader
+            paint.shader = currentSheet.shader
+
+            canvas.drawVertices(
+                Canvas.VertexMode.TRIANGLES,
+                glyphCount * 8, vertices, 0,
+                textures, 0,
+                null, 0,
+                indices, 0, glyphCount * 6,
+                paint
+            )
+
+            paint.shader = shader
+        }
+
+        sheet = null
+        glyphCount = 0
+    }
+
+    /**
+     * Draws the pending glyph images and releases the canvas.
+     */
+    fun end() {
+        flush()
+
+        canvas = null
+        paint = null
+    }
+
+    companion object {
+        private const val MAX_GLYPHS = 256
+    }
+}
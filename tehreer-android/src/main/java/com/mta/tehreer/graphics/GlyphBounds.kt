@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics
+
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.concurrent.atomic.AtomicReferenceArray
+
+/**
+ * Bounds of a glyph image packed in a single long as four 16-bit values, i.e. left, top, right and
+ * bottom, in the same layout as [GlyphImage].
+ */
+internal object GlyphBounds {
+    const val UNKNOWN = Long.MIN_VALUE
+
+    @JvmStatic
+    fun left(bounds: Long): Int {
+        return (bounds shr 48).toShort().toInt()
+    }
+
+    @JvmStatic
+    fun top(bounds: Long): Int {
+        return (bounds shr 32).toShort().toInt()
+    }
+
+    @JvmStatic
+    fun right(bounds: Long): Int {
+        return (bounds shr 16).toShort().toInt()
+    }
+
+    @JvmStatic
+    fun bottom(bounds: Long): Int {
+        return bounds.toShort().toInt()
+    }
+}
+
+/**
+ * A lock-free table of packed glyph bounds. The glyph IDs are split in pages of 256 entries which
+ * are allocated on first use, so a font only pays for the ranges of glyphs actually measured.
+ */
+internal class GlyphBoundsTable {
+    private val pages = AtomicReferenceArray<AtomicLongArray?>(PAGE_COUNT)
+
+    operator fun get(glyphId: Int): Long {
+        val page = pages.get(glyphId ushr PAGE_SHIFT) ?: return GlyphBounds.UNKNOWN
+        return page.get(glyphId and PAGE_MASK)
+    }
+
+    /**
+     * Stores the bounds of a glyph. Returns the page if it has been allocated by this call, `null`
+     * otherwise.
+     */
+    fun set(glyphId: Int, bounds: Long): AtomicLongArray? {
+        val pageIndex = pageIndex(glyphId)
+        var page = pages.get(pageIndex)
+        var newPage: AtomicLongArray? = null
+
+        while (page == null) {
+            newPage = AtomicLongArray(LongArray(PAGE_SIZE) { GlyphBounds.UNKNOWN })
+
+            if (pages.compareAndSet(pageIndex, null, newPage)) {
+                page = newPage
+            } else {
+                newPage = null
+                page = pages.get(pageIndex)
+            }
+        }
+
+        page.set(glyphId and PAGE_MASK, bounds)
+
+        return newPage
+    }
+
+    /**
+     * Drops a page unless it has been replaced already.
+     */
+    fun removePage(pageIndex: Int, page: AtomicLongArray) {
+        pages.compareAndSet(pageIndex, page, null)
+    }
+
+    companion object {
+        private const val PAGE_SHIFT = 8
+        private const val PAGE_SIZE = 1 shl PAGE_SHIFT
+        private const val PAGE_MASK = PAGE_SIZE - 1
+        private const val PAGE_COUNT = 0x10000 ushr PAGE_SHIFT
+
+        /**
+         * Estimated memory of a page, i.e. its elements along with the array header.
+         */
+        const val PAGE_BYTES = PAGE_SIZE * 8 + 16
+
+        @JvmStatic
+        fun pageIndex(glyphId: Int): Int {
+            return glyphId ushr PAGE_SHIFT
+        }
+    }
+}
@@ -18,43 +18,220 @@ package com.mta.tehreer.graphics
 
 import android.graphics.Bitmap
 import android.graphics.Path
-import androidx.annotation.GuardedBy
 import com.mta.tehreer.internal.util.LruCache
+import com.mta.tehreer.internal.util.SingleFlight
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLongArray
+
+private fun sizeOf(image: GlyphImage): Int {
+    // The pixels of a packed image are accounted with its atlas page.
+    if (image.isPacked()) {
+        return 0
+    }
 
-private fun sizeOf(bitmap: Bitmap): Int {
-    var size = bitmap.width * bitmap.height
-    if (bitmap.config == Bitmap.Config.ARGB_8888) {
+    var size = image.width() * image.height()
+    if (image.bitmap()!!.config == Bitmap.Config.ARGB_8888) {
         size *= 4
     }
 
     return size
 }
 
-internal class GlyphCache(capacity: Int) : LruCache<Int>(capacity) {
-    private class DataSegment(
-        cache: LruCache<Int>,
-        val rasterizer: GlyphRasterizer
-    ) : Segment<Int>(cache) {
+internal class GlyphCache(capacity: Int) : LruCache<Int>(capacity, POOL_COUNT) {
+    private inner class DataSegment(val key: GlyphKey) : Segment<Int>(this@GlyphCache) {
+        val rasterizer = GlyphRasterizer(key)
+        val bounds = GlyphBoundsTable()
+        val imageLoads = SingleFlight<Int>()
+        val outlineLoads = SingleFlight<Int>()
+        val pathLoads = SingleFlight<Int>()
+
+        // The number of threads using the rasterizer, along with a flag for the retirement.
+        private val state = AtomicInteger()
+
+        init {
+            rasterizerCount.incrementAndGet()
+        }
+
+        /**
+         * Marks the rasterizer as being in use. Returns `false` if the segment has been retired.
+         */
+        fun acquire(): Boolean {
+            while (true) {
+                val current = state.get()
+                if ((current and RETIRED) != 0) {
+                    return false
+                }
+                if (state.compareAndSet(current, current + 1)) {
+                    return true
+                }
+            }
+        }
+
+        fun release() {
+            if (state.decrementAndGet() == RETIRED) {
+                dispose()
+            }
+        }
+
+        /**
+         * Removes this segment from the cache. The rasterizer is disposed as soon as no thread is
+         * using it anymore.
+         */
+        fun retire() {
+            segments.remove(key, this)
+
+            while (true) {
+                val current = state.get()
+                if ((current and RETIRED) != 0) {
+                    return
+                }
+                if (state.compareAndSet(current, current or RETIRED)) {
+                    if (current == 0) {
+                        dispose()
+                    }
+                    return
+                }
+            }
+        }
+
+        private fun dispose() {
+            rasterizer.dispose()
+            rasterizerCount.decrementAndGet()
+        }
+
+        fun putBounds(glyphId: Int, glyphBounds: Long) {
+            val newPage = bounds.set(glyphId, glyphBounds)
+            if (newPage != null) {
+                // Let the LRU account and evict the bounds pages like the glyphs.
+                put(boundsPageKey(GlyphBoundsTable.pageIndex(glyphId)), newPage)
+            }
+        }
+
         override fun sizeOf(key: Int, value: Any?): Int {
+            if (key < 0) {
+                return GlyphBoundsTable.PAGE_BYTES + NODE_OVERHEAD
+            }
+            if (key >= PATH_KEY_OFFSET) {
+                return PATH_ENTRY_SIZE
+            }
+
             val glyphImage = (value as Glyph).image
-            val size = glyphImage?.let { sizeOf(it.bitmap()) } ?: 0
+            val size = glyphImage?.let { sizeOf(it) } ?: 0
 
-            return size + ESTIMATED_OVERHEAD
+            return size + DATA_ENTRY_OVERHEAD
         }
 
-        companion object {
-            private const val ESTIMATED_OVERHEAD =
-                (GLYPH_IMAGE_OVERHEAD + GLYPH_OVERHEAD + NODE_OVERHEAD)
+        override fun poolOf(key: Int, value: Any?): Int {
+            if (key < 0) {
+                return POOL_MASK
+            }
+            if (key >= PATH_KEY_OFFSET) {
+                return POOL_PATH
+            }
+
+            return if ((value as Glyph).type == Glyph.TYPE_COLOR) POOL_COLOR else POOL_MASK
+        }
+
+        override fun entryRemoved(key: Int, oldValue: Any?, newValue: Any?) {
+            if (key < 0) {
+                bounds.removePage(boundsPageIndex(key), oldValue as AtomicLongArray)
+            } else if (key < PATH_KEY_OFFSET) {
+                val oldImage = (oldValue as Glyph).image
+                val newImage = (newValue as Glyph?)?.image
+
+                if (oldImage != null && oldImage !== newImage) {
+                    releaseImage(oldImage)
+                }
+            }
+
+            if (isEmpty) {
+                retire()
+            }
+        }
+
+        override fun entryAdded(key: Int, value: Any?) {
+            if (key >= 0 && key < PATH_KEY_OFFSET) {
+                val image = (value as Glyph).image
+                if (image != null) {
+                    attachImage(image) { remove(key, value) }
+                }
+            }
+        }
+    }
+
+    private inner class ImageSegment(
+        val key: GlyphKey,
+        private val pool: Int
+    ) : Segment<Int>(this@GlyphCache) {
+        val loads = SingleFlight<Int>()
+
+        override fun sizeOf(key: Int, value: Any?): Int {
+            // The glyphs without a distance field are remembered with a marker.
+            if (value !is GlyphImage) {
+                return NODE_OVERHEAD
+            }
+
+            return sizeOf(value) + IMAGE_ENTRY_OVERHEAD
+        }
+
+        override fun poolOf(key: Int, value: Any?): Int {
+            return pool
+        }
+
+        override fun entryRemoved(key: Int, oldValue: Any?, newValue: Any?) {
+            if (oldValue !== newValue && oldValue is GlyphImage) {
+                releaseImage(oldValue)
+            }
+
+            if (isEmpty) {
+                segments.remove(this.key, this)
+
+                if (pool == POOL_FIELD) {
+                    retireReference()
+                }
+            }
+        }
+
+        override fun entryAdded(key: Int, value: Any?) {
+            if (value is GlyphImage) {
+                attachImage(value) { remove(key, value) }
+            }
+        }
+
+        /**
+         * Retires the segment whose rasterizer loaded the fields. It only serves the fields unless
+         * the glyphs are drawn at the reference size too, so it usually has no entry of its own
+         * that would retire it.
+         */
+        private fun retireReference() {
+            val referenceKey = GlyphKey.Data()
+            referenceKey.set(key as GlyphKey.Field)
+
+            val reference = segments[referenceKey] as DataSegment?
+            if (reference != null && reference.isEmpty) {
+                reference.retire()
+            }
         }
     }
 
-    private class ImageSegment(cache: LruCache<Int>) : Segment<Int>(cache) {
+    private inner class PageSegment : Segment<Int>(this@GlyphCache) {
         override fun sizeOf(key: Int, value: Any?): Int {
-            return sizeOf((value as GlyphImage).bitmap()) + ESTIMATED_OVERHEAD
+            return (value as GlyphAtlas.Page).byteCount + NODE_OVERHEAD
         }
 
-        companion object {
-            private const val ESTIMATED_OVERHEAD = GLYPH_IMAGE_OVERHEAD + NODE_OVERHEAD
+        override fun poolOf(key: Int, value: Any?): Int {
+            val page = value as GlyphAtlas.Page
+            return if (page.config == Bitmap.Config.ALPHA_8) POOL_MASK else POOL_COLOR
+        }
+
+        override fun entryRemoved(key: Int, oldValue: Any?, newValue: Any?) {
+            if (oldValue !== newValue) {
+                // Evict the glyphs still drawn from the page so that its bitmap can be reclaimed.
+                for (remover in atlas.evict(oldValue as GlyphAtlas.Page)) {
+                    remover()
+                }
+            }
         }
     }
 
@@ -67,44 +244,144 @@ internal class GlyphCache(capacity: Int) : LruCache<Int>(capacity) {
         }
     }
 
-    private val segments = HashMap<GlyphKey, Segment<Int>>()
+    private val segments = ConcurrentHashMap<GlyphKey, Segment<Int>>()
+    private val rasterizerCount = AtomicInteger()
+    private val metrics = GlyphCacheMetrics()
+    private val pageSegment = PageSegment()
+    private val atlas = GlyphAtlas(GlyphAtlas.DEFAULT_PAGE_SIZE) { page ->
+        pageSegment.put(page.id, page)
+    }
+
+    /**
+     * Whether the newly rasterized glyph images are packed into shared atlas pages.
+     */
+    @Volatile var isAtlasEnabled = false
+
+    /**
+     * The number of atlas pages holding at least one cached glyph image.
+     */
+    val atlasPageCount: Int
+        get() = atlas.livePageCount
+
+    /**
+     * The number of segments, one for each combination of glyph attributes in use.
+     */
+    val segmentCount: Int
+        get() = segments.size
+
+    /**
+     * The number of native rasterizers that have not been disposed yet.
+     */
+    val liveRasterizerCount: Int
+        get() = rasterizerCount.get()
 
     override fun clear() {
         super.clear()
 
-        // Dispose all glyph rasterizers.
+        // Retire the segments which never had an entry.
         for ((_, value) in segments) {
             if (value is DataSegment) {
-                value.rasterizer.dispose()
+                value.retire()
             }
         }
 
         segments.clear()
     }
 
-    @GuardedBy("this")
-    private fun secureDataSegment(key: GlyphKey): DataSegment {
-        var segment = segments[key] as DataSegment?
-        if (segment == null) {
-            segment = DataSegment(this, GlyphRasterizer(key))
-            segments[key.copy()] = segment
+    private inline fun <R> withDataSegment(key: GlyphKey, action: (DataSegment) -> R): R {
+        val segment = acquireDataSegment(key)
+
+        try {
+            return action(segment)
+        } finally {
+            segment.release()
         }
+    }
 
-        return segment
+    private fun acquireDataSegment(key: GlyphKey): DataSegment {
+        while (true) {
+            var segment = segments[key] as DataSegment?
+            if (segment == null) {
+                val keyCopy = key.copy()
+                val newSegment = DataSegment(keyCopy)
+
+                segment = segments.putIfAbsent(keyCopy, newSegment) as DataSegment?
+                if (segment == null) {
+                    segment = newSegment
+                } else {
+                    // Another thread has created the segment in the meantime.
+                    newSegment.retire()
+                }
+            }
+
+            // The segment might have been retired after being looked up, so try again.
+            if (segment.acquire()) {
+                return segment
+            }
+        }
     }
 
-    @GuardedBy("this")
-    private fun secureImageSegment(key: GlyphKey): ImageSegment {
+    private fun secureImageSegment(key: GlyphKey, pool: Int): ImageSegment {
         var segment = segments[key] as ImageSegment?
         if (segment == null) {
-            segment = ImageSegment(this)
-            segments[key.copy()] = segment
+            val keyCopy = key.copy()
+            val newSegment = ImageSegment(keyCopy, pool)
+
+            segment = segments.putIfAbsent(keyCopy, newSegment) as ImageSegment?
+            if (segment == null) {
+                segment = newSegment
+            }
         }
 
         return segment
     }
 
-    @GuardedBy("this")
+    fun snapshotStats(reset: Boolean): GlyphCacheStats {
+        return metrics.snapshot(this, reset)
+    }
+
+    private fun attachImage(image: GlyphImage, remover: () -> Unit) {
+        if (!atlas.attach(image, remover)) {
+            // The page has been evicted while the image was being cached.
+            remover()
+        }
+    }
+
+    private fun releaseImage(image: GlyphImage) {
+        if (atlas.release(image)) {
+            pageSegment.remove(image.page()!!.id)
+        }
+    }
+
+    /**
+     * Marks the atlas page of a cached image as recently used along with the image.
+     */
+    private fun touchPage(image: GlyphImage?) {
+        val page = image?.page()
+        if (page != null) {
+            pageSegment[page.id]
+        }
+    }
+
+    private fun packImage(image: GlyphImage?): GlyphImage? {
+        if (image != null && isAtlasEnabled && canHoldPage(image.bitmap()!!.config)) {
+            return atlas.pack(image)
+        }
+
+        return image
+    }
+
+    /**
+     * Returns whether a whole atlas page fits in the budget, so that adding a page never evicts
+     * the page itself along with the glyph just packed into it.
+     */
+    private fun canHoldPage(config: Bitmap.Config): Boolean {
+        val pool = if (config == Bitmap.Config.ALPHA_8) POOL_MASK else POOL_COLOR
+        val pageBytes = atlas.pageByteCount(config) + NODE_OVERHEAD
+
+        return pageBytes <= capacity() && pageBytes <= poolCapacity(pool)
+    }
+
     private fun secureGlyph(segment: DataSegment, glyphId: Int): Glyph {
         var glyph = segment[glyphId] as Glyph?
         if (glyph == null) {
@@ -119,62 +396,112 @@ internal class GlyphCache(capacity: Int) : LruCache<Int>(capacity) {
         rasterizer: GlyphRasterizer,
         glyphId: Int
     ): GlyphImage? {
-        val segment: ImageSegment
-        var coloredImage: GlyphImage?
-
-        synchronized(this) {
-            segment = secureImageSegment(key)
-            coloredImage = segment[glyphId] as GlyphImage?
-        }
-
-        if (coloredImage == null) {
-            coloredImage = rasterizer.getGlyphImage(glyphId, key.foregroundColor)
-
-            if (coloredImage != null) {
-                synchronized(this) {
-                    segment.remove(glyphId)
-                    segment.put(glyphId, coloredImage)
+        val segment = secureImageSegment(key, POOL_COLOR)
+        var coloredImage = segment[glyphId] as GlyphImage?
+
+        if (coloredImage != null) {
+            touchPage(coloredImage)
+            metrics.recordHit(GlyphCacheStats.Kind.COLOR)
+        } else {
+            metrics.recordMiss(GlyphCacheStats.Kind.COLOR)
+
+            coloredImage = segment.loads.execute(glyphId) {
+                var image = segment[glyphId] as GlyphImage?
+                if (image == null) {
+                    image = packImage(
+                        metrics.measureRasterization {
+                            rasterizer.getGlyphImage(glyphId, key.foregroundColor)
+                        }
+                    )
+
+                    if (image != null) {
+                        segment.put(glyphId, image)
+                    }
                 }
+
+                image
             }
         }
 
         return coloredImage
     }
 
-    fun getGlyphImage(attributes: GlyphAttributes, glyphId: Int): GlyphImage? {
-        val segment: DataSegment
-        val glyph: Glyph
+    /**
+     * Returns the packed bounds of the glyph image without rasterizing it.
+     */
+    fun getGlyphBounds(attributes: GlyphAttributes, glyphId: Int): Long {
+        return withDataSegment(attributes.dataKey()) { segment ->
+            var glyphBounds = segment.bounds[glyphId]
 
-        synchronized(this) {
-            segment = secureDataSegment(attributes.dataKey())
-            glyph = secureGlyph(segment, glyphId)
-        }
+            if (glyphBounds != GlyphBounds.UNKNOWN) {
+                metrics.recordHit(GlyphCacheStats.Kind.BOUNDS)
+            } else {
+                metrics.recordMiss(GlyphCacheStats.Kind.BOUNDS)
 
-        if (!glyph.isLoaded) {
-            val glyphType = segment.rasterizer.getGlyphType(glyphId)
-            var glyphImage: GlyphImage? = null
-
-            if (glyphType != Glyph.TYPE_MIXED) {
-                glyphImage = segment.rasterizer.getGlyphImage(glyphId)
+                glyphBounds = metrics.measureRasterization {
+                    segment.rasterizer.getGlyphBounds(glyphId)
+                }
+                segment.putBounds(glyphId, glyphBounds)
             }
 
-            synchronized(this) {
-                if (!glyph.isLoaded) {
-                    segment.remove(glyphId)
-
-                    glyph.type = glyphType
-                    glyph.image = glyphImage
+            glyphBounds
+        }
+    }
 
-                    segment.put(glyphId, glyph)
+    fun getGlyphImage(attributes: GlyphAttributes, glyphId: Int): GlyphImage? {
+        return withDataSegment(attributes.dataKey()) { segment ->
+            var glyph = secureGlyph(segment, glyphId)
+            val isHit = glyph.isLoaded
+
+            if (!isHit) {
+                glyph = segment.imageLoads.execute(glyphId) {
+                    val pending = secureGlyph(segment, glyphId)
+                    if (!pending.isLoaded) {
+                        val glyphType = segment.rasterizer.getGlyphType(glyphId)
+                        var glyphImage: GlyphImage? = null
+
+                        if (glyphType != Glyph.TYPE_MIXED) {
+                            glyphImage = packImage(
+                                metrics.measureRasterization {
+                                    segment.rasterizer.getGlyphImage(glyphId)
+                                }
+                            )
+                        }
+
+                        synchronized(pending) {
+                            if (!pending.isLoaded) {
+                                pending.image = glyphImage
+                                pending.type = glyphType
+
+                                segment.put(glyphId, pending)
+                            }
+                        }
+                    }
+
+                    pending
                 }
             }
-        }
 
-        if (glyph.type == Glyph.TYPE_MIXED) {
-            return getColoredImage(attributes.colorKey(), segment.rasterizer, glyphId)
-        }
+            if (glyph.type == Glyph.TYPE_MIXED) {
+                // The colored image keeps its own statistics.
+                getColoredImage(attributes.colorKey(), segment.rasterizer, glyphId)
+            } else {
+                val kind = if (glyph.type == Glyph.TYPE_MASK) {
+                    GlyphCacheStats.Kind.MASK
+                } else {
+                    GlyphCacheStats.Kind.COLOR
+                }
+
+                if (isHit) {
+                    touchPage(glyph.image)
+                    metrics.recordHit(kind)
+                } else {
+                    metrics.recordMiss(kind)
+                }
 
-        return glyph.image
+                glyph.image
+            }
+        }
     }
 
     private fun getStrokeImage(
@@ -183,25 +510,33 @@ internal class GlyphCache(capacity: Int) : LruCache<Int>(capacity) {
         outline: GlyphOutline,
         glyphId: Int
     ): GlyphImage? {
-        val segment: ImageSegment
-        var strokeImage: GlyphImage?
-
-        synchronized(this) {
-            segment = secureImageSegment(key)
-            strokeImage = segment[glyphId] as GlyphImage?
-        }
-
-        if (strokeImage == null) {
-            strokeImage = rasterizer.getStrokeImage(
-                outline,
-                key.lineRadius, key.lineCap, key.lineJoin, key.miterLimit
-            )
-
-            if (strokeImage != null) {
-                synchronized(this) {
-                    segment.remove(glyphId)
-                    segment.put(glyphId, strokeImage!!)
+        val segment = secureImageSegment(key, POOL_STROKE)
+        var strokeImage = segment[glyphId] as GlyphImage?
+
+        if (strokeImage != null) {
+            touchPage(strokeImage)
+            metrics.recordHit(GlyphCacheStats.Kind.STROKE)
+        } else {
+            metrics.recordMiss(GlyphCacheStats.Kind.STROKE)
+
+            strokeImage = segment.loads.execute(glyphId) {
+                var image = segment[glyphId] as GlyphImage?
+                if (image == null) {
+                    image = packImage(
+                        metrics.measureRasterization {
+                            rasterizer.getStrokeImage(
+                                outline,
+                                key.lineRadius, key.lineCap, key.lineJoin, key.miterLimit
+                            )
+                        }
+                    )
+
+                    if (image != null) {
+                        segment.put(glyphId, image)
+                    }
                 }
+
+                image
             }
         }
 
@@ -209,80 +544,186 @@ internal class GlyphCache(capacity: Int) : LruCache<Int>(capacity) {
     }
 
     fun getStrokeImage(attributes: GlyphAttributes, glyphId: Int): GlyphImage? {
-        val segment: DataSegment
-        val glyph: Glyph
+        return withDataSegment(attributes.dataKey()) { segment ->
+            val glyph = secureGlyph(segment, glyphId)
+
+            var glyphOutline = glyph.outline
+            if (glyphOutline == null) {
+                glyphOutline = segment.outlineLoads.execute(glyphId) {
+                    val pending = secureGlyph(segment, glyphId)
+                    var outline = pending.outline
+
+                    if (outline == null) {
+                        outline = metrics.measureRasterization {
+                            segment.rasterizer.getGlyphOutline(glyphId)
+                        }
+
+                        synchronized(pending) {
+                            if (pending.outline == null) {
+                                pending.outline = outline
+                                segment.put(glyphId, pending)
+                            }
+                        }
+                    }
+
+                    outline
+                }
+            }
 
-        synchronized(this) {
-            segment = secureDataSegment(attributes.dataKey())
-            glyph = secureGlyph(segment, glyphId)
+            if (glyphOutline != null) {
+                getStrokeImage(
+                    attributes.strokeKey(), segment.rasterizer,
+                    glyphOutline, glyphId
+                )
+            } else {
+                null
+            }
         }
+    }
 
-        var glyphOutline = glyph.outline
-        if (glyphOutline == null) {
-            glyphOutline = segment.rasterizer.getGlyphOutline(glyphId)
-
-            synchronized(this) {
-                if (glyph.outline == null) {
-                    segment.remove(glyphId)
-                    glyph.outline = glyphOutline
-                    segment.put(glyphId, glyph)
-                }
-            }
+    private fun loadField(rasterizer: GlyphRasterizer, glyphId: Int): Any {
+        if (rasterizer.getGlyphType(glyphId) != Glyph.TYPE_MASK) {
+            return UNSUPPORTED_FIELD
         }
 
-        if (glyphOutline != null) {
-            return getStrokeImage(
-                attributes.strokeKey(), segment.rasterizer,
-                glyphOutline, glyphId
-            )
+        val glyphBounds = rasterizer.getGlyphBounds(glyphId)
+        if (GlyphBounds.left(glyphBounds) == GlyphBounds.right(glyphBounds)) {
+            return EMPTY_FIELD
         }
 
-        return null
+        return metrics.measureRasterization {
+            rasterizer.getFieldImage(glyphId)
+        } ?: UNSUPPORTED_FIELD
     }
 
-    fun getGlyphPath(attributes: GlyphAttributes, glyphId: Int): Path {
-        val segment: DataSegment
-        val glyph: Glyph
+    private fun lookupField(attributes: GlyphAttributes, glyphId: Int, isRecorded: Boolean): Any {
+        val segment = secureImageSegment(attributes.fieldKey(), POOL_FIELD)
+        var field = segment[glyphId]
+
+        if (field != null) {
+            if (isRecorded) {
+                metrics.recordHit(GlyphCacheStats.Kind.DISTANCE_FIELD)
+            }
+        } else {
+            if (isRecorded) {
+                metrics.recordMiss(GlyphCacheStats.Kind.DISTANCE_FIELD)
+            }
+
+            field = segment.loads.execute(glyphId) {
+                var pending = segment[glyphId]
+                if (pending == null) {
+                    // The fields are rasterized once at the reference size and scaled while drawing.
+                    pending = withDataSegment(attributes.referenceKey()) { reference ->
+                        loadField(reference.rasterizer, glyphId)
+                    }
+                    segment.put(glyphId, pending)
+                }
 
-        synchronized(this) {
-            segment = secureDataSegment(attributes.dataKey())
-            glyph = secureGlyph(segment, glyphId)
+                pending
+            }
         }
 
-        var glyphPath = glyph.path
-        if (glyphPath == null) {
-            glyphPath = segment.rasterizer.getGlyphPath(glyphId)
+        return field
+    }
+
+    /**
+     * Returns the distance field of the glyph at the reference size, or `null` if the glyph is
+     * either empty or cannot be drawn as a distance field.
+     */
+    fun getFieldImage(attributes: GlyphAttributes, glyphId: Int): GlyphImage? {
+        return lookupField(attributes, glyphId, true) as? GlyphImage
+    }
+
+    /**
+     * Returns `false` if the glyph needs to be drawn with its regular image, such as a colored
+     * glyph, instead of a distance field.
+     */
+    fun isFieldSupported(attributes: GlyphAttributes, glyphId: Int): Boolean {
+        return lookupField(attributes, glyphId, false) !== UNSUPPORTED_FIELD
+    }
 
-            synchronized(this) {
-                if (glyph.path == null) {
-                    segment.remove(glyphId)
-                    glyph.path = glyphPath
-                    segment.put(glyphId, glyph)
+    fun getGlyphPath(attributes: GlyphAttributes, glyphId: Int): Path {
+        return withDataSegment(attributes.dataKey()) { segment ->
+            val pathKey = pathKey(glyphId)
+            var glyphPath = segment[pathKey] as Path?
+
+            if (glyphPath != null) {
+                metrics.recordHit(GlyphCacheStats.Kind.PATH)
+            } else {
+                metrics.recordMiss(GlyphCacheStats.Kind.PATH)
+
+                glyphPath = segment.pathLoads.execute(glyphId) {
+                    var path = segment[pathKey] as Path?
+                    if (path == null) {
+                        path = metrics.measureRasterization {
+                            segment.rasterizer.getGlyphPath(glyphId)
+                        }
+                        segment.put(pathKey, path)
+                    }
+
+                    path
                 }
             }
-        }
 
-        return glyphPath
+            glyphPath
+        }
     }
 
     companion object {
+        const val POOL_MASK = 0
+        const val POOL_COLOR = 1
+        const val POOL_STROKE = 2
+        const val POOL_PATH = 3
+        const val POOL_FIELD = 4
+        private const val POOL_COUNT = 5
+
+        /**
+         * The size in pixels at which the distance fields are rasterized.
+         */
+        const val FIELD_REFERENCE_SIZE = 64
+
+        /**
+         * The distance in pixels covered by the distance fields on each side of an outline, as
+         * configured in the native FreeType library.
+         */
+        const val FIELD_SPREAD = 8
+
+        private val EMPTY_FIELD = Any()
+        private val UNSUPPORTED_FIELD = Any()
+
+        private const val RETIRED = 1 shl 31
+
         //
         // GlyphImage:
-        //  - 1 pointer for bitmap
-        //  - 2 integers for left and right
+        //  - 3 pointers for bitmap, sheet and page
+        //  - 6 integers for source rectangle, left and top
         //
-        // Size: (1 * 4) + (2 * 4) = 12
+        // Size: (3 * 4) + (6 * 4) = 36
         //
-        private const val GLYPH_IMAGE_OVERHEAD = 12
+        private const val GLYPH_IMAGE_OVERHEAD = 36
 
         //
         // Glyph:
-        //  - 3 pointers for image, outline and path
+        //  - 2 pointers for image and outline
         //  - 1 integer for type
         //
-        // Size: (3 * 4) + (1 * 4) = 16
+        // Size: (2 * 4) + (1 * 4) = 12
         //
-        private const val GLYPH_OVERHEAD = 16
+        private const val GLYPH_OVERHEAD = 12
+
+        // The native memory of a path is not known, so assume a moderately complex outline.
+        private const val PATH_ENTRY_SIZE = 1024 + NODE_OVERHEAD
+
+        private const val DATA_ENTRY_OVERHEAD = GLYPH_IMAGE_OVERHEAD + GLYPH_OVERHEAD + NODE_OVERHEAD
+        private const val IMAGE_ENTRY_OVERHEAD = GLYPH_IMAGE_OVERHEAD + NODE_OVERHEAD
+
+        // The bounds pages are kept along with the glyphs, under the negative keys.
+        private fun boundsPageKey(pageIndex: Int) = -1 - pageIndex
+        private fun boundsPageIndex(key: Int) = -1 - key
+
+        // The paths are kept along with the glyphs, under the keys beyond the glyph ID range.
+        private const val PATH_KEY_OFFSET = 0x10000
+        private fun pathKey(glyphId: Int) = PATH_KEY_OFFSET + glyphId
 
         @JvmStatic
         val instance: GlyphCache
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics;
+
+import android.content.ComponentCallbacks2;
+
+import androidx.annotation.NonNull;
+
+import static com.mta.tehreer.internal.util.Preconditions.checkArgument;
+import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
+
+/**
+ * Controls the memory used by the glyph cache shared by all renderers.
+ * <p>
+ * By default, the cache is allowed to use one eighth of the maximum heap memory, shared freely by
+ * all kinds of entries. A separate budget can additionally be set for each kind of entries so that,
+ * for example, large color images cannot push out the mask images of regular text.
+ * <p>
+ * The configuration can be changed at any time. Shrinking a capacity or a budget evicts the least
+ * recently used entries right away.
+ */
+public final class GlyphCacheConfig {
+    /**
+     * Specifies the kind of entries having a separate budget in the glyph cache.
+     */
+    public enum Budget {
+        /**
+         * The alpha mask images of glyphs along with their outlines and bounding boxes.
+         */
+        MASK(GlyphCache.POOL_MASK),
+        /**
+         * The colored images of glyphs, either bitmaps or composed of colored layers.
+         */
+        COLOR(GlyphCache.POOL_COLOR),
+        /**
+         * The stroke images of glyphs.
+         */
+        STROKE(GlyphCache.POOL_STROKE),
+        /**
+         * The paths of glyphs.
+         */
+        PATH(GlyphCache.POOL_PATH),
+        /**
+         * The distance fields of glyphs.
+         */
+        DISTANCE_FIELD(GlyphCache.POOL_FIELD);
+
+        final int pool;
+
+        Budget(int pool) {
+            this.pool = pool;
+        }
+    }
+
+    private GlyphCacheConfig() {
+    }
+
+    /**
+     * Returns the maximum number of bytes the glyph cache is allowed to use.
+     *
+     * @return The capacity of the glyph cache in bytes.
+     */
+    public static int getCapacity() {
+        return GlyphCache.getInstance().capacity();
+    }
+
+    /**
+     * Sets the maximum number of bytes the glyph cache is allowed to use.
+     *
+     * @param capacity The capacity of the glyph cache in bytes.
+     *
+     * @throws IllegalArgumentException if <code>capacity</code> is not positive.
+     */
+    public static void setCapacity(int capacity) {
+        checkArgument(capacity > 0, "Capacity is not positive: " + capacity);
+        GlyphCache.getInstance().setCapacity(capacity);
+    }
+
+    /**
+     * Returns the maximum number of bytes the specified kind of entries are allowed to use. Unless
+     * set, a budget is unlimited and returned as {@link Integer#MAX_VALUE}, so the kind of entries
+     * is only bounded by the overall capacity of the glyph cache, even after it is changed.
+     *
+     * @param budget The kind of entries.
+     * @return The budget in bytes.
+     */
+    public static int getBudget(@NonNull Budget budget) {
+        checkNotNull(budget);
+        return GlyphCache.getInstance().poolCapacity(budget.pool);
+    }
+
+    /**
+     * Sets the maximum number of bytes the specified kind of entries are allowed to use. The
+     * entries still count towards the overall capacity of the glyph cache.
+     *
+     * @param budget The kind of entries.
+     * @param capacity The budget in bytes.
+     *
+     * @throws IllegalArgumentException if <code>capacity</code> is negative.
+     */
+    public static void setBudget(@NonNull Budget budget, int capacity) {
+        checkNotNull(budget);
+        checkArgument(capacity >= 0, "Capacity is negative: " + capacity);
+        GlyphCache.getInstance().setPoolCapacity(budget.pool, capacity);
+    }
+
+    /**
+     * Returns the estimated number of bytes currently used by the specified kind of entries.
+     *
+     * @param budget The kind of entries.
+     * @return The used size in bytes.
+     */
+    public static int getUsedSize(@NonNull Budget budget) {
+        checkNotNull(budget);
+        return GlyphCache.getInstance().poolSize(budget.pool);
+    }
+
+    /**
+     * Releases the cached glyphs according to the given memory trim level. It is meant to be
+     * called from {@link ComponentCallbacks2#onTrimMemory(int)} of the application or an activity.
+     * <p>
+     * The cache is emptied once the process is likely to be killed, and is shrunk proportionally
+     * for the lower levels, each level trimming at least as much as the ones below it. The
+     * capacity itself remains unchanged, so the cache can grow back as soon as the glyphs are
+     * needed again.
+     *
+     * @param level The trim level received by {@link ComponentCallbacks2#onTrimMemory(int)}.
+     */
+    public static void onTrimMemory(int level) {
+        GlyphCache cache = GlyphCache.getInstance();
+        int capacity = cache.capacity();
+        int targetSize;
+
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE) {
+            targetSize = 0;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            targetSize = capacity / 8;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            targetSize = capacity / 4;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            targetSize = capacity / 2;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            targetSize = capacity / 4 * 3;
+        } else {
+            return;
+        }
+
+        if (targetSize == 0) {
+            cache.clear();
+        } else {
+            cache.trimToSize(targetSize);
+        }
+    }
+}
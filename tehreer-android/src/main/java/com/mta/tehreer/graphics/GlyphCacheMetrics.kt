@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics
+
+import com.mta.tehreer.internal.util.StripedCounter
+
+/**
+ * Collects the statistics of a glyph cache without taking any lock.
+ */
+internal class GlyphCacheMetrics {
+    private val kindCount = GlyphCacheStats.Kind.values().size
+    private val hitCounters = Array(kindCount) { StripedCounter() }
+    private val missCounters = Array(kindCount) { StripedCounter() }
+    private val rasterizationCounter = StripedCounter()
+    private val rasterizationTime = StripedCounter()
+    private val rasterizationHistogram = Array(GlyphCacheStats.HISTOGRAM_SIZE) { StripedCounter() }
+
+    @Volatile private var evictionBaseline = 0L
+
+    fun recordHit(kind: GlyphCacheStats.Kind) {
+        hitCounters[kind.ordinal].increment()
+    }
+
+    fun recordMiss(kind: GlyphCacheStats.Kind) {
+        missCounters[kind.ordinal].increment()
+    }
+
+    fun recordRasterization(nanos: Long) {
+        rasterizationCounter.increment()
+        rasterizationTime.add(nanos)
+        rasterizationHistogram[GlyphCacheStats.histogramBucket(nanos)].increment()
+    }
+
+    inline fun <R> measureRasterization(action: () -> R): R {
+        val startTime = System.nanoTime()
+
+        try {
+            return action()
+        } finally {
+            recordRasterization(System.nanoTime() - startTime)
+        }
+    }
+
+    fun snapshot(cache: GlyphCache, reset: Boolean): GlyphCacheStats {
+        fun sum(counter: StripedCounter) = if (reset) counter.sumThenReset() else counter.sum()
+
+        val hitCounts = LongArray(kindCount) { sum(hitCounters[it]) }
+        val missCounts = LongArray(kindCount) { sum(missCounters[it]) }
+        val histogram = LongArray(GlyphCacheStats.HISTOGRAM_SIZE) { sum(rasterizationHistogram[it]) }
+
+        val evictionCount = cache.evictionCount()
+        val evictionDelta = evictionCount - evictionBaseline
+        if (reset) {
+            evictionBaseline = evictionCount
+        }
+
+        return GlyphCacheStats(
+            hitCounts, missCounts, evictionDelta,
+            cache.size(), cache.capacity(),
+            cache.segmentCount, cache.liveRasterizerCount,
+            sum(rasterizationCounter), sum(rasterizationTime), histogram
+        )
+    }
+}
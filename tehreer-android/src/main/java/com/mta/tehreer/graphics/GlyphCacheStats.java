@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics;
+
+import androidx.annotation.NonNull;
+
+import static com.mta.tehreer.internal.util.Preconditions.checkArgument;
+import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
+
+/**
+ * An immutable snapshot of the statistics of the glyph cache shared by all renderers.
+ * <p>
+ * The statistics are collected without any locking so that they can be kept enabled in release
+ * builds. As a consequence, the individual values of a snapshot are not guaranteed to be captured
+ * at exactly the same instant.
+ */
+public final class GlyphCacheStats {
+    static final int HISTOGRAM_SIZE = 40;
+
+    /**
+     * Specifies the kind of data looked up in the glyph cache.
+     */
+    public enum Kind {
+        /**
+         * The alpha mask image of a glyph.
+         */
+        MASK,
+        /**
+         * The colored image of a glyph, either a bitmap or composed of colored layers.
+         */
+        COLOR,
+        /**
+         * The stroke image of a glyph.
+         */
+        STROKE,
+        /**
+         * The path of a glyph.
+         */
+        PATH,
+        /**
+         * The bounding box of a glyph.
+         */
+        BOUNDS,
+        /**
+         * The distance field of a glyph.
+         */
+        DISTANCE_FIELD,
+    }
+
+    private final @NonNull long[] mHitCounts;
+    private final @NonNull long[] mMissCounts;
+    private final long mEvictionCount;
+    private final int mSize;
+    private final int mCapacity;
+    private final int mSegmentCount;
+    private final int mRasterizerCount;
+    private final long mRasterizationCount;
+    private final long mRasterizationTime;
+    private final @NonNull long[] mRasterizationHistogram;
+
+    GlyphCacheStats(@NonNull long[] hitCounts, @NonNull long[] missCounts, long evictionCount,
+                    int size, int capacity, int segmentCount, int rasterizerCount,
+                    long rasterizationCount, long rasterizationTime,
+                    @NonNull long[] rasterizationHistogram) {
+        mHitCounts = hitCounts;
+        mMissCounts = missCounts;
+        mEvictionCount = evictionCount;
+        mSize = size;
+        mCapacity = capacity;
+        mSegmentCount = segmentCount;
+        mRasterizerCount = rasterizerCount;
+        mRasterizationCount = rasterizationCount;
+        mRasterizationTime = rasterizationTime;
+        mRasterizationHistogram = rasterizationHistogram;
+    }
+
+    static int histogramBucket(long nanos) {
+        int bucket = 63 - Long.numberOfLeadingZeros(Math.max(nanos, 1));
+        return Math.min(bucket, HISTOGRAM_SIZE - 1);
+    }
+
+    /**
+     * Takes a snapshot of the current statistics of the glyph cache.
+     *
+     * @return A new snapshot of the glyph cache statistics.
+     */
+    public static @NonNull GlyphCacheStats snapshot() {
+        return GlyphCache.getInstance().snapshotStats(false);
+    }
+
+    /**
+     * Takes a snapshot of the current statistics of the glyph cache and resets all the counters so
+     * that the next snapshot only covers the activity happening afterwards. The size, capacity and
+     * number of segments and rasterizers are not affected by the reset.
+     *
+     * @return A new snapshot of the glyph cache statistics.
+     */
+    public static @NonNull GlyphCacheStats snapshotAndReset() {
+        return GlyphCache.getInstance().snapshotStats(true);
+    }
+
+    /**
+     * Returns the number of lookups of the specified kind which were served from the cache.
+     *
+     * @param kind The kind of lookups.
+     * @return The number of cache hits.
+     */
+    public long getHitCount(@NonNull Kind kind) {
+        checkNotNull(kind);
+        return mHitCounts[kind.ordinal()];
+    }
+
+    /**
+     * Returns the number of lookups of the specified kind which required loading the data from
+     * the font.
+     *
+     * @param kind The kind of lookups.
+     * @return The number of cache misses.
+     */
+    public long getMissCount(@NonNull Kind kind) {
+        checkNotNull(kind);
+        return mMissCounts[kind.ordinal()];
+    }
+
+    /**
+     * Returns the fraction of lookups of all kinds which were served from the cache.
+     *
+     * @return The hit rate ranging from 0 to 1, or 0 if no lookup has been made.
+     */
+    public float getHitRate() {
+        long hitCount = 0;
+        long missCount = 0;
+
+        for (int i = 0; i < mHitCounts.length; i++) {
+            hitCount += mHitCounts[i];
+            missCount += mMissCounts[i];
+        }
+
+        long lookupCount = hitCount + missCount;
+        return (lookupCount == 0 ? 0.0f : (float) hitCount / lookupCount);
+    }
+
+    /**
+     * Returns the number of entries evicted from the cache to stay within its capacity.
+     *
+     * @return The number of evictions.
+     */
+    public long getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    /**
+     * Returns the estimated number of bytes used by the cached entries.
+     *
+     * @return The size of the cache in bytes.
+     */
+    public int getSize() {
+        return mSize;
+    }
+
+    /**
+     * Returns the maximum number of bytes the cache is allowed to use.
+     *
+     * @return The capacity of the cache in bytes.
+     */
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Returns the number of segments in the cache, one for each distinct combination of typeface,
+     * size, transform and style in use.
+     *
+     * @return The number of segments.
+     */
+    public int getSegmentCount() {
+        return mSegmentCount;
+    }
+
+    /**
+     * Returns the number of native rasterizers which are currently alive.
+     *
+     * @return The number of rasterizers.
+     */
+    public int getRasterizerCount() {
+        return mRasterizerCount;
+    }
+
+    /**
+     * Returns the number of calls made to the native rasterizers for loading the bounds, images,
+     * outlines or paths of glyphs. Lightweight queries, such as the type of a glyph, are not
+     * counted.
+     *
+     * @return The number of rasterizations.
+     */
+    public long getRasterizationCount() {
+        return mRasterizationCount;
+    }
+
+    /**
+     * Returns the cumulative time spent in the native rasterizers.
+     *
+     * @return The total rasterization time in nanoseconds.
+     */
+    public long getRasterizationTime() {
+        return mRasterizationTime;
+    }
+
+    /**
+     * Returns an estimate of the time within which the given percentage of native rasterizations
+     * completed. The durations are recorded in power of two buckets, so the returned value is the
+     * upper limit of the bucket containing the percentile.
+     *
+     * @param percentile The percentile ranging from 0 to 100, such as 50 for the median.
+     * @return The rasterization time percentile in nanoseconds, or 0 if nothing was rasterized.
+     *
+     * @throws IllegalArgumentException if <code>percentile</code> is not in range [0, 100].
+     */
+    public long getRasterizationTimePercentile(float percentile) {
+        checkArgument(percentile >= 0.0f && percentile <= 100.0f,
+                      "Percentile is out of range: " + percentile);
+
+        long totalCount = 0;
+        for (long count : mRasterizationHistogram) {
+            totalCount += count;
+        }
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        long targetCount = Math.max(1, (long) Math.ceil(totalCount * (percentile / 100.0)));
+        long cumulativeCount = 0;
+
+        for (int i = 0; i < HISTOGRAM_SIZE; i++) {
+            cumulativeCount += mRasterizationHistogram[i];
+            if (cumulativeCount >= targetCount) {
+                return 1L << (i + 1);
+            }
+        }
+
+        return 1L << HISTOGRAM_SIZE;
+    }
+
+    @Override
+    public @NonNull String toString() {
+        return "GlyphCacheStats{maskHits=" + getHitCount(Kind.MASK)
+                + ", maskMisses=" + getMissCount(Kind.MASK)
+                + ", colorHits=" + getHitCount(Kind.COLOR)
+                + ", colorMisses=" + getMissCount(Kind.COLOR)
+                + ", strokeHits=" + getHitCount(Kind.STROKE)
+                + ", strokeMisses=" + getMissCount(Kind.STROKE)
+                + ", pathHits=" + getHitCount(Kind.PATH)
+                + ", pathMisses=" + getMissCount(Kind.PATH)
+                + ", boundsHits=" + getHitCount(Kind.BOUNDS)
+                + ", boundsMisses=" + getMissCount(Kind.BOUNDS)
+                + ", fieldHits=" + getHitCount(Kind.DISTANCE_FIELD)
+                + ", fieldMisses=" + getMissCount(Kind.DISTANCE_FIELD)
+                + ", evictionCount=" + getEvictionCount()
+                + ", size=" + getSize()
+                + ", capacity=" + getCapacity()
+                + ", segmentCount=" + getSegmentCount()
+                + ", rasterizerCount=" + getRasterizerCount()
+                + ", rasterizationCount=" + getRasterizationCount()
+                + ", rasterizationTime=" + getRasterizationTime()
+                + "}";
+    }
+}
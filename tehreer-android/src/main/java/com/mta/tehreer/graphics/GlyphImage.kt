@@ -19,15 +19,74 @@ package com.mta.tehreer.graphics
 import android.graphics.Bitmap
 import androidx.annotation.Keep
 
-internal class GlyphImage @Keep constructor(
-    private val bitmap: Bitmap,
+/**
+ * A rasterized glyph. The pixels either occupy a whole bitmap of their own or a region of an atlas
+ * page shared with other glyphs. A packed image keeps its own bitmap until the region is published
+ * in a sheet of the page.
+ */
+internal class GlyphImage(
+    bitmap: Bitmap,
+    private val page: GlyphAtlas.Page?,
+    private val sourceLeft: Int,
+    private val sourceTop: Int,
+    private val width: Int,
+    private val height: Int,
     private val left: Int,
     private val top: Int
 ) {
-    fun bitmap(): Bitmap {
+    // The sheet is assigned before the bitmap is dropped, so a reader finding no bitmap is
+    // guaranteed to find the sheet.
+    @Volatile private var bitmap: Bitmap? = bitmap
+    @Volatile private var sheet: GlyphAtlas.Sheet? = null
+
+    @Keep
+    constructor(bitmap: Bitmap, left: Int, top: Int) :
+        this(bitmap, null, 0, 0, bitmap.width, bitmap.height, left, top)
+
+    /**
+     * Returns the own bitmap of the image, or `null` if it has been published in a sheet.
+     */
+    fun bitmap(): Bitmap? {
         return bitmap
     }
 
+    /**
+     * Returns the sheet holding the region of the image, or `null` if it has not been published
+     * yet.
+     */
+    fun sheet(): GlyphAtlas.Sheet? {
+        return sheet
+    }
+
+    fun publish(sheet: GlyphAtlas.Sheet) {
+        this.sheet = sheet
+        this.bitmap = null
+    }
+
+    fun page(): GlyphAtlas.Page? {
+        return page
+    }
+
+    fun isPacked(): Boolean {
+        return page != null
+    }
+
+    fun sourceLeft(): Int {
+        return sourceLeft
+    }
+
+    fun sourceTop(): Int {
+        return sourceTop
+    }
+
+    fun width(): Int {
+        return width
+    }
+
+    fun height(): Int {
+        return height
+    }
+
     fun left(): Int {
         return left
     }
@@ -37,10 +96,10 @@ internal class GlyphImage @Keep constructor(
     }
 
     fun right(): Int {
-        return left + bitmap.width
+        return left + width
     }
 
     fun bottom(): Int {
-        return top + bitmap.height
+        return top + height
     }
 }
@@ -52,6 +52,14 @@ internal abstract class GlyphKey {
     }
 
     class Data : GlyphKey() {
+        fun set(key: Data) {
+            super.set(key)
+        }
+
+        fun set(key: Field) {
+            super.set(key)
+        }
+
         override fun copy(): Data {
             val key = Data()
             key.set(this)
@@ -68,6 +76,27 @@ internal abstract class GlyphKey {
         }
     }
 
+    class Field : GlyphKey() {
+        fun set(key: Data) {
+            super.set(key)
+        }
+
+        override fun copy(): Field {
+            val key = Field()
+            key.set(this)
+
+            return key
+        }
+
+        override fun equals(other: Any?): Boolean {
+            if (this === other) return true
+            if (other !is Field) return false
+            if (!super.equals(other)) return false
+
+            return true
+        }
+    }
+
     class Color : GlyphKey() {
         var foregroundColor = 0
 
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics
+
+import com.mta.tehreer.collections.IntList
+
+/**
+ * A task loading the glyphs into the cache ahead of drawing them. A glyph being loaded by another
+ * thread at the same time is waited for instead of being rasterized twice.
+ */
+internal class GlyphPrefetch(
+    private val attributes: GlyphAttributes,
+    private val glyphIds: IntArray,
+    private val loadsFill: Boolean,
+    private val loadsStroke: Boolean,
+    private val usesFields: Boolean
+) : Runnable {
+    private fun loadFill(cache: GlyphCache, glyphId: Int) {
+        if (usesFields) {
+            cache.getFieldImage(attributes, glyphId)?.let { return }
+            if (cache.isFieldSupported(attributes, glyphId)) {
+                return
+            }
+        }
+
+        cache.getGlyphImage(attributes, glyphId)
+    }
+
+    override fun run() {
+        val cache = GlyphCache.instance
+
+        for (glyphId in glyphIds) {
+            if (loadsFill) {
+                loadFill(cache, glyphId)
+            }
+            if (loadsStroke) {
+                cache.getStrokeImage(attributes, glyphId)
+            }
+        }
+    }
+
+    companion object {
+        /**
+         * Returns the distinct glyph IDs of the list in ascending order.
+         */
+        @JvmStatic
+        fun distinctGlyphIds(glyphIds: IntList): IntArray {
+            val array = glyphIds.toArray()
+            if (array.isEmpty()) {
+                return array
+            }
+
+            array.sort()
+
+            var count = 1
+            for (i in 1 until array.size) {
+                if (array[i] != array[count - 1]) {
+                    array[count++] = array[i]
+                }
+            }
+
+            return array.copyOf(count)
+        }
+    }
+}
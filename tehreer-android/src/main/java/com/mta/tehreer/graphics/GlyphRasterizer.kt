@@ -37,10 +37,18 @@ internal class GlyphRasterizer(key: GlyphKey) : Disposable {
         return nGetGlyphType(nativeRasterizer, glyphId)
     }
 
+    fun getGlyphBounds(glyphId: Int): Long {
+        return nGetGlyphBounds(nativeRasterizer, glyphId)
+    }
+
     fun getGlyphImage(glyphId: Int, @ColorInt foregroundColor: Int = Color.TRANSPARENT): GlyphImage? {
         return nGetGlyphImage(nativeRasterizer, glyphId, foregroundColor)
     }
 
+    fun getFieldImage(glyphId: Int): GlyphImage? {
+        return nGetFieldImage(nativeRasterizer, glyphId)
+    }
+
     fun getStrokeImage(
         glyphOutline: GlyphOutline,
         lineRadius: Int,
@@ -80,12 +88,16 @@ internal class GlyphRasterizer(key: GlyphKey) : Disposable {
 
         @JvmStatic private external fun nGetGlyphType(nativeRasterizer: Long, glyphId: Int): Int
 
+        @JvmStatic private external fun nGetGlyphBounds(nativeRasterizer: Long, glyphId: Int): Long
+
         @JvmStatic private external fun nGetGlyphImage(
             nativeRasterizer: Long,
             glyphId: Int,
             foregroundColor: Int
         ): GlyphImage?
 
+        @JvmStatic private external fun nGetFieldImage(nativeRasterizer: Long, glyphId: Int): GlyphImage?
+
         @JvmStatic private external fun nGetStrokeImage(
             nativeRasterizer: Long, nativeOutline: Long,
             lineRadius: Int, lineCap: Int, lineJoin: Int, miterLimit: Int
@@ -16,12 +16,14 @@
 
 package com.mta.tehreer.graphics;
 
-import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.ColorMatrix;
+import android.graphics.ColorMatrixColorFilter;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.RectF;
+import android.os.Build;
 import android.util.Log;
 
 import androidx.annotation.ColorInt;
@@ -32,6 +34,8 @@ import com.mta.tehreer.collections.IntList;
 import com.mta.tehreer.collections.PointList;
 import com.mta.tehreer.sfnt.WritingDirection;
 
+import java.util.concurrent.Executor;
+
 import static com.mta.tehreer.internal.util.Preconditions.checkArgument;
 import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
 
@@ -45,8 +49,15 @@ public class Renderer {
     private @NonNull GlyphAttributes mGlyphAttributes = new GlyphAttributes();
 
     private @NonNull Paint mPaint = new Paint();
+    private @NonNull GlyphBatch mGlyphBatch = new GlyphBatch();
     private boolean mShadowLayerSynced = true;
 
+    private @NonNull Paint mFieldPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private @NonNull RectF mFieldRect = new RectF();
+    private @NonNull RectF mLayerRect = new RectF();
+    private boolean mFieldFilterSynced = false;
+    private boolean mDistanceFieldEnabled = false;
+
     private @ColorInt int mFillColor = Color.BLACK;
     private @NonNull RenderingStyle mRenderingStyle = RenderingStyle.FILL;
     private @NonNull WritingDirection mWritingDirection = WritingDirection.LEFT_TO_RIGHT;
@@ -78,9 +89,33 @@ public class Renderer {
         setStrokeMiter(1.0f);
     }
 
+    /**
+     * Returns whether the glyph images are packed into shared atlas pages. The default value is
+     * <code>false</code>.
+     *
+     * @return <code>true</code> if the glyph atlas is enabled, <code>false</code> otherwise.
+     */
+    public static boolean isGlyphAtlasEnabled() {
+        return GlyphCache.getInstance().isAtlasEnabled();
+    }
+
+    /**
+     * Sets whether the glyph images should be packed into shared atlas pages. When enabled, the
+     * glyphs of a run sharing a page are drawn with a single call if the canvas supports it, which
+     * greatly reduces the number of bitmaps and draw calls for large amounts of text. The pages are
+     * accounted as a whole in the capacity of the glyph cache. The setting only affects the glyphs
+     * that are rasterized afterwards.
+     *
+     * @param enabled <code>true</code> to enable the glyph atlas, <code>false</code> otherwise.
+     */
+    public static void setGlyphAtlasEnabled(boolean enabled) {
+        GlyphCache.getInstance().setAtlasEnabled(enabled);
+    }
+
     private void updatePixelSizes() {
         mGlyphAttributes.setPixelWidth(mTypeSize * mScaleX);
         mGlyphAttributes.setPixelHeight(mTypeSize * mScaleY);
+        mFieldFilterSynced = false;
     }
 
     private void updateTransform() {
@@ -91,9 +126,59 @@ public class Renderer {
         if (!mShadowLayerSynced) {
             mShadowLayerSynced = true;
             mPaint.setShadowLayer(mShadowRadius, mShadowDx, mShadowDy, mShadowColor);
+            mFieldPaint.setShadowLayer(mShadowRadius, mShadowDx, mShadowDy, mShadowColor);
+        }
+    }
+
+    private void syncFieldFilter() {
+        if (!mFieldFilterSynced) {
+            mFieldFilterSynced = true;
+
+            float pixelSize = mTypeSize * Math.min(mScaleX, mScaleY);
+            float scale = pixelSize / GlyphCache.FIELD_REFERENCE_SIZE;
+            // The distance in pixels covered by half of the field values, kept at least half a
+            // pixel so that the area outside of tiny glyphs remains transparent.
+            float range = Math.max(GlyphCache.FIELD_SPREAD * scale, 0.5f);
+
+            // Map the field value 128, i.e. the outline, to half coverage and the values around it
+            // to a ramp of one pixel width, leaving the color of the paint as is.
+            ColorMatrix matrix = new ColorMatrix(new float[] {
+                1.0f, 0.0f, 0.0f, 0.0f, 0.0f,
+                0.0f, 1.0f, 0.0f, 0.0f, 0.0f,
+                0.0f, 0.0f, 1.0f, 0.0f, 0.0f,
+                0.0f, 0.0f, 0.0f, range * 255.0f / 128.0f, (0.5f - range) * 255.0f
+            });
+            mFieldPaint.setColorFilter(new ColorMatrixColorFilter(matrix));
         }
     }
 
+    /**
+     * Returns whether this renderer draws the glyphs from their distance fields. The default value
+     * is <code>false</code>.
+     *
+     * @return <code>true</code> if the distance fields are enabled, <code>false</code> otherwise.
+     */
+    public boolean isDistanceFieldEnabled() {
+        return mDistanceFieldEnabled;
+    }
+
+    /**
+     * Sets whether this renderer should draw the glyphs from their distance fields. When enabled,
+     * the glyphs of a typeface are rasterized only once at a reference size and scaled to the
+     * type size while drawing, so that animating or zooming the text neither rasterizes the
+     * glyphs again nor grows the cache with every size in use.
+     * <p>
+     * The distance fields are suitable for large or continuously changing sizes; the small text
+     * looks sharper with the regular glyph images as they are hinted for the exact size. Colored
+     * glyphs and strokes are always drawn with the regular glyph images.
+     *
+     * @param enabled <code>true</code> to enable the distance fields, <code>false</code>
+     *                otherwise.
+     */
+    public void setDistanceFieldEnabled(boolean enabled) {
+        mDistanceFieldEnabled = enabled;
+    }
+
     /**
      * Returns this renderer's fill color for glyphs. The default value is <code>Color.BLACK</code>.
      *
@@ -492,11 +577,9 @@ public class Renderer {
     }
 
     private void getBoundingBox(int glyphId, @NonNull RectF boundingBox) {
-        GlyphImage glyphImage = GlyphCache.getInstance().getGlyphImage(mGlyphAttributes, glyphId);
-        if (glyphImage != null) {
-            boundingBox.set(glyphImage.left(), glyphImage.top(),
-                            glyphImage.right(), glyphImage.bottom());
-        }
+        long glyphBounds = GlyphCache.getInstance().getGlyphBounds(mGlyphAttributes, glyphId);
+        boundingBox.set(GlyphBounds.left(glyphBounds), GlyphBounds.top(glyphBounds),
+                        GlyphBounds.right(glyphBounds), GlyphBounds.bottom(glyphBounds));
     }
 
     /**
@@ -573,6 +656,8 @@ public class Renderer {
         boolean reverseMode = (mWritingDirection == WritingDirection.RIGHT_TO_LEFT);
         float penX = 0.0f;
 
+        mGlyphBatch.begin(canvas, mPaint, mShadowRadius > 0.0f);
+
         int size = glyphIds.size();
 
         for (int i = 0; i < size; i++) {
@@ -589,17 +674,174 @@ public class Renderer {
                                      ? cache.getGlyphImage(mGlyphAttributes, glyphId)
                                      : cache.getStrokeImage(mGlyphAttributes, glyphId));
             if (glyphImage != null) {
-                Bitmap bitmap = glyphImage.bitmap();
                 int left = (int) (penX + xOffset + glyphImage.left() + 0.5f);
                 int top = (int) (-yOffset - glyphImage.top() + 0.5f);
 
-                canvas.drawBitmap(bitmap, left, top, mPaint);
+                mGlyphBatch.draw(glyphImage, left, top);
             }
 
             if (!reverseMode) {
                 penX += advance;
             }
         }
+
+        mGlyphBatch.end();
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void saveLayerAlpha(@NonNull Canvas canvas, @NonNull RectF bounds, int alpha) {
+        if (Build.VERSION.SDK_INT >= 21) {
+            canvas.saveLayerAlpha(bounds, alpha);
+        } else {
+            canvas.saveLayerAlpha(bounds, alpha, Canvas.ALL_SAVE_FLAG);
+        }
+    }
+
+    private void computeFieldBounds(@NonNull IntList glyphIds, @NonNull PointList offsets,
+                                    @NonNull FloatList advances, @NonNull RectF bounds) {
+        GlyphCache cache = GlyphCache.getInstance();
+        boolean reverseMode = (mWritingDirection == WritingDirection.RIGHT_TO_LEFT);
+        float scaleX = mTypeSize * mScaleX / GlyphCache.FIELD_REFERENCE_SIZE;
+        float scaleY = mTypeSize * mScaleY / GlyphCache.FIELD_REFERENCE_SIZE;
+        float penX = 0.0f;
+
+        bounds.setEmpty();
+
+        int size = glyphIds.size();
+
+        for (int i = 0; i < size; i++) {
+            int glyphId = glyphIds.get(i);
+            float xOffset = offsets.getX(i);
+            float yOffset = offsets.getY(i);
+            float advance = advances.get(i);
+
+            if (reverseMode) {
+                penX -= advance;
+            }
+
+            GlyphImage fieldImage = cache.getFieldImage(mGlyphAttributes, glyphId);
+            if (fieldImage != null) {
+                float left = penX + xOffset + fieldImage.left() * scaleX;
+                float top = -yOffset - fieldImage.top() * scaleY;
+
+                bounds.union(left, top,
+                             left + fieldImage.width() * scaleX, top + fieldImage.height() * scaleY);
+            } else if (!cache.isFieldSupported(mGlyphAttributes, glyphId)) {
+                GlyphImage glyphImage = cache.getGlyphImage(mGlyphAttributes, glyphId);
+                if (glyphImage != null) {
+                    int left = (int) (penX + xOffset + glyphImage.left() + 0.5f);
+                    int top = (int) (-yOffset - glyphImage.top() + 0.5f);
+
+                    bounds.union(left, top, left + glyphImage.width(), top + glyphImage.height());
+                }
+            }
+
+            if (!reverseMode) {
+                penX += advance;
+            }
+        }
+
+        // The shadow is drawn into the same layer, so it is covered along with a pixel for the
+        // filtering of the scaled fields.
+        float shadowX = mShadowRadius + Math.abs(mShadowDx);
+        float shadowY = mShadowRadius + Math.abs(mShadowDy);
+        bounds.inset(-(shadowX + 1.0f), -(shadowY + 1.0f));
+    }
+
+    private void drawFields(@NonNull Canvas canvas,
+                            @NonNull IntList glyphIds, @NonNull PointList offsets, @NonNull FloatList advances) {
+        GlyphCache cache = GlyphCache.getInstance();
+        boolean reverseMode = (mWritingDirection == WritingDirection.RIGHT_TO_LEFT);
+        float scaleX = mTypeSize * mScaleX / GlyphCache.FIELD_REFERENCE_SIZE;
+        float scaleY = mTypeSize * mScaleY / GlyphCache.FIELD_REFERENCE_SIZE;
+        float penX = 0.0f;
+
+        syncFieldFilter();
+
+        // The color filter works on the coverage, so the translucency is applied separately. The
+        // layer is limited to the run so that only its pixels are allocated and composited.
+        int fillAlpha = Color.alpha(mFillColor);
+        if (fillAlpha != 0xFF) {
+            computeFieldBounds(glyphIds, offsets, advances, mLayerRect);
+            if (mLayerRect.isEmpty()) {
+                return;
+            }
+
+            saveLayerAlpha(canvas, mLayerRect, fillAlpha);
+        }
+
+        mFieldPaint.setColor(mFillColor | 0xFF000000);
+        mPaint.setColor(mFillColor | 0xFF000000);
+        mGlyphBatch.begin(canvas, mPaint, mShadowRadius > 0.0f);
+
+        int size = glyphIds.size();
+
+        for (int i = 0; i < size; i++) {
+            int glyphId = glyphIds.get(i);
+            float xOffset = offsets.getX(i);
+            float yOffset = offsets.getY(i);
+            float advance = advances.get(i);
+
+            if (reverseMode) {
+                penX -= advance;
+            }
+
+            GlyphImage fieldImage = cache.getFieldImage(mGlyphAttributes, glyphId);
+            if (fieldImage != null) {
+                float left = penX + xOffset + fieldImage.left() * scaleX;
+                float top = -yOffset - fieldImage.top() * scaleY;
+
+                mFieldRect.set(left, top,
+                               left + fieldImage.width() * scaleX, top + fieldImage.height() * scaleY);
+                canvas.drawBitmap(fieldImage.bitmap(), null, mFieldRect, mFieldPaint);
+            } else if (!cache.isFieldSupported(mGlyphAttributes, glyphId)) {
+                GlyphImage glyphImage = cache.getGlyphImage(mGlyphAttributes, glyphId);
+                if (glyphImage != null) {
+                    int left = (int) (penX + xOffset + glyphImage.left() + 0.5f);
+                    int top = (int) (-yOffset - glyphImage.top() + 0.5f);
+
+                    mGlyphBatch.draw(glyphImage, left, top);
+                }
+            }
+
+            if (!reverseMode) {
+                penX += advance;
+            }
+        }
+
+        mGlyphBatch.end();
+
+        if (fillAlpha != 0xFF) {
+            canvas.restore();
+        }
+    }
+
+    /**
+     * Loads the specified glyphs into the glyph cache on the given executor so that drawing them
+     * later on does not require rasterizing them. The glyphs are loaded with the current typeface,
+     * size, style and stroke settings of this renderer; changing the settings afterwards does not
+     * affect the pending work. A glyph being loaded by another thread at the same time, such as
+     * while drawing, is waited for instead of being rasterized twice.
+     *
+     * @param glyphIds The list containing the glyph IDs.
+     * @param executor The executor on which to load the glyphs, usually a background one.
+     */
+    public void prefetchGlyphs(@NonNull IntList glyphIds, @NonNull Executor executor) {
+        checkNotNull(glyphIds);
+        checkNotNull(executor);
+
+        if (!mGlyphAttributes.isRenderable() || mTypeface == null || glyphIds.size() == 0) {
+            return;
+        }
+
+        boolean loadsFill = (mRenderingStyle == RenderingStyle.FILL
+                             || mRenderingStyle == RenderingStyle.FILL_STROKE);
+        boolean loadsStroke = (mRenderingStyle == RenderingStyle.STROKE
+                               || mRenderingStyle == RenderingStyle.FILL_STROKE);
+
+        executor.execute(new GlyphPrefetch(mGlyphAttributes.copy(),
+                                           GlyphPrefetch.distinctGlyphIds(glyphIds),
+                                           loadsFill, loadsStroke, mDistanceFieldEnabled));
     }
 
     /**
@@ -622,7 +864,12 @@ public class Renderer {
 
             if (mRenderingStyle == RenderingStyle.FILL || mRenderingStyle == RenderingStyle.FILL_STROKE) {
                 mPaint.setColor(mFillColor);
-                drawGlyphs(canvas, glyphIds, offsets, advances, false);
+
+                if (mDistanceFieldEnabled) {
+                    drawFields(canvas, glyphIds, offsets, advances);
+                } else {
+                    drawGlyphs(canvas, glyphIds, offsets, advances, false);
+                }
             }
 
             if (mRenderingStyle == RenderingStyle.STROKE || mRenderingStyle == RenderingStyle.FILL_STROKE) {
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics
+
+/**
+ * Packs rectangles into a fixed area by keeping track of its skyline, i.e. the top edge of the
+ * occupied space, and placing each rectangle at the lowest position where it fits.
+ */
+internal class SkylinePacker(
+    val width: Int,
+    val height: Int
+) {
+    private class Segment(
+        var x: Int,
+        var y: Int,
+        var width: Int
+    )
+
+    private val skyline = ArrayList<Segment>()
+
+    init {
+        skyline.add(Segment(0, 0, width))
+    }
+
+    /**
+     * Reserves space for a rectangle of given size. Returns the packed position, which can be
+     * decoded with [unpackX] and [unpackY], or `-1` if the rectangle does not fit anymore.
+     */
+    fun pack(rectWidth: Int, rectHeight: Int): Int {
+        if (rectWidth <= 0 || rectHeight <= 0 || rectWidth > width || rectHeight > height) {
+            return -1
+        }
+
+        var bestIndex = -1
+        var bestX = 0
+        var bestY = Int.MAX_VALUE
+        var bestWidth = Int.MAX_VALUE
+
+        for (i in skyline.indices) {
+            val y = fitAt(i, rectWidth, rectHeight)
+            if (y < 0) {
+                continue
+            }
+
+            val segment = skyline[i]
+            if (y < bestY || (y == bestY && segment.width < bestWidth)) {
+                bestIndex = i
+                bestX = segment.x
+                bestY = y
+                bestWidth = segment.width
+            }
+        }
+
+        if (bestIndex < 0) {
+            return -1
+        }
+
+        insert(bestIndex, bestX, bestY + rectHeight, rectWidth)
+
+        return (bestX shl 16) or bestY
+    }
+
+    private fun fitAt(index: Int, rectWidth: Int, rectHeight: Int): Int {
+        val x = skyline[index].x
+        if (x + rectWidth > width) {
+            return -1
+        }
+
+        var remaining = rectWidth
+        var y = 0
+        var i = index
+
+        while (remaining > 0) {
+            val segment = skyline[i]
+            y = maxOf(y, segment.y)
+
+            if (y + rectHeight > height) {
+                return -1
+            }
+
+            remaining -= segment.width
+            i += 1
+        }
+
+        return y
+    }
+
+    private fun insert(index: Int, x: Int, y: Int, segmentWidth: Int) {
+        skyline.add(index, Segment(x, y, segmentWidth))
+
+        // Shrink or remove the segments lying under the new one.
+        val right = x + segmentWidth
+        val i = index + 1
+
+        while (i < skyline.size) {
+            val segment = skyline[i]
+            if (segment.x >= right) {
+                break
+            }
+
+            val overlap = right - segment.x
+            if (overlap < segment.width) {
+                segment.x += overlap
+                segment.width -= overlap
+                break
+            }
+
+            skyline.removeAt(i)
+        }
+
+        merge()
+    }
+
+    private fun merge() {
+        var i = 0
+
+        while (i < skyline.size - 1) {
+            val current = skyline[i]
+            val next = skyline[i + 1]
+
+            if (current.y == next.y) {
+                current.width += next.width
+                skyline.removeAt(i + 1)
+            } else {
+                i += 1
+            }
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        fun unpackX(position: Int): Int {
+            return position ushr 16
+        }
+
+        @JvmStatic
+        fun unpackY(position: Int): Int {
+            return position and 0xFFFF
+        }
+    }
+}
@@ -20,6 +20,8 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.Size;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -31,7 +33,8 @@ import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
  */
 public class TypeFamily {
     private final @NonNull String familyName;
-    private final @NonNull @Size(min = 1) List<Typeface> typefaces;
+    private final @NonNull @Size(min = 1) List<TypefaceDescriptor> descriptors;
+    private volatile @Nullable List<Typeface> typefaces;
 
     /**
      * Constructs a type family object.
@@ -40,12 +43,35 @@ public class TypeFamily {
      * @param typefaces The list of typefaces belonging to family.
      */
     public TypeFamily(@NonNull String familyName, @NonNull @Size(min = 1) List<Typeface> typefaces) {
+        this(familyName, describe(familyName, typefaces), typefaces);
+    }
+
+    private TypeFamily(@NonNull String familyName,
+                       @NonNull @Size(min = 1) List<TypefaceDescriptor> descriptors,
+                       @Nullable List<Typeface> typefaces) {
+        this.familyName = familyName;
+        this.descriptors = Collections.unmodifiableList(descriptors);
+        this.typefaces = typefaces;
+    }
+
+    static @NonNull TypeFamily ofDescriptors(
+            @NonNull String familyName,
+            @NonNull @Size(min = 1) List<TypefaceDescriptor> descriptors) {
+        return new TypeFamily(familyName, descriptors, null);
+    }
+
+    private static @NonNull List<TypefaceDescriptor> describe(@NonNull String familyName,
+                                                              @NonNull List<Typeface> typefaces) {
         checkNotNull(familyName, "familyName");
         checkNotNull(typefaces, "typefaces");
         checkArgument(!typefaces.isEmpty(), "Typefaces list cannot be empty");
 
-        this.familyName = familyName;
-        this.typefaces = typefaces;
+        List<TypefaceDescriptor> descriptors = new ArrayList<>(typefaces.size());
+        for (Typeface typeface : typefaces) {
+            descriptors.add(new TypefaceDescriptor(typeface));
+        }
+
+        return descriptors;
     }
 
     /**
@@ -58,12 +84,34 @@ public class TypeFamily {
     }
 
     /**
-     * Returns the list of typefaces belonging to this family.
+     * Returns the list of typefaces belonging to this family. The typefaces of a registered
+     * {@link TypefaceCatalog} are created by this method if they have not been created already,
+     * so {@link #getDescriptors()} should be preferred when only their names or styles are needed.
      *
      * @return The list of typefaces belonging to this family.
      */
     public @NonNull List<Typeface> getTypefaces() {
-        return typefaces;
+        List<Typeface> list = typefaces;
+        if (list == null) {
+            list = new ArrayList<>(descriptors.size());
+            for (TypefaceDescriptor descriptor : descriptors) {
+                list.add(descriptor.getTypeface());
+            }
+
+            list = Collections.unmodifiableList(list);
+            typefaces = list;
+        }
+
+        return list;
+    }
+
+    /**
+     * Returns the descriptors of the typefaces belonging to this family.
+     *
+     * @return The descriptors of the typefaces belonging to this family.
+     */
+    public @NonNull List<TypefaceDescriptor> getDescriptors() {
+        return descriptors;
     }
 
     private static int widthGap(@NonNull TypeWidth desired, @NonNull TypeWidth candidate) {
@@ -122,7 +170,8 @@ public class TypeFamily {
     }
 
     /**
-     * Returns a typeface best matching the specified style.
+     * Returns a typeface best matching the specified style. Only the matched typeface is created if
+     * the family belongs to a registered {@link TypefaceCatalog}.
      *
      * @param typeWidth The typographic width of desired typeface.
      * @param typeWeight The typographic weight of desired typeface.
@@ -130,16 +179,28 @@ public class TypeFamily {
      * @return A typeface best matching the specified style.
      */
     public @NonNull Typeface getTypefaceByStyle(@NonNull TypeWidth typeWidth, @NonNull TypeWeight typeWeight, @NonNull TypeSlope typeSlope) {
+        return getDescriptorByStyle(typeWidth, typeWeight, typeSlope).getTypeface();
+    }
+
+    /**
+     * Returns the descriptor of a typeface best matching the specified style.
+     *
+     * @param typeWidth The typographic width of desired typeface.
+     * @param typeWeight The typographic weight of desired typeface.
+     * @param typeSlope The typographic slope of desired typeface.
+     * @return The descriptor of a typeface best matching the specified style.
+     */
+    public @NonNull TypefaceDescriptor getDescriptorByStyle(@NonNull TypeWidth typeWidth, @NonNull TypeWeight typeWeight, @NonNull TypeSlope typeSlope) {
         checkNotNull(typeWidth, "typeWidth");
         checkNotNull(typeWeight, "typeWeight");
         checkNotNull(typeSlope, "typeSlope");
 
         // BASED ON CSS FONT MATCHING ALGORITHM.
-        Iterator<Typeface> iterator = typefaces.iterator();
-        Typeface candidate = iterator.next();
+        Iterator<TypefaceDescriptor> iterator = descriptors.iterator();
+        TypefaceDescriptor candidate = iterator.next();
 
         while (iterator.hasNext()) {
-            Typeface current = iterator.next();
+            TypefaceDescriptor current = iterator.next();
 
             int widthGap = widthGap(typeWidth, current.getWidth())
                          - widthGap(typeWidth, candidate.getWidth());
@@ -174,7 +235,7 @@ public class TypeFamily {
 
             TypeFamily other = (TypeFamily) obj;
             if (!familyName.equals(other.familyName)
-                    || !typefaces.equals(other.typefaces)) {
+                    || !descriptors.equals(other.descriptors)) {
                 return false;
             }
         }
@@ -185,7 +246,7 @@ public class TypeFamily {
     @Override
     public int hashCode() {
         int result = familyName.hashCode();
-        result = 31 * result + typefaces.hashCode();
+        result = 31 * result + descriptors.hashCode();
 
         return result;
     }
@@ -193,7 +254,7 @@ public class TypeFamily {
     @Override
     public @NonNull String toString() {
         return "TypeFamily{familyName=" + familyName
-                + ", typefaces=" + typefaces
+                + ", descriptors=" + descriptors
                 + "}";
     }
 }
@@ -41,6 +41,7 @@ import com.mta.tehreer.sfnt.SfntTag;
 
 import java.io.File;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -94,14 +95,15 @@ public class Typeface {
         @NonNull String fullName = "";
     }
 
-    private DefaultProperties defaults;
+    private volatile DefaultProperties defaults;
     private DesignCharacteristics design;
     private StandardNames names;
 
     /**
      * Constructs a typeface from the specified asset. The data of the asset is not copied into the
-     * memory. Rather, it is directly read from the stream when needed. So the performance of
-     * resulting typeface might be slower and should be used with caution.
+     * memory. Rather, it is mapped directly from the application package if the asset is stored
+     * uncompressed, and read from a stream of the asset when needed otherwise, in which case the
+     * performance of resulting typeface might be slower.
      *
      * @param assetManager The application's asset manager.
      * @param filePath The path of the font file in the assets directory.
@@ -122,8 +124,8 @@ public class Typeface {
     }
 
     /**
-     * Constructs a typeface from the specified file. The data for the font is directly read from
-     * the file when needed.
+     * Constructs a typeface from the specified file. The data of the font is mapped into the
+     * memory rather than being copied, and is shared with all typefaces of the same file.
      *
      * @param file The font file.
      *
@@ -143,7 +145,8 @@ public class Typeface {
 
     /**
      * Constructs a new typeface from the input stream by copying its data into a native memory
-     * buffer. It may take time to create the typeface if the stream holds larger data.
+     * buffer. The stream is read in large chunks, so it may still take time to create the
+     * typeface if the stream holds larger data.
      *
      * @param stream The input stream that contains the data of the font.
      *
@@ -161,6 +164,30 @@ public class Typeface {
         init(nativeTypeface);
     }
 
+    /**
+     * Constructs a typeface from the data of a direct byte buffer between its current position and
+     * limit. The data is used in place without being copied, so the buffer is retained until the
+     * typeface and all the typefaces derived from it have been disposed. The content of the buffer
+     * must not be modified during this time.
+     *
+     * @param buffer The direct byte buffer that contains the data of the font.
+     *
+     * @throws NullPointerException if <code>buffer</code> is null.
+     * @throws IllegalArgumentException if <code>buffer</code> is not direct.
+     * @throws RuntimeException if an error occurred while initialization.
+     */
+    public Typeface(@NonNull ByteBuffer buffer) {
+        checkNotNull(buffer, "buffer");
+        checkArgument(buffer.isDirect(), "The buffer is not direct");
+
+        long nativeTypeface = nCreateFromBuffer(buffer, buffer.position(), buffer.remaining());
+        if (nativeTypeface == 0) {
+            throw new RuntimeException("Could not create typeface from specified buffer");
+        }
+
+        init(nativeTypeface);
+    }
+
     @Keep
     Typeface(long nativeTypeface) {
         init(nativeTypeface);
@@ -172,22 +199,23 @@ public class Typeface {
         this.design = null;
         this.names = null;
 
-        setupDefaultProperties();
-        setupDefaultCoordinates();
-        setupStrikeout();
+        // The default coordinates, palette and strikeout are set up natively, whereas the variation
+        // and palette properties are loaded on first access. Only the names and the design
+        // characteristics needed for matching typefaces are obtained upfront.
         setupDesignCharacteristics();
         setupNames();
-        setupVariableDescription();
-        setupDefaultPalette();
+
+        if (nIsVariable(nativeTypeface)) {
+            setupVariableDescription();
+        }
     }
 
     private Typeface(@NonNull Typeface typeface, @NonNull float[] coordinates) {
         this.nativeTypeface = nGetVariationInstance(typeface.nativeTypeface, coordinates);
-        this.defaults = typeface.defaults;
+        this.defaults = typeface.getDefaults();
         this.design = null;
         this.names = null;
 
-        setupStrikeout();
         setupDesignCharacteristics();
         setupNames();
         setupVariableDescription();
@@ -195,20 +223,31 @@ public class Typeface {
 
     private Typeface(@NonNull Typeface typeface, @NonNull int[] colors) {
         this.nativeTypeface = nGetColorInstance(typeface.nativeTypeface, colors);
-        this.defaults = typeface.defaults;
+        this.defaults = typeface.getDefaults();
         this.design = typeface.design;
         this.names = typeface.names;
     }
 
-    private void setupDefaultProperties() {
-        defaults = new DefaultProperties();
+    private @NonNull DefaultProperties getDefaults() {
+        DefaultProperties properties = defaults;
+        if (properties == null) {
+            synchronized (this) {
+                properties = defaults;
+                if (properties == null) {
+                    properties = new DefaultProperties();
+                    setupVariations(properties);
+                    setupPalettes(properties);
 
-        setupVariations();
-        setupPalettes();
+                    defaults = properties;
+                }
+            }
+        }
+
+        return properties;
     }
 
     @SuppressLint ("Range")
-    private void setupVariations() {
+    private void setupVariations(@NonNull DefaultProperties properties) {
         FontVariationsTable fvarTable = FontVariationsTable.from(this);
         if (fvarTable == null) {
             return;
@@ -293,11 +332,11 @@ public class Typeface {
             namedStyles.add(0, NamedStyle.of(styleName, coordinates, null));
         }
 
-        defaults.variationAxes = variationAxes;
-        defaults.namedStyles = namedStyles;
+        properties.variationAxes = variationAxes;
+        properties.namedStyles = namedStyles;
     }
 
-    private void setupPalettes() {
+    private void setupPalettes(@NonNull DefaultProperties properties) {
         ColorPaletteTable cpalTable = ColorPaletteTable.from(this);
         if (cpalTable == null) {
             return;
@@ -365,19 +404,8 @@ public class Typeface {
             }
         }
 
-        defaults.predefinedPalettes = predefinedPalettes;
-        defaults.paletteEntryNames = paletteEntryNames;
-    }
-
-    private void setupDefaultCoordinates() {
-        final float[] coordinates = getDefaultCoordinates();
-        if (coordinates != null) {
-            nSetupCoordinates(nativeTypeface, coordinates);
-        }
-    }
-
-    private void setupStrikeout() {
-        nSetupStrikeout(nativeTypeface);
+        properties.predefinedPalettes = predefinedPalettes;
+        properties.paletteEntryNames = paletteEntryNames;
     }
 
     private void setupDesignCharacteristics() {
@@ -489,15 +517,6 @@ public class Typeface {
         }
     }
 
-    private void setupDefaultPalette() {
-        final List<ColorPalette> predefinedPalettes = getPredefinedPalettes();
-
-        // Select first palette by default.
-        if (predefinedPalettes!= null) {
-            nSetupColors(nativeTypeface, predefinedPalettes.get(0).colors());
-        }
-    }
-
     private @Nullable String searchNameString(int nameId) {
         return nSearchNameString(nativeTypeface, nameId);
     }
@@ -540,7 +559,7 @@ public class Typeface {
      * @return The variation axes of this typeface if it supports OpenType font variations.
      */
     public @Nullable List<VariationAxis> getVariationAxes() {
-        final List<VariationAxis> variationAxes = defaults.variationAxes;
+        final List<VariationAxis> variationAxes = getDefaults().variationAxes;
         if (variationAxes != null && !variationAxes.isEmpty()) {
             return Collections.unmodifiableList(variationAxes);
         }
@@ -548,29 +567,13 @@ public class Typeface {
         return null;
     }
 
-    private @Nullable float[] getDefaultCoordinates() {
-        final List<VariationAxis> variationAxes = getVariationAxes();
-        if (variationAxes != null) {
-            final int coordCount = variationAxes.size();
-            float[] coordinates = new float[coordCount];
-
-            for (int i = 0; i < coordCount; i++) {
-                coordinates[i] = variationAxes.get(i).defaultValue();
-            }
-
-            return coordinates;
-        }
-
-        return null;
-    }
-
     /**
      * Returns the named instance records of this typeface if it supports OpenType font variations.
      *
      * @return The named instance records of this typeface if it supports OpenType font variations.
      */
     public @Nullable List<NamedStyle> getNamedStyles() {
-        final List<NamedStyle> namedStyles = defaults.namedStyles;
+        final List<NamedStyle> namedStyles = getDefaults().namedStyles;
         if (namedStyles != null && !namedStyles.isEmpty()) {
             return Collections.unmodifiableList(namedStyles);
         }
@@ -605,7 +608,7 @@ public class Typeface {
      * palettes.
      */
     public @Nullable List<String> getPaletteEntryNames() {
-        final List<String> paletteEntryNames = defaults.paletteEntryNames;
+        final List<String> paletteEntryNames = getDefaults().paletteEntryNames;
         if (paletteEntryNames != null && !paletteEntryNames.isEmpty()) {
             return Collections.unmodifiableList(paletteEntryNames);
         }
@@ -619,7 +622,7 @@ public class Typeface {
      * @return The predefined palettes in this typeface if it supports OpenType color palettes.
      */
     public @Nullable List<ColorPalette> getPredefinedPalettes() {
-        final List<ColorPalette> predefinedPalettes = defaults.predefinedPalettes;
+        final List<ColorPalette> predefinedPalettes = getDefaults().predefinedPalettes;
         if (predefinedPalettes != null && !predefinedPalettes.isEmpty()) {
             return Collections.unmodifiableList(predefinedPalettes);
         }
@@ -737,6 +740,36 @@ public class Typeface {
         return nGetTableData(nativeTypeface, tableTag);
     }
 
+    /**
+     * Returns the number of bytes of font tables which are used for shaping right from the font
+     * data instead of being copied, i.e. the memory saved for this typeface. The tables are shared
+     * by all variation and color instances of a typeface, so they report the same value.
+     * <p>
+     * Only the typefaces whose font data is resident in memory, such as the ones loaded from a
+     * file, an asset or a stream, can share their tables.
+     *
+     * @return The size of the shared tables in bytes.
+     */
+    public long getSharedTableSize() {
+        return nGetSharedTableSize(nativeTypeface);
+    }
+
+    /**
+     * Returns whether the glyphs of a text shaped with this typeface might change if it is split at
+     * spaces, such as when a layout lookup involves the space glyph.
+     */
+    boolean hasSpaceLookups() {
+        return nHasSpaceLookups(nativeTypeface);
+    }
+
+    /**
+     * Returns whether the glyph positions of this typeface are adjusted by the device tables of
+     * GPOS, which the shaping engine applies according to the rounded type size.
+     */
+    boolean hasSizedDevices() {
+        return nHasSizedDevices(nativeTypeface);
+    }
+
     /**
      * Returns the number of font units per EM square for this typeface.
      *
@@ -792,6 +825,14 @@ public class Typeface {
         return nGetGlyphId(nativeTypeface, codePoint);
     }
 
+    /**
+     * Returns the code points mapped by the character map of this typeface as sorted pairs of
+     * inclusive start and end values.
+     */
+    @NonNull int[] getCoverageRanges() {
+        return nGetCoverageRanges(nativeTypeface);
+    }
+
     /**
      * Retrieves the advance for the specified glyph.
      *
@@ -900,10 +941,7 @@ public class Typeface {
     private static native long nCreateWithAsset(AssetManager assetManager, String path);
     private static native long nCreateWithFile(String path);
     private static native long nCreateFromStream(InputStream stream);
-
-    private static native void nSetupCoordinates(long nativeTypeface, float[] coordinates);
-    private static native void nSetupStrikeout(long nativeTypeface);
-    private static native void nSetupColors(long nativeTypeface, int[] colors);
+    private static native long nCreateFromBuffer(ByteBuffer buffer, int offset, int length);
 
 	private static native void nDispose(long nativeTypeface);
 
@@ -916,6 +954,7 @@ public class Typeface {
     private static native int nGetDefaultWidth(long nativeTypeface);
     private static native int nGetDefaultSlope(long nativeTypeface);
 
+    private static native boolean nIsVariable(long nativeTypeface);
     private static native long nGetVariationInstance(long nativeTypeface, float[] coordinates);
 	private static native void nGetVariationCoordinates(long nativeTypeface, float[] coordinates);
 
@@ -924,6 +963,9 @@ public class Typeface {
 
     private static native byte[] nGetTableData(long nativeTypeface, int tableTag);
 
+    private static native long nGetSharedTableSize(long nativeTypeface);
+    private static native boolean nHasSpaceLookups(long nativeTypeface);
+    private static native boolean nHasSizedDevices(long nativeTypeface);
 	private static native int nGetUnitsPerEm(long nativeTypeface);
 	private static native int nGetAscent(long nativeTypeface);
 	private static native int nGetDescent(long nativeTypeface);
@@ -931,6 +973,7 @@ public class Typeface {
 
 	private static native int nGetGlyphCount(long nativeTypeface);
     private static native int nGetGlyphId(long nativeTypeface, int codePoint);
+    private static native int[] nGetCoverageRanges(long nativeTypeface);
     private static native float nGetGlyphAdvance(long nativeTypeface, int glyphId, float typeSize, boolean vertical);
     private static native Path nGetGlyphPath(long nativeTypeface, int glyphId, float typeSize, float[] matrix);
 
@@ -0,0 +1,586 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics;
+
+import android.content.res.AssetManager;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mta.tehreer.font.FontFile;
+import com.mta.tehreer.font.FontFileInternals;
+import com.mta.tehreer.font.NamedStyle;
+import com.mta.tehreer.font.VariationAxis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.mta.tehreer.internal.util.Preconditions.checkArgument;
+import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
+
+/**
+ * A <code>TypefaceCatalog</code> object describes all the fonts of a directory or an asset folder
+ * without keeping them open.
+ * <p>
+ * The fonts are opened only once to collect their names, styles, variation axes and character
+ * coverage, which are then stored in an index file. Subsequent scans read the descriptors from the
+ * index and only reopen the fonts whose size or modification time has changed. Files are matched
+ * by both values, whereas assets are matched by size alone as they cannot change without updating
+ * the application, so an index of assets should be kept in a location specific to the application
+ * version.
+ * <p>
+ * A catalog can be registered with {@link TypefaceManager#registerCatalog(TypefaceCatalog)}, in
+ * which case its typefaces are created only when they are resolved by name or style.
+ */
+public final class TypefaceCatalog {
+    private static final int INDEX_MAGIC = 0x54434958; // 'TCIX'
+    private static final int INDEX_VERSION = 2;
+    private static final String[] FONT_EXTENSIONS = { ".ttf", ".otf", ".ttc", ".otc" };
+
+    private interface FontOpener {
+        @NonNull FontFile openFontFile();
+        @NonNull Typeface openTypeface();
+    }
+
+    private static final class FaceRecord {
+        int faceIndex;
+        int instanceIndex = -1;
+        @NonNull String familyName = "";
+        @NonNull String styleName = "";
+        @NonNull String fullName = "";
+        @NonNull TypeWeight weight = TypeWeight.REGULAR;
+        @NonNull TypeWidth width = TypeWidth.NORMAL;
+        @NonNull TypeSlope slope = TypeSlope.PLAIN;
+        @Nullable List<VariationAxis> variationAxes;
+        @NonNull int[] coverageRanges = new int[0];
+    }
+
+    private static final class FontRecord {
+        final @NonNull String path;
+        final long size;
+        final long lastModified;
+        final @NonNull List<FaceRecord> faces;
+
+        FontRecord(@NonNull String path, long size, long lastModified,
+                   @NonNull List<FaceRecord> faces) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.faces = faces;
+        }
+    }
+
+    private static final class FontEntry {
+        final @NonNull FontOpener opener;
+        private @Nullable FontFile fontFile;
+
+        FontEntry(@NonNull FontOpener opener) {
+            this.opener = opener;
+        }
+
+        synchronized @NonNull FontFile fontFile() {
+            if (fontFile == null) {
+                fontFile = opener.openFontFile();
+            }
+
+            return fontFile;
+        }
+    }
+
+    private final @NonNull List<TypefaceDescriptor> descriptors;
+
+    private TypefaceCatalog(@NonNull List<TypefaceDescriptor> descriptors) {
+        this.descriptors = Collections.unmodifiableList(descriptors);
+    }
+
+    /**
+     * Creates a catalog of the font files in the specified directory, reusing the descriptors
+     * stored in the index file for the fonts which have not changed since the last scan. The index
+     * file is updated if any font has been added, changed or removed.
+     *
+     * @param directory The directory containing the font files.
+     * @param indexFile The file in which the descriptors are stored.
+     * @return A new catalog of the fonts in the directory.
+     *
+     * @throws NullPointerException if <code>directory</code> or <code>indexFile</code> is null.
+     * @throws IllegalArgumentException if <code>directory</code> is not a directory.
+     */
+    public static @NonNull TypefaceCatalog scanDirectory(@NonNull File directory,
+                                                         @NonNull File indexFile) {
+        checkNotNull(directory, "directory");
+        checkNotNull(indexFile, "indexFile");
+        checkArgument(directory.isDirectory(), "The path is not a directory");
+
+        File[] files = directory.listFiles();
+        List<String> names = new ArrayList<>();
+
+        if (files != null) {
+            for (File file : files) {
+                if (file.isFile() && isFontName(file.getName())) {
+                    names.add(file.getName());
+                }
+            }
+        }
+
+        Collections.sort(names);
+
+        Map<String, FontRecord> oldRecords = readIndex(indexFile);
+        List<FontRecord> newRecords = new ArrayList<>(names.size());
+        List<TypefaceDescriptor> descriptors = new ArrayList<>();
+        boolean changed = (oldRecords.size() != names.size());
+
+        for (String name : names) {
+            final File file = new File(directory, name);
+            FontOpener opener = new FontOpener() {
+                @Override
+                public @NonNull FontFile openFontFile() {
+                    return new FontFile(file);
+                }
+
+                @Override
+                public @NonNull Typeface openTypeface() {
+                    return new Typeface(file);
+                }
+            };
+
+            String path = file.getAbsolutePath();
+            long size = file.length();
+            long lastModified = file.lastModified();
+
+            FontRecord record = oldRecords.get(path);
+            if (record == null || record.size != size || record.lastModified != lastModified) {
+                record = scanFont(opener, path, size, lastModified);
+                changed = true;
+            }
+
+            newRecords.add(record);
+            addDescriptors(descriptors, record, opener);
+        }
+
+        if (changed) {
+            writeIndex(indexFile, newRecords);
+        }
+
+        return new TypefaceCatalog(descriptors);
+    }
+
+    /**
+     * Creates a catalog of the font files in the specified asset folder, reusing the descriptors
+     * stored in the index file for the fonts which have not changed since the last scan. The index
+     * file is updated if any font has been added, changed or removed.
+     *
+     * @param assetManager The application's asset manager.
+     * @param folderPath The path of the folder in the assets directory.
+     * @param indexFile The file in which the descriptors are stored.
+     * @return A new catalog of the fonts in the asset folder.
+     *
+     * @throws NullPointerException if <code>assetManager</code>, <code>folderPath</code> or
+     *         <code>indexFile</code> is null.
+     * @throws RuntimeException if the asset folder could not be listed.
+     */
+    public static @NonNull TypefaceCatalog scanAssets(@NonNull final AssetManager assetManager,
+                                                      @NonNull String folderPath,
+                                                      @NonNull File indexFile) {
+        checkNotNull(assetManager, "assetManager");
+        checkNotNull(folderPath, "folderPath");
+        checkNotNull(indexFile, "indexFile");
+
+        String[] assetNames;
+        try {
+            assetNames = assetManager.list(folderPath);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not list specified asset folder", e);
+        }
+
+        List<String> names = new ArrayList<>();
+        if (assetNames != null) {
+            for (String name : assetNames) {
+                if (isFontName(name)) {
+                    names.add(name);
+                }
+            }
+        }
+
+        Collections.sort(names);
+
+        Map<String, FontRecord> oldRecords = readIndex(indexFile);
+        List<FontRecord> newRecords = new ArrayList<>(names.size());
+        List<TypefaceDescriptor> descriptors = new ArrayList<>();
+        boolean changed = (oldRecords.size() != names.size());
+
+        for (String name : names) {
+            final String path = (folderPath.isEmpty() ? name : folderPath + '/' + name);
+            FontOpener opener = new FontOpener() {
+                @Override
+                public @NonNull FontFile openFontFile() {
+                    return new FontFile(assetManager, path);
+                }
+
+                @Override
+                public @NonNull Typeface openTypeface() {
+                    return new Typeface(assetManager, path);
+                }
+            };
+
+            long size = assetSize(assetManager, path);
+            FontRecord record = oldRecords.get(path);
+
+            if (record == null || record.size != size) {
+                if (size < 0) {
+                    // Remember the unreadable asset without any face so that the index is not
+                    // rewritten on every scan.
+                    record = new FontRecord(path, size, 0, Collections.<FaceRecord>emptyList());
+                } else {
+                    record = scanFont(opener, path, size, 0);
+                }
+                changed = true;
+            }
+
+            newRecords.add(record);
+            addDescriptors(descriptors, record, opener);
+        }
+
+        if (changed) {
+            writeIndex(indexFile, newRecords);
+        }
+
+        return new TypefaceCatalog(descriptors);
+    }
+
+    private static boolean isFontName(@NonNull String name) {
+        String lowerName = name.toLowerCase(Locale.US);
+
+        for (String extension : FONT_EXTENSIONS) {
+            if (lowerName.endsWith(extension)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static long assetSize(@NonNull AssetManager assetManager, @NonNull String path) {
+        InputStream stream = null;
+
+        try {
+            stream = assetManager.open(path);
+
+            // The remaining length of an asset stream is the size of the whole asset.
+            return stream.available();
+        } catch (IOException e) {
+            return -1;
+        } finally {
+            closeQuietly(stream);
+        }
+    }
+
+    private static void closeQuietly(@Nullable Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static @NonNull FontRecord scanFont(@NonNull FontOpener opener, @NonNull String path,
+                                                long size, long lastModified) {
+        List<FaceRecord> faces = new ArrayList<>();
+
+        try {
+            FontFile fontFile = opener.openFontFile();
+            int faceCount = FontFileInternals.getFaceCount(fontFile);
+
+            for (int i = 0; i < faceCount; i++) {
+                Typeface typeface = FontFileInternals.createTypeface(fontFile, i, -1);
+                if (typeface == null) {
+                    continue;
+                }
+
+                List<NamedStyle> namedStyles = typeface.getNamedStyles();
+                if (namedStyles == null) {
+                    faces.add(recordFace(typeface, i, -1));
+                    continue;
+                }
+
+                for (int j = 0; j < namedStyles.size(); j++) {
+                    float[] coordinates = namedStyles.get(j).coordinates();
+                    Typeface instance = typeface.getVariationInstance(coordinates);
+
+                    if (instance != null) {
+                        faces.add(recordFace(instance, i, j));
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // Remember the unreadable font without any face so that it is not scanned every time.
+            faces.clear();
+        }
+
+        return new FontRecord(path, size, lastModified, faces);
+    }
+
+    private static @NonNull FaceRecord recordFace(@NonNull Typeface typeface,
+                                                  int faceIndex, int instanceIndex) {
+        FaceRecord face = new FaceRecord();
+        face.faceIndex = faceIndex;
+        face.instanceIndex = instanceIndex;
+        face.familyName = typeface.getFamilyName();
+        face.styleName = typeface.getStyleName();
+        face.fullName = typeface.getFullName();
+        face.weight = typeface.getWeight();
+        face.width = typeface.getWidth();
+        face.slope = typeface.getSlope();
+        face.variationAxes = typeface.getVariationAxes();
+        face.coverageRanges = typeface.getCoverageRanges();
+
+        return face;
+    }
+
+    private static void addDescriptors(@NonNull List<TypefaceDescriptor> descriptors,
+                                       @NonNull FontRecord record, @NonNull FontOpener opener) {
+        final FontEntry entry = new FontEntry(opener);
+        final int faceCount = record.faces.size();
+
+        for (int i = 0; i < faceCount; i++) {
+            final FaceRecord face = record.faces.get(i);
+
+            TypefaceDescriptor.Loader loader = new TypefaceDescriptor.Loader() {
+                @Override
+                public @NonNull Typeface load() {
+                    // A single static face can be opened without enumerating the font file.
+                    if (faceCount == 1 && face.variationAxes == null) {
+                        return entry.opener.openTypeface();
+                    }
+
+                    // Create only the requested face rather than every face of the font file.
+                    Typeface typeface = FontFileInternals.createTypeface(entry.fontFile(),
+                                                                         face.faceIndex,
+                                                                         face.instanceIndex);
+                    if (typeface == null) {
+                        throw new RuntimeException("Could not create typeface from the font file");
+                    }
+
+                    return typeface;
+                }
+            };
+
+            descriptors.add(new TypefaceDescriptor(face.familyName, face.styleName, face.fullName,
+                                                   face.weight, face.width, face.slope,
+                                                   face.variationAxes, face.coverageRanges,
+                                                   loader));
+        }
+    }
+
+    private static @NonNull Map<String, FontRecord> readIndex(@NonNull File indexFile) {
+        Map<String, FontRecord> records = new HashMap<>();
+        if (!indexFile.isFile()) {
+            return records;
+        }
+
+        DataInputStream input = null;
+
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+
+            if (input.readInt() != INDEX_MAGIC || input.readInt() != INDEX_VERSION) {
+                return records;
+            }
+
+            long maxCount = indexFile.length();
+            int fontCount = readCount(input, maxCount);
+
+            for (int i = 0; i < fontCount; i++) {
+                String path = input.readUTF();
+                long size = input.readLong();
+                long lastModified = input.readLong();
+                int faceCount = readCount(input, maxCount);
+                List<FaceRecord> faces = new ArrayList<>(faceCount);
+
+                for (int j = 0; j < faceCount; j++) {
+                    faces.add(readFace(input, maxCount));
+                }
+
+                records.put(path, new FontRecord(path, size, lastModified, faces));
+            }
+        } catch (IOException | RuntimeException e) {
+            // Discard a damaged index so that all the fonts are scanned again.
+            records.clear();
+        } finally {
+            closeQuietly(input);
+        }
+
+        return records;
+    }
+
+    /**
+     * Reads a count of the index, rejecting the one which could not fit in the index file, so that
+     * a damaged index is discarded instead of allocating arbitrarily large collections.
+     */
+    private static int readCount(@NonNull DataInputStream input, long maxCount)
+            throws IOException {
+        int count = input.readInt();
+        if (count < 0 || count > maxCount) {
+            throw new IOException("Invalid count in index: " + count);
+        }
+
+        return count;
+    }
+
+    private static @NonNull FaceRecord readFace(@NonNull DataInputStream input, long maxCount)
+            throws IOException {
+        FaceRecord face = new FaceRecord();
+        face.faceIndex = readCount(input, maxCount);
+        face.instanceIndex = input.readInt();
+        if (face.instanceIndex < -1) {
+            throw new IOException("Invalid instance index in index: " + face.instanceIndex);
+        }
+
+        face.familyName = input.readUTF();
+        face.styleName = input.readUTF();
+        face.fullName = input.readUTF();
+        face.weight = TypeWeight.values()[input.readByte()];
+        face.width = TypeWidth.values()[input.readByte()];
+        face.slope = TypeSlope.values()[input.readByte()];
+
+        int axisCount = readCount(input, maxCount);
+        if (axisCount > 0) {
+            List<VariationAxis> variationAxes = new ArrayList<>(axisCount);
+
+            for (int i = 0; i < axisCount; i++) {
+                int tag = input.readInt();
+                String name = input.readUTF();
+                int flags = input.readInt();
+                float defaultValue = input.readFloat();
+                float minValue = input.readFloat();
+                float maxValue = input.readFloat();
+
+                variationAxes.add(VariationAxis.of(tag, name, flags,
+                                                   defaultValue, minValue, maxValue));
+            }
+
+            face.variationAxes = variationAxes;
+        }
+
+        int[] coverageRanges = new int[readCount(input, maxCount)];
+        for (int i = 0; i < coverageRanges.length; i++) {
+            coverageRanges[i] = input.readInt();
+        }
+
+        face.coverageRanges = coverageRanges;
+
+        return face;
+    }
+
+    private static void writeIndex(@NonNull File indexFile, @NonNull List<FontRecord> records) {
+        File tempFile = new File(indexFile.getPath() + ".tmp");
+
+        DataOutputStream output = null;
+
+        try {
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            output.writeInt(INDEX_MAGIC);
+            output.writeInt(INDEX_VERSION);
+            output.writeInt(records.size());
+
+            for (FontRecord record : records) {
+                output.writeUTF(record.path);
+                output.writeLong(record.size);
+                output.writeLong(record.lastModified);
+                output.writeInt(record.faces.size());
+
+                for (FaceRecord face : record.faces) {
+                    writeFace(output, face);
+                }
+            }
+
+            output.close();
+            output = null;
+        } catch (IOException e) {
+            closeQuietly(output);
+            tempFile.delete();
+            return;
+        }
+
+        // Replace the old index only with a completely written one.
+        if (!tempFile.renameTo(indexFile)) {
+            tempFile.delete();
+        }
+    }
+
+    private static void writeFace(@NonNull DataOutputStream output,
+                                  @NonNull FaceRecord face) throws IOException {
+        output.writeInt(face.faceIndex);
+        output.writeInt(face.instanceIndex);
+        output.writeUTF(face.familyName);
+        output.writeUTF(face.styleName);
+        output.writeUTF(face.fullName);
+        output.writeByte(face.weight.ordinal());
+        output.writeByte(face.width.ordinal());
+        output.writeByte(face.slope.ordinal());
+
+        List<VariationAxis> variationAxes = face.variationAxes;
+        if (variationAxes == null) {
+            output.writeInt(0);
+        } else {
+            output.writeInt(variationAxes.size());
+
+            for (VariationAxis axis : variationAxes) {
+                output.writeInt(axis.tag());
+                output.writeUTF(axis.name());
+                output.writeInt(axis.flags());
+                output.writeFloat(axis.defaultValue());
+                output.writeFloat(axis.minValue());
+                output.writeFloat(axis.maxValue());
+            }
+        }
+
+        output.writeInt(face.coverageRanges.length);
+        for (int value : face.coverageRanges) {
+            output.writeInt(value);
+        }
+    }
+
+    /**
+     * Returns the descriptors of all typefaces in this catalog, ordered by the names of their font
+     * files.
+     *
+     * @return The descriptors of the typefaces in this catalog.
+     */
+    public @NonNull List<TypefaceDescriptor> getDescriptors() {
+        return descriptors;
+    }
+
+    @Override
+    public @NonNull String toString() {
+        return "TypefaceCatalog{descriptors=" + descriptors + "}";
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mta.tehreer.font.VariationAxis;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
+
+/**
+ * A <code>TypefaceDescriptor</code> object describes the names, style and character coverage of
+ * a typeface, which might not have been loaded yet. The descriptors of a {@link TypefaceCatalog}
+ * are read from its index, so that families and styles can be resolved without opening any font,
+ * and the typeface is only created when it is actually requested.
+ */
+public final class TypefaceDescriptor {
+    interface Loader {
+        @NonNull Typeface load();
+    }
+
+    private final @NonNull String familyName;
+    private final @NonNull String styleName;
+    private final @NonNull String fullName;
+    private final @NonNull TypeWeight weight;
+    private final @NonNull TypeWidth width;
+    private final @NonNull TypeSlope slope;
+    private final @Nullable List<VariationAxis> variationAxes;
+    private final @Nullable int[] coverageRanges;
+    private final @Nullable Loader loader;
+    private volatile @Nullable Typeface typeface;
+
+    TypefaceDescriptor(@NonNull Typeface typeface) {
+        this.familyName = typeface.getFamilyName();
+        this.styleName = typeface.getStyleName();
+        this.fullName = typeface.getFullName();
+        this.weight = typeface.getWeight();
+        this.width = typeface.getWidth();
+        this.slope = typeface.getSlope();
+        this.variationAxes = null;
+        this.coverageRanges = null;
+        this.loader = null;
+        this.typeface = typeface;
+    }
+
+    TypefaceDescriptor(@NonNull String familyName, @NonNull String styleName,
+                       @NonNull String fullName, @NonNull TypeWeight weight,
+                       @NonNull TypeWidth width, @NonNull TypeSlope slope,
+                       @Nullable List<VariationAxis> variationAxes,
+                       @NonNull int[] coverageRanges, @NonNull Loader loader) {
+        this.familyName = familyName;
+        this.styleName = styleName;
+        this.fullName = fullName;
+        this.weight = weight;
+        this.width = width;
+        this.slope = slope;
+        this.variationAxes = variationAxes;
+        this.coverageRanges = coverageRanges;
+        this.loader = loader;
+    }
+
+    @Nullable int[] coverageRanges() {
+        return coverageRanges;
+    }
+
+    /**
+     * Returns the family name of the described typeface.
+     *
+     * @return The family name of the described typeface.
+     */
+    public @NonNull String getFamilyName() {
+        return familyName;
+    }
+
+    /**
+     * Returns the style name of the described typeface.
+     *
+     * @return The style name of the described typeface.
+     */
+    public @NonNull String getStyleName() {
+        return styleName;
+    }
+
+    /**
+     * Returns the full name of the described typeface.
+     *
+     * @return The full name of the described typeface.
+     */
+    public @NonNull String getFullName() {
+        return fullName;
+    }
+
+    /**
+     * Returns the typographic weight of the described typeface.
+     *
+     * @return The typographic weight of the described typeface.
+     */
+    public @NonNull TypeWeight getWeight() {
+        return weight;
+    }
+
+    /**
+     * Returns the typographic width of the described typeface.
+     *
+     * @return The typographic width of the described typeface.
+     */
+    public @NonNull TypeWidth getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the typographic slope of the described typeface.
+     *
+     * @return The typographic slope of the described typeface.
+     */
+    public @NonNull TypeSlope getSlope() {
+        return slope;
+    }
+
+    /**
+     * Returns the variation axes of the described typeface if it supports OpenType font
+     * variations.
+     *
+     * @return The variation axes of the described typeface if it supports OpenType font
+     *         variations.
+     */
+    public @Nullable List<VariationAxis> getVariationAxes() {
+        if (loader == null) {
+            return getTypeface().getVariationAxes();
+        }
+        if (variationAxes != null && !variationAxes.isEmpty()) {
+            return Collections.unmodifiableList(variationAxes);
+        }
+
+        return null;
+    }
+
+    /**
+     * Checks whether the described typeface maps the specified code point to a glyph.
+     *
+     * @param codePoint The code point to check.
+     * @return <code>true</code> if the described typeface has a glyph for the code point.
+     */
+    public boolean hasCodePoint(int codePoint) {
+        if (coverageRanges == null) {
+            return getTypeface().getGlyphId(codePoint) != 0;
+        }
+
+        int low = 0;
+        int high = (coverageRanges.length / 2) - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+
+            if (codePoint < coverageRanges[mid * 2]) {
+                high = mid - 1;
+            } else if (codePoint > coverageRanges[mid * 2 + 1]) {
+                low = mid + 1;
+            } else {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks whether the described typeface has already been created.
+     *
+     * @return <code>true</code> if the described typeface has already been created.
+     */
+    public boolean isLoaded() {
+        return typeface != null;
+    }
+
+    /**
+     * Returns the described typeface, creating it on first call.
+     *
+     * @return The described typeface.
+     *
+     * @throws RuntimeException if the font of the typeface could not be opened.
+     */
+    public @NonNull Typeface getTypeface() {
+        Typeface instance = typeface;
+        if (instance == null) {
+            synchronized (this) {
+                instance = typeface;
+                if (instance == null) {
+                    // Only the descriptors of a catalog start without a typeface.
+                    Loader typefaceLoader = loader;
+                    checkNotNull(typefaceLoader);
+
+                    instance = typefaceLoader.load();
+                    typeface = instance;
+                }
+            }
+        }
+
+        return instance;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if (this != obj) {
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+
+            // Descriptors wrapping an existing typeface are equal if they wrap the same one.
+            TypefaceDescriptor other = (TypefaceDescriptor) obj;
+            return loader == null && other.loader == null && typeface.equals(other.typeface);
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        if (loader == null) {
+            return typeface.hashCode();
+        }
+
+        return System.identityHashCode(this);
+    }
+
+    @Override
+    public @NonNull String toString() {
+        return "TypefaceDescriptor{familyName=" + familyName
+                + ", styleName=" + styleName
+                + ", fullName=" + fullName
+                + ", weight=" + weight
+                + ", width=" + width
+                + ", slope=" + slope
+                + ", loaded=" + isLoaded()
+                + "}";
+    }
+}
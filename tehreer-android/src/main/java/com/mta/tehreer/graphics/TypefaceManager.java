@@ -34,9 +34,9 @@ import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
  * The <code>TypefaceManager</code> class provides management activities related to typefaces.
  */
 public class TypefaceManager {
-    private static class TypefaceComparator implements Comparator<Typeface> {
+    private static class DescriptorComparator implements Comparator<TypefaceDescriptor> {
         @Override
-        public int compare(Typeface obj1, Typeface obj2) {
+        public int compare(TypefaceDescriptor obj1, TypefaceDescriptor obj2) {
             int result = obj1.getFamilyName().compareToIgnoreCase(obj2.getFamilyName());
             if (result == 0) {
                 return obj1.getStyleName().compareToIgnoreCase(obj2.getStyleName());
@@ -46,12 +46,25 @@ public class TypefaceManager {
         }
     }
 
-    private static final @NonNull HashMap<Object, Typeface> tags = new HashMap<>();
-    private static final @NonNull ArrayList<Typeface> typefaces = new ArrayList<>();
+    private static final @NonNull HashMap<Object, TypefaceDescriptor> tags = new HashMap<>();
+    private static final @NonNull ArrayList<TypefaceDescriptor> descriptors = new ArrayList<>();
     private static boolean sorted;
 
     private TypefaceManager() { }
 
+    private static int indexOfTypeface(@NonNull Typeface typeface) {
+        int count = descriptors.size();
+
+        for (int i = 0; i < count; i++) {
+            TypefaceDescriptor descriptor = descriptors.get(i);
+            if (descriptor.isLoaded() && descriptor.getTypeface() == typeface) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
     /**
      * Registers a typeface in <code>TypefaceManager</code>.
      *
@@ -65,17 +78,44 @@ public class TypefaceManager {
         checkNotNull(typeface, "typeface");
 
         synchronized (TypefaceManager.class) {
-            checkArgument(!typefaces.contains(typeface), "This typeface is already registered");
+            checkArgument(indexOfTypeface(typeface) < 0, "This typeface is already registered");
+
+            TypefaceDescriptor descriptor = new TypefaceDescriptor(typeface);
 
             if (tag != null) {
                 checkArgument(!tags.containsKey(tag), "This tag is already taken");
 
-                tags.put(tag, typeface);
+                tags.put(tag, descriptor);
                 typeface.tag = tag;
             }
 
             sorted = false;
-            typefaces.add(typeface);
+            descriptors.add(descriptor);
+        }
+    }
+
+    /**
+     * Registers all typefaces of a catalog in <code>TypefaceManager</code> without creating them.
+     * A typeface of the catalog is created when it is first returned by any method of this class
+     * or by a type family.
+     *
+     * @param catalog The catalog whose typefaces will be registered.
+     *
+     * @throws IllegalArgumentException if <code>catalog</code> is already registered.
+     */
+    public static void registerCatalog(@NonNull TypefaceCatalog catalog) {
+        checkNotNull(catalog, "catalog");
+
+        List<TypefaceDescriptor> entries = catalog.getDescriptors();
+
+        synchronized (TypefaceManager.class) {
+            for (TypefaceDescriptor descriptor : entries) {
+                checkArgument(!descriptors.contains(descriptor),
+                              "This catalog is already registered");
+            }
+
+            sorted = false;
+            descriptors.addAll(entries);
         }
     }
 
@@ -90,12 +130,14 @@ public class TypefaceManager {
         checkNotNull(typeface, "typeface");
 
         synchronized (TypefaceManager.class) {
-            int index = typefaces.indexOf(typeface);
+            int index = indexOfTypeface(typeface);
             checkArgument(index >= 0, "This typeface is not registered");
 
-            typefaces.remove(index);
-            tags.remove(typeface.tag);
-            typeface.tag = null;
+            descriptors.remove(index);
+            if (typeface.tag != null) {
+                tags.remove(typeface.tag);
+                typeface.tag = null;
+            }
         }
     }
 
@@ -109,9 +151,13 @@ public class TypefaceManager {
     public static @Nullable Typeface getTypeface(@NonNull Object tag) {
         checkNotNull(tag, "tag");
 
+        TypefaceDescriptor descriptor;
+
         synchronized (TypefaceManager.class) {
-            return tags.get(tag);
+            descriptor = tags.get(tag);
         }
+
+        return (descriptor != null ? descriptor.getTypeface() : null);
     }
 
     /**
@@ -127,7 +173,7 @@ public class TypefaceManager {
         checkNotNull(typeface, "typeface");
 
         synchronized (TypefaceManager.class) {
-            checkArgument(typefaces.contains(typeface), "This typeface is not registered");
+            checkArgument(indexOfTypeface(typeface) >= 0, "This typeface is not registered");
 
             return typeface.tag;
         }
@@ -140,14 +186,14 @@ public class TypefaceManager {
      * @return A type family having specified family name.
      */
     public static @Nullable TypeFamily getTypeFamily(@NonNull String familyName) {
-        List<Typeface> entryList = new ArrayList<>();
+        List<TypefaceDescriptor> entryList = new ArrayList<>();
 
         synchronized (TypefaceManager.class) {
-            sortTypefaces();
+            sortDescriptors();
 
-            for (Typeface typeface : typefaces) {
-                if (typeface.getFamilyName().equalsIgnoreCase(familyName)) {
-                    entryList.add(typeface);
+            for (TypefaceDescriptor descriptor : descriptors) {
+                if (descriptor.getFamilyName().equalsIgnoreCase(familyName)) {
+                    entryList.add(descriptor);
                 }
             }
         }
@@ -155,7 +201,7 @@ public class TypefaceManager {
         TypeFamily typeFamily = null;
 
         if (entryList.size() > 0) {
-            typeFamily = new TypeFamily(familyName, entryList);
+            typeFamily = TypeFamily.ofDescriptors(familyName, entryList);
         }
 
         return typeFamily;
@@ -169,15 +215,18 @@ public class TypefaceManager {
      *         registered.
      */
     public static @Nullable Typeface getTypefaceByName(@NonNull String fullName) {
+        TypefaceDescriptor match = null;
+
         synchronized (TypefaceManager.class) {
-            for (Typeface typeface : typefaces) {
-                if (typeface.getFullName().equalsIgnoreCase(fullName)) {
-                    return typeface;
+            for (TypefaceDescriptor descriptor : descriptors) {
+                if (descriptor.getFullName().equalsIgnoreCase(fullName)) {
+                    match = descriptor;
+                    break;
                 }
             }
         }
 
-        return null;
+        return (match != null ? match.getTypeface() : null);
     }
 
     /**
@@ -186,29 +235,30 @@ public class TypefaceManager {
      * @return A list of available type families.
      */
     public static @NonNull List<TypeFamily> getAvailableFamilies() {
-        Map<String, List<Typeface>> familyMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        Map<String, List<TypefaceDescriptor>> familyMap =
+                new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
 
         synchronized (TypefaceManager.class) {
-            sortTypefaces();
+            sortDescriptors();
 
-            for (Typeface typeface : typefaces) {
-                List<Typeface> entryList = familyMap.get(typeface.getFamilyName());
+            for (TypefaceDescriptor descriptor : descriptors) {
+                List<TypefaceDescriptor> entryList = familyMap.get(descriptor.getFamilyName());
                 if (entryList == null) {
                     entryList = new ArrayList<>();
-                    familyMap.put(typeface.getFamilyName(), entryList);
+                    familyMap.put(descriptor.getFamilyName(), entryList);
                 }
 
-                entryList.add(typeface);
+                entryList.add(descriptor);
             }
         }
 
         List<TypeFamily> familyList = new ArrayList<>(familyMap.size());
 
-        for (Map.Entry<String, List<Typeface>> entry : familyMap.entrySet()) {
+        for (Map.Entry<String, List<TypefaceDescriptor>> entry : familyMap.entrySet()) {
             String familyName = entry.getKey();
-            List<Typeface> typefaces = entry.getValue();
+            List<TypefaceDescriptor> descriptors = entry.getValue();
 
-            familyList.add(new TypeFamily(familyName, typefaces));
+            familyList.add(TypeFamily.ofDescriptors(familyName, descriptors));
         }
 
         return Collections.unmodifiableList(familyList);
@@ -216,21 +266,40 @@ public class TypefaceManager {
 
     /**
      * Returns a list of available typefaces sorted by their family and style names in ascending
-     * order.
+     * order. All the typefaces of registered catalogs are created by this method, so
+     * {@link #getAvailableDescriptors()} should be preferred when only their names or styles are
+     * needed.
      *
      * @return A list of available typefaces.
      */
     public static @NonNull List<Typeface> getAvailableTypefaces() {
+        List<TypefaceDescriptor> entryList = getAvailableDescriptors();
+        List<Typeface> typefaces = new ArrayList<>(entryList.size());
+
+        for (TypefaceDescriptor descriptor : entryList) {
+            typefaces.add(descriptor.getTypeface());
+        }
+
+        return Collections.unmodifiableList(typefaces);
+    }
+
+    /**
+     * Returns a list of descriptors of available typefaces sorted by their family and style names
+     * in ascending order.
+     *
+     * @return A list of descriptors of available typefaces.
+     */
+    public static @NonNull List<TypefaceDescriptor> getAvailableDescriptors() {
         synchronized (TypefaceManager.class) {
-            sortTypefaces();
+            sortDescriptors();
 
-            return Collections.unmodifiableList(new ArrayList<>(typefaces));
+            return Collections.unmodifiableList(new ArrayList<>(descriptors));
         }
     }
 
-    private static void sortTypefaces() {
+    private static void sortDescriptors() {
         if (!sorted) {
-            Collections.sort(typefaces, new TypefaceComparator());
+            Collections.sort(descriptors, new DescriptorComparator());
             sorted = true;
         }
     }
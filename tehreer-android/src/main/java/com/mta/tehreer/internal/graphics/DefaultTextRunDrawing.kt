@@ -22,6 +22,7 @@ import android.text.style.ScaleXSpan
 import com.mta.tehreer.graphics.Renderer
 import com.mta.tehreer.internal.layout.TextRun
 import com.mta.tehreer.internal.util.isOdd
+import java.util.concurrent.Executor
 import kotlin.math.max
 import kotlin.math.min
 
@@ -107,14 +108,12 @@ internal class DefaultTextRunDrawing(
         canvas.restore()
     }
 
-    override fun draw(renderer: Renderer, canvas: Canvas) {
+    private fun setupRenderer(renderer: Renderer) {
         renderer.typeface = textRun.typeface
         renderer.typeSize = textRun.typeSize
         renderer.scaleX = 1.0f
         renderer.writingDirection = textRun.writingDirection
 
-        val defaultFillColor = renderer.fillColor
-
         for (span in textRun.spans) {
             if (span is ForegroundColorSpan) {
                 renderer.fillColor = span.foregroundColor
@@ -122,6 +121,21 @@ internal class DefaultTextRunDrawing(
                 renderer.scaleX = span.scaleX
             }
         }
+    }
+
+    override fun prefetch(renderer: Renderer, executor: Executor) {
+        val defaultFillColor = renderer.fillColor
+
+        setupRenderer(renderer)
+        renderer.prefetchGlyphs(textRun.glyphIds, executor)
+
+        renderer.fillColor = defaultFillColor
+    }
+
+    override fun draw(renderer: Renderer, canvas: Canvas) {
+        val defaultFillColor = renderer.fillColor
+
+        setupRenderer(renderer)
 
         val firstIndex = textRun.startIndex
         val lastIndex = textRun.endIndex - 1
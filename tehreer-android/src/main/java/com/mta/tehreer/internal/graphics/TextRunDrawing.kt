@@ -18,7 +18,9 @@ package com.mta.tehreer.internal.graphics
 
 import android.graphics.Canvas
 import com.mta.tehreer.graphics.Renderer
+import java.util.concurrent.Executor
 
 internal interface TextRunDrawing {
     fun draw(renderer: Renderer, canvas: Canvas)
+    fun prefetch(renderer: Renderer, executor: Executor)
 }
@@ -51,9 +51,9 @@ internal class CaretEdgesBuilder {
         return this
     }
 
-    private fun buildCaretAdvances(): FloatArray {
+    private fun buildCaretAdvances(caretAdvances: FloatArray) {
         val codeUnitCount = clusterMap.size()
-        val caretAdvances = FloatArray(codeUnitCount + 1)
+        caretAdvances[codeUnitCount] = 0f
 
         var glyphIndex = clusterMap[0] + 1
         var refIndex = glyphIndex
@@ -113,13 +113,19 @@ internal class CaretEdgesBuilder {
                 totalStops = 0
             }
         }
-
-        return caretAdvances
     }
 
     fun build(): FloatArray {
+        return build(FloatArray(clusterMap.size() + 1))
+    }
+
+    /**
+     * Writes the caret edges into the leading elements of the given array, which must be able to
+     * hold one more than the number of code units.
+     */
+    fun build(caretEdges: FloatArray): FloatArray {
         val codeUnitCount = clusterMap.size()
-        val caretEdges = buildCaretAdvances()
+        buildCaretAdvances(caretEdges)
         var distance = 0f
 
         if (isRTL) {
@@ -23,6 +23,8 @@ import com.mta.tehreer.collections.IntList
 import com.mta.tehreer.collections.PointList
 import com.mta.tehreer.graphics.Renderer
 import com.mta.tehreer.graphics.Typeface
+import com.mta.tehreer.internal.util.toFloatList
+import com.mta.tehreer.internal.util.toPointList
 import java.lang.UnsupportedOperationException
 
 internal class IntrinsicRun(
@@ -40,7 +42,10 @@ internal class IntrinsicRun(
     override val glyphOffsets: PointList,
     override val glyphAdvances: FloatList,
     override val clusterMap: IntList,
-    override val caretEdges: FloatList
+    override val caretEdges: FloatList,
+    val scaleX: Float = 1.0f,
+    val baselineShift: Float = 0.0f,
+    private val source: IntrinsicRun? = null
 ) : AbstractTextRun() {
     override val spans: List<Any>
         get() = emptyList()
@@ -144,6 +149,59 @@ internal class IntrinsicRun(
         return super.computeNearestCharIndex(distance, fromIndex, toIndex)
     }
 
+    /**
+     * The run that was actually shaped, whose glyph positions are scaled by the derived runs.
+     */
+    val shapedRun: IntrinsicRun
+        get() = source ?: this
+
+    /**
+     * Creates a copy of this run at the given type size by scaling the glyph positions of the
+     * shaped run, so that the error does not accumulate over successive derivations.
+     */
+    fun deriveRun(typeSize: Float, baselineShift: Float): IntrinsicRun {
+        val origin = shapedRun
+        val factor = typeSize / origin.typeSize
+        val sizeByEm = typeSize / typeface.unitsPerEm
+
+        val offsets = origin.glyphOffsets.toArray()
+        val advances = origin.glyphAdvances.toArray()
+        val caretEdges = origin.caretEdges.toArray()
+
+        for (i in advances.indices) {
+            val yIndex = i * 2 + 1
+
+            offsets[i * 2] *= factor
+            offsets[yIndex] = (offsets[yIndex] - origin.baselineShift) * factor + baselineShift
+            advances[i] *= factor
+        }
+
+        for (i in caretEdges.indices) {
+            caretEdges[i] *= factor
+        }
+
+        return IntrinsicRun(
+            startIndex = startIndex,
+            endIndex = endIndex,
+            isBackward = isBackward,
+            bidiLevel = bidiLevel,
+            writingDirection = writingDirection,
+            typeface = typeface,
+            typeSize = typeSize,
+            ascent = typeface.ascent * sizeByEm,
+            descent = typeface.descent * sizeByEm,
+            leading = typeface.leading * sizeByEm,
+            glyphIds = origin.glyphIds,
+            glyphOffsets = offsets.toPointList(),
+            glyphAdvances = advances.toFloatList(),
+            clusterMap = origin.clusterMap,
+            caretEdges = caretEdges.toFloatList(),
+            scaleX = scaleX,
+            baselineShift = baselineShift,
+            source = origin
+        )
+    }
+
     override fun draw(renderer: Renderer, canvas: Canvas) {
         throw UnsupportedOperationException()
     }
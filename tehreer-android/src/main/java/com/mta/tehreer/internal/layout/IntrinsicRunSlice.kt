@@ -26,6 +26,7 @@ import com.mta.tehreer.graphics.Renderer
 import com.mta.tehreer.graphics.Typeface
 import com.mta.tehreer.internal.graphics.DefaultTextRunDrawing
 import com.mta.tehreer.internal.util.Preconditions
+import java.util.concurrent.Executor
 
 internal class IntrinsicRunSlice(
     private val intrinsicRun: IntrinsicRun,
@@ -185,4 +186,9 @@ internal class IntrinsicRunSlice(
         val drawing = DefaultTextRunDrawing(this)
         drawing.draw(renderer, canvas)
     }
+
+    override fun prefetch(renderer: Renderer, executor: Executor) {
+        val drawing = DefaultTextRunDrawing(this)
+        drawing.prefetch(renderer, executor)
+    }
 }
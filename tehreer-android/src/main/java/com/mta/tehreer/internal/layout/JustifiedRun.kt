@@ -29,6 +29,7 @@ import com.mta.tehreer.internal.util.Preconditions.checkIndexRange
 import com.mta.tehreer.internal.util.Preconditions.checkNotNull
 import com.mta.tehreer.internal.util.isOdd
 import com.mta.tehreer.internal.util.toFloatList
+import java.util.concurrent.Executor
 
 internal class JustifiedRun(
     private val textRun: TextRun,
@@ -173,4 +174,9 @@ internal class JustifiedRun(
         val drawing = DefaultTextRunDrawing(this)
         drawing.draw(renderer, canvas)
     }
+
+    override fun prefetch(renderer: Renderer, executor: Executor) {
+        val drawing = DefaultTextRunDrawing(this)
+        drawing.prefetch(renderer, executor)
+    }
 }
@@ -19,85 +19,309 @@ package com.mta.tehreer.internal.layout
 import android.graphics.Paint
 import android.graphics.Paint.FontMetricsInt
 import android.text.Spanned
+import com.mta.tehreer.graphics.Typeface
+import com.mta.tehreer.graphics.TypefaceInternals
 import com.mta.tehreer.internal.util.Preconditions.checkArgument
 import com.mta.tehreer.internal.util.isEven
 import com.mta.tehreer.internal.util.isOdd
 import com.mta.tehreer.internal.util.toFloatList
 import com.mta.tehreer.internal.util.toIntList
 import com.mta.tehreer.internal.util.toPointList
+import com.mta.tehreer.sfnt.OpenTypeFeature
+import com.mta.tehreer.sfnt.ShapingBatch
 import com.mta.tehreer.sfnt.ShapingEngine
 import com.mta.tehreer.sfnt.ShapingOrder
-import com.mta.tehreer.sfnt.ShapingResult
 import com.mta.tehreer.sfnt.WritingDirection
 import com.mta.tehreer.unicode.*
+import java.util.Collections
+import java.util.WeakHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executor
+import java.util.concurrent.Future
+import java.util.concurrent.FutureTask
+import java.util.concurrent.RejectedExecutionException
+import kotlin.math.roundToInt
 
 internal class ShapeResolver(
     private val text: String,
     private val spanned: Spanned,
     private val defaultSpans: List<Any>
 ) {
+    private class PendingWord(val start: Int, val end: Int, val key: String) {
+        var shapedText: ShapedText? = null
+        var batchIndex = -1
+    }
+
+    private class PendingRun(
+        val context: ShapingContext,
+        val startIndex: Int,
+        val endIndex: Int,
+        val bidiLevel: Byte,
+        val ascent: Float,
+        val descent: Float,
+        val leading: Float,
+        val scaleX: Float,
+        val baselineShift: Float,
+        val words: List<PendingWord>
+    )
+
+    private val shapingBatch = ShapingBatch()
+    private val batchWords = ArrayList<PendingWord>()
+    private val batchContexts = ArrayList<ShapingContext>()
+    private val batchIndexes = HashMap<ShapingContext, HashMap<String, Int>>()
+
     fun createParagraphsAndRuns(): Pair<ParagraphCollection, RunCollection> {
+        val bidiAlgorithm = BidiAlgorithm(text)
+
+        try {
+            return createParagraphsAndRuns(bidiAlgorithm, ScriptClassifier(text), 0, text.length)
+        } finally {
+            bidiAlgorithm.dispose()
+        }
+    }
+
+    /**
+     * Creates the paragraphs and runs of the text by splitting it into chunks at paragraph
+     * separators and processing them concurrently on the given executor, each with its own shaping
+     * engine. The bidi classes and scripts of the text are determined once and shared by all
+     * chunks. The calling thread runs the chunks that the executor has not started, so a busy or
+     * rejecting executor only reduces the parallelism. The result is the same as the one of
+     * sequential processing.
+     */
+    fun createParagraphsAndRuns(executor: Executor): Pair<ParagraphCollection, RunCollection> {
+        val chunkBounds = splitChunks(text, Runtime.getRuntime().availableProcessors())
+        if (chunkBounds.size <= 2) {
+            return createParagraphsAndRuns()
+        }
+
+        val bidiAlgorithm = BidiAlgorithm(text)
+        val scriptClassifier = ScriptClassifier(text)
+        val tasks = ArrayList<FutureTask<Pair<ParagraphCollection, RunCollection>>>()
+
+        for (i in 1 until chunkBounds.size) {
+            val chunkStart = chunkBounds[i - 1]
+            val chunkEnd = chunkBounds[i]
+
+            tasks.add(FutureTask {
+                ShapeResolver(text, spanned, defaultSpans)
+                    .createParagraphsAndRuns(bidiAlgorithm, scriptClassifier, chunkStart, chunkEnd)
+            })
+        }
+
         val paragraphs = ParagraphCollection()
         val runs = RunCollection()
+        var failure: Throwable? = null
+
+        try {
+            for (i in 1 until tasks.size) {
+                try {
+                    executor.execute(tasks[i])
+                } catch (ignored: RejectedExecutionException) {
+                    // The task is run on the calling thread below.
+                }
+            }
+            for (task in tasks) {
+                task.run()
+            }
+
+            for (task in tasks) {
+                try {
+                    val result = getUninterruptibly(task)
+                    paragraphs.addAll(result.first)
+                    runs.addAll(result.second)
+                    // The merged collection owns the paragraphs now, so keep the chunk collection
+                    // from disposing them once it is finalized.
+                    result.first.clear()
+                } catch (e: ExecutionException) {
+                    if (failure == null) {
+                        failure = e.cause
+                    }
+                }
+            }
+
+            if (failure != null) {
+                // Release the paragraphs of the successful chunks as well, since the failed one
+                // has already released its own.
+                synchronized(bidiAlgorithm) {
+                    paragraphs.forEach { it.dispose() }
+                    paragraphs.clear()
+                }
+                throw failure
+            }
+        } finally {
+            bidiAlgorithm.dispose()
+        }
+
+        return Pair(paragraphs, runs)
+    }
+
+    private fun createParagraphsAndRuns(
+        bidiAlgorithm: BidiAlgorithm,
+        scriptClassifier: ScriptClassifier,
+        chunkStart: Int,
+        chunkEnd: Int
+    ): Pair<ParagraphCollection, RunCollection> {
+        val paragraphs = ParagraphCollection()
+        val slots = ArrayList<Any>()
+        val runs: RunCollection
 
-        var bidiAlgorithm: BidiAlgorithm? = null
         var shapingEngine: ShapingEngine? = null
 
         try {
-            bidiAlgorithm = BidiAlgorithm(text)
             shapingEngine = ShapingEngine()
 
-            val scriptClassifier = ScriptClassifier(text)
             val runLocator = ShapingRunLocator(spanned, defaultSpans)
+            val languageTag = shapingEngine.languageTag
+            val openTypeFeatures = shapingEngine.openTypeFeatures
 
-            var paragraphStart = 0
-            val suggestedEnd = text.length
-
+            var paragraphStart = chunkStart
+            val suggestedEnd = chunkEnd
             while (paragraphStart != suggestedEnd) {
-                val paragraph = bidiAlgorithm.createParagraph(
-                    paragraphStart,
-                    suggestedEnd,
-                    BaseDirection.DEFAULT_LEFT_TO_RIGHT
-                )
+                // Each paragraph retains the native algorithm without atomic operations, so the
+                // paragraphs of concurrent chunks are created and released one at a time.
+                val paragraph = synchronized(bidiAlgorithm) {
+                    bidiAlgorithm.createParagraph(
+                        paragraphStart,
+                        suggestedEnd,
+                        BaseDirection.DEFAULT_LEFT_TO_RIGHT
+                    )
+                }
+                paragraphs.add(paragraph)
 
                 for (bidiRun in paragraph.logicalRuns) {
                     for (scriptRun in scriptClassifier.getScriptRuns(
                         bidiRun.charStart,
                         bidiRun.charEnd
                     )) {
-                        val scriptTag = Script.getOpenTypeTag(scriptRun.script)
-                        val writingDirection = ShapingEngine.getScriptDirection(scriptTag)
+                        resolveScriptRun(
+                            slots, runLocator, languageTag, openTypeFeatures,
+                            scriptRun, bidiRun.embeddingLevel
+                        )
+                    }
+                }
 
-                        val isRTL = bidiRun.isRightToLeft
-                        val isBackward = ((isRTL && writingDirection == WritingDirection.LEFT_TO_RIGHT)
-                                      or (!isRTL && writingDirection == WritingDirection.RIGHT_TO_LEFT))
-                        val shapingOrder = if (isBackward) ShapingOrder.BACKWARD else ShapingOrder.FORWARD
+                paragraphStart = paragraph.charEnd
+            }
 
-                        runLocator.reset(scriptRun.charStart, scriptRun.charEnd)
+            runs = resolveRuns(slots, shapingEngine)
+        } catch (e: Throwable) {
+            // Release the paragraphs of a failed chunk before the others finish, rather than
+            // leaving them to the finalizer.
+            synchronized(bidiAlgorithm) {
+                paragraphs.forEach { it.dispose() }
+                paragraphs.clear()
+            }
+            throw e
+        } finally {
+            clearBatch()
+            shapingEngine?.dispose()
+        }
 
-                        shapingEngine.scriptTag = scriptTag
-                        shapingEngine.writingDirection = writingDirection
-                        shapingEngine.shapingOrder = shapingOrder
+        return Pair(paragraphs, runs)
+    }
 
-                        resolveTypefaces(runs, runLocator, shapingEngine, bidiRun.embeddingLevel)
-                    }
+    /**
+     * Creates the runs of the same text whose spans differ from the source runs only in type
+     * sizes. The glyph positions of an intrinsic run are scaled as long as it keeps its range and
+     * style, and the size change does not affect its shaping; all other runs are resolved again.
+     */
+    fun deriveRuns(sourceRuns: RunCollection): RunCollection {
+        val slots = ArrayList<Any>()
+        val runLocator = ShapingRunLocator(spanned, defaultSpans)
+
+        var scriptClassifier: ScriptClassifier? = null
+        var shapingEngine: ShapingEngine? = null
+
+        try {
+            for (sourceRun in sourceRuns) {
+                val runStart = sourceRun.startIndex
+                val runEnd = sourceRun.endIndex
+
+                runLocator.reset(runStart, runEnd)
+                runLocator.moveNext()
+
+                if (sourceRun is IntrinsicRun && isRescalable(sourceRun, runLocator)) {
+                    slots.add(sourceRun.deriveRun(runLocator.typeSize, runLocator.baselineShift))
+                    continue
                 }
-                paragraphs.add(paragraph)
 
-                paragraphStart = paragraph.charEnd
+                if (scriptClassifier == null) {
+                    scriptClassifier = ScriptClassifier(text)
+                }
+                if (shapingEngine == null) {
+                    shapingEngine = ShapingEngine()
+                }
+
+                for (scriptRun in scriptClassifier.getScriptRuns(runStart, runEnd)) {
+                    resolveScriptRun(
+                        slots, runLocator, shapingEngine.languageTag,
+                        shapingEngine.openTypeFeatures, scriptRun, sourceRun.bidiLevel
+                    )
+                }
             }
+
+            return resolveRuns(slots, shapingEngine)
         } finally {
+            clearBatch()
             shapingEngine?.dispose()
-            bidiAlgorithm?.dispose()
         }
+    }
 
-        return Pair(paragraphs, runs)
+    private fun isRescalable(sourceRun: IntrinsicRun, runLocator: ShapingRunLocator): Boolean {
+        val shapedRun = sourceRun.shapedRun
+        val typeface = sourceRun.typeface
+
+        if (runLocator.runEnd != sourceRun.endIndex
+            || runLocator.replacement != null
+            || runLocator.typeface !== typeface
+            || runLocator.scaleX.compareTo(sourceRun.scaleX) != 0
+            || shapedRun.typeSize <= 0.0f
+        ) {
+            return false
+        }
+
+        // The engine shapes with the rounded size as ppem which only matters to the device tables
+        // of GPOS.
+        return runLocator.typeSize.roundToInt() == shapedRun.typeSize.roundToInt()
+            || !isSizeDependent(typeface)
+    }
+
+    private fun resolveScriptRun(
+        slots: MutableList<Any>,
+        runLocator: ShapingRunLocator,
+        languageTag: Int,
+        openTypeFeatures: Set<OpenTypeFeature>,
+        scriptRun: ScriptRun,
+        bidiLevel: Byte
+    ) {
+        val scriptTag = Script.getOpenTypeTag(scriptRun.script)
+        val writingDirection = ShapingEngine.getScriptDirection(scriptTag)
+
+        val isRTL = bidiLevel.isOdd()
+        val isBackward = ((isRTL && writingDirection == WritingDirection.LEFT_TO_RIGHT)
+                      or (!isRTL && writingDirection == WritingDirection.RIGHT_TO_LEFT))
+        val shapingOrder = if (isBackward) ShapingOrder.BACKWARD else ShapingOrder.FORWARD
+
+        runLocator.reset(scriptRun.charStart, scriptRun.charEnd)
+
+        resolveTypefaces(slots, runLocator, bidiLevel) { typeface, typeSize ->
+            ShapingContext(
+                typeface = typeface,
+                typeSize = typeSize,
+                scriptTag = scriptTag,
+                languageTag = languageTag,
+                writingDirection = writingDirection,
+                shapingOrder = shapingOrder,
+                openTypeFeatures = openTypeFeatures
+            )
+        }
     }
 
-    private fun resolveTypefaces(
-        runs: RunCollection,
+    private inline fun resolveTypefaces(
+        slots: MutableList<Any>,
         runLocator: ShapingRunLocator,
-        shapingEngine: ShapingEngine, bidiLevel: Byte
+        bidiLevel: Byte,
+        contextOf: (typeface: Typeface, typeSize: Float) -> ShapingContext
     ) {
         var paint: Paint? = null
         var metrics: FontMetricsInt? = null
@@ -119,64 +343,31 @@ internal class ShapeResolver(
             val leading = typeface.leading * sizeByEm
 
             val replacement = runLocator.replacement
-            var textRun: TextRun
 
             if (replacement == null) {
-                shapingEngine.typeface = typeface
-                shapingEngine.typeSize = typeSize
+                val context = contextOf(typeface, typeSize)
+                val words = ArrayList<PendingWord>()
 
-                var shapingResult: ShapingResult? = null
+                val isSplittable = ShapingCache.isSplittable(typeface)
 
-                try {
-                    shapingResult = shapingEngine.shapeText(text, runStart, runEnd)
-
-                    val writingDirection = shapingEngine.writingDirection
-                    val isBackward = shapingResult.isBackward
-                    val glyphIds = shapingResult.glyphIds.toArray()
-                    val offsets = shapingResult.glyphOffsets.toArray()
-                    val advances = shapingResult.glyphAdvances.toArray()
-                    val clusterMap = shapingResult.clusterMap.toArray()
-                    val caretEdges = shapingResult.getCaretEdges(null)
-
-                    val scaleX = runLocator.scaleX
-                    if (scaleX.compareTo(1.0f) != 0) {
-                        for (i in glyphIds.indices) {
-                            offsets[i * 2] *= scaleX
-                            advances[i] *= scaleX
-                        }
-
-                        for (i in caretEdges.indices) {
-                            caretEdges[i] *= scaleX
-                        }
-                    }
-
-                    val baselineShift = runLocator.baselineShift
-                    if (baselineShift.compareTo(0.0f) != 0) {
-                        for (i in glyphIds.indices) {
-                            offsets[i * 2 + 1] += baselineShift
-                        }
-                    }
+                ShapingCache.forEachWord(text, runStart, runEnd, isSplittable) { start, end ->
+                    words.add(lookupWord(context, start, end))
+                }
 
-                    textRun = IntrinsicRun(
+                slots.add(
+                    PendingRun(
+                        context = context,
                         startIndex = runStart,
                         endIndex = runEnd,
-                        isBackward = isBackward,
                         bidiLevel = bidiLevel,
-                        writingDirection = writingDirection,
-                        typeface = typeface,
-                        typeSize = typeSize,
                         ascent = ascent,
                         descent = descent,
                         leading = leading,
-                        glyphIds = glyphIds.toIntList(),
-                        glyphOffsets = offsets.toPointList(),
-                        glyphAdvances = advances.toFloatList(),
-                        clusterMap = clusterMap.toIntList(),
-                        caretEdges = caretEdges.toFloatList()
+                        scaleX = runLocator.scaleX,
+                        baselineShift = runLocator.baselineShift,
+                        words = words
                     )
-                } finally {
-                    shapingResult?.dispose()
-                }
+                )
             } else {
                 if (paint == null) {
                     paint = Paint()
@@ -200,24 +391,247 @@ internal class ShapeResolver(
                     caretEdges[0] = extent.toFloat()
                 }
 
-                textRun = ReplacementRun(
-                    charSequence = spanned,
-                    startIndex = runStart,
-                    endIndex = runEnd,
-                    bidiLevel = bidiLevel,
-                    replacementSpan = replacement,
-                    paint = paint,
-                    typeface = typeface,
-                    typeSize = typeSize,
-                    replacementAscent = metrics.ascent,
-                    replacementDescent = metrics.descent,
-                    replacementLeading = metrics.leading,
-                    replacementExtent = extent,
-                    caretEdges = caretEdges.toFloatList()
+                slots.add(
+                    ReplacementRun(
+                        charSequence = spanned,
+                        startIndex = runStart,
+                        endIndex = runEnd,
+                        bidiLevel = bidiLevel,
+                        replacementSpan = replacement,
+                        paint = paint,
+                        typeface = typeface,
+                        typeSize = typeSize,
+                        replacementAscent = metrics.ascent,
+                        replacementDescent = metrics.descent,
+                        replacementLeading = metrics.leading,
+                        replacementExtent = extent,
+                        caretEdges = caretEdges.toFloatList()
+                    )
+                )
+            }
+        }
+    }
+
+    /**
+     * Returns the word served from the cache, or adds it to the batch if it is not already there.
+     * A word already in the batch is not looked up in the cache again, so that it is counted as a
+     * single miss.
+     */
+    private fun lookupWord(context: ShapingContext, wordStart: Int, wordEnd: Int): PendingWord {
+        val word = PendingWord(wordStart, wordEnd, text.substring(wordStart, wordEnd))
+        val indexes = batchIndexes.getOrPut(context) { HashMap() }
+        val batchIndex = indexes[word.key]
+
+        if (batchIndex != null) {
+            word.batchIndex = batchIndex
+            return word
+        }
+
+        val shapedText = ShapingCache.instance.getWord(context, word.key)
+        if (shapedText != null) {
+            word.shapedText = shapedText
+        } else {
+            word.batchIndex = shapingBatch.addRun(
+                wordStart, wordEnd, context.typeface, context.typeSize,
+                context.scriptTag, context.languageTag,
+                context.writingDirection, context.shapingOrder
+            )
+            indexes[word.key] = word.batchIndex
+            batchWords.add(word)
+            batchContexts.add(context)
+        }
+
+        return word
+    }
+
+    /**
+     * Shapes all words of the batch with a single native call, and then creates the runs of the
+     * slots by joining their words.
+     */
+    private fun resolveRuns(slots: List<Any>, shapingEngine: ShapingEngine?): RunCollection {
+        val runCount = shapingBatch.runCount
+        val batchTexts = arrayOfNulls<ShapedText>(runCount)
+
+        if (runCount > 0) {
+            shapingEngine!!.shapeRuns(text, shapingBatch)
+
+            val glyphIds = shapingBatch.glyphIds
+            val glyphOffsets = shapingBatch.glyphOffsets
+            val glyphAdvances = shapingBatch.glyphAdvances
+            val clusterMap = shapingBatch.clusterMap
+
+            for (i in 0 until runCount) {
+                val glyphStart = shapingBatch.getGlyphStart(i)
+                val glyphEnd = shapingBatch.getGlyphEnd(i)
+                val clusterStart = shapingBatch.getClusterStart(i)
+                val word = batchWords[i]
+
+                val shapedText = ShapedText(
+                    glyphIds = glyphIds.copyOfRange(glyphStart, glyphEnd),
+                    glyphOffsets = glyphOffsets.copyOfRange(glyphStart * 2, glyphEnd * 2),
+                    glyphAdvances = glyphAdvances.copyOfRange(glyphStart, glyphEnd),
+                    clusterMap = clusterMap.copyOfRange(
+                        clusterStart, clusterStart + (word.end - word.start)
+                    )
                 )
+                ShapingCache.instance.putWord(batchContexts[i], word.key, shapedText)
+                batchTexts[i] = shapedText
+            }
+        }
+
+        val runs = RunCollection()
+
+        for (slot in slots) {
+            if (slot is PendingRun) {
+                val words = slot.words.map { it.shapedText ?: batchTexts[it.batchIndex]!! }
+                runs.add(createIntrinsicRun(slot, words))
+            } else {
+                runs.add(slot as TextRun)
+            }
+        }
+
+        return runs
+    }
+
+    private fun createIntrinsicRun(pendingRun: PendingRun, words: List<ShapedText>): IntrinsicRun {
+        val context = pendingRun.context
+        val runLength = pendingRun.endIndex - pendingRun.startIndex
+        val shapedText = ShapingCache.concat(words, context.isBackward, runLength)
+
+        val glyphIds = shapedText.glyphIds
+        val offsets = shapedText.glyphOffsets
+        val advances = shapedText.glyphAdvances
+        val clusterMap = shapedText.clusterMap
+        val caretEdges = CaretEdgesBuilder()
+            .setBackward(context.isBackward)
+            .setRTL(context.isRTL)
+            .setGlyphAdvances(advances.toFloatList())
+            .setClusterMap(clusterMap.toIntList())
+            .setCaretStops(null)
+            .build()
+
+        val scaleX = pendingRun.scaleX
+        if (scaleX.compareTo(1.0f) != 0) {
+            for (i in glyphIds.indices) {
+                offsets[i * 2] *= scaleX
+                advances[i] *= scaleX
+            }
+
+            for (i in caretEdges.indices) {
+                caretEdges[i] *= scaleX
+            }
+        }
+
+        val baselineShift = pendingRun.baselineShift
+        if (baselineShift.compareTo(0.0f) != 0) {
+            for (i in glyphIds.indices) {
+                offsets[i * 2 + 1] += baselineShift
+            }
+        }
+
+        return IntrinsicRun(
+            startIndex = pendingRun.startIndex,
+            endIndex = pendingRun.endIndex,
+            isBackward = context.isBackward,
+            bidiLevel = pendingRun.bidiLevel,
+            writingDirection = context.writingDirection,
+            typeface = context.typeface,
+            typeSize = context.typeSize,
+            ascent = pendingRun.ascent,
+            descent = pendingRun.descent,
+            leading = pendingRun.leading,
+            glyphIds = glyphIds.toIntList(),
+            glyphOffsets = offsets.toPointList(),
+            glyphAdvances = advances.toFloatList(),
+            clusterMap = clusterMap.toIntList(),
+            caretEdges = caretEdges.toFloatList(),
+            scaleX = scaleX,
+            baselineShift = baselineShift
+        )
+    }
+
+    private fun clearBatch() {
+        shapingBatch.clear()
+        batchWords.clear()
+        batchContexts.clear()
+        batchIndexes.clear()
+    }
+
+    companion object {
+        private const val MIN_CHUNK_LENGTH = 4096
+
+        private val sizeDependence = Collections.synchronizedMap(WeakHashMap<Typeface, Boolean>())
+
+        /**
+         * Returns whether the font adjusts its glyph positions by size, in which case the shaping
+         * output is not proportional to the type size. The engine sets the ppem of the font but
+         * never its point size, so the device tables of GPOS are the only size dependent data that
+         * HarfBuzz applies; the tracking table of AAT is ignored without a point size.
+         */
+        private fun isSizeDependent(typeface: Typeface): Boolean {
+            return sizeDependence.getOrPut(typeface) {
+                TypefaceInternals.hasSizedDevices(typeface)
+            }
+        }
+
+        private fun isParagraphSeparator(char: Char): Boolean {
+            return when (char) {
+                '\n', '\r', '\u001C', '\u001D', '\u001E', '\u0085', '\u2029' -> true
+                else -> false
             }
+        }
+
+        /**
+         * Returns the bounds of at most the given number of chunks of the text, each of which
+         * ends after a paragraph separator or at the end of the text. A carriage return followed
+         * by a line feed is kept in a single chunk as they separate a single paragraph.
+         */
+        fun splitChunks(text: String, maxChunks: Int): IntArray {
+            val length = text.length
+            val chunkLength = maxOf(MIN_CHUNK_LENGTH, (length + maxChunks - 1) / maxChunks)
+            val bounds = ArrayList<Int>()
+            var chunkStart = 0
+
+            bounds.add(0)
+
+            while (chunkStart < length) {
+                var chunkEnd = length
+                var index = chunkStart + chunkLength - 1
+
+                while (index < length) {
+                    if (isParagraphSeparator(text[index])) {
+                        chunkEnd = index + 1
+                        if (text[index] == '\r' && chunkEnd < length && text[chunkEnd] == '\n') {
+                            chunkEnd += 1
+                        }
+                        break
+                    }
+                    index++
+                }
 
-            runs.add(textRun)
+                bounds.add(chunkEnd)
+                chunkStart = chunkEnd
+            }
+
+            return bounds.toIntArray()
+        }
+
+        private fun <V> getUninterruptibly(future: Future<V>): V {
+            var interrupted = false
+
+            try {
+                while (true) {
+                    try {
+                        return future.get()
+                    } catch (e: InterruptedException) {
+                        interrupted = true
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt()
+                }
+            }
         }
     }
 }
@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.internal.layout
+
+import com.mta.tehreer.graphics.Typeface
+import com.mta.tehreer.graphics.TypefaceInternals
+import com.mta.tehreer.internal.util.LruCache
+import com.mta.tehreer.internal.util.StripedCounter
+import com.mta.tehreer.sfnt.OpenTypeFeature
+import com.mta.tehreer.sfnt.ShapingOrder
+import com.mta.tehreer.sfnt.WritingDirection
+import java.lang.ref.ReferenceQueue
+import java.lang.ref.WeakReference
+import java.util.Collections
+import java.util.WeakHashMap
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * The glyphs of a shaped piece of text, with offsets holding x and y pairs and the cluster map
+ * holding an index into the glyphs for each code unit.
+ */
+internal class ShapedText(
+    val glyphIds: IntArray,
+    val glyphOffsets: FloatArray,
+    val glyphAdvances: FloatArray,
+    val clusterMap: IntArray
+) {
+    val glyphCount: Int
+        get() = glyphIds.size
+}
+
+/**
+ * Everything other than the text that affects the output of a shaping engine.
+ */
+internal data class ShapingContext(
+    val typeface: Typeface,
+    val typeSize: Float,
+    val scriptTag: Int,
+    val languageTag: Int,
+    val writingDirection: WritingDirection,
+    val shapingOrder: ShapingOrder,
+    val openTypeFeatures: Set<OpenTypeFeature>
+) {
+    val isBackward: Boolean
+        get() = shapingOrder == ShapingOrder.BACKWARD
+
+    val isRTL: Boolean
+        get() = (writingDirection == WritingDirection.RIGHT_TO_LEFT) != isBackward
+}
+
+/**
+ * A process wide cache of shaped words, bounded by the estimated number of bytes of its entries.
+ *
+ * HarfBuzz is given no context beyond the shaped range, so the glyphs of a word depend only on its
+ * own text and the shaping context. If no OpenType lookup of the typeface involves the space glyph,
+ * shaping is context free across spaces, so a run is split after each space and its words are
+ * looked up individually; the same words are then shaped once no matter which lines they appear
+ * in. The runs of other typefaces, such as the ones kerning spaces or applying cross word lookups,
+ * are looked up as a whole. The words missing from the cache are shaped by the caller, usually in a
+ * single batch, and then put into it.
+ *
+ * The typefaces are held weakly, so the words of a typeface are dropped once it is collected.
+ */
+internal class ShapingCache(capacity: Int) : LruCache<String>(capacity) {
+    /**
+     * The key of the words shaped in a context, comparing the typefaces by identity.
+     */
+    private class ContextKey(
+        context: ShapingContext,
+        queue: ReferenceQueue<Typeface>?
+    ) : WeakReference<Typeface>(context.typeface, queue) {
+        private val typeSize = context.typeSize
+        private val scriptTag = context.scriptTag
+        private val languageTag = context.languageTag
+        private val writingDirection = context.writingDirection
+        private val shapingOrder = context.shapingOrder
+        private val openTypeFeatures = context.openTypeFeatures
+        private val hash: Int
+
+        init {
+            var result = System.identityHashCode(context.typeface)
+            result = 31 * result + typeSize.hashCode()
+            result = 31 * result + scriptTag
+            result = 31 * result + languageTag
+            result = 31 * result + writingDirection.hashCode()
+            result = 31 * result + shapingOrder.hashCode()
+            result = 31 * result + openTypeFeatures.hashCode()
+
+            hash = result
+        }
+
+        override fun equals(other: Any?): Boolean {
+            if (this === other) return true
+            if (other !is ContextKey) return false
+
+            val typeface = get()
+            if (typeface == null || typeface !== other.get()) return false
+            if (typeSize != other.typeSize) return false
+            if (scriptTag != other.scriptTag) return false
+            if (languageTag != other.languageTag) return false
+            if (writingDirection != other.writingDirection) return false
+            if (shapingOrder != other.shapingOrder) return false
+            if (openTypeFeatures != other.openTypeFeatures) return false
+
+            return true
+        }
+
+        override fun hashCode(): Int {
+            return hash
+        }
+    }
+
+    private inner class ContextSegment(
+        val key: ContextKey
+    ) : Segment<String>(this@ShapingCache) {
+        override fun sizeOf(key: String, value: Any?): Int {
+            val shapedText = value as ShapedText
+
+            // Each code unit takes two bytes in the key and four in the cluster map, whereas each
+            // glyph takes four bytes for the id, eight for the offset and four for the advance.
+            return (key.length * 6) + (shapedText.glyphCount * 16) + ENTRY_OVERHEAD
+        }
+
+        override fun entryRemoved(key: String, oldValue: Any?, newValue: Any?) {
+            if (isEmpty) {
+                segments.remove(this.key, this)
+            }
+        }
+    }
+
+    private object Holder {
+        val instance = ShapingCache(DEFAULT_CAPACITY)
+    }
+
+    private val segments = ConcurrentHashMap<ContextKey, ContextSegment>()
+    private val collectedKeys = ReferenceQueue<Typeface>()
+    private val hitCounter = StripedCounter()
+    private val missCounter = StripedCounter()
+
+    fun hitCount(reset: Boolean): Long {
+        return if (reset) hitCounter.sumThenReset() else hitCounter.sum()
+    }
+
+    fun missCount(reset: Boolean): Long {
+        return if (reset) missCounter.sumThenReset() else missCounter.sum()
+    }
+
+    private fun segmentOf(context: ShapingContext): ContextSegment? {
+        return segments[ContextKey(context, null)]
+    }
+
+    private fun secureSegment(context: ShapingContext): ContextSegment {
+        var segment = segmentOf(context)
+        if (segment == null) {
+            val key = ContextKey(context, collectedKeys)
+            val newSegment = ContextSegment(key)
+            segment = segments.putIfAbsent(key, newSegment) ?: newSegment
+        }
+
+        return segment
+    }
+
+    /**
+     * Drops the words of the typefaces which have been collected.
+     */
+    private fun purgeCollectedKeys() {
+        while (true) {
+            val key = collectedKeys.poll() ?: break
+            segments.remove(key)?.clear()
+        }
+    }
+
+    /**
+     * Returns the cached glyphs of the given word, or null if the word has to be shaped. Words
+     * longer than a limit are never cached and are not counted as lookups.
+     */
+    fun getWord(context: ShapingContext, word: String): ShapedText? {
+        if (word.length > MAX_WORD_LENGTH) {
+            return null
+        }
+
+        val cached = segmentOf(context)?.get(word) as ShapedText?
+        if (cached != null) {
+            hitCounter.increment()
+        } else {
+            missCounter.increment()
+        }
+
+        return cached
+    }
+
+    /**
+     * Caches the glyphs of the given word which must not be modified afterwards.
+     */
+    fun putWord(context: ShapingContext, word: String, shapedText: ShapedText) {
+        if (word.length <= MAX_WORD_LENGTH) {
+            purgeCollectedKeys()
+            secureSegment(context).put(word, shapedText)
+        }
+    }
+
+    companion object {
+        private const val DEFAULT_CAPACITY = 2 * 1024 * 1024
+        private const val ENTRY_OVERHEAD = 128
+        private const val MAX_WORD_LENGTH = 64
+
+        @JvmStatic
+        val instance: ShapingCache
+            get() = Holder.instance
+
+        private val spaceLookups = Collections.synchronizedMap(WeakHashMap<Typeface, Boolean>())
+
+        /**
+         * Returns whether the text shaped with the typeface can be split at spaces without
+         * affecting its glyphs.
+         */
+        fun isSplittable(typeface: Typeface): Boolean {
+            return !spaceLookups.getOrPut(typeface) { TypefaceInternals.hasSpaceLookups(typeface) }
+        }
+
+        /**
+         * Splits the given range of text after each space if it is splittable, passing the range
+         * of every word to the action in logical order. Otherwise, the whole range is passed as a
+         * single word. A space followed by a combining mark is not split from it, as HarfBuzz
+         * merges the mark into the cluster of the space.
+         */
+        inline fun forEachWord(
+            text: String,
+            fromIndex: Int,
+            toIndex: Int,
+            isSplittable: Boolean,
+            action: (wordStart: Int, wordEnd: Int) -> Unit
+        ) {
+            if (!isSplittable) {
+                action(fromIndex, toIndex)
+                return
+            }
+
+            var wordStart = fromIndex
+
+            for (i in fromIndex until toIndex) {
+                val next = i + 1
+                if (text[i] == ' ' && (next == toIndex || !isCombiningMark(text.codePointAt(next)))) {
+                    action(wordStart, next)
+                    wordStart = next
+                }
+            }
+            if (wordStart < toIndex) {
+                action(wordStart, toIndex)
+            }
+        }
+
+        fun isCombiningMark(codePoint: Int): Boolean {
+            return when (Character.getType(codePoint).toByte()) {
+                Character.NON_SPACING_MARK,
+                Character.ENCLOSING_MARK,
+                Character.COMBINING_SPACING_MARK -> true
+                else -> false
+            }
+        }
+
+        /**
+         * Joins the words given in logical order. The glyphs of a backward run start from the last
+         * word, so the cluster map of each word is offset by the glyphs of the words following it.
+         */
+        fun concat(words: List<ShapedText>, isBackward: Boolean, codeUnitCount: Int): ShapedText {
+            val glyphCount = words.sumOf { it.glyphCount }
+
+            val glyphIds = IntArray(glyphCount)
+            val glyphOffsets = FloatArray(glyphCount * 2)
+            val glyphAdvances = FloatArray(glyphCount)
+            val clusterMap = IntArray(codeUnitCount)
+
+            var glyphIndex = if (isBackward) glyphCount else 0
+            var codeUnitIndex = 0
+
+            for (word in words) {
+                val count = word.glyphCount
+                if (isBackward) {
+                    glyphIndex -= count
+                }
+
+                word.glyphIds.copyInto(glyphIds, glyphIndex)
+                word.glyphOffsets.copyInto(glyphOffsets, glyphIndex * 2)
+                word.glyphAdvances.copyInto(glyphAdvances, glyphIndex)
+
+                for (mapping in word.clusterMap) {
+                    clusterMap[codeUnitIndex++] = mapping + glyphIndex
+                }
+
+                if (!isBackward) {
+                    glyphIndex += count
+                }
+            }
+
+            return ShapedText(glyphIds, glyphOffsets, glyphAdvances, clusterMap)
+        }
+    }
+}
@@ -24,6 +24,7 @@ import com.mta.tehreer.collections.FloatList
 import android.graphics.RectF
 import com.mta.tehreer.graphics.Renderer
 import com.mta.tehreer.graphics.Typeface
+import java.util.concurrent.Executor
 
 internal interface TextRun {
     val startIndex: Int
@@ -70,4 +71,6 @@ internal interface TextRun {
     fun computeBoundingBox(renderer: Renderer, glyphStart: Int, glyphEnd: Int): RectF
 
     fun draw(renderer: Renderer, canvas: Canvas)
+
+    fun prefetch(renderer: Renderer, executor: Executor) { }
 }
@@ -16,21 +16,45 @@
 
 package com.mta.tehreer.internal.util
 
-import java.util.HashMap
-import kotlin.jvm.Synchronized
+import androidx.annotation.GuardedBy
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReferenceArray
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
 
-internal abstract class LruCache<K>(capacity: Int) {
-    private data class Node<K>(
+/**
+ * A size bounded cache whose entries are distributed in segments and evicted in least recently
+ * used order across all of them.
+ *
+ * The entries can further be divided in pools, each of which may be given a capacity of its own in
+ * addition to the overall one. A pool is trimmed independently when it exceeds its own capacity.
+ * The capacity of a pool is unbounded unless set explicitly, so that it is only limited by the
+ * overall capacity, whatever that is changed to.
+ *
+ * Lookups do not take any lock. Instead, each access is recorded in one of the striped read
+ * buffers which are drained into the recency list under a short lock, either when a buffer gets
+ * full or when an entry is written. A full buffer drops the access, so the recency order is an
+ * approximation under heavy contention.
+ */
+internal abstract class LruCache<K>(capacity: Int, poolCount: Int = 1) {
+    private class Node<K>(
         val segment: Segment<K>?,
         val key: K?,
-        var value: Any?
+        val value: Any?,
+        val size: Int,
+        val pool: Int
     ) {
         var previous: Node<K>? = null
         var next: Node<K>? = null
+        var stamp = 0L
+
+        val isLinked: Boolean
+            get() = previous != null
     }
 
     private class List<K> {
-        val header = Node<K>(null, null, null)
+        val header = Node<K>(null, null, null, 0, 0)
 
         init {
             header.next = header
@@ -59,120 +83,379 @@ internal abstract class LruCache<K>(capacity: Int) {
             node.previous = null
             node.next = null
         }
+    }
 
-        fun clear() {
-            header.next = header
-            header.previous = header.next
+    private class Pool<K> {
+        val list = List<K>()
+        @Volatile var capacity = Int.MAX_VALUE
+        @Volatile var size = 0
+    }
+
+    private class ReadBuffer<K> {
+        private val nodes = AtomicReferenceArray<Node<K>?>(BUFFER_SIZE)
+        private val writeCount = AtomicLong()
+        @Volatile private var readCount = 0L
+
+        /**
+         * Records the access of a node. Returns `false` if the buffer is full and the access has
+         * been dropped.
+         */
+        fun offer(node: Node<K>): Boolean {
+            val head = readCount
+            val tail = writeCount.get()
+
+            if (tail - head >= BUFFER_SIZE) {
+                return false
+            }
+            if (writeCount.compareAndSet(tail, tail + 1)) {
+                nodes.lazySet((tail and BUFFER_MASK).toInt(), node)
+            }
+
+            return true
+        }
+
+        inline fun drain(action: (Node<K>) -> Unit) {
+            val tail = writeCount.get()
+            var head = readCount
+
+            while (head < tail) {
+                val index = (head and BUFFER_MASK).toInt()
+                // The slot is reserved but the node is not published yet.
+                val node = nodes.get(index) ?: break
+
+                nodes.lazySet(index, null)
+                action(node)
+
+                head += 1
+            }
+
+            readCount = head
         }
     }
 
     protected open class Segment<K>(
         protected val cache: LruCache<K>
     ) {
-        private val map = HashMap<K, Node<K>>()
+        private val map = ConcurrentHashMap<K, Node<K>>()
+
+        /**
+         * Whether this segment currently holds no entry.
+         */
+        val isEmpty: Boolean
+            get() = map.isEmpty()
 
         protected open fun sizeOf(key: K, value: Any?): Int {
             return 1
         }
 
+        /**
+         * Returns the index of the pool in which the entry should be kept.
+         */
+        protected open fun poolOf(key: K, value: Any?): Int {
+            return 0
+        }
+
+        /**
+         * Called with the cache lock held when an entry is removed, evicted or replaced. The new
+         * value is `null` unless the entry is being replaced.
+         */
+        protected open fun entryRemoved(key: K, oldValue: Any?, newValue: Any?) {
+        }
+
+        /**
+         * Called with the cache lock held right after an entry is added or replaced.
+         */
+        protected open fun entryAdded(key: K, value: Any?) {
+        }
+
         operator fun get(key: K): Any? {
-            synchronized(cache) {
-                val node = map[key]
-                if (node != null) {
-                    cache.list.makeFirst(node)
-                    return node.value
-                }
+            val node = map[key]
+            if (node != null) {
+                cache.recordAccess(node)
+                return node.value
             }
 
             return null
         }
 
+        /**
+         * Associates the value with the key, replacing any existing entry. The size of replaced
+         * entry is released before accounting the new one.
+         */
         fun put(key: K, value: Any?) {
-            synchronized(cache) {
-                val newNode = Node(this, key, value)
+            val newNode = Node(this, key, value, sizeOf(key, value), poolOf(key, value))
+
+            cache.lock.withLock {
+                cache.drainBuffers()
+
                 val oldNode = map.put(key, newNode)
-                require(oldNode == null) { "An entry with same key has already been added" }
+                if (oldNode != null) {
+                    cache.unlink(oldNode)
+                    entryRemoved(key, oldNode.value, value)
+                }
 
-                cache.size += sizeOf(key, value)
-                cache.list.addFirst(newNode)
+                cache.link(newNode)
+                entryAdded(key, value)
             }
 
+            cache.trimPoolToSize(newNode.pool, cache.poolCapacity(newNode.pool))
             cache.trimToSize(cache.capacity)
         }
 
         fun remove(key: K) {
-            synchronized(cache) {
+            cache.lock.withLock {
                 val node = map.remove(key)
                 if (node != null) {
-                    cache.size -= sizeOf(key, node.value)
-                    cache.list.remove(node)
+                    cache.unlink(node)
+                    entryRemoved(key, node.value, null)
+                }
+            }
+        }
+
+        /**
+         * Removes the entry only if it is still associated with the given value.
+         */
+        fun remove(key: K, value: Any?) {
+            cache.lock.withLock {
+                val node = map[key]
+                if (node != null && node.value === value && map.remove(key, node)) {
+                    cache.unlink(node)
+                    entryRemoved(key, node.value, null)
+                }
+            }
+        }
+
+        /**
+         * Removes all the entries of this segment.
+         */
+        fun clear() {
+            cache.lock.withLock {
+                for ((key, node) in map) {
+                    if (map.remove(key, node)) {
+                        cache.unlink(node)
+                        entryRemoved(key, node.value, null)
+                    }
                 }
             }
         }
     }
 
-    private val list: List<K>
-    private val capacity: Int
-    private var size: Int
+    private val lock = ReentrantLock()
+    @GuardedBy("lock") private val pools: Array<Pool<K>>
+    @GuardedBy("lock") private var stamp = 0L
+    private val buffers: Array<ReadBuffer<K>>
+    @Volatile private var capacity: Int
+    @Volatile private var size: Int
+    @Volatile private var evictionCount = 0L
 
     init {
         require(capacity > 0) { "Invalid Capacity: $capacity" }
+        require(poolCount > 0) { "Invalid Pool Count: $poolCount" }
 
-        this.list = List()
+        this.pools = Array(poolCount) { Pool() }
+        this.buffers = Array(BUFFER_COUNT) { ReadBuffer() }
         this.capacity = capacity
         this.size = 0
     }
 
-    @Synchronized
     fun capacity(): Int {
         return capacity
     }
 
-    @Synchronized
     fun size(): Int {
         return size
     }
 
-    @Synchronized
+    /**
+     * Changes the overall capacity, evicting the entries right away if needed.
+     */
+    fun setCapacity(capacity: Int) {
+        require(capacity > 0) { "Invalid Capacity: $capacity" }
+
+        this.capacity = capacity
+        trimToSize(capacity)
+    }
+
+    /**
+     * Returns the capacity of a single pool, which is `Int.MAX_VALUE` unless it has been set.
+     */
+    fun poolCapacity(pool: Int): Int {
+        return pools[pool].capacity
+    }
+
+    fun poolSize(pool: Int): Int {
+        return pools[pool].size
+    }
+
+    /**
+     * Changes the capacity of a single pool, evicting its entries right away if needed.
+     */
+    fun setPoolCapacity(pool: Int, capacity: Int) {
+        require(capacity >= 0) { "Invalid Capacity: $capacity" }
+
+        pools[pool].capacity = capacity
+        trimPoolToSize(pool, capacity)
+    }
+
+    /**
+     * Returns the number of entries evicted so far to keep the size within limits.
+     */
+    fun evictionCount(): Long {
+        return evictionCount
+    }
+
+    private fun recordAccess(node: Node<K>) {
+        val stripe = Thread.currentThread().id.toInt() and (BUFFER_COUNT - 1)
+        val buffer = buffers[stripe]
+
+        if (!buffer.offer(node)) {
+            // Let only one thread drain the buffers, others can safely skip the bookkeeping.
+            if (lock.tryLock()) {
+                try {
+                    drainBuffers()
+                } finally {
+                    lock.unlock()
+                }
+            }
+        }
+    }
+
+    @GuardedBy("lock")
+    private fun drainBuffers() {
+        for (buffer in buffers) {
+            buffer.drain { node ->
+                // Skip the nodes which have been removed after their access was recorded.
+                if (node.isLinked) {
+                    node.stamp = ++stamp
+                    pools[node.pool].list.makeFirst(node)
+                }
+            }
+        }
+    }
+
+    @GuardedBy("lock")
+    private fun link(node: Node<K>) {
+        val pool = pools[node.pool]
+
+        node.stamp = ++stamp
+        pool.list.addFirst(node)
+        pool.size += node.size
+        size += node.size
+    }
+
+    @GuardedBy("lock")
+    private fun unlink(node: Node<K>) {
+        if (node.isLinked) {
+            val pool = pools[node.pool]
+
+            pool.list.remove(node)
+            pool.size -= node.size
+            size -= node.size
+        }
+    }
+
+    @GuardedBy("lock")
+    private fun evict(node: Node<K>) {
+        node.segment!!.remove(node.key!!)
+        evictionCount += 1
+    }
+
     open fun clear() {
-        list.clear()
+        lock.withLock {
+            drainBuffers()
+
+            for (pool in pools) {
+                while (true) {
+                    val node = pool.list.last()
+                    if (node === pool.list.header) {
+                        break
+                    }
+
+                    node.segment!!.remove(node.key!!)
+                }
+            }
+        }
     }
 
+    /**
+     * Evicts the least recently used entries across all pools until the overall size is no more
+     * than the given one.
+     */
     fun trimToSize(maxSize: Int) {
-        while (true) {
-            synchronized(this) {
-                if (size <= maxSize) {
+        if (size <= maxSize) {
+            return
+        }
+
+        lock.withLock {
+            drainBuffers()
+
+            while (size > maxSize) {
+                // Pick the least recently used tail among all pools.
+                var toEvict: Node<K>? = null
+
+                for (pool in pools) {
+                    val last = pool.list.last()
+                    if (last !== pool.list.header && (toEvict == null || last.stamp < toEvict.stamp)) {
+                        toEvict = last
+                    }
+                }
+
+                if (toEvict == null) {
                     return
                 }
 
-                val toEvict: Node<K> = list.last()
-                if (toEvict === list.header) {
+                evict(toEvict)
+            }
+        }
+    }
+
+    /**
+     * Evicts the least recently used entries of a pool until its size is no more than the given
+     * one.
+     */
+    fun trimPoolToSize(pool: Int, maxSize: Int) {
+        val target = pools[pool]
+        if (target.size <= maxSize) {
+            return
+        }
+
+        lock.withLock {
+            drainBuffers()
+
+            while (target.size > maxSize) {
+                val toEvict = target.list.last()
+                if (toEvict === target.list.header) {
                     return
                 }
 
-                val segment = toEvict.segment!!
-                val key = toEvict.key!!
-                segment.remove(key)
+                evict(toEvict)
             }
         }
     }
 
     companion object {
+        private const val BUFFER_COUNT = 16
+        private const val BUFFER_SIZE = 32
+        private const val BUFFER_MASK = (BUFFER_SIZE - 1).toLong()
+
         //
-        // HashMap:
-        //  - 1 pointer for map entry
+        // ConcurrentHashMap:
+        //  - 1 pointer for table entry
         //  - 3 pointers for key, value and next
         //  - 1 integer for hash code
         //
         // Node:
         //  - 5 pointers for segment, key, value, previous and next
+        //  - 2 integers for size and pool
+        //  - 1 long for stamp
         //
         // Total:
         //  - 9 pointers
-        //  - 1 integer
+        //  - 3 integers
+        //  - 1 long
         //
-        // Size: (9 * 4) + (1 * 4) = 40
+        // Size: (9 * 4) + (3 * 4) + (1 * 8) = 56
         //
-        const val NODE_OVERHEAD = 40
+        const val NODE_OVERHEAD = 56
     }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.internal.util
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.FutureTask
+
+/**
+ * Deduplicates concurrent executions of the same work. While a task is in flight for a key, other
+ * callers asking for the same key wait for its result instead of executing their own task.
+ *
+ * Only the overlapping calls are merged, so a task should still check whether its result has
+ * already been published before doing the actual work.
+ */
+internal class SingleFlight<K> {
+    private val tasks = ConcurrentHashMap<K, FutureTask<Any?>>()
+
+    fun <V> execute(key: K, task: () -> V): V {
+        val newTask = FutureTask<Any?>(task)
+        val pendingTask = tasks.putIfAbsent(key, newTask)
+
+        if (pendingTask != null) {
+            return awaitResult(pendingTask)
+        }
+
+        try {
+            newTask.run()
+        } finally {
+            tasks.remove(key, newTask)
+        }
+
+        return awaitResult(newTask)
+    }
+
+    private fun <V> awaitResult(task: FutureTask<Any?>): V {
+        var interrupted = false
+
+        try {
+            while (true) {
+                try {
+                    @Suppress("UNCHECKED_CAST")
+                    return task.get() as V
+                } catch (e: InterruptedException) {
+                    // The result is needed anyway, so keep waiting and restore the status later.
+                    interrupted = true
+                } catch (e: ExecutionException) {
+                    throw e.cause ?: e
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt()
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.internal.util
+
+import java.util.concurrent.atomic.AtomicLongArray
+
+/**
+ * A lock-free counter which spreads the updates of different threads over separate cells to avoid
+ * contention, similar to `LongAdder` which is not available on older platforms.
+ */
+internal class StripedCounter {
+    // Each cell is followed by unused slots so that no two cells share a cache line.
+    private val cells = AtomicLongArray(STRIPE_COUNT * CELL_SPACING)
+
+    private fun cellIndex(): Int {
+        val stripe = Thread.currentThread().id.toInt() and (STRIPE_COUNT - 1)
+        return stripe * CELL_SPACING
+    }
+
+    fun increment() {
+        add(1)
+    }
+
+    fun add(delta: Long) {
+        cells.addAndGet(cellIndex(), delta)
+    }
+
+    fun sum(): Long {
+        var sum = 0L
+        for (i in 0 until STRIPE_COUNT) {
+            sum += cells.get(i * CELL_SPACING)
+        }
+
+        return sum
+    }
+
+    /**
+     * Returns the current sum and resets the counter. The updates made concurrently might either be
+     * included in the returned sum or be kept for the next one, but are never lost.
+     */
+    fun sumThenReset(): Long {
+        var sum = 0L
+        for (i in 0 until STRIPE_COUNT) {
+            sum += cells.getAndSet(i * CELL_SPACING, 0)
+        }
+
+        return sum
+    }
+
+    companion object {
+        private const val STRIPE_COUNT = 8
+        private const val CELL_SPACING = 8
+    }
+}
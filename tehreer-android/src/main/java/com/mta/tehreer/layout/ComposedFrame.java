@@ -30,10 +30,13 @@ import androidx.annotation.Nullable;
 import com.mta.tehreer.graphics.Renderer;
 import com.mta.tehreer.internal.Description;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import static com.mta.tehreer.internal.util.Preconditions.checkArgument;
+import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
 
 /**
  * Represents a frame containing multiple lines of text. The frame object is the output resulting
@@ -388,6 +391,45 @@ public class ComposedFrame {
         canvas.translate(-x, -y);
     }
 
+    /**
+     * Loads the glyphs of this frame into the glyph cache on the given <code>executor</code>, so
+     * that drawing this frame later on with the given <code>renderer</code> does not require
+     * rasterizing them. It is useful for preparing the next page of text while the current one is
+     * being displayed. All the glyphs of the frame are loaded by a single task.
+     *
+     * @param renderer The renderer that will be used for drawing this frame.
+     * @param executor The executor on which to load the glyphs, usually a background one.
+     *
+     * @see Renderer#prefetchGlyphs(com.mta.tehreer.collections.IntList, Executor)
+     */
+    public void prefetchGlyphs(@NonNull Renderer renderer, @NonNull Executor executor) {
+        checkNotNull(renderer);
+        checkNotNull(executor);
+
+        final List<Runnable> tasks = new ArrayList<>();
+        Executor collector = new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                tasks.add(task);
+            }
+        };
+
+        for (ComposedLine composedLine : lineList) {
+            composedLine.prefetchGlyphs(renderer, collector);
+        }
+
+        if (!tasks.isEmpty()) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (Runnable task : tasks) {
+                        task.run();
+                    }
+                }
+            });
+        }
+    }
+
     @Override
     public @NonNull String toString() {
         return "ComposedFrame{charStart=" + frameStart
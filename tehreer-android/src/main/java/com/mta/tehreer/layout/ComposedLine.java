@@ -27,8 +27,10 @@ import com.mta.tehreer.internal.Description;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import static com.mta.tehreer.internal.util.Preconditions.checkArgument;
+import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
 
 /**
  * Represents a line of text consisting of an array of <code>GlyphRun</code> objects in visual order.
@@ -409,6 +411,25 @@ public class ComposedLine {
         }
     }
 
+    /**
+     * Loads the glyphs of this line into the glyph cache on the given <code>executor</code>, so
+     * that drawing this line later on with the given <code>renderer</code> does not require
+     * rasterizing them.
+     *
+     * @param renderer The renderer that will be used for drawing this line.
+     * @param executor The executor on which to load the glyphs, usually a background one.
+     *
+     * @see Renderer#prefetchGlyphs(com.mta.tehreer.collections.IntList, Executor)
+     */
+    public void prefetchGlyphs(@NonNull Renderer renderer, @NonNull Executor executor) {
+        checkNotNull(renderer, "renderer");
+        checkNotNull(executor, "executor");
+
+        for (GlyphRun glyphRun : runList) {
+            glyphRun.prefetchGlyphs(renderer, executor);
+        }
+    }
+
     @Override
     public @NonNull String toString() {
         return "ComposedLine{charStart=" + getCharStart()
@@ -30,8 +30,10 @@ import com.mta.tehreer.internal.layout.TextRun;
 import com.mta.tehreer.sfnt.WritingDirection;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import static com.mta.tehreer.internal.util.Preconditions.checkArgument;
+import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
 
 /**
  * A <code>GlyphRun</code> object is a collection of consecutive glyphs sharing the same attributes
@@ -454,6 +456,23 @@ public class GlyphRun {
         textRun.draw(renderer, canvas);
 	}
 
+    /**
+     * Loads the glyphs of this run into the glyph cache on the given <code>executor</code>, so
+     * that drawing this run later on with the given <code>renderer</code> does not require
+     * rasterizing them.
+     *
+     * @param renderer The renderer that will be used for drawing this run.
+     * @param executor The executor on which to load the glyphs, usually a background one.
+     *
+     * @see Renderer#prefetchGlyphs(IntList, Executor)
+     */
+    public void prefetchGlyphs(@NonNull Renderer renderer, @NonNull Executor executor) {
+        checkNotNull(renderer, "renderer");
+        checkNotNull(executor, "executor");
+
+        textRun.prefetch(renderer, executor);
+    }
+
     @Override
     public String toString() {
         return "GlyphRun{charStart=" + getCharStart()
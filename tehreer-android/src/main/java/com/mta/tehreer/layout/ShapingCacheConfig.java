@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.layout;
+
+import com.mta.tehreer.internal.layout.ShapingCache;
+
+import static com.mta.tehreer.internal.util.Preconditions.checkArgument;
+
+/**
+ * Controls the memory used by the shaping cache shared by all typesetters.
+ * <p>
+ * By default, the cache is allowed to use two megabytes. The cache does not keep the typefaces
+ * alive, so the words of a typeface are dropped once it is no longer referenced.
+ * <p>
+ * The configuration can be changed at any time. Shrinking the capacity evicts the least recently
+ * used words right away.
+ */
+public final class ShapingCacheConfig {
+    private ShapingCacheConfig() {
+    }
+
+    /**
+     * Returns the maximum number of bytes the shaping cache is allowed to use.
+     *
+     * @return The capacity of the shaping cache in bytes.
+     */
+    public static int getCapacity() {
+        return ShapingCache.getInstance().capacity();
+    }
+
+    /**
+     * Sets the maximum number of bytes the shaping cache is allowed to use.
+     *
+     * @param capacity The capacity of the shaping cache in bytes.
+     *
+     * @throws IllegalArgumentException if <code>capacity</code> is not positive.
+     */
+    public static void setCapacity(int capacity) {
+        checkArgument(capacity > 0, "Capacity is not positive: " + capacity);
+        ShapingCache.getInstance().setCapacity(capacity);
+    }
+
+    /**
+     * Removes all the words from the shaping cache. The capacity remains unchanged.
+     */
+    public static void clear() {
+        ShapingCache.getInstance().clear();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.layout;
+
+import androidx.annotation.NonNull;
+
+import com.mta.tehreer.internal.layout.ShapingCache;
+
+/**
+ * An immutable snapshot of the statistics of the shaping cache shared by all typesetters.
+ * <p>
+ * Typesetters shape the text of each run word by word, looking up every word in a process wide
+ * cache keyed by its text along with the typeface, size, script, language, direction, order and
+ * features used to shape it. Each lookup of a word is counted either as a hit or as a miss.
+ */
+public final class ShapingCacheStats {
+    private final long mHitCount;
+    private final long mMissCount;
+    private final long mEvictionCount;
+    private final int mSize;
+    private final int mCapacity;
+
+    private ShapingCacheStats(long hitCount, long missCount, long evictionCount,
+                              int size, int capacity) {
+        mHitCount = hitCount;
+        mMissCount = missCount;
+        mEvictionCount = evictionCount;
+        mSize = size;
+        mCapacity = capacity;
+    }
+
+    private static @NonNull ShapingCacheStats snapshot(boolean reset) {
+        ShapingCache cache = ShapingCache.getInstance();
+
+        return new ShapingCacheStats(cache.hitCount(reset), cache.missCount(reset),
+                                     cache.evictionCount(), cache.size(), cache.capacity());
+    }
+
+    /**
+     * Takes a snapshot of the current statistics of the shaping cache.
+     *
+     * @return A new snapshot of the shaping cache statistics.
+     */
+    public static @NonNull ShapingCacheStats snapshot() {
+        return snapshot(false);
+    }
+
+    /**
+     * Takes a snapshot of the current statistics of the shaping cache and resets the hit and miss
+     * counters so that the next snapshot only covers the lookups made afterwards.
+     *
+     * @return A new snapshot of the shaping cache statistics.
+     */
+    public static @NonNull ShapingCacheStats snapshotAndReset() {
+        return snapshot(true);
+    }
+
+    /**
+     * Returns the number of words whose glyphs were served from the cache.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * Returns the number of words which had to be shaped.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * Returns the fraction of word lookups which were served from the cache.
+     *
+     * @return The hit rate ranging from 0 to 1, or 0 if no lookup has been made.
+     */
+    public float getHitRate() {
+        long lookupCount = mHitCount + mMissCount;
+        return (lookupCount == 0 ? 0.0f : (float) mHitCount / lookupCount);
+    }
+
+    /**
+     * Returns the total number of entries evicted from the cache to stay within its capacity.
+     *
+     * @return The number of evictions.
+     */
+    public long getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    /**
+     * Returns the estimated number of bytes used by the cached words.
+     *
+     * @return The size of the cache in bytes.
+     */
+    public int getSize() {
+        return mSize;
+    }
+
+    /**
+     * Returns the maximum number of bytes the cache is allowed to use.
+     *
+     * @return The capacity of the cache in bytes.
+     */
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    @Override
+    public @NonNull String toString() {
+        return "ShapingCacheStats{hitCount=" + getHitCount()
+                + ", missCount=" + getMissCount()
+                + ", evictionCount=" + getEvictionCount()
+                + ", size=" + getSize()
+                + ", capacity=" + getCapacity()
+                + "}";
+    }
+}
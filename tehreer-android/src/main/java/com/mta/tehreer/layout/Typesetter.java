@@ -34,8 +34,10 @@ import com.mta.tehreer.layout.style.TypeSizeSpan;
 import com.mta.tehreer.layout.style.TypefaceSpan;
 import com.mta.tehreer.unicode.BreakClassifier;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import kotlin.Pair;
 
@@ -49,8 +51,11 @@ import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
 public class Typesetter {
     private String mText;
     private Spanned mSpanned;
+    private @Nullable Typeface mTypeface;
+    private List<Object> mDefaultSpans;
     private ParagraphCollection mBidiParagraphs;
     private RunCollection mIntrinsicRuns;
+    private BreakClassifier mBreakClassifier;
     private LineResolver mLineResolver;
     private BreakResolver mBreakResolver;
 
@@ -68,11 +73,8 @@ public class Typesetter {
 	    checkNotNull(typeface, "typeface");
 	    checkArgument(text.length() > 0, "Text is empty");
 
-        SpannableString spanned = new SpannableString(text);
-        spanned.setSpan(new TypefaceSpan(typeface), 0, text.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
-        spanned.setSpan(new TypeSizeSpan(typeSize), 0, text.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
-
-        init(text, spanned, null);
+        mTypeface = typeface;
+        init(text, createSpanned(text, typeface, typeSize), null, null);
 	}
 
     /**
@@ -90,26 +92,117 @@ public class Typesetter {
         checkNotNull(spanned, "spanned");
         checkArgument(spanned.length() > 0, "Text is empty");
 
-        init(StringUtils.copyString(spanned), spanned, defaultSpans);
+        init(StringUtils.copyString(spanned), spanned, defaultSpans, null);
+    }
+
+    /**
+     * Constructs the typesetter object using a spanned text, processing its paragraphs
+     * concurrently on the given executor. Large texts are split into chunks at paragraph
+     * separators. The bidi classification and the scripts of the text are determined once and
+     * shared by all chunks, while each chunk is shaped with its own shaping engine. The calling
+     * thread also runs the chunks that the executor has not started yet. The resulting typesetter
+     * is identical to the one constructed sequentially.
+     * <p>
+     * The spans of the text are read from multiple threads, so the text must not be modified until
+     * the construction completes, and the <code>getSize</code> method of replacement spans might
+     * be called on the threads of the executor.
+     *
+     * @param spanned The spanned text to typeset.
+     * @param defaultSpans The spans to apply on the whole text before the spans of the text.
+     * @param executor The executor on which to process the paragraphs.
+     *
+     * @throws IllegalArgumentException if <code>spanned</code> is empty.
+     */
+    public Typesetter(@NonNull Spanned spanned, @Nullable List<Object> defaultSpans,
+                      @NonNull Executor executor) {
+        checkNotNull(spanned, "spanned");
+        checkNotNull(executor, "executor");
+        checkArgument(spanned.length() > 0, "Text is empty");
+
+        init(StringUtils.copyString(spanned), spanned, defaultSpans, executor);
+    }
+
+    private Typesetter(@NonNull Typesetter source, @NonNull Spanned spanned,
+                       @NonNull List<Object> defaultSpans) {
+        mText = source.mText;
+        mSpanned = spanned;
+        mTypeface = source.mTypeface;
+        mDefaultSpans = defaultSpans;
+
+        ShapeResolver shapeResolver = new ShapeResolver(mText, mSpanned, defaultSpans);
+        mBidiParagraphs = source.mBidiParagraphs;
+        mIntrinsicRuns = shapeResolver.deriveRuns(source.mIntrinsicRuns);
+        mBreakClassifier = source.mBreakClassifier;
+
+        setupResolvers();
+    }
+
+    private static @NonNull Spanned createSpanned(@NonNull String text, @NonNull Typeface typeface,
+                                                  float typeSize) {
+        SpannableString spanned = new SpannableString(text);
+        spanned.setSpan(new TypefaceSpan(typeface), 0, text.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+        spanned.setSpan(new TypeSizeSpan(typeSize), 0, text.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+
+        return spanned;
     }
 
-    private void init(@NonNull String text, @NonNull Spanned spanned, @Nullable List<Object> defaultSpans) {
+    private void init(@NonNull String text, @NonNull Spanned spanned, @Nullable List<Object> defaultSpans,
+                      @Nullable Executor executor) {
         mText = text;
         mSpanned = spanned;
 
         if (defaultSpans == null) {
             defaultSpans = Collections.emptyList();
         }
+        mDefaultSpans = defaultSpans;
 
         ShapeResolver shapeResolver = new ShapeResolver(mText, mSpanned, defaultSpans);
-        Pair<ParagraphCollection, RunCollection> shapeResult = shapeResolver.createParagraphsAndRuns();
+        Pair<ParagraphCollection, RunCollection> shapeResult;
+        if (executor != null) {
+            shapeResult = shapeResolver.createParagraphsAndRuns(executor);
+        } else {
+            shapeResult = shapeResolver.createParagraphsAndRuns();
+        }
         mBidiParagraphs = shapeResult.getFirst();
         mIntrinsicRuns = shapeResult.getSecond();
+        mBreakClassifier = new BreakClassifier(text);
 
-        mLineResolver = new LineResolver(spanned, mBidiParagraphs, mIntrinsicRuns);
+        setupResolvers();
+    }
+
+    private void setupResolvers() {
+        mLineResolver = new LineResolver(mSpanned, mBidiParagraphs, mIntrinsicRuns);
+        mBreakResolver = new BreakResolver(mText, mBidiParagraphs, mIntrinsicRuns, mBreakClassifier);
+    }
+
+    /**
+     * Creates a typesetter of the same text with a different default type size. The bidi
+     * paragraphs and the break opportunities are shared with this typesetter, and the glyph
+     * positions of each run are scaled to the new size instead of shaping the text again. The runs
+     * of fonts that adjust their glyphs by size are still reshaped if the size changes enough to
+     * affect them.
+     * <p>
+     * If this typesetter was created with a typeface and a type size, the new size replaces that
+     * type size. Otherwise, it replaces the type size of default spans, whereas the sizes specified
+     * by the spans of source text are kept, with relative sizes resolved against the new size.
+     *
+     * @param typeSize The new default type size.
+     * @return A new typesetter object at the specified type size.
+     */
+    public @NonNull Typesetter deriveTypesetter(float typeSize) {
+        if (mTypeface != null) {
+            return new Typesetter(this, createSpanned(mText, mTypeface, typeSize), mDefaultSpans);
+        }
+
+        List<Object> defaultSpans = new ArrayList<>(mDefaultSpans.size() + 1);
+        for (Object span : mDefaultSpans) {
+            if (!(span instanceof TypeSizeSpan)) {
+                defaultSpans.add(span);
+            }
+        }
+        defaultSpans.add(new TypeSizeSpan(typeSize));
 
-        BreakClassifier breakClassifier = new BreakClassifier(text);
-        mBreakResolver = new BreakResolver(mText, mBidiParagraphs, mIntrinsicRuns, breakClassifier);
+        return new Typesetter(this, mSpanned, defaultSpans);
     }
 
     /**
@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.sfnt;
+
+import static com.mta.tehreer.internal.util.Preconditions.checkArgument;
+import static com.mta.tehreer.internal.util.Preconditions.checkElementIndex;
+import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
+
+import androidx.annotation.NonNull;
+
+import com.mta.tehreer.graphics.Typeface;
+
+import java.util.Arrays;
+
+/**
+ * A packed description of many runs of a text along with their shaped glyphs, which is shaped in a
+ * single native call by {@link ShapingEngine#shapeRuns(String, ShapingBatch)}.
+ * <p>
+ * The glyphs of all runs are stored one after another in shared arrays, with each run occupying
+ * the range from {@link #getGlyphStart(int)} to {@link #getGlyphEnd(int)}. Similarly, the cluster
+ * map of each run starts at {@link #getClusterStart(int)} and holds an entry for each code unit of
+ * the run, mapping it to a glyph index relative to the run. The glyphs of each run are ordered in
+ * the same way as in a <code>ShapingResult</code> object.
+ * <p>
+ * A batch can be cleared and reused so that its arrays are retained across typesetting passes.
+ */
+public final class ShapingBatch {
+    static final int RUN_SPEC_SIZE = 6;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    int runCount;
+    int charCount;
+    int[] runSpecs;
+    float[] typeSizes;
+    int[] clusterStarts;
+    Typeface[] typefaces;
+    int typefaceCount;
+
+    int glyphCount;
+    int[] glyphStarts;
+    int[] glyphIds;
+    float[] glyphOffsets;
+    float[] glyphAdvances;
+    int[] clusterMap;
+
+    /**
+     * Constructs an empty shaping batch.
+     */
+    public ShapingBatch() {
+        runSpecs = new int[DEFAULT_CAPACITY * RUN_SPEC_SIZE];
+        typeSizes = new float[DEFAULT_CAPACITY];
+        clusterStarts = new int[DEFAULT_CAPACITY + 1];
+        typefaces = new Typeface[4];
+
+        glyphStarts = new int[DEFAULT_CAPACITY + 1];
+        glyphIds = new int[0];
+        glyphOffsets = new float[0];
+        glyphAdvances = new float[0];
+        clusterMap = new int[0];
+    }
+
+    private static int grownCapacity(int oldCapacity, int minCapacity) {
+        return Math.max(oldCapacity + (oldCapacity >> 1), minCapacity);
+    }
+
+    private int indexOfTypeface(@NonNull Typeface typeface) {
+        for (int i = 0; i < typefaceCount; i++) {
+            if (typefaces[i] == typeface) {
+                return i;
+            }
+        }
+
+        if (typefaceCount == typefaces.length) {
+            typefaces = Arrays.copyOf(typefaces, typefaceCount * 2);
+        }
+        typefaces[typefaceCount] = typeface;
+
+        return typefaceCount++;
+    }
+
+    /**
+     * Appends a run to this batch.
+     *
+     * @param fromIndex The index of the first character (inclusive) of the run in the text.
+     * @param toIndex The index of the last character (exclusive) of the run in the text.
+     * @param typeface The typeface to shape the run with.
+     * @param typeSize The type size to shape the run with.
+     * @param scriptTag The tag of the script of the run.
+     * @param languageTag The tag of the language of the run.
+     * @param writingDirection The writing direction of the script of the run.
+     * @param shapingOrder The order in which the run should be processed.
+     * @return The index of the appended run.
+     *
+     * @throws NullPointerException if <code>typeface</code>, <code>writingDirection</code> or
+     *         <code>shapingOrder</code> is <code>null</code>.
+     * @throws IllegalArgumentException if <code>fromIndex</code> is negative, or
+     *         <code>fromIndex</code> is greater than <code>toIndex</code>.
+     */
+    public int addRun(int fromIndex, int toIndex, @NonNull Typeface typeface, float typeSize,
+                      int scriptTag, int languageTag, @NonNull WritingDirection writingDirection,
+                      @NonNull ShapingOrder shapingOrder) {
+        checkNotNull(typeface, "typeface");
+        checkNotNull(writingDirection, "writingDirection");
+        checkNotNull(shapingOrder, "shapingOrder");
+        checkArgument(fromIndex >= 0, "From Index: " + fromIndex);
+        checkArgument(toIndex >= fromIndex, "Bad Range: [" + fromIndex + ", " + toIndex + ')');
+
+        if (runCount == typeSizes.length) {
+            int newCapacity = grownCapacity(runCount, runCount + 1);
+
+            runSpecs = Arrays.copyOf(runSpecs, newCapacity * RUN_SPEC_SIZE);
+            typeSizes = Arrays.copyOf(typeSizes, newCapacity);
+            clusterStarts = Arrays.copyOf(clusterStarts, newCapacity + 1);
+            glyphStarts = new int[newCapacity + 1];
+        }
+
+        int specIndex = runCount * RUN_SPEC_SIZE;
+        runSpecs[specIndex] = fromIndex;
+        runSpecs[specIndex + 1] = toIndex;
+        runSpecs[specIndex + 2] = indexOfTypeface(typeface);
+        runSpecs[specIndex + 3] = scriptTag;
+        runSpecs[specIndex + 4] = languageTag;
+        runSpecs[specIndex + 5] = writingDirection.value | (shapingOrder.value << 1);
+        typeSizes[runCount] = typeSize;
+
+        clusterStarts[runCount] = charCount;
+        charCount += toIndex - fromIndex;
+        clusterStarts[runCount + 1] = charCount;
+
+        return runCount++;
+    }
+
+    /**
+     * Removes all runs and glyphs from this batch while retaining its arrays.
+     */
+    public void clear() {
+        Arrays.fill(typefaces, 0, typefaceCount, null);
+
+        runCount = 0;
+        charCount = 0;
+        typefaceCount = 0;
+        glyphCount = 0;
+    }
+
+    void ensureGlyphCapacity(int capacity) {
+        if (glyphIds.length < capacity) {
+            int newCapacity = grownCapacity(glyphIds.length, capacity);
+
+            glyphIds = new int[newCapacity];
+            glyphOffsets = new float[newCapacity * 2];
+            glyphAdvances = new float[newCapacity];
+        }
+    }
+
+    void ensureCharCapacity(int capacity) {
+        if (clusterMap.length < capacity) {
+            clusterMap = new int[grownCapacity(clusterMap.length, capacity)];
+        }
+    }
+
+    /**
+     * Returns the number of runs in this batch.
+     *
+     * @return The number of runs in this batch.
+     */
+    public int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * Returns the total number of glyphs produced for all runs of this batch.
+     *
+     * @return The total number of glyphs.
+     */
+    public int getGlyphCount() {
+        return glyphCount;
+    }
+
+    /**
+     * Returns the index of the first glyph of the specified run in glyph arrays.
+     *
+     * @param runIndex The index of the run.
+     * @return The index of the first glyph of the run.
+     *
+     * @throws IndexOutOfBoundsException if <code>runIndex</code> is negative, or
+     *         <code>runIndex</code> is greater than or equal to the number of runs.
+     */
+    public int getGlyphStart(int runIndex) {
+        checkElementIndex(runIndex, runCount);
+        return glyphStarts[runIndex];
+    }
+
+    /**
+     * Returns the index after the last glyph of the specified run in glyph arrays.
+     *
+     * @param runIndex The index of the run.
+     * @return The index after the last glyph of the run.
+     *
+     * @throws IndexOutOfBoundsException if <code>runIndex</code> is negative, or
+     *         <code>runIndex</code> is greater than or equal to the number of runs.
+     */
+    public int getGlyphEnd(int runIndex) {
+        checkElementIndex(runIndex, runCount);
+        return glyphStarts[runIndex + 1];
+    }
+
+    /**
+     * Returns the index of the first cluster map entry of the specified run.
+     *
+     * @param runIndex The index of the run.
+     * @return The index of the first cluster map entry of the run.
+     *
+     * @throws IndexOutOfBoundsException if <code>runIndex</code> is negative, or
+     *         <code>runIndex</code> is greater than or equal to the number of runs.
+     */
+    public int getClusterStart(int runIndex) {
+        checkElementIndex(runIndex, runCount);
+        return clusterStarts[runIndex];
+    }
+
+    /**
+     * Returns the array of glyph ids of all runs whose first {@link #getGlyphCount()} elements
+     * are valid. The array is owned by this batch and might be replaced when shaping it again.
+     *
+     * @return The array of glyph ids.
+     */
+    public @NonNull int[] getGlyphIds() {
+        return glyphIds;
+    }
+
+    /**
+     * Returns the array of glyph offsets of all runs as x and y pairs whose first twice of
+     * {@link #getGlyphCount()} elements are valid. The array is owned by this batch and might be
+     * replaced when shaping it again.
+     *
+     * @return The array of glyph offsets.
+     */
+    public @NonNull float[] getGlyphOffsets() {
+        return glyphOffsets;
+    }
+
+    /**
+     * Returns the array of glyph advances of all runs whose first {@link #getGlyphCount()}
+     * elements are valid. The array is owned by this batch and might be replaced when shaping it
+     * again.
+     *
+     * @return The array of glyph advances.
+     */
+    public @NonNull float[] getGlyphAdvances() {
+        return glyphAdvances;
+    }
+
+    /**
+     * Returns the cluster maps of all runs. The array is owned by this batch and might be replaced
+     * when shaping it again.
+     *
+     * @return The array of cluster maps.
+     */
+    public @NonNull int[] getClusterMap() {
+        return clusterMap;
+    }
+
+    @Override
+    public @NonNull String toString() {
+        return "ShapingBatch{runCount=" + runCount
+                + ", charCount=" + charCount
+                + ", glyphCount=" + glyphCount
+                + "}";
+    }
+}
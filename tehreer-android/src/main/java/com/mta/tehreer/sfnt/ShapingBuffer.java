@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.sfnt;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A reusable set of primitive arrays receiving the output of the buffered shaping methods of
+ * {@link ShapingEngine}. The arrays are grown as needed and retained across calls so that shaping
+ * a sequence of runs does not allocate a result object for each of them.
+ * <p>
+ * The arrays returned by this object are owned by it and might be replaced by larger ones when
+ * shaping the next run, so their contents should be consumed or copied before that. Only the
+ * leading elements of each array are valid, as described by the individual getters.
+ */
+public final class ShapingBuffer {
+    private static final int DEFAULT_CAPACITY = 32;
+
+    boolean isBackward;
+    boolean isRTL;
+    int charCount;
+    int glyphCount;
+
+    int[] glyphIds;
+    float[] glyphOffsets;
+    float[] glyphAdvances;
+    int[] clusterMap;
+    float[] caretEdges;
+    char[] codeUnits;
+
+    /**
+     * Constructs an empty shaping buffer.
+     */
+    public ShapingBuffer() {
+        glyphIds = new int[DEFAULT_CAPACITY];
+        glyphOffsets = new float[DEFAULT_CAPACITY * 2];
+        glyphAdvances = new float[DEFAULT_CAPACITY];
+        clusterMap = new int[DEFAULT_CAPACITY];
+        caretEdges = new float[DEFAULT_CAPACITY + 1];
+        codeUnits = new char[0];
+    }
+
+    private static int grownCapacity(int oldCapacity, int minCapacity) {
+        return Math.max(oldCapacity + (oldCapacity >> 1), minCapacity);
+    }
+
+    void ensureGlyphCapacity(int capacity) {
+        if (glyphIds.length < capacity) {
+            int newCapacity = grownCapacity(glyphIds.length, capacity);
+
+            glyphIds = new int[newCapacity];
+            glyphOffsets = new float[newCapacity * 2];
+            glyphAdvances = new float[newCapacity];
+        }
+    }
+
+    void ensureCharCapacity(int capacity) {
+        if (clusterMap.length < capacity) {
+            int newCapacity = grownCapacity(clusterMap.length, capacity);
+
+            clusterMap = new int[newCapacity];
+            caretEdges = new float[newCapacity + 1];
+        }
+    }
+
+    @NonNull char[] obtainCodeUnits(int capacity) {
+        if (codeUnits.length < capacity) {
+            codeUnits = new char[grownCapacity(codeUnits.length, capacity)];
+        }
+
+        return codeUnits;
+    }
+
+    /**
+     * Returns <code>true</code> if the last shaped run was processed in backward order.
+     *
+     * @return <code>true</code> if the last shaped run was processed in backward order.
+     */
+    public boolean isBackward() {
+        return isBackward;
+    }
+
+    /**
+     * Returns <code>true</code> if the glyphs of the last shaped run flow from right to left.
+     *
+     * @return <code>true</code> if the glyphs of the last shaped run flow from right to left.
+     */
+    public boolean isRTL() {
+        return isRTL;
+    }
+
+    /**
+     * Returns the number of code units in the last shaped run.
+     *
+     * @return The number of code units in the last shaped run.
+     */
+    public int getCharCount() {
+        return charCount;
+    }
+
+    /**
+     * Returns the number of glyphs produced for the last shaped run.
+     *
+     * @return The number of glyphs produced for the last shaped run.
+     */
+    public int getGlyphCount() {
+        return glyphCount;
+    }
+
+    /**
+     * Returns the array of glyph ids whose first {@link #getGlyphCount()} elements are valid.
+     *
+     * @return The array of glyph ids.
+     */
+    public @NonNull int[] getGlyphIds() {
+        return glyphIds;
+    }
+
+    /**
+     * Returns the array of glyph offsets as x and y pairs whose first twice of
+     * {@link #getGlyphCount()} elements are valid.
+     *
+     * @return The array of glyph offsets.
+     */
+    public @NonNull float[] getGlyphOffsets() {
+        return glyphOffsets;
+    }
+
+    /**
+     * Returns the array of glyph advances whose first {@link #getGlyphCount()} elements are valid.
+     *
+     * @return The array of glyph advances.
+     */
+    public @NonNull float[] getGlyphAdvances() {
+        return glyphAdvances;
+    }
+
+    /**
+     * Returns the array mapping each code unit to its glyph index, whose first
+     * {@link #getCharCount()} elements are valid.
+     *
+     * @return The array of cluster map.
+     */
+    public @NonNull int[] getClusterMap() {
+        return clusterMap;
+    }
+
+    /**
+     * Returns the array of caret edges whose first {@link #getCharCount()} + 1 elements are valid.
+     *
+     * @return The array of caret edges.
+     */
+    public @NonNull float[] getCaretEdges() {
+        return caretEdges;
+    }
+
+    @Override
+    public @NonNull String toString() {
+        return "ShapingBuffer{isBackward=" + isBackward
+                + ", isRTL=" + isRTL
+                + ", charCount=" + charCount
+                + ", glyphCount=" + glyphCount
+                + "}";
+    }
+}
@@ -16,6 +16,8 @@
 
 package com.mta.tehreer.sfnt;
 
+import android.text.TextUtils;
+
 import androidx.annotation.NonNull;
 
 import com.mta.tehreer.Disposable;
@@ -23,6 +25,9 @@ import com.mta.tehreer.graphics.Typeface;
 import com.mta.tehreer.internal.Constants;
 import com.mta.tehreer.internal.Description;
 import com.mta.tehreer.internal.JniBridge;
+import com.mta.tehreer.internal.collections.JFloatArrayList;
+import com.mta.tehreer.internal.collections.JIntArrayList;
+import com.mta.tehreer.internal.layout.CaretEdgesBuilder;
 
 import java.util.Collections;
 import java.util.LinkedHashSet;
@@ -105,9 +110,40 @@ public class ShapingEngine implements Disposable {
         return WritingDirection.valueOf(nGetScriptDefaultDirection(scriptTag));
     }
 
+    /**
+     * Returns the number of shaping calls that reused an existing shape plan. HarfBuzz keeps a
+     * shape plan in each typeface for every combination of script, language, writing direction and
+     * open type features. The count is shared by all shaping engines of the process.
+     *
+     * @return The number of shape plan cache hits.
+     */
+    public static long getShapePlanHitCount() {
+        return nGetShapePlanHitCount();
+    }
+
+    /**
+     * Returns the number of shape plans that had to be built because the typeface did not have one
+     * for the requested combination yet. The count is shared by all shaping engines of the process.
+     *
+     * @return The number of shape plan cache misses.
+     */
+    public static long getShapePlanMissCount() {
+        return nGetShapePlanMissCount();
+    }
+
+    /**
+     * Resets the shape plan hit and miss counts to zero, so that the counts read afterwards only
+     * cover the text shaped in between.
+     */
+    public static void resetShapePlanCounts() {
+        nResetShapePlanCounts();
+    }
+
     private static class Base {
         Typeface typeface = null;
         Set<OpenTypeFeature> features = Collections.emptySet();
+        WritingDirection writingDirection = WritingDirection.LEFT_TO_RIGHT;
+        ShapingOrder shapingOrder = ShapingOrder.FORWARD;
     }
 
     private final Base base;
@@ -269,6 +305,7 @@ public class ShapingEngine implements Disposable {
      * @param writingDirection The new writing direction.
      */
     public void setWritingDirection(@NonNull WritingDirection writingDirection) {
+        base.writingDirection = writingDirection;
         nSetWritingDirection(nativeEngine, writingDirection.value);
     }
 
@@ -294,6 +331,7 @@ public class ShapingEngine implements Disposable {
      * @param shapingOrder The new shaping order.
      */
     public void setShapingOrder(@NonNull ShapingOrder shapingOrder) {
+        base.shapingOrder = shapingOrder;
         nSetShapingOrder(nativeEngine, shapingOrder.value);
     }
 
@@ -331,6 +369,174 @@ public class ShapingEngine implements Disposable {
         return result;
     }
 
+    /**
+     * Shapes the specified range of characters into the arrays of given buffer with a single
+     * native call, applying the horizontal scale to x offsets and advances, and the baseline shift
+     * to y offsets. The caret edges are derived from the scaled advances.
+     * <p>
+     * This is a lighter alternative of {@link #shapeText(String, int, int)} for shaping many short
+     * runs, as it neither creates a result object nor requires a separate call for each kind of
+     * output. The glyphs are ordered in the same way as in a <code>ShapingResult</code> object.
+     *
+     * @param chars The array of characters to shape into glyphs.
+     * @param fromIndex The index of the first character (inclusive) to be shaped.
+     * @param toIndex The index of the last character (exclusive) to be shaped.
+     * @param scaleX The horizontal scale to apply on glyph positions.
+     * @param baselineShift The vertical shift to apply on glyph offsets.
+     * @param buffer The buffer receiving the output.
+     * @return The number of glyphs produced.
+     *
+     * @throws IllegalStateException if current typeface is <code>null</code>.
+     * @throws NullPointerException if <code>chars</code> or <code>buffer</code> is
+     *         <code>null</code>.
+     * @throws IllegalArgumentException if <code>fromIndex</code> is negative, or
+     *         <code>toIndex</code> is greater than <code>chars.length</code>, or
+     *         <code>fromIndex</code> is greater than <code>toIndex</code>
+     */
+    public int shapeText(@NonNull char[] chars, int fromIndex, int toIndex,
+                         float scaleX, float baselineShift, @NonNull ShapingBuffer buffer) {
+        if (base.typeface == null) {
+            throw new IllegalStateException("Typeface has not been set");
+        }
+        checkNotNull(chars, "chars");
+        checkNotNull(buffer, "buffer");
+        checkArgument(fromIndex >= 0, "From Index: " + fromIndex);
+        checkArgument(toIndex <= chars.length, "To Index: " + toIndex + ", Chars Length: " + chars.length);
+        checkArgument(toIndex >= fromIndex, "Bad Range: [" + fromIndex + ", " + toIndex + ')');
+
+        return shapeBuffered(chars, fromIndex, toIndex, scaleX, baselineShift, buffer);
+    }
+
+    /**
+     * Shapes the specified range of text into the arrays of given buffer with a single native
+     * call. See {@link #shapeText(char[], int, int, float, float, ShapingBuffer)} for details.
+     *
+     * @param text The text to shape into glyphs.
+     * @param fromIndex The index of the first character (inclusive) to be shaped.
+     * @param toIndex The index of the last character (exclusive) to be shaped.
+     * @param scaleX The horizontal scale to apply on glyph positions.
+     * @param baselineShift The vertical shift to apply on glyph offsets.
+     * @param buffer The buffer receiving the output.
+     * @return The number of glyphs produced.
+     *
+     * @throws IllegalStateException if current typeface is <code>null</code>.
+     * @throws NullPointerException if <code>text</code> or <code>buffer</code> is
+     *         <code>null</code>.
+     * @throws IllegalArgumentException if <code>fromIndex</code> is negative, or
+     *         <code>toIndex</code> is greater than <code>text.length()</code>, or
+     *         <code>fromIndex</code> is greater than <code>toIndex</code>
+     */
+    public int shapeText(@NonNull CharSequence text, int fromIndex, int toIndex,
+                         float scaleX, float baselineShift, @NonNull ShapingBuffer buffer) {
+        if (base.typeface == null) {
+            throw new IllegalStateException("Typeface has not been set");
+        }
+        checkNotNull(text, "text");
+        checkNotNull(buffer, "buffer");
+        checkArgument(fromIndex >= 0, "From Index: " + fromIndex);
+        checkArgument(toIndex <= text.length(), "To Index: " + toIndex + ", Text Length: " + text.length());
+        checkArgument(toIndex >= fromIndex, "Bad Range: [" + fromIndex + ", " + toIndex + ')');
+
+        if (text instanceof String) {
+            return shapeBuffered(text, fromIndex, toIndex, scaleX, baselineShift, buffer);
+        }
+
+        int length = toIndex - fromIndex;
+        char[] chars = buffer.obtainCodeUnits(length);
+        TextUtils.getChars(text, fromIndex, toIndex, chars, 0);
+
+        return shapeBuffered(chars, 0, length, scaleX, baselineShift, buffer);
+    }
+
+    private int shapeBuffered(@NonNull Object text, int fromIndex, int toIndex,
+                              float scaleX, float baselineShift, @NonNull ShapingBuffer buffer) {
+        int charCount = toIndex - fromIndex;
+
+        // Most of the runs produce at most one glyph for each code unit.
+        buffer.ensureCharCapacity(charCount);
+        buffer.ensureGlyphCapacity(charCount);
+
+        int glyphCount;
+        if (text instanceof String) {
+            glyphCount = nShapeString(nativeEngine, (String) text, fromIndex, toIndex,
+                                      scaleX, baselineShift, buffer.glyphIds, buffer.glyphOffsets,
+                                      buffer.glyphAdvances, buffer.clusterMap);
+        } else {
+            glyphCount = nShapeChars(nativeEngine, (char[]) text, fromIndex, toIndex,
+                                     scaleX, baselineShift, buffer.glyphIds, buffer.glyphOffsets,
+                                     buffer.glyphAdvances, buffer.clusterMap);
+        }
+
+        if (glyphCount > buffer.glyphIds.length) {
+            buffer.ensureGlyphCapacity(glyphCount);
+            nCopyBufferedResult(nativeEngine, scaleX, baselineShift, buffer.glyphIds,
+                                buffer.glyphOffsets, buffer.glyphAdvances, buffer.clusterMap);
+        }
+
+        boolean isBackward = (base.shapingOrder == ShapingOrder.BACKWARD);
+        boolean isRTL = (base.writingDirection == WritingDirection.RIGHT_TO_LEFT) != isBackward;
+
+        buffer.isBackward = isBackward;
+        buffer.isRTL = isRTL;
+        buffer.charCount = charCount;
+        buffer.glyphCount = glyphCount;
+
+        if (charCount > 0) {
+            new CaretEdgesBuilder()
+                    .setBackward(isBackward)
+                    .setRTL(isRTL)
+                    .setGlyphAdvances(new JFloatArrayList(buffer.glyphAdvances, 0, glyphCount))
+                    .setClusterMap(new JIntArrayList(buffer.clusterMap, 0, charCount))
+                    .setCaretStops(null)
+                    .build(buffer.caretEdges);
+        } else {
+            buffer.caretEdges[0] = 0.0f;
+        }
+
+        return glyphCount;
+    }
+
+    /**
+     * Shapes all runs of the given batch with a single native call. Each run is shaped with its
+     * own typeface, type size, script, language, writing direction and shaping order, whereas the
+     * OpenType features of this shaping engine apply to all of them. The properties of this shaping
+     * engine are left unchanged.
+     *
+     * @param text The text whose ranges are described by the runs of the batch.
+     * @param batch The batch of runs to shape, which receives the output glyphs.
+     *
+     * @throws NullPointerException if <code>text</code> or <code>batch</code> is
+     *         <code>null</code>.
+     * @throws IllegalArgumentException if the range of any run exceeds <code>text.length()</code>.
+     */
+    public void shapeRuns(@NonNull String text, @NonNull ShapingBatch batch) {
+        checkNotNull(text, "text");
+        checkNotNull(batch, "batch");
+
+        int runCount = batch.runCount;
+        int[] runSpecs = batch.runSpecs;
+
+        for (int i = 0; i < runCount; i++) {
+            int toIndex = runSpecs[i * ShapingBatch.RUN_SPEC_SIZE + 1];
+            checkArgument(toIndex <= text.length(), "To Index: " + toIndex + ", Text Length: " + text.length());
+        }
+
+        // Most of the runs produce at most one glyph for each code unit.
+        batch.ensureCharCapacity(batch.charCount);
+        batch.ensureGlyphCapacity(batch.charCount);
+
+        int glyphCount = nShapeRuns(nativeEngine, text, batch.typefaces, runSpecs, batch.typeSizes,
+                                    runCount, batch.glyphStarts, batch.glyphIds, batch.glyphOffsets,
+                                    batch.glyphAdvances, batch.clusterMap);
+        if (glyphCount > batch.glyphIds.length) {
+            batch.ensureGlyphCapacity(glyphCount);
+            nCopyBatchOutput(nativeEngine, batch.glyphStarts, batch.glyphIds, batch.glyphOffsets,
+                             batch.glyphAdvances, batch.clusterMap);
+        }
+
+        batch.glyphCount = glyphCount;
+    }
+
 	@Override
 	public void dispose() {
         nDispose(nativeEngine);
@@ -349,6 +555,9 @@ public class ShapingEngine implements Disposable {
     }
 
     private static native int nGetScriptDefaultDirection(int scriptTag);
+    private static native long nGetShapePlanHitCount();
+    private static native long nGetShapePlanMissCount();
+    private static native void nResetShapePlanCounts();
 
 	private static native long nCreate();
 	private static native void nDispose(long nativeEngine);
@@ -373,4 +582,20 @@ public class ShapingEngine implements Disposable {
     private static native void nSetShapingOrder(long nativeEngine, int shapingOrder);
 
 	private static native void nShapeText(long nativeEngine, long nativeResult, String text, int fromIndex, int toIndex);
+    private static native int nShapeChars(long nativeEngine, char[] chars, int fromIndex, int toIndex,
+                                          float scaleX, float baselineShift, int[] glyphIds,
+                                          float[] glyphOffsets, float[] glyphAdvances, int[] clusterMap);
+    private static native int nShapeString(long nativeEngine, String text, int fromIndex, int toIndex,
+                                           float scaleX, float baselineShift, int[] glyphIds,
+                                           float[] glyphOffsets, float[] glyphAdvances, int[] clusterMap);
+    private static native int nShapeRuns(long nativeEngine, String text, Typeface[] typefaces,
+                                         int[] runSpecs, float[] typeSizes, int runCount,
+                                         int[] glyphStarts, int[] glyphIds, float[] glyphOffsets,
+                                         float[] glyphAdvances, int[] clusterMap);
+    private static native void nCopyBatchOutput(long nativeEngine, int[] glyphStarts, int[] glyphIds,
+                                                float[] glyphOffsets, float[] glyphAdvances,
+                                                int[] clusterMap);
+    private static native void nCopyBufferedResult(long nativeEngine, float scaleX, float baselineShift,
+                                                   int[] glyphIds, float[] glyphOffsets,
+                                                   float[] glyphAdvances, int[] clusterMap);
 }
@@ -545,7 +545,16 @@ public class TLabel extends View {
      */
     public void setTextSize(float textSize) {
         mRenderer.setTypeSize(Math.max(0.0f, textSize));
-        updateTypesetter();
+
+        if (mTypesetter != null && !mNeedsTypesetter) {
+            // Only the size has changed, so rescale the runs instead of shaping them again.
+            mTypesetter = mTypesetter.deriveTypesetter(getTextSize());
+
+            requestLayout();
+            invalidate();
+        } else {
+            updateTypesetter();
+        }
     }
 
     /**
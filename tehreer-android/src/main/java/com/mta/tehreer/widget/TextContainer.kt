@@ -81,6 +81,7 @@ internal class TextContainer : ViewGroup {
     private var isTextLayoutRequested = false
     private var isTypesetterUserDefined = false
     private var isTypesetterResolved = false
+    private var isTypesetterDerivable = false
     private var isComposedFrameResolved = false
 
     private val lineViews = mutableListOf<LineView>()
@@ -174,6 +175,7 @@ internal class TextContainer : ViewGroup {
 
     private class TypesettingTask(
         private val properties: TextProperties,
+        private val isDerivable: Boolean,
         private val listener: OnTaskUpdateListener<Typesetter?>
     ) : SmartRunnable() {
         private fun notifyUpdateIfNeeded() {
@@ -187,8 +189,13 @@ internal class TextContainer : ViewGroup {
         override fun run() {
             val text = properties.text
             val spanned = properties.spanned
+            val typesetter = properties.typesetter
+            properties.typesetter = null
 
-            if (text != null) {
+            if (isDerivable && typesetter != null) {
+                // Only the size has changed, so rescale the runs instead of shaping them again.
+                properties.typesetter = typesetter.deriveTypesetter(properties.textSize)
+            } else if (text != null) {
                 val typeface = properties.typeface
                 val textSize = properties.textSize
 
@@ -356,7 +363,7 @@ internal class TextContainer : ViewGroup {
         val subTasks: Queue<SmartRunnable> = ArrayDeque()
         if (!isTypesetterResolved) {
             subTasks.add(
-                TypesettingTask(context) { typesetter ->
+                TypesettingTask(context, isTypesetterDerivable) { typesetter ->
                     updateTypesetter(context.layoutID, typesetter)
                 })
         }
@@ -510,6 +517,7 @@ internal class TextContainer : ViewGroup {
 
     private fun requestTypesetter() {
         isTypesetterResolved = isTypesetterUserDefined
+        isTypesetterDerivable = false
         requestComposedFrame()
     }
 
@@ -582,8 +590,14 @@ internal class TextContainer : ViewGroup {
     var textSize: Float
         get() = properties.textSize
         set(textSize) {
+            // The current typesetter can be rescaled if it reflects all other properties.
+            val isDerivable = !isTypesetterUserDefined && properties.typesetter != null
+                    && (isTypesetterResolved || isTypesetterDerivable)
+
             properties.textSize = max(0.0f, textSize)
             requestTypesetter()
+
+            isTypesetterDerivable = isDerivable
         }
 
     var textColor: Int
@@ -14,28 +14,84 @@
  * limitations under the License.
  */
 
+extern "C" {
+#include <ft2build.h>
+#include FT_FREETYPE_H
+#include FT_TRUETYPE_TABLES_H
+#include FT_TRUETYPE_TAGS_H
+}
+
+#include <atomic>
+#include <cstddef>
 #include <cstdint>
+#include <vector>
 
 #include "AdvanceCache.h"
 
+using namespace std;
 using namespace Tehreer;
 
-AdvanceCache::AdvanceCache() = default;
+AdvanceCache::AdvanceCache(size_t glyphCount)
+    : m_advances(new atomic<int32_t>[glyphCount])
+    , m_glyphCount(glyphCount)
+    , m_preloaded(false)
+{
+    clear();
+}
 
-void AdvanceCache::put(const uint16_t key, int32_t advance)
+void AdvanceCache::clear()
 {
-    m_advances[key] = advance;
+    for (size_t i = 0; i < m_glyphCount; i++) {
+        m_advances[i].store(Unknown, memory_order_relaxed);
+    }
 }
 
-bool AdvanceCache::get(const uint16_t key, int32_t *advance)
+bool AdvanceCache::preload(FT_Face ftFace)
 {
-    bool found = false;
+    /* Only a single thread needs to read the metrics table. */
+    if (m_preloaded.exchange(true)) {
+        return false;
+    }
+
+    /*
+     * NOTE:
+     *      The advances of a variable font depend upon its coordinates, so they are left to be
+     *      resolved by FreeType one by one.
+     */
+    if (FT_HAS_MULTIPLE_MASTERS(ftFace)) {
+        return false;
+    }
+
+    auto hheaTable = static_cast<TT_HoriHeader *>(FT_Get_Sfnt_Table(ftFace, FT_SFNT_HHEA));
+    if (!hheaTable) {
+        return false;
+    }
+
+    size_t metricCount = hheaTable->number_Of_HMetrics;
+    FT_ULong length = 0;
+    FT_Load_Sfnt_Table(ftFace, TTAG_hmtx, 0, nullptr, &length);
+
+    if (metricCount == 0 || length < metricCount * 4) {
+        return false;
+    }
+
+    vector<FT_Byte> hmtx(metricCount * 4);
+    FT_ULong bytesRead = hmtx.size();
+    FT_Error error = FT_Load_Sfnt_Table(ftFace, TTAG_hmtx, 0, hmtx.data(), &bytesRead);
+    if (error != FT_Err_Ok) {
+        return false;
+    }
+
+    int32_t advance = 0;
+
+    for (size_t i = 0; i < m_glyphCount; i++) {
+        /* The glyphs after the last long metric share its advance. */
+        if (i < metricCount) {
+            advance = (hmtx[i * 4] << 8) | hmtx[i * 4 + 1];
+        }
 
-    auto pair = m_advances.find(key);
-    if (pair != m_advances.end()) {
-        *advance = pair->second;
-        found = true;
+        m_advances[i].store(advance, memory_order_relaxed);
     }
 
-    return found;
+    return true;
 }
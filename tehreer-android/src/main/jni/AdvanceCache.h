@@ -17,20 +17,53 @@
 #ifndef _TEHREER__ADVANCE_CACHE_H
 #define _TEHREER__ADVANCE_CACHE_H
 
+extern "C" {
+#include <ft2build.h>
+#include FT_FREETYPE_H
+}
+
+#include <atomic>
+#include <cstddef>
 #include <cstdint>
-#include <unordered_map>
+#include <memory>
 
 namespace Tehreer {
 
+/*
+ * A flat table of unscaled glyph advances, indexed by glyph ID. The entries are read and written
+ * atomically, so the table can be accessed concurrently without taking any lock.
+ */
 class AdvanceCache {
 public:
-    AdvanceCache();
+    explicit AdvanceCache(size_t glyphCount);
 
-    void put(const uint16_t key, int32_t advance);
-    bool get(const uint16_t key, int32_t *advance);
+    inline void put(const uint16_t key, int32_t advance) {
+        if (key < m_glyphCount) {
+            m_advances[key].store(advance, std::memory_order_relaxed);
+        }
+    }
+
+    inline bool get(const uint16_t key, int32_t *advance) const {
+        if (key < m_glyphCount) {
+            int32_t value = m_advances[key].load(std::memory_order_relaxed);
+            if (value != Unknown) {
+                *advance = value;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    bool preload(FT_Face ftFace);
+    void clear();
 
 private:
-    std::unordered_map<uint16_t, int32_t> m_advances;
+    static constexpr int32_t Unknown = INT32_MIN;
+
+    std::unique_ptr<std::atomic<int32_t>[]> m_advances;
+    size_t m_glyphCount;
+    std::atomic_bool m_preloaded;
 };
 
 }
@@ -144,16 +144,20 @@ FILE_LIST := \
     BidiLine.cpp \
     BidiMirrorLocator.cpp \
     BidiParagraph.cpp \
+    CharMapCache.cpp \
+    FeatureSet.cpp \
     FontFile.cpp \
     FreeType.cpp \
     GlyphOutline.cpp \
     GlyphRasterizer.cpp \
     JavaBridge.cpp \
+    LayoutTables.cpp \
     Raw.cpp \
     RenderableFace.cpp \
     ScriptClassifier.cpp \
     SfntTables.cpp \
     ShapableFace.cpp \
+    ShapePlanStats.cpp \
     ShapingEngine.cpp \
     ShapingResult.cpp \
     StreamUtils.cpp \
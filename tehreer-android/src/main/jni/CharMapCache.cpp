@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#include <atomic>
+#include <cstddef>
+#include <cstdint>
+
+#include "CharMapCache.h"
+
+using namespace std;
+using namespace Tehreer;
+
+/* A used slot keeps the code point and the glyph along with a marker bit. */
+static constexpr uint64_t SlotUsed = uint64_t(1) << 63;
+
+static inline uint64_t packSlot(uint32_t codePoint, uint16_t glyphID)
+{
+    return SlotUsed | (uint64_t(codePoint) << 16) | glyphID;
+}
+
+static inline uint32_t slotCodePoint(uint64_t slot)
+{
+    return static_cast<uint32_t>((slot >> 16) & 0x1FFFFF);
+}
+
+CharMapCache::CharMapCache()
+{
+    for (size_t i = 0; i < PageCount; i++) {
+        m_pages[i].store(nullptr, memory_order_relaxed);
+    }
+    for (size_t i = 0; i < SlotCount; i++) {
+        m_slots[i].store(0, memory_order_relaxed);
+    }
+}
+
+CharMapCache::~CharMapCache()
+{
+    for (size_t i = 0; i < PageCount; i++) {
+        delete[] m_pages[i].load(memory_order_relaxed);
+    }
+}
+
+void CharMapCache::put(uint32_t codePoint, uint16_t glyphID)
+{
+    if (codePoint > 0xFFFF) {
+        putSupplementary(codePoint, glyphID);
+        return;
+    }
+
+    atomic<atomic<int32_t> *> &pageRef = m_pages[codePoint >> PageShift];
+    atomic<int32_t> *page = pageRef.load(memory_order_acquire);
+
+    if (!page) {
+        auto newPage = new atomic<int32_t>[PageSize];
+        for (size_t i = 0; i < PageSize; i++) {
+            newPage[i].store(Unknown, memory_order_relaxed);
+        }
+
+        /* NOTE: Another thread might have installed the page in the meantime. */
+        if (pageRef.compare_exchange_strong(page, newPage, memory_order_acq_rel)) {
+            page = newPage;
+        } else {
+            delete[] newPage;
+        }
+    }
+
+    page[codePoint & PageMask].store(glyphID, memory_order_relaxed);
+}
+
+bool CharMapCache::getSupplementary(uint32_t codePoint, uint16_t *glyphID) const
+{
+    size_t index = slotIndex(codePoint);
+
+    for (size_t i = 0; i < MaxProbes; i++) {
+        uint64_t slot = m_slots[(index + i) & (SlotCount - 1)].load(memory_order_relaxed);
+        if (!slot) {
+            break;
+        }
+
+        if (slotCodePoint(slot) == codePoint) {
+            *glyphID = static_cast<uint16_t>(slot);
+            return true;
+        }
+    }
+
+    return false;
+}
+
+void CharMapCache::putSupplementary(uint32_t codePoint, uint16_t glyphID)
+{
+    size_t index = slotIndex(codePoint);
+    uint64_t entry = packSlot(codePoint, glyphID);
+
+    /* The code point is simply left uncached if all the probed slots are taken. */
+    for (size_t i = 0; i < MaxProbes; i++) {
+        atomic<uint64_t> &slotRef = m_slots[(index + i) & (SlotCount - 1)];
+        uint64_t slot = 0;
+
+        if (slotRef.compare_exchange_strong(slot, entry, memory_order_relaxed)) {
+            return;
+        }
+        if (slotCodePoint(slot) == codePoint) {
+            return;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#ifndef _TEHREER__CHAR_MAP_CACHE_H
+#define _TEHREER__CHAR_MAP_CACHE_H
+
+#include <atomic>
+#include <cstddef>
+#include <cstdint>
+
+namespace Tehreer {
+
+/*
+ * A lock-free cache of the nominal glyphs of code points. The code points of the basic multilingual
+ * plane are kept in a dense table whose pages are allocated on first use, while the supplementary
+ * ones are kept in a small open addressing hash table. Missing glyphs are cached as well.
+ */
+class CharMapCache {
+public:
+    CharMapCache();
+    ~CharMapCache();
+
+    CharMapCache(const CharMapCache &) = delete;
+    CharMapCache &operator=(const CharMapCache &) = delete;
+
+    inline bool get(uint32_t codePoint, uint16_t *glyphID) const {
+        if (codePoint <= 0xFFFF) {
+            std::atomic<int32_t> *page = m_pages[codePoint >> PageShift].load(std::memory_order_acquire);
+            if (page) {
+                int32_t value = page[codePoint & PageMask].load(std::memory_order_relaxed);
+                if (value != Unknown) {
+                    *glyphID = static_cast<uint16_t>(value);
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        return getSupplementary(codePoint, glyphID);
+    }
+
+    void put(uint32_t codePoint, uint16_t glyphID);
+
+private:
+    static constexpr size_t PageShift = 8;
+    static constexpr size_t PageSize = 1 << PageShift;
+    static constexpr size_t PageMask = PageSize - 1;
+    static constexpr size_t PageCount = 0x10000 >> PageShift;
+
+    static constexpr size_t SlotShift = 9;
+    static constexpr size_t SlotCount = 1 << SlotShift;
+    static constexpr size_t MaxProbes = 8;
+
+    static constexpr int32_t Unknown = -1;
+
+    std::atomic<std::atomic<int32_t> *> m_pages[PageCount];
+    std::atomic<uint64_t> m_slots[SlotCount];
+
+    static inline size_t slotIndex(uint32_t codePoint) {
+        return (codePoint * 0x9E3779B1U) >> (32 - SlotShift);
+    }
+
+    bool getSupplementary(uint32_t codePoint, uint16_t *glyphID) const;
+    void putSupplementary(uint32_t codePoint, uint16_t glyphID);
+};
+
+}
+
+#endif
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#include <cstddef>
+#include <cstdint>
+#include <hb.h>
+#include <map>
+#include <memory>
+#include <mutex>
+#include <vector>
+
+#include "FeatureSet.h"
+
+using namespace std;
+using namespace Tehreer;
+
+using FeatureKey = vector<uint64_t>;
+
+FeatureSet::FeatureSet(const uint32_t *tags, const uint16_t *values, size_t count)
+{
+    m_features.resize(count);
+
+    for (size_t i = 0; i < count; i++) {
+        hb_feature_t &feature = m_features[i];
+        feature.tag = tags[i];
+        feature.value = values[i];
+
+        /*
+         * NOTE:
+         *      The features always cover the whole buffer, so they are marked as global which also
+         *      allows HarfBuzz to reuse the shape plans.
+         */
+        feature.start = HB_FEATURE_GLOBAL_START;
+        feature.end = HB_FEATURE_GLOBAL_END;
+    }
+}
+
+const FeatureSet &FeatureSet::empty()
+{
+    static const FeatureSet &emptySet = intern(nullptr, nullptr, 0);
+    return emptySet;
+}
+
+const FeatureSet &FeatureSet::intern(const uint32_t *tags, const uint16_t *values, size_t count)
+{
+    static mutex internMutex;
+    static map<FeatureKey, unique_ptr<FeatureSet>> internedSets;
+
+    FeatureKey key(count);
+    for (size_t i = 0; i < count; i++) {
+        key[i] = (uint64_t(tags[i]) << 16) | values[i];
+    }
+
+    lock_guard<mutex> lock(internMutex);
+
+    unique_ptr<FeatureSet> &featureSet = internedSets[key];
+    if (!featureSet) {
+        featureSet.reset(new FeatureSet(tags, values, count));
+    }
+
+    return *featureSet;
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#ifndef _TEHREER__FEATURE_SET_H
+#define _TEHREER__FEATURE_SET_H
+
+#include <cstddef>
+#include <cstdint>
+#include <hb.h>
+#include <vector>
+
+namespace Tehreer {
+
+/*
+ * An immutable set of open type features applied globally to the shaped text. The sets are
+ * interned, so identical configurations are represented by the same object and can be compared by
+ * their addresses. Interned sets live as long as the process.
+ */
+class FeatureSet {
+public:
+    static const FeatureSet &empty();
+    static const FeatureSet &intern(const uint32_t *tags, const uint16_t *values, size_t count);
+
+    inline const hb_feature_t *data() const { return m_features.data(); }
+    inline size_t size() const { return m_features.size(); }
+
+    inline uint32_t tagAt(size_t index) const { return m_features[index].tag; }
+    inline uint16_t valueAt(size_t index) const { return static_cast<uint16_t>(m_features[index].value); }
+
+private:
+    std::vector<hb_feature_t> m_features;
+
+    FeatureSet(const uint32_t *tags, const uint16_t *values, size_t count);
+};
+
+}
+
+#endif
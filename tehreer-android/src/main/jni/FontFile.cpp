@@ -23,8 +23,13 @@ extern "C" {
 #include <android/asset_manager.h>
 #include <android/asset_manager_jni.h>
 #include <cstdlib>
+#include <cstring>
+#include <fcntl.h>
 #include <jni.h>
 #include <mutex>
+#include <sys/mman.h>
+#include <sys/stat.h>
+#include <unistd.h>
 
 #include "FreeType.h"
 #include "JavaBridge.h"
@@ -36,13 +41,8 @@ extern "C" {
 
 using namespace Tehreer;
 
-static FT_Stream createStream(AAssetManager *assetManager, const char *path)
+static FT_Stream createStream(AAsset *asset)
 {
-    AAsset *asset = AAssetManager_open(assetManager, path, AASSET_MODE_UNKNOWN);
-    if (!asset) {
-        return nullptr;
-    }
-
     off_t size = AAsset_getLength(asset);
     if (size == 0) {
         return nullptr;
@@ -84,9 +84,67 @@ static void disposeStream(FT_Stream stream)
     free(stream);
 }
 
+/*
+ * Maps a region of a file in memory. The returned mapping starts at the page boundary preceding
+ * the region, so the region itself begins at the returned offset within the mapping.
+ */
+static void *mapRegion(int fd, off_t start, size_t length, size_t *mappingSize, size_t *offset)
+{
+    auto pageSize = static_cast<off_t>(sysconf(_SC_PAGESIZE));
+    off_t alignedStart = start - (start % pageSize);
+
+    *offset = static_cast<size_t>(start - alignedStart);
+    *mappingSize = length + *offset;
+
+    void *mapping = mmap(nullptr, *mappingSize, PROT_READ, MAP_PRIVATE, fd, alignedStart);
+    if (mapping == MAP_FAILED) {
+        return nullptr;
+    }
+
+    return mapping;
+}
+
 FontFile *FontFile::createFromAsset(AAssetManager *assetManager, const char *path)
 {
-    FT_Stream stream = createStream(assetManager, path);
+    AAsset *asset = AAssetManager_open(assetManager, path, AASSET_MODE_RANDOM);
+    if (!asset) {
+        return nullptr;
+    }
+
+    off_t size = AAsset_getLength(asset);
+    if (size == 0) {
+        AAsset_close(asset);
+        return nullptr;
+    }
+
+    /* An uncompressed asset can be mapped right from the package. */
+    off_t start = 0;
+    off_t length = 0;
+    int fd = AAsset_openFileDescriptor(asset, &start, &length);
+    if (fd >= 0) {
+        Storage storage;
+        size_t offset = 0;
+        storage.mapping = mapRegion(fd, start, static_cast<size_t>(length), &storage.mappingSize, &offset);
+        close(fd);
+
+        if (storage.mapping) {
+            AAsset_close(asset);
+
+            auto base = static_cast<const FT_Byte *>(storage.mapping) + offset;
+            return createWithMemory(base, static_cast<FT_Long>(length), storage);
+        }
+    }
+
+    /* Otherwise the platform keeps the whole asset in memory as long as it is open. */
+    const void *buffer = AAsset_getBuffer(asset);
+    if (buffer) {
+        Storage storage;
+        storage.asset = asset;
+
+        return createWithMemory(static_cast<const FT_Byte *>(buffer), static_cast<FT_Long>(size), storage);
+    }
+
+    FT_Stream stream = createStream(asset);
     if (stream) {
         FT_Open_Args args;
         args.flags = FT_OPEN_STREAM;
@@ -95,22 +153,54 @@ FontFile *FontFile::createFromAsset(AAssetManager *assetManager, const char *pat
         args.pathname = nullptr;
         args.stream = stream;
 
-        return createWithArgs(&args);
+        Storage storage;
+        storage.stream = stream;
+
+        return createWithArgs(&args, storage);
     }
 
+    AAsset_close(asset);
+
     return nullptr;
 }
 
 FontFile *FontFile::createFromPath(const char *path)
 {
+    int fd = open(path, O_RDONLY | O_CLOEXEC);
+    if (fd >= 0) {
+        struct stat fileStat;
+        Storage storage;
+        size_t offset = 0;
+
+        if (fstat(fd, &fileStat) == 0 && fileStat.st_size > 0) {
+            storage.mapping = mapRegion(fd, 0, static_cast<size_t>(fileStat.st_size), &storage.mappingSize, &offset);
+        }
+        close(fd);
+
+        if (storage.mapping) {
+            auto base = static_cast<const FT_Byte *>(storage.mapping);
+            return createWithMemory(base, static_cast<FT_Long>(fileStat.st_size), storage);
+        }
+    }
+
+    /*
+     * Let FreeType read the file by itself if it could not be mapped. The path is copied as the
+     * faces are reopened from it long after the caller has released its own string.
+     */
+    Storage storage;
+    storage.pathname = strdup(path);
+    if (!storage.pathname) {
+        return nullptr;
+    }
+
     FT_Open_Args args;
     args.flags = FT_OPEN_PATHNAME;
     args.memory_base = nullptr;
     args.memory_size = 0;
-    args.pathname = const_cast<FT_String *>(path);
+    args.pathname = storage.pathname;
     args.stream = nullptr;
 
-    return createWithArgs(&args);
+    return createWithArgs(&args, storage);
 }
 
 FontFile *FontFile::createFromStream(const JavaBridge &bridge, jobject stream)
@@ -119,20 +209,46 @@ FontFile *FontFile::createFromStream(const JavaBridge &bridge, jobject stream)
     void *buffer = StreamUtils::toRawBuffer(bridge, stream, &length);
 
     if (buffer) {
-        FT_Open_Args args;
-        args.flags = FT_OPEN_MEMORY;
-        args.memory_base = static_cast<const FT_Byte *>(buffer);
-        args.memory_size = length;
-        args.pathname = nullptr;
-        args.stream = nullptr;
+        Storage storage;
+        storage.buffer = buffer;
 
-        return createWithArgs(&args);
+        return createWithMemory(static_cast<const FT_Byte *>(buffer), static_cast<FT_Long>(length), storage);
     }
 
     return nullptr;
 }
 
-FontFile *FontFile::createWithArgs(const FT_Open_Args *args)
+FontFile *FontFile::createFromBuffer(const JavaBridge &bridge, jobject buffer, jint offset, jint length)
+{
+    JNIEnv *env = bridge.env();
+
+    auto address = static_cast<const FT_Byte *>(env->GetDirectBufferAddress(buffer));
+    jlong capacity = env->GetDirectBufferCapacity(buffer);
+
+    if (!address || offset < 0 || length <= 0 || offset > capacity - length) {
+        return nullptr;
+    }
+
+    /* Keep the buffer alive for as long as the font file uses its memory. */
+    Storage storage;
+    storage.bufferRef = env->NewGlobalRef(buffer);
+
+    return createWithMemory(address + offset, static_cast<FT_Long>(length), storage);
+}
+
+FontFile *FontFile::createWithMemory(const FT_Byte *base, FT_Long size, const Storage &storage)
+{
+    FT_Open_Args args;
+    args.flags = FT_OPEN_MEMORY;
+    args.memory_base = base;
+    args.memory_size = size;
+    args.pathname = nullptr;
+    args.stream = nullptr;
+
+    return createWithArgs(&args, storage);
+}
+
+FontFile *FontFile::createWithArgs(const FT_Open_Args *args, const Storage &storage)
 {
     std::mutex &mutex = FreeType::mutex();
     mutex.lock();
@@ -147,26 +263,117 @@ FontFile *FontFile::createWithArgs(const FT_Open_Args *args)
 
     mutex.unlock();
 
-    return new FontFile(args, (void *)args->memory_base, args->stream, numFaces);
+    return new FontFile(args, storage, numFaces);
 }
 
-FontFile::FontFile(const FT_Open_Args *args, void *buffer, FT_Stream stream, FT_Long numFaces)
+FontFile::FontFile(const FT_Open_Args *args, const Storage &storage, FT_Long numFaces)
 {
     m_args = *args;
-    m_buffer = buffer;
-    m_stream = stream;
+    m_storage = storage;
     m_numFaces = numFaces;
     m_retainCount = 1;
 }
 
 FontFile::~FontFile()
 {
-    if (m_stream) {
-        disposeStream(m_stream);
+    if (m_storage.stream) {
+        disposeStream(m_storage.stream);
+    }
+    if (m_storage.buffer) {
+        free(m_storage.buffer);
+    }
+    if (m_storage.pathname) {
+        free(m_storage.pathname);
+    }
+    if (m_storage.mapping) {
+        munmap(m_storage.mapping, m_storage.mappingSize);
     }
-    if (m_buffer) {
-        free(m_buffer);
+    if (m_storage.asset) {
+        AAsset_close(m_storage.asset);
     }
+    if (m_storage.bufferRef) {
+        JavaBridge::deleteGlobalRef(m_storage.bufferRef);
+    }
+}
+
+static inline uint16_t readUInt16(const FT_Byte *data)
+{
+    return static_cast<uint16_t>((data[0] << 8) | data[1]);
+}
+
+static inline uint32_t readUInt32(const FT_Byte *data)
+{
+    return (static_cast<uint32_t>(data[0]) << 24) | (static_cast<uint32_t>(data[1]) << 16)
+         | (static_cast<uint32_t>(data[2]) << 8) | static_cast<uint32_t>(data[3]);
+}
+
+static inline bool isSfntVersion(uint32_t version)
+{
+    return version == 0x00010000
+        || version == FT_MAKE_TAG('O', 'T', 'T', 'O')
+        || version == FT_MAKE_TAG('t', 'r', 'u', 'e');
+}
+
+bool FontFile::locateTable(FT_Long faceIndex, FT_ULong tag, FT_ULong *offset, FT_ULong *length) const
+{
+    const FT_Byte *base = data();
+    auto fileSize = static_cast<FT_ULong>(size());
+    if (!base || fileSize < 12) {
+        return false;
+    }
+
+    /* The lower bits of the face index identify the font within a collection. */
+    FT_ULong fontIndex = static_cast<FT_ULong>(faceIndex) & 0xFFFF;
+    FT_ULong directoryOffset = 0;
+
+    if (readUInt32(base) == FT_MAKE_TAG('t', 't', 'c', 'f')) {
+        FT_ULong numFonts = readUInt32(base + 8);
+        if (fontIndex >= numFonts || 12 + (fontIndex + 1) * 4 > fileSize) {
+            return false;
+        }
+
+        directoryOffset = readUInt32(base + 12 + fontIndex * 4);
+    } else if (fontIndex != 0) {
+        return false;
+    }
+
+    if (directoryOffset + 12 > fileSize) {
+        return false;
+    }
+
+    /*
+     * NOTE:
+     *      Only the uncompressed sfnt containers can be located. Any other data, such as WOFF or
+     *      WOFF2, is decoded by FreeType itself and its directory must not be read as table records.
+     */
+    if (!isSfntVersion(readUInt32(base + directoryOffset))) {
+        return false;
+    }
+
+    FT_ULong numTables = readUInt16(base + directoryOffset + 4);
+    if (directoryOffset + 12 + numTables * 16 > fileSize) {
+        return false;
+    }
+
+    const FT_Byte *record = base + directoryOffset + 12;
+
+    for (FT_ULong i = 0; i < numTables; i++, record += 16) {
+        if (readUInt32(record) == tag) {
+            FT_ULong tableOffset = readUInt32(record + 8);
+            FT_ULong tableLength = readUInt32(record + 12);
+
+            if (tableOffset > fileSize || tableLength > fileSize - tableOffset) {
+                return false;
+            }
+
+            *offset = tableOffset;
+            *length = tableLength;
+
+            return true;
+        }
+    }
+
+    return false;
 }
 
 FontFile &FontFile::retain()
@@ -182,7 +389,7 @@ void FontFile::release()
     }
 }
 
-RenderableFace *FontFile::createRenderableFace(FT_Long faceIndex)
+FT_Face FontFile::openFace(FT_Long faceIndex)
 {
     std::mutex &mutex = FreeType::mutex();
     mutex.lock();
@@ -198,6 +405,12 @@ RenderableFace *FontFile::createRenderableFace(FT_Long faceIndex)
 
     mutex.unlock();
 
+    return ftFace;
+}
+
+RenderableFace *FontFile::createRenderableFace(FT_Long faceIndex)
+{
+    FT_Face ftFace = openFace(faceIndex);
     if (ftFace) {
         return RenderableFace::create(*this, ftFace);
     }
@@ -244,6 +457,16 @@ static jlong createFromStream(JNIEnv *env, jobject obj, jobject stream)
     return 0;
 }
 
+static jlong createFromBuffer(JNIEnv *env, jobject obj, jobject buffer, jint offset, jint length)
+{
+    if (buffer) {
+        FontFile *fontFile = FontFile::createFromBuffer(JavaBridge(env), buffer, offset, length);
+        return reinterpret_cast<jlong>(fontFile);
+    }
+
+    return 0;
+}
+
 static void release(JNIEnv *env, jobject obj, jlong fontFileHandle)
 {
     auto fontFile = reinterpret_cast<FontFile *>(fontFileHandle);
@@ -278,6 +501,7 @@ static JNINativeMethod JNI_METHODS[] = {
     { "nCreateFromAsset", "(Landroid/content/res/AssetManager;Ljava/lang/String;)J", (void *)createFromAsset },
     { "nCreateFromPath", "(Ljava/lang/String;)J", (void *)createFromPath },
     { "nCreateFromStream", "(Ljava/io/InputStream;)J", (void *)createFromStream },
+    { "nCreateFromBuffer", "(Ljava/nio/ByteBuffer;II)J", (void *)createFromBuffer },
     { "nRelease", "(J)V", (void *)release },
     { "nGetFaceCount", "(J)I", (void *)getFaceCount },
     { "nCreateTypeface", "(JI)Lcom/mta/tehreer/graphics/Typeface;", (void *)createTypeface },
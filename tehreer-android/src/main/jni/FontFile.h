@@ -38,26 +38,46 @@ public:
     static FontFile *createFromAsset(AAssetManager *assetManager, const char *path);
     static FontFile *createFromPath(const char *path);
     static FontFile *createFromStream(const JavaBridge &bridge, jobject stream);
+    static FontFile *createFromBuffer(const JavaBridge &bridge, jobject buffer, jint offset, jint length);
 
     ~FontFile();
 
     FT_Long numFaces() const { return m_numFaces; }
+
+    /* Returns the data of the font file if it is resident in memory, null otherwise. */
+    const FT_Byte *data() const { return (m_args.flags & FT_OPEN_MEMORY) ? m_args.memory_base : nullptr; }
+    FT_Long size() const { return (m_args.flags & FT_OPEN_MEMORY) ? m_args.memory_size : 0; }
+
+    bool locateTable(FT_Long faceIndex, FT_ULong tag, FT_ULong *offset, FT_ULong *length) const;
     RenderableFace *createRenderableFace(FT_Long faceIndex);
 
+    FT_Face openFace(FT_Long faceIndex);
+    bool isShareable() const { return !(m_args.flags & FT_OPEN_STREAM); }
+
     FontFile &retain();
     void release();
 
 private:
+    struct Storage {
+        void *buffer = nullptr;
+        char *pathname = nullptr;
+        FT_Stream stream = nullptr;
+        void *mapping = nullptr;
+        size_t mappingSize = 0;
+        AAsset *asset = nullptr;
+        jobject bufferRef = nullptr;
+    };
+
     FT_Open_Args m_args;
 
-    void *m_buffer;
-    FT_Stream m_stream;
+    Storage m_storage;
     FT_Long m_numFaces;
     std::atomic_int m_retainCount;
 
-    static FontFile *createWithArgs(const FT_Open_Args *args);
+    static FontFile *createWithMemory(const FT_Byte *base, FT_Long size, const Storage &storage);
+    static FontFile *createWithArgs(const FT_Open_Args *args, const Storage &storage);
 
-    FontFile(const FT_Open_Args *args, void *buffer, FT_Stream stream, FT_Long numFaces);
+    FontFile(const FT_Open_Args *args, const Storage &storage, FT_Long numFaces);
 };
 
 }
@@ -17,6 +17,7 @@
 extern "C" {
 #include <ft2build.h>
 #include FT_FREETYPE_H
+#include FT_MODULE_H
 }
 
 #include <jni.h>
@@ -32,6 +33,9 @@ void FreeType::load(JNIEnv *env)
     FT_Library library;
     FT_Init_FreeType(&library);
 
+    FT_Int spread = DistanceFieldSpread;
+    FT_Property_Set(library, "sdf", "spread", &spread);
+
     s_instance = new FreeType();
     s_instance->m_library = library;
 }
@@ -29,6 +29,9 @@ namespace Tehreer {
 
 class FreeType {
 public:
+    /* The spread of distance fields in pixels, matching the one used on the Java side. */
+    static constexpr FT_Int DistanceFieldSpread = 8;
+
     static void load(JNIEnv *env);
 
     static std::mutex &mutex() { return s_instance->m_mutex; }
@@ -25,8 +25,15 @@ extern "C" {
 #include FT_TYPES_H
 }
 
+#include <algorithm>
+#include <cstdint>
+#include <cstring>
 #include <jni.h>
 
+#if defined(__ARM_NEON) || defined(__ARM_NEON__)
+#include <arm_neon.h>
+#endif
+
 #include "Convert.h"
 #include "FreeType.h"
 #include "JavaBridge.h"
@@ -44,37 +51,48 @@ enum GlyphType : jint {
 
 GlyphRasterizer::GlyphRasterizer(Typeface &typeface, FT_F26Dot6 pixelWidth, FT_F26Dot6 pixelHeight, FT_Matrix transform)
     : m_typeface(typeface)
-    , m_size(nullptr)
+    , m_pixelWidth(pixelWidth)
+    , m_pixelHeight(pixelHeight)
+    , m_sizes()
     , m_transform(transform)
 {
-    m_typeface.lock();
-
-    FT_Face baseFace = m_typeface.ftFace();
-    FT_New_Size(baseFace, &m_size);
-    FT_Activate_Size(m_size);
-    FT_Set_Char_Size(baseFace, pixelWidth, pixelHeight, 0, 0);
-
-    m_typeface.unlock();
+    RenderableFace::Borrow borrow(m_typeface.renderableFace(), 0);
+    unsafeActivate(borrow, &m_transform);
 }
 
 GlyphRasterizer::~GlyphRasterizer()
 {
-    if (m_size) {
-        /*
-         * NOTE:
-         *      FreeType face must be locked before releasing the size because it changes an
-         *      internal list of the face containing all the sizes.
-         */
-
-        m_typeface.lock();
-        FT_Done_Size(m_size);
-        m_typeface.unlock();
+    RenderableFace &renderableFace = m_typeface.renderableFace();
+    size_t faceCount = renderableFace.faceCount();
+
+    for (size_t slot = 0; slot < faceCount; slot++) {
+        if (m_sizes[slot]) {
+            /*
+             * NOTE:
+             *      FreeType face must be locked before releasing the size because it changes an
+             *      internal list of the face containing all the sizes.
+             */
+
+            RenderableFace::Borrow borrow(renderableFace, slot);
+            FT_Done_Size(m_sizes[slot]);
+        }
     }
 }
 
-void GlyphRasterizer::unsafeActivate(FT_Face face, FT_Matrix *transform, const Typeface::Palette *palette)
+void GlyphRasterizer::unsafeActivate(const RenderableFace::Borrow &borrow, FT_Matrix *transform, const Typeface::Palette *palette)
 {
-    FT_Activate_Size(m_size);
+    FT_Face face = borrow.ftFace();
+    FT_Size &size = m_sizes[borrow.slot()];
+
+    /* Each face of the typeface gets its own size object, created when it is first borrowed. */
+    if (!size) {
+        FT_New_Size(face, &size);
+        FT_Activate_Size(size);
+        FT_Set_Char_Size(face, m_pixelWidth, m_pixelHeight, 0, 0);
+    } else {
+        FT_Activate_Size(size);
+    }
+
     FT_Set_Transform(face, transform, nullptr);
 
     if (palette) {
@@ -85,44 +103,143 @@ void GlyphRasterizer::unsafeActivate(FT_Face face, FT_Matrix *transform, const T
     }
 }
 
+static void copyBGRAToRGBA(uint8_t *target, const uint8_t *source, size_t pixelCount)
+{
+    size_t index = 0;
+
+#if defined(__ARM_NEON) || defined(__ARM_NEON__)
+    /* Swap the blue and red channels of 16 pixels at a time. */
+    for (; index + 16 <= pixelCount; index += 16) {
+        uint8x16x4_t pixels = vld4q_u8(source + index * 4);
+        uint8x16_t blue = pixels.val[0];
+        pixels.val[0] = pixels.val[2];
+        pixels.val[2] = blue;
+        vst4q_u8(target + index * 4, pixels);
+    }
+#endif
+
+    /*
+     * NOTE:
+     *      Working on whole pixels keeps the loop simple enough for the compiler to vectorize it
+     *      on the platforms without an explicit implementation.
+     */
+    for (; index < pixelCount; index++) {
+        uint32_t pixel;
+        memcpy(&pixel, source + index * 4, 4);
+
+        pixel = (pixel & 0xFF00FF00) | ((pixel & 0x00FF0000) >> 16) | ((pixel & 0x000000FF) << 16);
+        memcpy(target + index * 4, &pixel, 4);
+    }
+}
+
+static jobject createOutlineBitmap(const JavaBridge &bridge, FT_Outline *outline, FT_Int &left, FT_Int &top)
+{
+    FT_BBox cbox;
+    FT_Outline_Get_CBox(outline, &cbox);
+
+    /* Grid-fit the control box in the same way as of the smooth renderer. */
+    FT_Pos xMin = cbox.xMin & -64;
+    FT_Pos yMin = cbox.yMin & -64;
+    FT_Pos xMax = (cbox.xMax + 63) & -64;
+    FT_Pos yMax = (cbox.yMax + 63) & -64;
+
+    auto width = static_cast<jint>((xMax - xMin) >> 6);
+    auto rows = static_cast<jint>((yMax - yMin) >> 6);
+    if (width <= 0 || rows <= 0) {
+        return nullptr;
+    }
+
+    jobject outlineBitmap = bridge.Bitmap_create(width, rows, JavaBridge::BitmapConfig::Alpha8);
+    if (!outlineBitmap) {
+        return nullptr;
+    }
+
+    size_t stride = 0;
+    void *pixels = bridge.Bitmap_lockPixels(outlineBitmap, &stride);
+    if (pixels) {
+        /*
+         * NOTE:
+         *      The outline is rendered right into the pixels of the bitmap, which are already
+         *      cleared by the platform, so no intermediate buffer is needed.
+         */
+        FT_Bitmap target;
+        FT_Bitmap_Init(&target);
+        target.rows = static_cast<unsigned int>(rows);
+        target.width = static_cast<unsigned int>(width);
+        target.pitch = static_cast<int>(stride);
+        target.buffer = static_cast<unsigned char *>(pixels);
+        target.num_grays = 256;
+        target.pixel_mode = FT_PIXEL_MODE_GRAY;
+
+        FT_Outline_Translate(outline, -xMin, -yMin);
+        FT_Outline_Get_Bitmap(FreeType::library(), outline, &target);
+        FT_Outline_Translate(outline, xMin, yMin);
+
+        bridge.Bitmap_unlockPixels(outlineBitmap);
+    }
+
+    left = static_cast<FT_Int>(xMin >> 6);
+    top = static_cast<FT_Int>(yMax >> 6);
+
+    return outlineBitmap;
+}
+
+/*
+ * Returns true if the outline can be rendered directly into a bitmap, producing the same pixels as
+ * of the smooth renderer.
+ */
+static bool isDirectlyRenderable(FT_Glyph_Format format, const FT_Outline *outline)
+{
+    /* The overlapping contours require the oversampling done by the smooth renderer. */
+    return format == FT_GLYPH_FORMAT_OUTLINE && !(outline->flags & FT_OUTLINE_OVERLAP);
+}
+
 jobject GlyphRasterizer::unsafeCreateBitmap(const JavaBridge bridge, const FT_Bitmap *bitmap)
 {
     char pixelMode = bitmap->pixel_mode;
-    jobject glyphBitmap = nullptr;
-    size_t bitmapLength = 0;
+    auto width = static_cast<jint>(bitmap->width);
+    auto rows = static_cast<jint>(bitmap->rows);
+    JavaBridge::BitmapConfig bitmapConfig;
 
     switch (pixelMode) {
     case FT_PIXEL_MODE_GRAY:
-        bitmapLength = bitmap->width * bitmap->rows;
-        if (bitmapLength > 0) {
-            glyphBitmap = bridge.Bitmap_create(bitmap->width, bitmap->rows, JavaBridge::BitmapConfig::Alpha8);
-            bridge.Bitmap_setPixels(glyphBitmap, bitmap->buffer, bitmapLength);
-        }
+        bitmapConfig = JavaBridge::BitmapConfig::Alpha8;
         break;
 
     case FT_PIXEL_MODE_BGRA:
-        bitmapLength = bitmap->width * bitmap->rows * 4;
-        if (bitmapLength > 0) {
-            for (size_t i = 0; i < bitmapLength; i += 4) {
-                uint8_t b = bitmap->buffer[i + 0];
-                uint8_t g = bitmap->buffer[i + 1];
-                uint8_t r = bitmap->buffer[i + 2];
-                uint8_t a = bitmap->buffer[i + 3];
-
-                bitmap->buffer[i + 0] = r;
-                bitmap->buffer[i + 1] = g;
-                bitmap->buffer[i + 2] = b;
-                bitmap->buffer[i + 3] = a;
-            }
-
-            glyphBitmap = bridge.Bitmap_create(bitmap->width, bitmap->rows, JavaBridge::BitmapConfig::ARGB_8888);
-            bridge.Bitmap_setPixels(glyphBitmap, bitmap->buffer, bitmapLength);
-        }
+        bitmapConfig = JavaBridge::BitmapConfig::ARGB_8888;
         break;
 
     default:
         LOGW("Unsupported pixel mode of freetype bitmap");
-        break;
+        return nullptr;
+    }
+
+    if (width == 0 || rows == 0) {
+        return nullptr;
+    }
+
+    jobject glyphBitmap = bridge.Bitmap_create(width, rows, bitmapConfig);
+    if (!glyphBitmap) {
+        return nullptr;
+    }
+
+    size_t stride = 0;
+    auto pixels = static_cast<uint8_t *>(bridge.Bitmap_lockPixels(glyphBitmap, &stride));
+    if (pixels) {
+        /* Copy row by row as the strides of both bitmaps might differ. */
+        for (jint y = 0; y < rows; y++) {
+            uint8_t *target = pixels + (y * stride);
+            const uint8_t *source = bitmap->buffer + (y * bitmap->pitch);
+
+            if (pixelMode == FT_PIXEL_MODE_BGRA) {
+                copyBGRAToRGBA(target, source, static_cast<size_t>(width));
+            } else {
+                memcpy(target, source, static_cast<size_t>(width));
+            }
+        }
+
+        bridge.Bitmap_unlockPixels(glyphBitmap);
     }
 
     return glyphBitmap;
@@ -130,29 +247,29 @@ jobject GlyphRasterizer::unsafeCreateBitmap(const JavaBridge bridge, const FT_Bi
 
 jint GlyphRasterizer::getGlyphType(FT_UInt glyphID)
 {
-    m_typeface.lock();
+    bool isColored = false;
+    bool hasMask = false;
 
-    FT_Face face = m_typeface.ftFace();
-    FT_LayerIterator iterator;
-    iterator.p = nullptr;
+    {
+        RenderableFace::Borrow borrow(m_typeface.renderableFace());
 
-    FT_UInt layerGlyphID;
-    FT_UInt colorIndex;
+        FT_Face face = borrow.ftFace();
+        FT_LayerIterator iterator;
+        iterator.p = nullptr;
 
-    bool isColored = false;
-    bool hasMask = false;
+        FT_UInt layerGlyphID;
+        FT_UInt colorIndex;
 
-    while (FT_Get_Color_Glyph_Layer(face, glyphID, &layerGlyphID, &colorIndex, &iterator)) {
-        isColored = true;
+        while (FT_Get_Color_Glyph_Layer(face, glyphID, &layerGlyphID, &colorIndex, &iterator)) {
+            isColored = true;
 
-        if (colorIndex == 0xFFFF) {
-            hasMask = true;
-            break;
+            if (colorIndex == 0xFFFF) {
+                hasMask = true;
+                break;
+            }
         }
     }
 
-    m_typeface.unlock();
-
     if (!isColored) {
         return GlyphType::MASK;
     }
@@ -163,6 +280,80 @@ jint GlyphRasterizer::getGlyphType(FT_UInt glyphID)
     return GlyphType::MIXED;
 }
 
+void GlyphRasterizer::unsafeUniteBounds(FT_Face face, FT_UInt glyphID, FT_BBox &bounds)
+{
+    /*
+     * NOTE:
+     *      FreeType presets the bitmap metrics of an outline glyph while loading it without
+     *      rendering, so the bounds match those of the rendered image exactly.
+     */
+    FT_Error error = FT_Load_Glyph(face, glyphID, FT_LOAD_COLOR | FT_LOAD_BITMAP_METRICS_ONLY);
+    if (error != FT_Err_Ok) {
+        return;
+    }
+
+    FT_GlyphSlot glyphSlot = face->glyph;
+    FT_Pos width = glyphSlot->bitmap.width;
+    FT_Pos rows = glyphSlot->bitmap.rows;
+
+    if (width == 0 || rows == 0) {
+        return;
+    }
+
+    FT_Pos xMin = glyphSlot->bitmap_left;
+    FT_Pos yMax = glyphSlot->bitmap_top;
+    FT_Pos xMax = xMin + width;
+    FT_Pos yMin = yMax - rows;
+
+    if (bounds.xMin < bounds.xMax) {
+        bounds.xMin = std::min(bounds.xMin, xMin);
+        bounds.yMin = std::min(bounds.yMin, yMin);
+        bounds.xMax = std::max(bounds.xMax, xMax);
+        bounds.yMax = std::max(bounds.yMax, yMax);
+    } else {
+        bounds = { xMin, yMin, xMax, yMax };
+    }
+}
+
+jlong GlyphRasterizer::getGlyphBounds(FT_UInt glyphID)
+{
+    FT_BBox bounds = { 0, 0, 0, 0 };
+
+    {
+        RenderableFace::Borrow borrow(m_typeface.renderableFace());
+
+        FT_Face face = borrow.ftFace();
+        unsafeActivate(borrow, &m_transform);
+
+        FT_LayerIterator iterator;
+        iterator.p = nullptr;
+
+        FT_UInt layerGlyphID;
+        FT_UInt colorIndex;
+        bool isColored = false;
+
+        /* The image of a colored glyph is composed of all its layers. */
+        while (FT_Get_Color_Glyph_Layer(face, glyphID, &layerGlyphID, &colorIndex, &iterator)) {
+            unsafeUniteBounds(face, layerGlyphID, bounds);
+            isColored = true;
+        }
+        if (!isColored) {
+            unsafeUniteBounds(face, glyphID, bounds);
+        }
+    }
+
+    /* Pack the bounds in the same layout as of the glyph image, i.e. left, top, right, bottom. */
+    auto left = static_cast<uint16_t>(bounds.xMin);
+    auto top = static_cast<uint16_t>(bounds.yMax);
+    auto right = static_cast<uint16_t>(bounds.xMax);
+    auto bottom = static_cast<uint16_t>(bounds.yMax + (bounds.yMax - bounds.yMin));
+
+    return static_cast<jlong>((static_cast<uint64_t>(left) << 48)
+                              | (static_cast<uint64_t>(top) << 32)
+                              | (static_cast<uint64_t>(right) << 16)
+                              | static_cast<uint64_t>(bottom));
+}
+
 jobject GlyphRasterizer::getGlyphImage(const JavaBridge bridge,
     FT_UInt glyphID, FT_Color foregroundColor)
 {
@@ -170,27 +361,88 @@ jobject GlyphRasterizer::getGlyphImage(const JavaBridge bridge,
     jint left = 0;
     jint top = 0;
 
-    m_typeface.lock();
+    {
+        RenderableFace::Borrow borrow(m_typeface.renderableFace());
+
+        FT_Face face = borrow.ftFace();
+        unsafeActivate(borrow, m_typeface.palette());
+
+        FT_Palette_Set_Foreground_Color(face, foregroundColor);
+        FT_Error error = FT_Load_Glyph(face, glyphID, FT_LOAD_COLOR);
+        if (error == FT_Err_Ok) {
+            FT_GlyphSlot glyphSlot = face->glyph;
+
+            FT_LayerIterator iterator;
+            iterator.p = nullptr;
+
+            FT_UInt layerGlyphID;
+            FT_UInt colorIndex;
+            bool isColored = FT_Get_Color_Glyph_Layer(face, glyphID, &layerGlyphID, &colorIndex, &iterator);
+
+            if (!isColored && isDirectlyRenderable(glyphSlot->format, &glyphSlot->outline)) {
+                FT_Int bitmapLeft = 0;
+                FT_Int bitmapTop = 0;
+
+                glyphBitmap = createOutlineBitmap(bridge, &glyphSlot->outline, bitmapLeft, bitmapTop);
+                left = bitmapLeft;
+                top = bitmapTop;
+            } else {
+                /* Let FreeType compose the colored layers or convert the embedded bitmaps. */
+                error = FT_Render_Glyph(glyphSlot, FT_RENDER_MODE_NORMAL);
+                if (error == FT_Err_Ok) {
+                    glyphBitmap = unsafeCreateBitmap(bridge, &glyphSlot->bitmap);
+
+                    if (glyphBitmap) {
+                        left = glyphSlot->bitmap_left;
+                        top = glyphSlot->bitmap_top;
+                    }
+                }
+            }
+        }
+    }
 
-    FT_Face face = m_typeface.ftFace();
-    unsafeActivate(face, m_typeface.palette());
+    if (glyphBitmap) {
+        return bridge.GlyphImage_construct(glyphBitmap, left, top);
+    }
 
-    FT_Palette_Set_Foreground_Color(face, foregroundColor);
-    FT_Error error = FT_Load_Glyph(face, glyphID, FT_LOAD_COLOR | FT_LOAD_RENDER);
-    if (error == FT_Err_Ok) {
-        FT_GlyphSlot glyphSlot = face->glyph;
-        glyphBitmap = unsafeCreateBitmap(bridge, &glyphSlot->bitmap);
+    return nullptr;
+}
+
+jobject GlyphRasterizer::getFieldImage(const JavaBridge bridge, FT_UInt glyphID)
+{
+    jobject fieldBitmap = nullptr;
+    jint left = 0;
+    jint top = 0;
+
+    {
+        RenderableFace::Borrow borrow(m_typeface.renderableFace());
+
+        FT_Face face = borrow.ftFace();
+        unsafeActivate(borrow, &m_transform);
 
-        if (glyphBitmap) {
-            left = glyphSlot->bitmap_left;
-            top = glyphSlot->bitmap_top;
+        /*
+         * NOTE:
+         *      The distance field is computed from the unhinted outline so that it remains faithful
+         *      to the design of the glyph at every scale it is drawn at.
+         */
+        FT_Error error = FT_Load_Glyph(face, glyphID, FT_LOAD_NO_BITMAP | FT_LOAD_NO_HINTING);
+        if (error == FT_Err_Ok) {
+            FT_GlyphSlot glyphSlot = face->glyph;
+
+            error = FT_Render_Glyph(glyphSlot, FT_RENDER_MODE_SDF);
+            if (error == FT_Err_Ok) {
+                fieldBitmap = unsafeCreateBitmap(bridge, &glyphSlot->bitmap);
+
+                if (fieldBitmap) {
+                    left = glyphSlot->bitmap_left;
+                    top = glyphSlot->bitmap_top;
+                }
+            }
         }
     }
 
-    m_typeface.unlock();
-
-    if (glyphBitmap) {
-        return bridge.GlyphImage_construct(glyphBitmap, left, top);
+    if (fieldBitmap) {
+        return bridge.GlyphImage_construct(fieldBitmap, left, top);
     }
 
     return nullptr;
@@ -209,17 +461,22 @@ jobject GlyphRasterizer::getStrokeImage(const JavaBridge bridge, FT_Glyph baseGl
     m_typeface.unlock();
 
     if (error == FT_Err_Ok) {
-        FT_Glyph_To_Bitmap(&baseGlyph, FT_RENDER_MODE_NORMAL, nullptr, 1);
-
-        auto bitmapGlyph = reinterpret_cast<FT_BitmapGlyph>(baseGlyph);
         jobject strokeBitmap = nullptr;
-        jint left = 0;
-        jint top = 0;
-
-        strokeBitmap = unsafeCreateBitmap(bridge, &bitmapGlyph->bitmap);
-        if (strokeBitmap) {
-            left = bitmapGlyph->left;
-            top = bitmapGlyph->top;
+        FT_Int left = 0;
+        FT_Int top = 0;
+
+        auto outlineGlyph = reinterpret_cast<FT_OutlineGlyph>(baseGlyph);
+        if (isDirectlyRenderable(baseGlyph->format, &outlineGlyph->outline)) {
+            strokeBitmap = createOutlineBitmap(bridge, &outlineGlyph->outline, left, top);
+        } else {
+            FT_Glyph_To_Bitmap(&baseGlyph, FT_RENDER_MODE_NORMAL, nullptr, 1);
+
+            auto bitmapGlyph = reinterpret_cast<FT_BitmapGlyph>(baseGlyph);
+            strokeBitmap = unsafeCreateBitmap(bridge, &bitmapGlyph->bitmap);
+            if (strokeBitmap) {
+                left = bitmapGlyph->left;
+                top = bitmapGlyph->top;
+            }
         }
 
         /* Dispose the stroked / bitmap glyph. */
@@ -235,10 +492,10 @@ jobject GlyphRasterizer::getStrokeImage(const JavaBridge bridge, FT_Glyph baseGl
 
 FT_Glyph GlyphRasterizer::getGlyphOutline(FT_UInt glyphID)
 {
-    m_typeface.lock();
+    RenderableFace::Borrow borrow(m_typeface.renderableFace());
 
-    FT_Face baseFace = m_typeface.ftFace();
-    unsafeActivate(baseFace, m_typeface.palette());
+    FT_Face baseFace = borrow.ftFace();
+    unsafeActivate(borrow, m_typeface.palette());
 
     FT_Glyph outline = nullptr;
     FT_Error error = FT_Load_Glyph(baseFace, glyphID, FT_LOAD_NO_BITMAP);
@@ -246,8 +503,6 @@ FT_Glyph GlyphRasterizer::getGlyphOutline(FT_UInt glyphID)
         FT_Get_Glyph(baseFace->glyph, &outline);
     }
 
-    m_typeface.unlock();
-
     return outline;
 }
 
@@ -261,16 +516,12 @@ jobject GlyphRasterizer::getGlyphPath(const JavaBridge bridge, FT_UInt glyphID)
         (m_transform.yx * flip.xy) + (m_transform.yy * flip.yy)
     };
 
-    m_typeface.lock();
+    RenderableFace::Borrow borrow(m_typeface.renderableFace());
 
-    FT_Face face = m_typeface.ftFace();
-    unsafeActivate(face, &transform);
+    FT_Face face = borrow.ftFace();
+    unsafeActivate(borrow, &transform);
 
-    jobject glyphPath = m_typeface.unsafeGetGlyphPath(bridge, glyphID);
-
-    m_typeface.unlock();
-
-    return glyphPath;
+    return m_typeface.unsafeGetGlyphPath(bridge, face, glyphID);
 }
 
 static jlong create(JNIEnv *env, jobject obj, jlong typefaceHandle, jint pixelWidth, jint pixelHeight,
@@ -300,6 +551,14 @@ static jint getGlyphType(JNIEnv *env, jobject obj, jlong rasterizerHandle, jint
     return glyphRasterizer->getGlyphType(glyphIndex);
 }
 
+static jlong getGlyphBounds(JNIEnv *env, jobject obj, jlong rasterizerHandle, jint glyphId)
+{
+    auto glyphRasterizer = reinterpret_cast<GlyphRasterizer *>(rasterizerHandle);
+    auto glyphIndex = static_cast<FT_UInt>(glyphId);
+
+    return glyphRasterizer->getGlyphBounds(glyphIndex);
+}
+
 static jobject getGlyphImage(JNIEnv *env, jobject obj, jlong rasterizerHandle,
     jint glyphId, jint foregroundColor)
 {
@@ -311,6 +570,14 @@ static jobject getGlyphImage(JNIEnv *env, jobject obj, jlong rasterizerHandle,
     return glyphRasterizer->getGlyphImage(JavaBridge(env), glyphIndex, ftColor);
 }
 
+static jobject getFieldImage(JNIEnv *env, jobject obj, jlong rasterizerHandle, jint glyphId)
+{
+    auto glyphRasterizer = reinterpret_cast<GlyphRasterizer *>(rasterizerHandle);
+    auto glyphIndex = static_cast<FT_UInt>(glyphId);
+
+    return glyphRasterizer->getFieldImage(JavaBridge(env), glyphIndex);
+}
+
 static jobject getStrokeImage(JNIEnv *env, jobject obj, jlong rasterizerHandle, jlong outlineHandle,
     jint lineRadius, jint lineCap, jint lineJoin, jint miterLimit)
 {
@@ -346,7 +613,9 @@ static JNINativeMethod JNI_METHODS[] = {
     { "nCreate", "(JIIIIII)J", (void *)create },
     { "nDispose", "(J)V", (void *)dispose },
     { "nGetGlyphType", "(JI)I", (void *)getGlyphType },
+    { "nGetGlyphBounds", "(JI)J", (void *)getGlyphBounds },
     { "nGetGlyphImage", "(JII)Lcom/mta/tehreer/graphics/GlyphImage;", (void *)getGlyphImage },
+    { "nGetFieldImage", "(JI)Lcom/mta/tehreer/graphics/GlyphImage;", (void *)getFieldImage },
     { "nGetStrokeImage", "(JJIIII)Lcom/mta/tehreer/graphics/GlyphImage;", (void *)getStrokeImage },
     { "nGetGlyphOutline", "(JI)J", (void *)getGlyphOutline },
     { "nGetGlyphPath", "(JI)Landroid/graphics/Path;", (void *)getGlyphPath },
@@ -30,6 +30,7 @@ extern "C" {
 #include "FreeType.h"
 #include "GlyphOutline.h"
 #include "JavaBridge.h"
+#include "RenderableFace.h"
 #include "Typeface.h"
 
 namespace Tehreer {
@@ -42,7 +43,9 @@ public:
     Typeface &typeface() { return m_typeface; }
 
     jint getGlyphType(FT_UInt glyphID);
+    jlong getGlyphBounds(FT_UInt glyphID);
     jobject getGlyphImage(const JavaBridge bridge, FT_UInt glyphID, FT_Color foregroundColor);
+    jobject getFieldImage(const JavaBridge bridge, FT_UInt glyphID);
     jobject getStrokeImage(const JavaBridge bridge, FT_Glyph baseGlyph, FT_Fixed lineRadius,
         FT_Stroker_LineCap lineCap, FT_Stroker_LineJoin lineJoin, FT_Fixed miterLimit);
 
@@ -51,18 +54,21 @@ public:
 
 private:
     Typeface &m_typeface;
-    FT_Size m_size;
+    FT_F26Dot6 m_pixelWidth;
+    FT_F26Dot6 m_pixelHeight;
+    FT_Size m_sizes[RenderableFace::MaxFaceCount];
     FT_Matrix m_transform;
 
-    inline void unsafeActivate(FT_Face face, const Typeface::Palette *palette) {
-        unsafeActivate(face, &m_transform, palette);
+    inline void unsafeActivate(const RenderableFace::Borrow &borrow, const Typeface::Palette *palette) {
+        unsafeActivate(borrow, &m_transform, palette);
     }
 
-    inline void unsafeActivate(FT_Face face, FT_Matrix *transform) {
-        unsafeActivate(face, transform, nullptr);
+    inline void unsafeActivate(const RenderableFace::Borrow &borrow, FT_Matrix *transform) {
+        unsafeActivate(borrow, transform, nullptr);
     }
 
-    void unsafeActivate(FT_Face face, FT_Matrix *transform, const Typeface::Palette *palette);
+    void unsafeActivate(const RenderableFace::Borrow &borrow, FT_Matrix *transform, const Typeface::Palette *palette);
+    void unsafeUniteBounds(FT_Face face, FT_UInt glyphID, FT_BBox &bounds);
 
     jobject unsafeCreateBitmap(const JavaBridge bridge, const FT_Bitmap *bitmap);
 };
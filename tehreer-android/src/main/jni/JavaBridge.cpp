@@ -22,6 +22,8 @@
 
 using namespace Tehreer;
 
+static JavaVM   *JAVA_VM;
+
 static jclass    BIDI_PAIR;
 static jmethodID BIDI_PAIR__CONSTRUCTOR;
 
@@ -37,6 +39,7 @@ static jmethodID BITMAP__CREATE_BITMAP;
 static jclass    GLYPH_IMAGE;
 static jmethodID GLYPH_IMAGE__CONSTRUCTOR;
 
+static jmethodID INPUT_STREAM__AVAILABLE;
 static jmethodID INPUT_STREAM__READ;
 
 static jclass    NAME_TABLE_RECORD;
@@ -65,6 +68,8 @@ void JavaBridge::load(JNIEnv* env)
     jfieldID fieldID;
     jobject field;
 
+    env->GetJavaVM(&JAVA_VM);
+
     clazz = env->FindClass("com/mta/tehreer/unicode/BidiPair");
     BIDI_PAIR = (jclass)env->NewGlobalRef(clazz);
     BIDI_PAIR__CONSTRUCTOR = env->GetMethodID(clazz, "<init>", "(III)V");
@@ -91,6 +96,7 @@ void JavaBridge::load(JNIEnv* env)
     GLYPH_IMAGE__CONSTRUCTOR = env->GetMethodID(clazz, "<init>", "(Landroid/graphics/Bitmap;II)V");
 
     clazz = env->FindClass("java/io/InputStream");
+    INPUT_STREAM__AVAILABLE = env->GetMethodID(clazz, "available", "()I");
     INPUT_STREAM__READ = env->GetMethodID(clazz, "read", "([BII)I");
 
     clazz = env->FindClass("com/mta/tehreer/sfnt/tables/NameTable$Record");
@@ -129,6 +135,19 @@ jint JavaBridge::registerClass(JNIEnv *env, const char *className, const JNINati
     return env->RegisterNatives(clazz, methodArray, methodCount);
 }
 
+void JavaBridge::deleteGlobalRef(jobject globalRef)
+{
+    JNIEnv *env = nullptr;
+
+    /* NOTE: The reference might be released on a thread which is not attached to the VM. */
+    if (JAVA_VM->GetEnv(reinterpret_cast<void **>(&env), JNI_VERSION_1_6) == JNI_OK) {
+        env->DeleteGlobalRef(globalRef);
+    } else if (JAVA_VM->AttachCurrentThread(&env, nullptr) == JNI_OK) {
+        env->DeleteGlobalRef(globalRef);
+        JAVA_VM->DetachCurrentThread();
+    }
+}
+
 JavaBridge::JavaBridge(JNIEnv* env)
     : m_env(env)
 {
@@ -165,12 +184,25 @@ jobject JavaBridge::Bitmap_create(jint width, jint height, BitmapConfig config)
     return m_env->CallStaticObjectMethod(BITMAP, BITMAP__CREATE_BITMAP, width, height, configField);
 }
 
-void JavaBridge::Bitmap_setPixels(jobject bitmap, const void *pixels, size_t length) const
+void *JavaBridge::Bitmap_lockPixels(jobject bitmap, size_t *stride) const
 {
-    void *source = nullptr;
+    AndroidBitmapInfo info;
+    void *pixels = nullptr;
+
+    if (AndroidBitmap_getInfo(m_env, bitmap, &info) != ANDROID_BITMAP_RESULT_SUCCESS) {
+        return nullptr;
+    }
+    if (AndroidBitmap_lockPixels(m_env, bitmap, &pixels) != ANDROID_BITMAP_RESULT_SUCCESS) {
+        return nullptr;
+    }
 
-    AndroidBitmap_lockPixels(m_env, bitmap, &source);
-    memcpy(source, pixels, length);
+    *stride = info.stride;
+
+    return pixels;
+}
+
+void JavaBridge::Bitmap_unlockPixels(jobject bitmap) const
+{
     AndroidBitmap_unlockPixels(m_env, bitmap);
 }
 
@@ -179,6 +211,17 @@ jobject JavaBridge::GlyphImage_construct(jobject bitmap, jint left, jint top) co
     return m_env->NewObject(GLYPH_IMAGE, GLYPH_IMAGE__CONSTRUCTOR, bitmap, left, top);
 }
 
+jint JavaBridge::InputStream_available(jobject inputStream) const
+{
+    jint available = m_env->CallIntMethod(inputStream, INPUT_STREAM__AVAILABLE);
+    if (m_env->ExceptionCheck()) {
+        m_env->ExceptionClear();
+        return 0;
+    }
+
+    return available;
+}
+
 jint JavaBridge::InputStream_read(jobject inputStream, jbyteArray buffer, jint offset, jint length) const
 {
     return m_env->CallIntMethod(inputStream, INPUT_STREAM__READ, buffer, offset, length);
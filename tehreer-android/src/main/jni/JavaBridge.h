@@ -25,6 +25,7 @@ class JavaBridge {
 public:
     static void load(JNIEnv *env);
     static jint registerClass(JNIEnv *env, const char *className, const JNINativeMethod *methodArray, jint methodCount);
+    static void deleteGlobalRef(jobject globalRef);
 
     JavaBridge(JNIEnv *env);
     ~JavaBridge();
@@ -41,10 +42,12 @@ public:
     jobject BidiRun_construct(jint charStart, jint charEnd, jbyte embeddingLevel) const;
 
     jobject Bitmap_create(jint width, jint height, BitmapConfig config) const;
-    void Bitmap_setPixels(jobject bitmap, const void *pixels, size_t length) const;
+    void *Bitmap_lockPixels(jobject bitmap, size_t *stride) const;
+    void Bitmap_unlockPixels(jobject bitmap) const;
 
     jobject GlyphImage_construct(jobject bitmap, jint left, jint top) const;
 
+    jint InputStream_available(jobject inputStream) const;
     jint InputStream_read(jobject inputStream, jbyteArray buffer, jint offset, jint length) const;
 
     jobject NameTableRecord_construct(jint nameId, jint platformId, jint languageId, jint encodingId, jbyteArray bytes) const;
@@ -0,0 +1,547 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+#include <cstddef>
+#include <cstdint>
+#include <hb.h>
+#include <hb-ot.h>
+
+#include "LayoutTables.h"
+
+using namespace std;
+using namespace Tehreer;
+
+namespace GSUB {
+
+enum LookupType : uint16_t {
+    CONTEXT = 5,
+    CHAINED_CONTEXT = 6,
+    EXTENSION = 7,
+};
+
+}
+
+namespace GPOS {
+
+enum LookupType : uint16_t {
+    SINGLE = 1,
+    PAIR = 2,
+    CURSIVE = 3,
+    MARK_TO_BASE = 4,
+    MARK_TO_LIGATURE = 5,
+    MARK_TO_MARK = 6,
+    CONTEXT = 7,
+    CHAINED_CONTEXT = 8,
+    EXTENSION = 9,
+};
+
+enum ValueFormat : uint16_t {
+    X_PLACEMENT_DEVICE = 0x0010,
+    Y_PLACEMENT_DEVICE = 0x0020,
+    X_ADVANCE_DEVICE = 0x0040,
+    Y_ADVANCE_DEVICE = 0x0080,
+};
+
+}
+
+static inline size_t valueRecordSize(uint16_t valueFormat)
+{
+    return static_cast<size_t>(__builtin_popcount(valueFormat & 0x00FF)) * 2;
+}
+
+LayoutTables::Reader::Reader(hb_blob_t *blob)
+{
+    unsigned int length = 0;
+    m_data = reinterpret_cast<const uint8_t *>(hb_blob_get_data(blob, &length));
+    m_length = length;
+}
+
+uint16_t LayoutTables::Reader::uint16(size_t offset) const
+{
+    if (offset > m_length || m_length - offset < 2) {
+        return 0;
+    }
+
+    return static_cast<uint16_t>((m_data[offset] << 8) | m_data[offset + 1]);
+}
+
+uint32_t LayoutTables::Reader::uint32(size_t offset) const
+{
+    return (static_cast<uint32_t>(uint16(offset)) << 16) | uint16(offset + 2);
+}
+
+template<class Predicate>
+bool LayoutTables::anySubtable(const Reader &reader, uint16_t extensionType, Predicate predicate)
+{
+    // GSUB and GPOS share the header, the lookup list and the layout of extension subtables.
+    uint16_t lookupListOffset = reader.uint16(8);
+    if (!lookupListOffset) {
+        return false;
+    }
+
+    size_t lookupList = lookupListOffset;
+    uint16_t lookupCount = reader.uint16(lookupList);
+
+    for (size_t i = 0; i < lookupCount; i++) {
+        uint16_t lookupOffset = reader.uint16(lookupList + 2 + i * 2);
+        if (!lookupOffset) {
+            continue;
+        }
+
+        size_t lookup = lookupList + lookupOffset;
+        uint16_t lookupType = reader.uint16(lookup);
+        uint16_t subtableCount = reader.uint16(lookup + 4);
+
+        for (size_t j = 0; j < subtableCount; j++) {
+            uint16_t subtableOffset = reader.uint16(lookup + 6 + j * 2);
+            if (!subtableOffset) {
+                continue;
+            }
+
+            size_t subtable = lookup + subtableOffset;
+            uint16_t subtableType = lookupType;
+
+            if (lookupType == extensionType) {
+                uint32_t extensionOffset = reader.uint32(subtable + 4);
+                if (reader.uint16(subtable) != 1 || !extensionOffset) {
+                    continue;
+                }
+
+                subtableType = reader.uint16(subtable + 2);
+                subtable += extensionOffset;
+            }
+
+            if (predicate(subtable, subtableType)) {
+                return true;
+            }
+        }
+    }
+
+    return false;
+}
+
+uint16_t LayoutTables::classOf(const Reader &reader, size_t base, uint16_t offset,
+                               uint16_t glyphID)
+{
+    // A missing class definition puts every glyph in class zero.
+    if (!offset) {
+        return 0;
+    }
+
+    size_t classDef = base + offset;
+    uint16_t format = reader.uint16(classDef);
+
+    if (format == 1) {
+        uint16_t startGlyph = reader.uint16(classDef + 2);
+        uint16_t glyphCount = reader.uint16(classDef + 4);
+
+        if (glyphID >= startGlyph && glyphID - startGlyph < glyphCount) {
+            return reader.uint16(classDef + 6 + (glyphID - startGlyph) * 2);
+        }
+    } else if (format == 2) {
+        uint16_t rangeCount = reader.uint16(classDef + 2);
+
+        for (size_t i = 0; i < rangeCount; i++) {
+            size_t record = classDef + 4 + i * 6;
+            if (glyphID >= reader.uint16(record) && glyphID <= reader.uint16(record + 2)) {
+                return reader.uint16(record + 4);
+            }
+        }
+    }
+
+    return 0;
+}
+
+bool LayoutTables::hasClassInSequence(const Reader &reader, size_t sequence, size_t length,
+                                      uint16_t glyphClass)
+{
+    for (size_t i = 0; i < length; i++) {
+        if (reader.uint16(sequence + i * 2) == glyphClass) {
+            return true;
+        }
+    }
+
+    return false;
+}
+
+bool LayoutTables::hasClassContext(const Reader &reader, size_t subtable, bool isChained,
+                                   uint16_t glyphID)
+{
+    // Only the class based rules of format 2 are inspected.
+    if (reader.uint16(subtable) != 2) {
+        return false;
+    }
+
+    if (!isChained) {
+        uint16_t inputClass = classOf(reader, subtable, reader.uint16(subtable + 4), glyphID);
+        uint16_t ruleSetCount = reader.uint16(subtable + 6);
+
+        for (size_t i = 0; i < ruleSetCount; i++) {
+            uint16_t ruleSetOffset = reader.uint16(subtable + 8 + i * 2);
+            if (!ruleSetOffset) {
+                continue;
+            }
+
+            size_t ruleSet = subtable + ruleSetOffset;
+            uint16_t ruleCount = reader.uint16(ruleSet);
+
+            for (size_t j = 0; j < ruleCount; j++) {
+                uint16_t ruleOffset = reader.uint16(ruleSet + 2 + j * 2);
+                if (!ruleOffset) {
+                    continue;
+                }
+
+                // The first input glyph is matched by the coverage rather than by its class.
+                size_t rule = ruleSet + ruleOffset;
+                uint16_t glyphCount = reader.uint16(rule);
+
+                if (glyphCount > 1 && hasClassInSequence(reader, rule + 4, glyphCount - 1u,
+                                                         inputClass)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    uint16_t backtrackClass = classOf(reader, subtable, reader.uint16(subtable + 4), glyphID);
+    uint16_t inputClass = classOf(reader, subtable, reader.uint16(subtable + 6), glyphID);
+    uint16_t lookaheadClass = classOf(reader, subtable, reader.uint16(subtable + 8), glyphID);
+    uint16_t ruleSetCount = reader.uint16(subtable + 10);
+
+    for (size_t i = 0; i < ruleSetCount; i++) {
+        uint16_t ruleSetOffset = reader.uint16(subtable + 12 + i * 2);
+        if (!ruleSetOffset) {
+            continue;
+        }
+
+        size_t ruleSet = subtable + ruleSetOffset;
+        uint16_t ruleCount = reader.uint16(ruleSet);
+
+        for (size_t j = 0; j < ruleCount; j++) {
+            uint16_t ruleOffset = reader.uint16(ruleSet + 2 + j * 2);
+            if (!ruleOffset) {
+                continue;
+            }
+
+            size_t backtrack = ruleSet + ruleOffset;
+            uint16_t backtrackCount = reader.uint16(backtrack);
+            size_t input = backtrack + 2 + backtrackCount * 2;
+            uint16_t inputCount = reader.uint16(input);
+            size_t lookahead = input + 2 + (inputCount > 0 ? inputCount - 1u : 0u) * 2;
+            uint16_t lookaheadCount = reader.uint16(lookahead);
+
+            if (hasClassInSequence(reader, backtrack + 2, backtrackCount, backtrackClass)
+                    || hasClassInSequence(reader, lookahead + 2, lookaheadCount, lookaheadClass)) {
+                return true;
+            }
+            if (inputCount > 1 && hasClassInSequence(reader, input + 2, inputCount - 1u,
+                                                     inputClass)) {
+                return true;
+            }
+        }
+    }
+
+    return false;
+}
+
+bool LayoutTables::isSizedDevice(const Reader &reader, size_t base, uint16_t offset)
+{
+    if (!offset) {
+        return false;
+    }
+
+    // Delta formats 1 to 3 hold ppem deltas while 0x8000 marks a variation index table.
+    uint16_t deltaFormat = reader.uint16(base + offset + 4);
+    return deltaFormat >= 1 && deltaFormat <= 3;
+}
+
+bool LayoutTables::hasSizedValueDevices(const Reader &reader, size_t base, size_t record,
+                                        uint16_t valueFormat)
+{
+    size_t field = record;
+
+    for (uint16_t flag = 0x0001; flag <= GPOS::Y_ADVANCE_DEVICE; flag <<= 1) {
+        if (valueFormat & flag) {
+            bool isDevice = flag >= GPOS::X_PLACEMENT_DEVICE;
+            if (isDevice && isSizedDevice(reader, base, reader.uint16(field))) {
+                return true;
+            }
+            field += 2;
+        }
+    }
+
+    return false;
+}
+
+bool LayoutTables::hasSizedAnchorDevices(const Reader &reader, size_t base, uint16_t offset)
+{
+    // Only the anchors of format 3 refer to device tables.
+    if (!offset || reader.uint16(base + offset) != 3) {
+        return false;
+    }
+
+    size_t anchor = base + offset;
+    return isSizedDevice(reader, anchor, reader.uint16(anchor + 6))
+        || isSizedDevice(reader, anchor, reader.uint16(anchor + 8));
+}
+
+bool LayoutTables::hasSizedAnchorArray(const Reader &reader, size_t array, uint16_t anchorCount)
+{
+    // Both base arrays and mark2 arrays consist of records holding an anchor for each mark class.
+    uint16_t recordCount = reader.uint16(array);
+
+    for (size_t i = 0; i < static_cast<size_t>(recordCount) * anchorCount; i++) {
+        if (hasSizedAnchorDevices(reader, array, reader.uint16(array + 2 + i * 2))) {
+            return true;
+        }
+    }
+
+    return false;
+}
+
+bool LayoutTables::hasSizedPositioning(const Reader &reader, size_t subtable, uint16_t lookupType)
+{
+    uint16_t format = reader.uint16(subtable);
+
+    switch (lookupType) {
+    case GPOS::SINGLE: {
+        uint16_t valueFormat = reader.uint16(subtable + 4);
+        size_t valueSize = valueRecordSize(valueFormat);
+
+        if (format == 1) {
+            return hasSizedValueDevices(reader, subtable, subtable + 6, valueFormat);
+        }
+        if (format == 2) {
+            uint16_t valueCount = reader.uint16(subtable + 6);
+
+            for (size_t i = 0; i < valueCount; i++) {
+                size_t record = subtable + 8 + i * valueSize;
+                if (hasSizedValueDevices(reader, subtable, record, valueFormat)) {
+                    return true;
+                }
+            }
+        }
+        break;
+    }
+
+    case GPOS::PAIR: {
+        uint16_t valueFormat1 = reader.uint16(subtable + 4);
+        uint16_t valueFormat2 = reader.uint16(subtable + 6);
+        size_t valueSize1 = valueRecordSize(valueFormat1);
+        size_t valueSize2 = valueRecordSize(valueFormat2);
+
+        uint16_t deviceFlags = GPOS::X_PLACEMENT_DEVICE | GPOS::Y_PLACEMENT_DEVICE
+                             | GPOS::X_ADVANCE_DEVICE | GPOS::Y_ADVANCE_DEVICE;
+        if (!((valueFormat1 | valueFormat2) & deviceFlags)) {
+            break;
+        }
+
+        if (format == 1) {
+            uint16_t pairSetCount = reader.uint16(subtable + 8);
+
+            for (size_t i = 0; i < pairSetCount; i++) {
+                uint16_t pairSetOffset = reader.uint16(subtable + 10 + i * 2);
+                if (!pairSetOffset) {
+                    continue;
+                }
+
+                // HarfBuzz resolves the device tables of a pair value from its pair set.
+                size_t pairSet = subtable + pairSetOffset;
+                uint16_t pairValueCount = reader.uint16(pairSet);
+                size_t recordSize = 2 + valueSize1 + valueSize2;
+
+                for (size_t j = 0; j < pairValueCount; j++) {
+                    size_t value1 = pairSet + 2 + j * recordSize + 2;
+                    size_t value2 = value1 + valueSize1;
+
+                    if (hasSizedValueDevices(reader, pairSet, value1, valueFormat1)
+                            || hasSizedValueDevices(reader, pairSet, value2, valueFormat2)) {
+                        return true;
+                    }
+                }
+            }
+        } else if (format == 2) {
+            uint16_t class1Count = reader.uint16(subtable + 12);
+            uint16_t class2Count = reader.uint16(subtable + 14);
+            size_t recordSize = valueSize1 + valueSize2;
+            size_t recordCount = static_cast<size_t>(class1Count) * class2Count;
+
+            for (size_t i = 0; i < recordCount; i++) {
+                size_t value1 = subtable + 16 + i * recordSize;
+                size_t value2 = value1 + valueSize1;
+
+                if (hasSizedValueDevices(reader, subtable, value1, valueFormat1)
+                        || hasSizedValueDevices(reader, subtable, value2, valueFormat2)) {
+                    return true;
+                }
+            }
+        }
+        break;
+    }
+
+    case GPOS::CURSIVE: {
+        uint16_t entryExitCount = reader.uint16(subtable + 4);
+
+        for (size_t i = 0; i < entryExitCount; i++) {
+            size_t record = subtable + 6 + i * 4;
+            if (hasSizedAnchorDevices(reader, subtable, reader.uint16(record))
+                    || hasSizedAnchorDevices(reader, subtable, reader.uint16(record + 2))) {
+                return true;
+            }
+        }
+        break;
+    }
+
+    case GPOS::MARK_TO_BASE:
+    case GPOS::MARK_TO_LIGATURE:
+    case GPOS::MARK_TO_MARK: {
+        uint16_t markClassCount = reader.uint16(subtable + 6);
+        uint16_t markArrayOffset = reader.uint16(subtable + 8);
+        uint16_t attachArrayOffset = reader.uint16(subtable + 10);
+
+        if (markArrayOffset) {
+            size_t markArray = subtable + markArrayOffset;
+            uint16_t markCount = reader.uint16(markArray);
+
+            for (size_t i = 0; i < markCount; i++) {
+                size_t record = markArray + 2 + i * 4;
+                if (hasSizedAnchorDevices(reader, markArray, reader.uint16(record + 2))) {
+                    return true;
+                }
+            }
+        }
+
+        if (attachArrayOffset) {
+            size_t attachArray = subtable + attachArrayOffset;
+
+            if (lookupType != GPOS::MARK_TO_LIGATURE) {
+                return hasSizedAnchorArray(reader, attachArray, markClassCount);
+            }
+
+            uint16_t ligatureCount = reader.uint16(attachArray);
+
+            for (size_t i = 0; i < ligatureCount; i++) {
+                uint16_t ligatureOffset = reader.uint16(attachArray + 2 + i * 2);
+                if (!ligatureOffset) {
+                    continue;
+                }
+
+                size_t ligatureAttach = attachArray + ligatureOffset;
+                if (hasSizedAnchorArray(reader, ligatureAttach, markClassCount)) {
+                    return true;
+                }
+            }
+        }
+        break;
+    }
+
+    }
+
+    return false;
+}
+
+bool LayoutTables::hasSizedDevices(hb_face_t *hbFace)
+{
+    hb_blob_t *blob = hb_face_reference_table(hbFace, HB_OT_TAG_GPOS);
+    Reader reader(blob);
+
+    bool hasDevices = anySubtable(reader, GPOS::EXTENSION,
+                                  [&](size_t subtable, uint16_t lookupType) {
+        return hasSizedPositioning(reader, subtable, lookupType);
+    });
+
+    hb_blob_destroy(blob);
+
+    return hasDevices;
+}
+
+bool LayoutTables::hasClassContext(hb_face_t *hbFace, hb_tag_t tableTag, uint16_t glyphID)
+{
+    uint16_t contextType = GPOS::CONTEXT;
+    uint16_t chainedType = GPOS::CHAINED_CONTEXT;
+    uint16_t extensionType = GPOS::EXTENSION;
+
+    if (tableTag == HB_OT_TAG_GSUB) {
+        contextType = GSUB::CONTEXT;
+        chainedType = GSUB::CHAINED_CONTEXT;
+        extensionType = GSUB::EXTENSION;
+    }
+
+    hb_blob_t *blob = hb_face_reference_table(hbFace, tableTag);
+    Reader reader(blob);
+
+    bool hasContext = anySubtable(reader, extensionType,
+                                  [&](size_t subtable, uint16_t lookupType) {
+        if (lookupType == contextType || lookupType == chainedType) {
+            return hasClassContext(reader, subtable, lookupType == chainedType, glyphID);
+        }
+
+        return false;
+    });
+
+    hb_blob_destroy(blob);
+
+    return hasContext;
+}
+
+bool LayoutTables::hasKerning(hb_face_t *hbFace, uint16_t glyphID)
+{
+    hb_blob_t *blob = hb_face_reference_table(hbFace, HB_TAG('k', 'e', 'r', 'n'));
+    Reader reader(blob);
+    bool hasPairs = false;
+
+    // The OpenType version starts with a 16-bit zero while the Apple version starts with 1.0.
+    bool isApple = reader.uint16(0) == 1;
+    size_t tableCount = isApple ? reader.uint32(4) : reader.uint16(2);
+    size_t subtable = isApple ? 8 : 4;
+    size_t headerSize = isApple ? 8 : 6;
+
+    for (size_t i = 0; i < tableCount && !hasPairs; i++) {
+        size_t length = isApple ? reader.uint32(subtable) : reader.uint16(subtable + 2);
+        uint8_t format = static_cast<uint8_t>(isApple ? reader.uint16(subtable + 4)
+                                                      : reader.uint16(subtable + 4) >> 8);
+
+        if (format != 0) {
+            // The classes and state machines of other formats are not enumerated.
+            hasPairs = true;
+            break;
+        }
+
+        size_t pairs = subtable + headerSize + 8;
+        uint16_t pairCount = reader.uint16(subtable + headerSize);
+
+        for (size_t j = 0; j < pairCount; j++) {
+            size_t pair = pairs + j * 6;
+            if (reader.uint16(pair) == glyphID || reader.uint16(pair + 2) == glyphID) {
+                hasPairs = true;
+                break;
+            }
+        }
+
+        if (length < headerSize) {
+            break;
+        }
+
+        subtable += length;
+    }
+
+    hb_blob_destroy(blob);
+
+    return hasPairs;
+}
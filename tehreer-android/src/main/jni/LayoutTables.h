@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+#ifndef _TEHREER__LAYOUT_TABLES_H
+#define _TEHREER__LAYOUT_TABLES_H
+
+#include <cstddef>
+#include <cstdint>
+#include <hb.h>
+
+namespace Tehreer {
+
+/*
+ * Inspects the raw layout tables of a face for the details that are not exposed by the OpenType
+ * layout API of HarfBuzz. The tables are read with bounds checks, so a malformed table is treated
+ * as if the inspected data was absent.
+ */
+class LayoutTables {
+public:
+    /*
+     * Returns whether any lookup of the GPOS table refers to a device table. HarfBuzz applies the
+     * deltas of such tables according to the ppem of the font, so the positions they adjust are
+     * not proportional to the size. Variation index tables share the layout of device tables but
+     * depend on the variation coordinates only, so they are not counted.
+     */
+    static bool hasSizedDevices(hb_face_t *hbFace);
+
+    /*
+     * Returns whether a class based contextual rule of the given layout table refers to the class
+     * of a glyph in its backtrack, lookahead or input sequence. HarfBuzz does not collect the
+     * glyphs of class zero for such rules, which covers every glyph left out of a class
+     * definition.
+     */
+    static bool hasClassContext(hb_face_t *hbFace, hb_tag_t tableTag, uint16_t glyphID);
+
+    /*
+     * Returns whether the legacy kern table might adjust a glyph. The pairs of format 0 subtables
+     * are searched for the glyph, while a subtable of any other format is counted as a match.
+     */
+    static bool hasKerning(hb_face_t *hbFace, uint16_t glyphID);
+
+private:
+    class Reader {
+    public:
+        Reader(hb_blob_t *blob);
+
+        uint16_t uint16(size_t offset) const;
+        uint32_t uint32(size_t offset) const;
+
+    private:
+        const uint8_t *m_data;
+        size_t m_length;
+    };
+
+    template<class Predicate>
+    static bool anySubtable(const Reader &reader, uint16_t extensionType, Predicate predicate);
+
+    static uint16_t classOf(const Reader &reader, size_t base, uint16_t offset, uint16_t glyphID);
+    static bool hasClassInSequence(const Reader &reader, size_t sequence, size_t length,
+                                   uint16_t glyphClass);
+    static bool hasClassContext(const Reader &reader, size_t subtable, bool isChained,
+                                uint16_t glyphID);
+
+    static bool isSizedDevice(const Reader &reader, size_t base, uint16_t offset);
+    static bool hasSizedValueDevices(const Reader &reader, size_t base, size_t record,
+                                     uint16_t valueFormat);
+    static bool hasSizedAnchorDevices(const Reader &reader, size_t base, uint16_t offset);
+    static bool hasSizedAnchorArray(const Reader &reader, size_t array, uint16_t anchorCount);
+    static bool hasSizedPositioning(const Reader &reader, size_t subtable, uint16_t lookupType);
+};
+
+}
+
+#endif
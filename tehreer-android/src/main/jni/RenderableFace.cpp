@@ -21,7 +21,9 @@ extern "C" {
 }
 
 #include <cstddef>
+#include <functional>
 #include <mutex>
+#include <thread>
 
 #include "Convert.h"
 #include "FontFile.h"
@@ -42,39 +44,115 @@ RenderableFace *RenderableFace::create(FontFile &fontFile, FT_Face ftFace)
 
 RenderableFace::RenderableFace(FontFile &fontFile, FT_Face ftFace)
     : m_fontFile(fontFile.retain())
-    , m_ftFace(ftFace)
+    , m_faces()
+    , m_faceCount(1)
     , m_retainCount(1)
 {
+    m_faces[0] = ftFace;
 }
 
 void RenderableFace::setupCoordinates(const float *coordArray, size_t coordCount)
 {
     m_coordinates = CoordArray(coordArray, coordArray + coordCount);
+    applyCoordinates(m_faces[0]);
+}
+
+void RenderableFace::applyCoordinates(FT_Face ftFace)
+{
+    size_t coordCount = m_coordinates.size();
+    if (coordCount == 0) {
+        return;
+    }
 
     FT_Fixed fixedCoords[coordCount];
 
     for (size_t i = 0; i < coordCount; i++) {
-        fixedCoords[i] = toF16Dot16(coordArray[i]);
+        fixedCoords[i] = toF16Dot16(m_coordinates[i]);
     }
 
-    FT_Set_Var_Design_Coordinates(m_ftFace, coordCount, fixedCoords);
+    FT_Set_Var_Design_Coordinates(ftFace, coordCount, fixedCoords);
 }
 
 RenderableFace::~RenderableFace()
 {
+    size_t faceCount = m_faceCount.load();
+
     std::mutex &mutex = FreeType::mutex();
     mutex.lock();
 
-    FT_Done_Face(m_ftFace);
+    for (size_t i = 0; i < faceCount; i++) {
+        FT_Done_Face(m_faces[i]);
+    }
 
     mutex.unlock();
 
     m_fontFile.release();
 }
 
+size_t RenderableFace::acquireFace()
+{
+    size_t faceCount = m_faceCount.load(memory_order_acquire);
+    size_t preferred = hash<thread::id>()(this_thread::get_id()) % faceCount;
+
+    for (size_t i = 0; i < faceCount; i++) {
+        size_t slot = (preferred + i) % faceCount;
+        if (m_mutexes[slot].try_lock()) {
+            return slot;
+        }
+    }
+
+    /* NOTE: All existing faces are busy, so open another one if the limit is not reached yet. */
+    if (faceCount < MaxFaceCount && m_fontFile.isShareable()) {
+        lock_guard<mutex> cloneLock(m_cloneMutex);
+
+        size_t slot = m_faceCount.load(memory_order_acquire);
+        if (slot < MaxFaceCount && openFace(slot)) {
+            return slot;
+        }
+    }
+
+    m_mutexes[preferred].lock();
+    return preferred;
+}
+
+bool RenderableFace::openFace(size_t slot)
+{
+    FT_Face ftFace = m_fontFile.openFace(m_faces[0]->face_index);
+    if (!ftFace) {
+        return false;
+    }
+
+    applyCoordinates(ftFace);
+
+    /* NOTE: The face is locked before publishing it so that no other thread can borrow it first. */
+    m_mutexes[slot].lock();
+    m_faces[slot] = ftFace;
+    m_faceCount.store(slot + 1, memory_order_release);
+
+    return true;
+}
+
+RenderableFace::Borrow::Borrow(RenderableFace &owner)
+    : m_owner(owner)
+    , m_slot(owner.acquireFace())
+{
+}
+
+RenderableFace::Borrow::Borrow(RenderableFace &owner, size_t slot)
+    : m_owner(owner)
+    , m_slot(slot)
+{
+    owner.m_mutexes[slot].lock();
+}
+
+RenderableFace::Borrow::~Borrow()
+{
+    m_owner.m_mutexes[m_slot].unlock();
+}
+
 RenderableFace *RenderableFace::deriveVariation(const float *coordArray, size_t coordCount)
 {
-    RenderableFace *derivedFace = m_fontFile.createRenderableFace(m_ftFace->face_index);
+    RenderableFace *derivedFace = m_fontFile.createRenderableFace(m_faces[0]->face_index);
     if (derivedFace == nullptr) {
         return nullptr;
     }
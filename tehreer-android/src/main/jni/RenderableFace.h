@@ -35,6 +35,30 @@ using CoordArray = std::vector<float>;
 
 class RenderableFace {
 public:
+    static constexpr size_t MaxFaceCount = 4;
+
+    /*
+     * Borrows one of the faces of a renderable face for the lifetime of the object. The primary face
+     * is always available while the additional ones are opened on demand when all the existing faces
+     * are busy, so that multiple threads can load glyphs of the same font concurrently.
+     */
+    class Borrow {
+    public:
+        explicit Borrow(RenderableFace &owner);
+        Borrow(RenderableFace &owner, size_t slot);
+        ~Borrow();
+
+        Borrow(const Borrow &) = delete;
+        Borrow &operator=(const Borrow &) = delete;
+
+        inline size_t slot() const { return m_slot; }
+        inline FT_Face ftFace() const { return m_owner.m_faces[m_slot]; }
+
+    private:
+        RenderableFace &m_owner;
+        size_t m_slot;
+    };
+
     static RenderableFace *create(FontFile &fontFile, FT_Face ftFace);
     void setupCoordinates(const float *coordArray, size_t coordCount);
 
@@ -42,11 +66,12 @@ public:
 
     RenderableFace *deriveVariation(const float *coordArray, size_t coordCount);
 
-    inline void lock() { m_mutex.lock(); };
-    inline void unlock() { m_mutex.unlock(); }
+    inline void lock() { m_mutexes[0].lock(); };
+    inline void unlock() { m_mutexes[0].unlock(); }
 
     inline FontFile &fontFile() const { return m_fontFile; }
-    inline FT_Face ftFace() const { return m_ftFace; }
+    inline FT_Face ftFace() const { return m_faces[0]; }
+    inline size_t faceCount() const { return m_faceCount.load(std::memory_order_acquire); }
 
     inline const CoordArray *coordinates() const { return m_coordinates.size() == 0 ? nullptr : &m_coordinates; }
 
@@ -54,15 +79,21 @@ public:
     void release();
 
 private:
-    std::mutex m_mutex;
+    std::mutex m_mutexes[MaxFaceCount];
+    std::mutex m_cloneMutex;
 
     FontFile &m_fontFile;
-    FT_Face m_ftFace;
+    FT_Face m_faces[MaxFaceCount];
+    std::atomic<size_t> m_faceCount;
     CoordArray m_coordinates;
 
     std::atomic_int m_retainCount;
 
     RenderableFace(FontFile &fontFile, FT_Face ftFace);
+
+    size_t acquireFace();
+    bool openFace(size_t slot);
+    void applyCoordinates(FT_Face ftFace);
 };
 
 }
@@ -22,16 +22,17 @@ extern "C" {
 #include FT_TRUETYPE_TABLES_H
 }
 
+#include <hb.h>
+#include <hb-ot.h>
 #include <mutex>
 
 #include "FreeType.h"
+#include "LayoutTables.h"
 #include "ShapableFace.h"
 
 using namespace std;
 using namespace Tehreer;
 
-using FaceLock = lock_guard<RenderableFace>;
-
 hb_font_funcs_t *ShapableFace::createFontFuncs()
 {
     hb_font_funcs_t *funcs = hb_font_funcs_create();
@@ -43,11 +44,7 @@ hb_font_funcs_t *ShapableFace::createFontFuncs()
     {
         auto instance = reinterpret_cast<ShapableFace *>(object);
 
-        RenderableFace &renderableFace = instance->renderableFace();
-        FaceLock lock(renderableFace);
-        FT_Face ftFace = renderableFace.ftFace();
-
-        FT_UInt glyphID = FT_Get_Char_Index(ftFace, unicode);
+        uint16_t glyphID = instance->getGlyphID(unicode);
         if (!glyphID) {
             return false;
         }
@@ -65,21 +62,50 @@ hb_font_funcs_t *ShapableFace::createFontFuncs()
                                                     void *user_data) -> unsigned int
     {
         auto instance = reinterpret_cast<ShapableFace *>(object);
-
-        RenderableFace &renderableFace = instance->renderableFace();
-        FaceLock lock(renderableFace);
-        FT_Face ftFace = renderableFace.ftFace();
+        CharMapCache &cache = *instance->m_charMapCache;
 
         unsigned int done;
 
         auto unicodePtr = reinterpret_cast<const uint8_t *>(firstUnicode);
         auto glyphPtr = reinterpret_cast<uint8_t *>(firstGlyph);
 
+        /* Map the cached code points without borrowing any face. */
         for (done = 0; done < count; done++) {
             auto unicodeRef = reinterpret_cast<const hb_codepoint_t *>(unicodePtr);
             auto glyphRef = reinterpret_cast<hb_codepoint_t *>(glyphPtr);
 
-            FT_UInt glyphID = FT_Get_Char_Index(ftFace, *unicodeRef);
+            uint16_t glyphID = 0;
+            if (!cache.get(*unicodeRef, &glyphID)) {
+                break;
+            }
+
+            if (glyphID) {
+                *glyphRef = glyphID;
+            } else {
+                return done;
+            }
+
+            unicodePtr += unicodeStride;
+            glyphPtr += glyphStride;
+        }
+
+        if (done == count) {
+            return done;
+        }
+
+        RenderableFace &renderableFace = instance->renderableFace();
+        RenderableFace::Borrow borrow(renderableFace);
+        FT_Face ftFace = borrow.ftFace();
+
+        for (; done < count; done++) {
+            auto unicodeRef = reinterpret_cast<const hb_codepoint_t *>(unicodePtr);
+            auto glyphRef = reinterpret_cast<hb_codepoint_t *>(glyphPtr);
+
+            uint16_t glyphID = 0;
+            if (!cache.get(*unicodeRef, &glyphID)) {
+                glyphID = static_cast<uint16_t>(FT_Get_Char_Index(ftFace, *unicodeRef));
+                cache.put(*unicodeRef, glyphID);
+            }
 
             if (glyphID) {
                 *glyphRef = glyphID;
@@ -103,8 +129,8 @@ hb_font_funcs_t *ShapableFace::createFontFuncs()
         auto instance = reinterpret_cast<ShapableFace *>(object);
 
         RenderableFace &renderableFace = instance->renderableFace();
-        FaceLock lock(renderableFace);
-        FT_Face ftFace = renderableFace.ftFace();
+        RenderableFace::Borrow borrow(renderableFace);
+        FT_Face ftFace = borrow.ftFace();
 
         FT_UInt glyphID = FT_Face_GetCharVariantIndex(ftFace, unicode, variationSelector);
         if (!glyphID) {
@@ -120,12 +146,8 @@ hb_font_funcs_t *ShapableFace::createFontFuncs()
                                                      void *userData) -> hb_position_t
     {
         auto instance = reinterpret_cast<ShapableFace *>(object);
-
-        RenderableFace &renderableFace = instance->renderableFace();
-        FaceLock lock(renderableFace);
-        FT_Face ftFace = renderableFace.ftFace();
-
         AdvanceCache &cache = instance->m_advanceCache;
+
         auto glyphID = static_cast<uint16_t>(glyph);
         int32_t glyphAdvance = 0;
 
@@ -133,6 +155,14 @@ hb_font_funcs_t *ShapableFace::createFontFuncs()
             return glyphAdvance;
         }
 
+        RenderableFace &renderableFace = instance->renderableFace();
+        RenderableFace::Borrow borrow(renderableFace);
+        FT_Face ftFace = borrow.ftFace();
+
+        if (cache.preload(ftFace) && cache.get(glyphID, &glyphAdvance)) {
+            return glyphAdvance;
+        }
+
         FT_Fixed ftAdvance = 0;
         FT_Get_Advance(ftFace, glyphID, FT_LOAD_NO_SCALE, &ftAdvance);
 
@@ -152,12 +182,40 @@ hb_font_funcs_t *ShapableFace::createFontFuncs()
         auto instance = reinterpret_cast<ShapableFace *>(object);
         AdvanceCache &cache = instance->m_advanceCache;
 
-        RenderableFace &renderableFace = instance->renderableFace();
-        FaceLock lock(renderableFace);
-        FT_Face ftFace = renderableFace.ftFace();
-
         auto glyphPtr = reinterpret_cast<const uint8_t *>(firstGlyph);
         auto advancePtr = reinterpret_cast<uint8_t *>(firstAdvance);
+        bool hasMisses = false;
+
+        /* Resolve the cached advances without borrowing any face. */
+        for (unsigned int i = 0; i < count; i++) {
+            auto glyphRef = reinterpret_cast<const hb_codepoint_t *>(glyphPtr);
+            auto advanceRef = reinterpret_cast<hb_position_t *>(advancePtr);
+
+            auto glyphID = static_cast<uint16_t>(*glyphRef);
+            int32_t glyphAdvance = 0;
+
+            if (cache.get(glyphID, &glyphAdvance)) {
+                *advanceRef = glyphAdvance;
+            } else {
+                hasMisses = true;
+            }
+
+            glyphPtr += glyphStride;
+            advancePtr += advanceStride;
+        }
+
+        if (!hasMisses) {
+            return;
+        }
+
+        RenderableFace &renderableFace = instance->renderableFace();
+        RenderableFace::Borrow borrow(renderableFace);
+        FT_Face ftFace = borrow.ftFace();
+
+        cache.preload(ftFace);
+
+        glyphPtr = reinterpret_cast<const uint8_t *>(firstGlyph);
+        advancePtr = reinterpret_cast<uint8_t *>(firstAdvance);
 
         for (unsigned int i = 0; i < count; i++) {
             auto glyphRef = reinterpret_cast<const hb_codepoint_t *>(glyphPtr);
@@ -200,6 +258,13 @@ ShapableFace &ShapableFace::create(RenderableFace &renderableFace)
 ShapableFace::ShapableFace(RenderableFace &renderableFace)
     : m_rootFace(nullptr)
     , m_renderableFace(renderableFace.retain())
+    , m_advanceCache(static_cast<size_t>(renderableFace.ftFace()->num_glyphs))
+    , m_charMapCache(new CharMapCache())
+    , m_sizedFonts()
+    , m_sizedFontStamp(0)
+    , m_sharedTableSize(0)
+    , m_spaceLookupState(0)
+    , m_sizedDeviceState(0)
     , m_retainCount(1)
 {
     FT_Face ftFace = renderableFace.ftFace();
@@ -212,10 +277,33 @@ ShapableFace::ShapableFace(RenderableFace &renderableFace)
         auto instance = reinterpret_cast<ShapableFace *>(object);
 
         RenderableFace &renderableFace = instance->renderableFace();
-        FaceLock lock(renderableFace);
-        FT_Face ftFace = renderableFace.ftFace();
+        FontFile &fontFile = renderableFace.fontFile();
+        FT_Long faceIndex = renderableFace.ftFace()->face_index;
 
+        FT_ULong offset = 0;
         FT_ULong length = 0;
+
+        /*
+         * NOTE:
+         *      If the font data is resident in memory, the table is referred right inside it
+         *      without borrowing any face. The blob is shared by the variation and color instances
+         *      as they all use the same HarfBuzz face. The containers which FreeType decodes itself,
+         *      such as WOFF, cannot be located and are loaded through FreeType below.
+         */
+        if (fontFile.data()
+                && fontFile.locateTable(faceIndex, tag, &offset, &length) && length > 0) {
+            auto data = reinterpret_cast<const char *>(fontFile.data() + offset);
+            instance->recordSharedTable(tag, length);
+
+            return hb_blob_create(data, length, HB_MEMORY_MODE_READONLY, &fontFile.retain(),
+                                  [](void *object) {
+                                      reinterpret_cast<FontFile *>(object)->release();
+                                  });
+        }
+
+        RenderableFace::Borrow borrow(renderableFace);
+        FT_Face ftFace = borrow.ftFace();
+
         FT_Load_Sfnt_Table(ftFace, tag, 0, nullptr, &length);
 
         if (length == 0) {
@@ -242,9 +330,26 @@ ShapableFace::ShapableFace(RenderableFace &renderableFace)
     setupCoordinates();
 }
 
+void ShapableFace::recordSharedTable(hb_tag_t tag, size_t length)
+{
+    lock_guard<mutex> lock(m_sharedTableMutex);
+
+    /* HarfBuzz might reference a table more than once, so count each of them only once. */
+    if (m_sharedTableTags.insert(tag).second) {
+        m_sharedTableSize += length;
+    }
+}
+
 ShapableFace::ShapableFace(ShapableFace &parent, RenderableFace &renderableFace)
     : m_rootFace(nullptr)
     , m_renderableFace(renderableFace.retain())
+    , m_advanceCache(static_cast<size_t>(renderableFace.ftFace()->num_glyphs))
+    , m_charMapCache(nullptr)
+    , m_sizedFonts()
+    , m_sizedFontStamp(0)
+    , m_sharedTableSize(0)
+    , m_spaceLookupState(0)
+    , m_sizedDeviceState(0)
     , m_retainCount(1)
 {
     ShapableFace *rootFace = parent.m_rootFace ?: &parent;
@@ -255,6 +360,9 @@ ShapableFace::ShapableFace(ShapableFace &parent, RenderableFace &renderableFace)
 
     m_rootFace = &rootFace->retain();
 
+    /* NOTE: The character map does not depend upon variation coordinates. */
+    m_charMapCache = rootFace->m_charMapCache;
+
     setupCoordinates();
 }
 
@@ -263,17 +371,171 @@ void ShapableFace::setupCoordinates()
     const CoordArray *coordinates = m_renderableFace.coordinates();
     if (coordinates) {
         hb_font_set_var_coords_design(m_hbFont, coordinates->data(), coordinates->size());
+
+        /* The advances cached so far belong to the previous coordinates. */
+        m_advanceCache.clear();
     }
 }
 
 ShapableFace::~ShapableFace()
 {
+    for (SizedFont &sizedFont : m_sizedFonts) {
+        if (sizedFont.hbFont) {
+            hb_font_destroy(sizedFont.hbFont);
+        }
+    }
+
     hb_font_destroy(m_hbFont);
     m_renderableFace.release();
 
     if (m_rootFace) {
         m_rootFace->release();
+    } else {
+        delete m_charMapCache;
+    }
+}
+
+bool ShapableFace::hasSpaceLookups()
+{
+    enum : int { Unknown = 0, Absent = 1, Present = 2 };
+
+    ShapableFace *rootFace = m_rootFace ?: this;
+    int state = rootFace->m_spaceLookupState.load(memory_order_relaxed);
+
+    if (state == Unknown) {
+        hb_face_t *hbFace = hb_font_get_face(m_hbFont);
+        hb_codepoint_t spaceGlyph = getGlyphID(0x20);
+        hb_tag_t tableTags[] = { HB_OT_TAG_GSUB, HB_OT_TAG_GPOS };
+        hb_tag_t aatTags[] = { HB_TAG('k', 'e', 'r', 'x'), HB_TAG('m', 'o', 'r', 'x') };
+
+        hb_set_t *glyphsBefore = hb_set_create();
+        hb_set_t *glyphsInput = hb_set_create();
+        hb_set_t *glyphsAfter = hb_set_create();
+
+        state = Absent;
+
+        /*
+         * NOTE:
+         *      HarfBuzz applies the AAT tables for the fonts having them. Their classes and state
+         *      machines are not enumerable through the OpenType layout API, so such a face is
+         *      conservatively treated as involving the space glyph. The legacy kern table, which
+         *      is applied when GPOS has no kern feature, is searched for the pairs of the space
+         *      glyph instead.
+         */
+        for (hb_tag_t aatTag : aatTags) {
+            hb_blob_t *blob = hb_face_reference_table(hbFace, aatTag);
+            if (hb_blob_get_length(blob) > 0) {
+                state = Present;
+            }
+            hb_blob_destroy(blob);
+        }
+
+        if (state == Absent && LayoutTables::hasKerning(hbFace, spaceGlyph)) {
+            state = Present;
+        }
+
+        for (hb_tag_t tableTag : tableTags) {
+            unsigned int lookupCount = hb_ot_layout_table_get_lookup_count(hbFace, tableTag);
+
+            for (unsigned int i = 0; i < lookupCount && state == Absent; i++) {
+                hb_set_clear(glyphsBefore);
+                hb_set_clear(glyphsInput);
+                hb_set_clear(glyphsAfter);
+
+                hb_ot_layout_lookup_collect_glyphs(hbFace, tableTag, i,
+                                                   glyphsBefore, glyphsInput, glyphsAfter, nullptr);
+
+                if (hb_set_has(glyphsBefore, spaceGlyph) || hb_set_has(glyphsInput, spaceGlyph)
+                        || hb_set_has(glyphsAfter, spaceGlyph)) {
+                    state = Present;
+                }
+            }
+
+            // The collected glyphs miss class zero of the class based contextual rules.
+            if (state == Absent && LayoutTables::hasClassContext(hbFace, tableTag, spaceGlyph)) {
+                state = Present;
+            }
+        }
+
+        hb_set_destroy(glyphsBefore);
+        hb_set_destroy(glyphsInput);
+        hb_set_destroy(glyphsAfter);
+
+        rootFace->m_spaceLookupState.store(state, memory_order_relaxed);
     }
+
+    return state == Present;
+}
+
+bool ShapableFace::hasSizedDevices()
+{
+    enum : int { Unknown = 0, Absent = 1, Present = 2 };
+
+    ShapableFace *rootFace = m_rootFace ?: this;
+    int state = rootFace->m_sizedDeviceState.load(memory_order_relaxed);
+
+    if (state == Unknown) {
+        hb_face_t *hbFace = hb_font_get_face(m_hbFont);
+        state = LayoutTables::hasSizedDevices(hbFace) ? Present : Absent;
+
+        rootFace->m_sizedDeviceState.store(state, memory_order_relaxed);
+    }
+
+    return state == Present;
+}
+
+uint16_t ShapableFace::getGlyphID(uint32_t codePoint)
+{
+    uint16_t glyphID = 0;
+
+    if (!m_charMapCache->get(codePoint, &glyphID)) {
+        RenderableFace::Borrow borrow(m_renderableFace);
+        FT_Face ftFace = borrow.ftFace();
+
+        glyphID = static_cast<uint16_t>(FT_Get_Char_Index(ftFace, codePoint));
+        m_charMapCache->put(codePoint, glyphID);
+    }
+
+    return glyphID;
+}
+
+hb_font_t *ShapableFace::acquireSizedFont(int ppem)
+{
+    lock_guard<mutex> lock(m_sizedFontMutex);
+
+    SizedFont *victim = &m_sizedFonts[0];
+    uint32_t stamp = ++m_sizedFontStamp;
+
+    for (SizedFont &sizedFont : m_sizedFonts) {
+        if (sizedFont.hbFont && sizedFont.ppem == ppem) {
+            sizedFont.stamp = stamp;
+            return hb_font_reference(sizedFont.hbFont);
+        }
+
+        /* Prefer an empty entry, otherwise the least recently used one. */
+        if (!sizedFont.hbFont || (victim->hbFont && sizedFont.stamp < victim->stamp)) {
+            victim = &sizedFont;
+        }
+    }
+
+    hb_font_t *hbFont = hb_font_create_sub_font(m_hbFont);
+    hb_font_set_ppem(hbFont, ppem, ppem);
+    hb_font_make_immutable(hbFont);
+
+    /*
+     * NOTE:
+     *      The evicted font might still be used by another thread which holds its own reference,
+     *      so it is only released here.
+     */
+    if (victim->hbFont) {
+        hb_font_destroy(victim->hbFont);
+    }
+
+    victim->hbFont = hbFont;
+    victim->ppem = ppem;
+    victim->stamp = stamp;
+
+    return hb_font_reference(hbFont);
 }
 
 ShapableFace &ShapableFace::retain()
@@ -20,8 +20,10 @@
 #include <atomic>
 #include <hb.h>
 #include <mutex>
+#include <unordered_set>
 
 #include "AdvanceCache.h"
+#include "CharMapCache.h"
 #include "RenderableFace.h"
 
 namespace Tehreer {
@@ -38,7 +40,25 @@ public:
 
     inline hb_font_t *hbFont() const { return m_hbFont; }
 
+    inline size_t sharedTableSize() const {
+        const ShapableFace *rootFace = m_rootFace ?: this;
+        return rootFace->m_sharedTableSize.load(std::memory_order_relaxed);
+    }
+
+    bool hasSpaceLookups();
+    bool hasSizedDevices();
+    uint16_t getGlyphID(uint32_t codePoint);
+    hb_font_t *acquireSizedFont(int ppem);
+
 private:
+    static constexpr size_t SizedFontCount = 4;
+
+    struct SizedFont {
+        hb_font_t *hbFont;
+        int ppem;
+        uint32_t stamp;
+    };
+
     static hb_font_funcs_t *createFontFuncs();
     static hb_font_funcs_t *defaultFontFuncs();
 
@@ -48,6 +68,17 @@ private:
     hb_font_t *m_hbFont;
 
     AdvanceCache m_advanceCache;
+    CharMapCache *m_charMapCache;
+
+    std::mutex m_sizedFontMutex;
+    SizedFont m_sizedFonts[SizedFontCount];
+    uint32_t m_sizedFontStamp;
+
+    std::mutex m_sharedTableMutex;
+    std::unordered_set<hb_tag_t> m_sharedTableTags;
+    std::atomic<size_t> m_sharedTableSize;
+    std::atomic_int m_spaceLookupState;
+    std::atomic_int m_sizedDeviceState;
 
     std::atomic_int m_retainCount;
 
@@ -55,6 +86,7 @@ private:
     ShapableFace(ShapableFace &parent, RenderableFace &renderableFace);
 
     void setupCoordinates();
+    void recordSharedTable(hb_tag_t tag, size_t length);
 
     inline RenderableFace &renderableFace() const { return m_renderableFace; }
 };
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#include <atomic>
+#include <cstddef>
+#include <cstdint>
+#include <functional>
+#include <hb.h>
+#include <thread>
+
+#include "FeatureSet.h"
+#include "ShapePlanStats.h"
+
+using namespace std;
+using namespace Tehreer;
+
+static hb_user_data_key_t SeenPlanKey;
+
+ShapePlanStats::Stripe ShapePlanStats::s_stripes[StripeCount];
+
+ShapePlanStats::Stripe &ShapePlanStats::localStripe()
+{
+    static thread_local size_t index = hash<thread::id>()(this_thread::get_id()) % StripeCount;
+    return s_stripes[index];
+}
+
+uint64_t ShapePlanStats::hitCount()
+{
+    uint64_t count = 0;
+    for (const Stripe &stripe : s_stripes) {
+        count += stripe.hitCount.load(memory_order_relaxed);
+    }
+
+    return count;
+}
+
+uint64_t ShapePlanStats::missCount()
+{
+    uint64_t count = 0;
+    for (const Stripe &stripe : s_stripes) {
+        count += stripe.missCount.load(memory_order_relaxed);
+    }
+
+    return count;
+}
+
+void ShapePlanStats::resetCounts()
+{
+    for (Stripe &stripe : s_stripes) {
+        stripe.hitCount.store(0, memory_order_relaxed);
+        stripe.missCount.store(0, memory_order_relaxed);
+    }
+}
+
+void ShapePlanStats::resolve(hb_font_t *hbFont, const hb_segment_properties_t &props,
+                             const FeatureSet &featureSet)
+{
+    unsigned int coordCount = 0;
+    const int *coords = hb_font_get_var_coords_normalized(hbFont, &coordCount);
+
+    hb_shape_plan_t *shapePlan = hb_shape_plan_create_cached2(hb_font_get_face(hbFont), &props,
+                                                              featureSet.data(), featureSet.size(),
+                                                              coords, coordCount, nullptr);
+
+    /* NOTE: Only the first caller succeeds in marking a plan, so each new plan is a single miss. */
+    Stripe &stripe = localStripe();
+    if (hb_shape_plan_set_user_data(shapePlan, &SeenPlanKey, shapePlan, nullptr, false)) {
+        stripe.missCount.fetch_add(1, memory_order_relaxed);
+    } else {
+        stripe.hitCount.fetch_add(1, memory_order_relaxed);
+    }
+
+    hb_shape_plan_destroy(shapePlan);
+}
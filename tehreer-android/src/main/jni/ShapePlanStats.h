@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#ifndef _TEHREER__SHAPE_PLAN_STATS_H
+#define _TEHREER__SHAPE_PLAN_STATS_H
+
+#include <atomic>
+#include <cstddef>
+#include <cstdint>
+#include <hb.h>
+
+#include "FeatureSet.h"
+
+namespace Tehreer {
+
+/*
+ * Counts the reuse of the shape plans that HarfBuzz caches in each face. A miss is recorded when
+ * HarfBuzz builds a plan for a new combination of segment properties, feature set and variation
+ * coordinates, and a hit for every other shaping call. The counts are striped across threads so
+ * that concurrent shaping does not contend on them, and can be reset to measure a particular
+ * workload.
+ */
+class ShapePlanStats {
+public:
+    static uint64_t hitCount();
+    static uint64_t missCount();
+    static void resetCounts();
+
+    static void recordHit() {
+        localStripe().hitCount.fetch_add(1, std::memory_order_relaxed);
+    }
+
+    /*
+     * Looks up the plan that HarfBuzz uses for shaping with the given font and records whether it
+     * was already in the cache of the face.
+     */
+    static void resolve(hb_font_t *hbFont, const hb_segment_properties_t &props,
+                        const FeatureSet &featureSet);
+
+private:
+    static constexpr size_t StripeCount = 8;
+
+    struct alignas(64) Stripe {
+        std::atomic<uint64_t> hitCount;
+        std::atomic<uint64_t> missCount;
+    };
+
+    static Stripe s_stripes[StripeCount];
+
+    static Stripe &localStripe();
+};
+
+}
+
+#endif
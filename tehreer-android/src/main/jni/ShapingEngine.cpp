@@ -22,12 +22,16 @@ extern "C" {
 
 #include <cmath>
 #include <cstdint>
+#include <cstring>
 #include <hb.h>
 #include <hb-ot.h>
 #include <jni.h>
 #include <vector>
 
+#include "FeatureSet.h"
 #include "JavaBridge.h"
+#include "ShapableFace.h"
+#include "ShapePlanStats.h"
 #include "ShapingEngine.h"
 
 using namespace std;
@@ -50,8 +54,10 @@ ShapingEngine::ShapingEngine()
     , m_typeSize(16.0)
     , m_scriptTag(FT_MAKE_TAG('D', 'F', 'L', 'T'))
     , m_languageTag(FT_MAKE_TAG('d', 'f', 'l', 't'))
+    , m_featureSet(&FeatureSet::empty())
     , m_shapingOrder(ShapingOrder::FORWARD)
     , m_writingDirection(WritingDirection::LEFT_TO_RIGHT)
+    , m_planKey()
 {
 }
 
@@ -59,10 +65,9 @@ ShapingEngine::~ShapingEngine()
 {
 }
 
-void ShapingEngine::setOpenTypeFeatures(const vector<uint32_t> &featureTags, const vector<uint16_t> &featureValues)
+void ShapingEngine::setOpenTypeFeatures(const uint32_t *featureTags, const uint16_t *featureValues, size_t featureCount)
 {
-    m_featureTags = featureTags;
-    m_featureValues = featureValues;
+    m_featureSet = &FeatureSet::intern(featureTags, featureValues, featureCount);
 }
 
 void ShapingEngine::setShapingOrder(ShapingOrder shapingOrder)
@@ -84,7 +89,44 @@ bool ShapingEngine::isRTL()
     return m_writingDirection == WritingDirection::RIGHT_TO_LEFT;
 }
 
-void ShapingEngine::shapeText(ShapingResult &shapingResult, const jchar *charArray, jint charStart, jint charEnd)
+bool ShapingEngine::resolvePlanKey()
+{
+    if (m_planKey.typeface == m_typeface
+            && m_planKey.featureSet == m_featureSet
+            && m_planKey.scriptTag == m_scriptTag
+            && m_planKey.languageTag == m_languageTag
+            && m_planKey.writingDirection == m_writingDirection) {
+        return true;
+    }
+
+    m_planKey.typeface = m_typeface;
+    m_planKey.featureSet = m_featureSet;
+    m_planKey.scriptTag = m_scriptTag;
+    m_planKey.languageTag = m_languageTag;
+    m_planKey.writingDirection = m_writingDirection;
+
+    return false;
+}
+
+void ShapingEngine::BatchOutput::clear()
+{
+    glyphStarts.clear();
+    glyphIds.clear();
+    glyphOffsets.clear();
+    glyphAdvances.clear();
+    clusterMap.clear();
+}
+
+jchar *ShapingEngine::codeUnitBuffer(jint length)
+{
+    if (m_codeUnits.size() < static_cast<size_t>(length)) {
+        m_codeUnits.resize(static_cast<size_t>(length));
+    }
+
+    return m_codeUnits.data();
+}
+
+void ShapingEngine::shapeText(ShapingResult &shapingResult, const jchar *codeUnits, jint charStart, jint charEnd)
 {
     hb_script_t script = hb_ot_tag_to_script(m_scriptTag);
     hb_language_t language = hb_ot_tag_to_language(m_languageTag);
@@ -102,26 +144,30 @@ void ShapingEngine::shapeText(ShapingResult &shapingResult, const jchar *charArr
     hb_buffer_set_language(buffer, language);
     hb_buffer_set_direction(buffer, direction);
 
-    const jchar *codeUnits = charArray + charStart;
     jint length = charEnd - charStart;
 
     hb_buffer_add_utf16(buffer, codeUnits, length, 0, length);
 
-    size_t numFeatures = m_featureTags.size();
-    hb_feature_t features[numFeatures];
+    ShapableFace &shapableFace = m_typeface->shapableFace();
+    auto ppem = static_cast<int>(lround(m_typeSize));
+    hb_font_t *hbFont = shapableFace.acquireSizedFont(ppem);
+
+    /*
+     * NOTE:
+     *      HarfBuzz finds the shape plan in the cache of the face by itself since the features are
+     *      global, so the plan is only looked up again for counting when the configuration of the
+     *      engine has changed.
+     */
+    if (resolvePlanKey()) {
+        ShapePlanStats::recordHit();
+    } else {
+        hb_segment_properties_t props;
+        hb_buffer_get_segment_properties(buffer, &props);
 
-    for (size_t i = 0; i < m_featureTags.size(); i++) {
-        features[i].tag = m_featureTags[i];
-        features[i].value = m_featureValues[i];
-        features[i].start = 0;
-        features[i].end = length;
+        ShapePlanStats::resolve(hbFont, props, *m_featureSet);
     }
 
-    hb_font_t *hbFont = hb_font_create_sub_font(m_typeface->hbFont());
-    auto ppem = lround(m_typeSize);
-    hb_font_set_ppem(hbFont, ppem, ppem);
-
-    hb_shape(hbFont, shapingResult.hbBuffer(), features, numFeatures);
+    hb_shape_full(hbFont, buffer, m_featureSet->data(), m_featureSet->size(), nullptr);
 
     hb_font_destroy(hbFont);
 
@@ -131,6 +177,50 @@ void ShapingEngine::shapeText(ShapingResult &shapingResult, const jchar *charArr
     shapingResult.setup(sizeByEm, isBackward, isRTL(), charStart, charEnd);
 }
 
+void ShapingEngine::shapeBatchRun(Typeface *typeface, jfloat typeSize, uint32_t scriptTag, uint32_t languageTag,
+    WritingDirection writingDirection, ShapingOrder shapingOrder,
+    const jchar *codeUnits, jint charStart, jint charEnd)
+{
+    Typeface *oldTypeface = m_typeface;
+    jfloat oldTypeSize = m_typeSize;
+    uint32_t oldScriptTag = m_scriptTag;
+    uint32_t oldLanguageTag = m_languageTag;
+    WritingDirection oldWritingDirection = m_writingDirection;
+    ShapingOrder oldShapingOrder = m_shapingOrder;
+
+    m_typeface = typeface;
+    m_typeSize = typeSize;
+    m_scriptTag = scriptTag;
+    m_languageTag = languageTag;
+    m_writingDirection = writingDirection;
+    m_shapingOrder = shapingOrder;
+
+    shapeText(m_bufferedResult, codeUnits, charStart, charEnd);
+
+    m_typeface = oldTypeface;
+    m_typeSize = oldTypeSize;
+    m_scriptTag = oldScriptTag;
+    m_languageTag = oldLanguageTag;
+    m_writingDirection = oldWritingDirection;
+    m_shapingOrder = oldShapingOrder;
+
+    auto glyphStart = static_cast<jint>(m_batchOutput.glyphIds.size());
+    auto glyphCount = static_cast<jint>(m_bufferedResult.glyphCount());
+    jint charCount = charEnd - charStart;
+
+    m_batchOutput.glyphStarts.push_back(glyphStart);
+    m_batchOutput.glyphIds.resize(glyphStart + glyphCount);
+    m_batchOutput.glyphOffsets.resize((glyphStart + glyphCount) * 2);
+    m_batchOutput.glyphAdvances.resize(glyphStart + glyphCount);
+
+    m_bufferedResult.copyGlyphIds(0, glyphCount, &m_batchOutput.glyphIds[glyphStart]);
+    m_bufferedResult.copyGlyphOffsets(0, glyphCount, &m_batchOutput.glyphOffsets[glyphStart * 2]);
+    m_bufferedResult.copyGlyphAdvances(0, glyphCount, &m_batchOutput.glyphAdvances[glyphStart]);
+
+    const jint *clusterMap = m_bufferedResult.clusterMapPtr();
+    m_batchOutput.clusterMap.insert(m_batchOutput.clusterMap.end(), clusterMap, clusterMap + charCount);
+}
+
 static jint getScriptDefaultDirection(JNIEnv *env, jobject obj, jint scriptTag)
 {
     auto inputTag = static_cast<uint32_t>(scriptTag);
@@ -139,6 +229,21 @@ static jint getScriptDefaultDirection(JNIEnv *env, jobject obj, jint scriptTag)
     return static_cast<jint>(defaultDirection);
 }
 
+static jlong getShapePlanHitCount(JNIEnv *env, jobject obj)
+{
+    return static_cast<jlong>(ShapePlanStats::hitCount());
+}
+
+static jlong getShapePlanMissCount(JNIEnv *env, jobject obj)
+{
+    return static_cast<jlong>(ShapePlanStats::missCount());
+}
+
+static void resetShapePlanCounts(JNIEnv *env, jobject obj)
+{
+    ShapePlanStats::resetCounts();
+}
+
 static jlong create(JNIEnv *env, jobject obj)
 {
     auto shapingEngine = new ShapingEngine();
@@ -219,10 +324,7 @@ static void setOpenTypeFeatures(JNIEnv *env, jobject obj, jlong engineHandle, ji
     auto actualValues = static_cast<uint16_t *>(rawValues);
     jint featureCount = env->GetArrayLength(tagsArray);
 
-    const vector<uint32_t> featureTags(actualTags, actualTags + featureCount);
-    const vector<uint16_t> featureValues(actualValues, actualValues + featureCount);
-
-    shapingEngine->setOpenTypeFeatures(featureTags, featureValues);
+    shapingEngine->setOpenTypeFeatures(actualTags, actualValues, static_cast<size_t>(featureCount));
 
     env->ReleasePrimitiveArrayCritical(tagsArray, rawTags, 0);
     env->ReleasePrimitiveArrayCritical(valuesArray, rawValues, 0);
@@ -265,17 +367,181 @@ static void shapeText(JNIEnv *env, jobject obj, jlong engineHandle, jlong result
     auto shapingEngine = reinterpret_cast<ShapingEngine *>(engineHandle);
     auto shapingResult = reinterpret_cast<ShapingResult *>(resultHandle);
 
-    const jchar *charArray = env->GetStringChars(text, nullptr);
+    /* Copy only the shaped range instead of the whole string. */
+    jint length = toIndex - fromIndex;
+    jchar *codeUnits = shapingEngine->codeUnitBuffer(length);
+    env->GetStringRegion(text, fromIndex, length, codeUnits);
+
+    shapingEngine->shapeText(*shapingResult, codeUnits, fromIndex, toIndex);
+}
+
+static void copyBufferedResult(JNIEnv *env, jobject obj, jlong engineHandle,
+    jfloat scaleX, jfloat baselineShift, jintArray glyphIds, jfloatArray glyphOffsets,
+    jfloatArray glyphAdvances, jintArray clusterMap)
+{
+    auto shapingEngine = reinterpret_cast<ShapingEngine *>(engineHandle);
+    const ShapingResult &shapingResult = shapingEngine->bufferedResult();
+
+    auto glyphCount = static_cast<jint>(shapingResult.glyphCount());
+    jint charCount = shapingResult.charEnd() - shapingResult.charStart();
+
+    void *rawIds = env->GetPrimitiveArrayCritical(glyphIds, nullptr);
+    void *rawOffsets = env->GetPrimitiveArrayCritical(glyphOffsets, nullptr);
+    void *rawAdvances = env->GetPrimitiveArrayCritical(glyphAdvances, nullptr);
+    void *rawClusterMap = env->GetPrimitiveArrayCritical(clusterMap, nullptr);
+
+    auto offsets = static_cast<jfloat *>(rawOffsets);
+    auto advances = static_cast<jfloat *>(rawAdvances);
+
+    shapingResult.copyGlyphIds(0, glyphCount, static_cast<jint *>(rawIds));
+    shapingResult.copyGlyphOffsets(0, glyphCount, offsets);
+    shapingResult.copyGlyphAdvances(0, glyphCount, advances);
+    memcpy(rawClusterMap, shapingResult.clusterMapPtr(), static_cast<size_t>(charCount) * sizeof(jint));
+
+    if (scaleX != 1.0f || baselineShift != 0.0f) {
+        for (jint i = 0; i < glyphCount; i++) {
+            offsets[i * 2] *= scaleX;
+            offsets[i * 2 + 1] += baselineShift;
+            advances[i] *= scaleX;
+        }
+    }
+
+    env->ReleasePrimitiveArrayCritical(clusterMap, rawClusterMap, 0);
+    env->ReleasePrimitiveArrayCritical(glyphAdvances, rawAdvances, 0);
+    env->ReleasePrimitiveArrayCritical(glyphOffsets, rawOffsets, 0);
+    env->ReleasePrimitiveArrayCritical(glyphIds, rawIds, 0);
+}
+
+static jint shapeBuffered(JNIEnv *env, jobject obj, jlong engineHandle, const jchar *codeUnits,
+    jint fromIndex, jint toIndex, jfloat scaleX, jfloat baselineShift, jintArray glyphIds,
+    jfloatArray glyphOffsets, jfloatArray glyphAdvances, jintArray clusterMap)
+{
+    auto shapingEngine = reinterpret_cast<ShapingEngine *>(engineHandle);
+    ShapingResult &shapingResult = shapingEngine->bufferedResult();
+
+    shapingEngine->shapeText(shapingResult, codeUnits, fromIndex, toIndex);
+
+    /*
+     * NOTE:
+     *      The caller grows the arrays and copies the result separately in the rare case when the
+     *      glyphs do not fit in them.
+     */
+    auto glyphCount = static_cast<jint>(shapingResult.glyphCount());
+    if (glyphCount <= env->GetArrayLength(glyphIds)) {
+        copyBufferedResult(env, obj, engineHandle, scaleX, baselineShift,
+                           glyphIds, glyphOffsets, glyphAdvances, clusterMap);
+    }
+
+    return glyphCount;
+}
+
+static jint shapeChars(JNIEnv *env, jobject obj, jlong engineHandle, jcharArray chars,
+    jint fromIndex, jint toIndex, jfloat scaleX, jfloat baselineShift, jintArray glyphIds,
+    jfloatArray glyphOffsets, jfloatArray glyphAdvances, jintArray clusterMap)
+{
+    auto shapingEngine = reinterpret_cast<ShapingEngine *>(engineHandle);
+
+    jint length = toIndex - fromIndex;
+    jchar *codeUnits = shapingEngine->codeUnitBuffer(length);
+    env->GetCharArrayRegion(chars, fromIndex, length, codeUnits);
+
+    return shapeBuffered(env, obj, engineHandle, codeUnits, fromIndex, toIndex, scaleX,
+                         baselineShift, glyphIds, glyphOffsets, glyphAdvances, clusterMap);
+}
+
+static jint shapeString(JNIEnv *env, jobject obj, jlong engineHandle, jstring text,
+    jint fromIndex, jint toIndex, jfloat scaleX, jfloat baselineShift, jintArray glyphIds,
+    jfloatArray glyphOffsets, jfloatArray glyphAdvances, jintArray clusterMap)
+{
+    auto shapingEngine = reinterpret_cast<ShapingEngine *>(engineHandle);
+
+    jint length = toIndex - fromIndex;
+    jchar *codeUnits = shapingEngine->codeUnitBuffer(length);
+    env->GetStringRegion(text, fromIndex, length, codeUnits);
+
+    return shapeBuffered(env, obj, engineHandle, codeUnits, fromIndex, toIndex, scaleX,
+                         baselineShift, glyphIds, glyphOffsets, glyphAdvances, clusterMap);
+}
+
+static void copyBatchOutput(JNIEnv *env, jobject obj, jlong engineHandle, jintArray glyphStarts,
+    jintArray glyphIds, jfloatArray glyphOffsets, jfloatArray glyphAdvances, jintArray clusterMap)
+{
+    auto shapingEngine = reinterpret_cast<ShapingEngine *>(engineHandle);
+    const ShapingEngine::BatchOutput &output = shapingEngine->batchOutput();
+
+    auto runCount = static_cast<jsize>(output.glyphStarts.size());
+    auto glyphCount = static_cast<jsize>(output.glyphIds.size());
+    auto charCount = static_cast<jsize>(output.clusterMap.size());
+
+    env->SetIntArrayRegion(glyphStarts, 0, runCount, output.glyphStarts.data());
+    env->SetIntArrayRegion(glyphStarts, runCount, 1, &glyphCount);
+    env->SetIntArrayRegion(glyphIds, 0, glyphCount, output.glyphIds.data());
+    env->SetFloatArrayRegion(glyphOffsets, 0, glyphCount * 2, output.glyphOffsets.data());
+    env->SetFloatArrayRegion(glyphAdvances, 0, glyphCount, output.glyphAdvances.data());
+    env->SetIntArrayRegion(clusterMap, 0, charCount, output.clusterMap.data());
+}
 
-    shapingEngine->shapeText(*shapingResult, charArray, fromIndex, toIndex);
+static jint shapeRuns(JNIEnv *env, jobject obj, jlong engineHandle, jstring text,
+    jobjectArray typefaces, jintArray runSpecs, jfloatArray typeSizes, jint runCount,
+    jintArray glyphStarts, jintArray glyphIds, jfloatArray glyphOffsets,
+    jfloatArray glyphAdvances, jintArray clusterMap)
+{
+    auto shapingEngine = reinterpret_cast<ShapingEngine *>(engineHandle);
+    ShapingEngine::BatchOutput &output = shapingEngine->batchOutput();
+    output.clear();
+
+    JavaBridge bridge(env);
+    vector<Typeface *> nativeTypefaces(static_cast<size_t>(env->GetArrayLength(typefaces)), nullptr);
+
+    vector<jint> specs(static_cast<size_t>(runCount) * 6);
+    vector<jfloat> sizes(static_cast<size_t>(runCount));
+    env->GetIntArrayRegion(runSpecs, 0, runCount * 6, specs.data());
+    env->GetFloatArrayRegion(typeSizes, 0, runCount, sizes.data());
+
+    for (jint i = 0; i < runCount; i++) {
+        const jint *spec = &specs[i * 6];
+        jint charStart = spec[0];
+        jint charEnd = spec[1];
+        jint typefaceIndex = spec[2];
+
+        Typeface *&typeface = nativeTypefaces[typefaceIndex];
+        if (!typeface) {
+            jobject jtypeface = env->GetObjectArrayElement(typefaces, typefaceIndex);
+            typeface = reinterpret_cast<Typeface *>(bridge.Typeface_getNativeTypeface(jtypeface));
+            env->DeleteLocalRef(jtypeface);
+        }
+
+        jint length = charEnd - charStart;
+        jchar *codeUnits = shapingEngine->codeUnitBuffer(length);
+        env->GetStringRegion(text, charStart, length, codeUnits);
+
+        shapingEngine->shapeBatchRun(typeface, sizes[i],
+                                     static_cast<uint32_t>(spec[3]), static_cast<uint32_t>(spec[4]),
+                                     static_cast<WritingDirection>(spec[5] & 1),
+                                     static_cast<ShapingOrder>((spec[5] >> 1) & 1),
+                                     codeUnits, charStart, charEnd);
+    }
+
+    /*
+     * NOTE:
+     *      The caller grows the arrays and copies the output separately in the rare case when the
+     *      glyphs do not fit in them.
+     */
+    auto glyphCount = static_cast<jint>(output.glyphIds.size());
+    if (glyphCount <= env->GetArrayLength(glyphIds)) {
+        copyBatchOutput(env, obj, engineHandle, glyphStarts, glyphIds, glyphOffsets, glyphAdvances, clusterMap);
+    }
 
-    env->ReleaseStringChars(text, charArray);
+    return glyphCount;
 }
 
 static JNINativeMethod JNI_METHODS[] = {
     { "nCreate", "()J", (void *)create },
     { "nDispose", "(J)V", (void *)dispose },
     { "nGetScriptDefaultDirection", "(I)I", (void *)getScriptDefaultDirection },
+    { "nGetShapePlanHitCount", "()J", (void *)getShapePlanHitCount },
+    { "nGetShapePlanMissCount", "()J", (void *)getShapePlanMissCount },
+    { "nResetShapePlanCounts", "()V", (void *)resetShapePlanCounts },
     { "nSetTypeface", "(JLcom/mta/tehreer/graphics/Typeface;)V", (void *)setTypeface },
     { "nGetTypeSize", "(J)F", (void *)getTypeSize },
     { "nSetTypeSize", "(JF)V", (void *)setTypeSize },
@@ -289,6 +555,11 @@ static JNINativeMethod JNI_METHODS[] = {
     { "nGetShapingOrder", "(J)I", (void *)getShapingOrder },
     { "nSetShapingOrder", "(JI)V", (void *)setShapingOrder },
     { "nShapeText", "(JJLjava/lang/String;II)V", (void *)shapeText },
+    { "nShapeChars", "(J[CIIFF[I[F[F[I)I", (void *)shapeChars },
+    { "nShapeString", "(JLjava/lang/String;IIFF[I[F[F[I)I", (void *)shapeString },
+    { "nCopyBufferedResult", "(JFF[I[F[F[I)V", (void *)copyBufferedResult },
+    { "nShapeRuns", "(JLjava/lang/String;[Lcom/mta/tehreer/graphics/Typeface;[I[FI[I[I[F[F[I)I", (void *)shapeRuns },
+    { "nCopyBatchOutput", "(J[I[I[F[F[I)V", (void *)copyBatchOutput },
 };
 
 jint register_com_mta_tehreer_sfnt_ShapingEngine(JNIEnv *env)
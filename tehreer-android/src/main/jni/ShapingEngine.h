@@ -22,6 +22,7 @@
 #include <memory>
 #include <vector>
 
+#include "FeatureSet.h"
 #include "Typeface.h"
 #include "ShapingResult.h"
 
@@ -39,6 +40,16 @@ enum WritingDirection : uint32_t {
 
 class ShapingEngine {
 public:
+    struct BatchOutput {
+        std::vector<jint> glyphStarts;
+        std::vector<jint> glyphIds;
+        std::vector<jfloat> glyphOffsets;
+        std::vector<jfloat> glyphAdvances;
+        std::vector<jint> clusterMap;
+
+        void clear();
+    };
+
     static WritingDirection getScriptDefaultDirection(uint32_t scriptTag);
 
     ShapingEngine();
@@ -56,7 +67,8 @@ public:
     uint32_t languageTag() const { return m_languageTag; }
     void setLanguageTag(uint32_t languageTag) { m_languageTag = languageTag; }
 
-    void setOpenTypeFeatures(const std::vector<uint32_t> &featureTags, const std::vector<uint16_t> &featureValues);
+    const FeatureSet &openTypeFeatures() const { return *m_featureSet; }
+    void setOpenTypeFeatures(const uint32_t *featureTags, const uint16_t *featureValues, size_t featureCount);
 
     ShapingOrder shapingOrder() const { return m_shapingOrder; }
     void setShapingOrder(ShapingOrder shapingOrder);
@@ -64,19 +76,38 @@ public:
     WritingDirection writingDirection() const { return m_writingDirection; }
     void setWritingDirection(WritingDirection writingDirection);
 
-    void shapeText(ShapingResult &shapingResult, const jchar *charArray, jint charStart, jint charEnd);
+    jchar *codeUnitBuffer(jint length);
+    ShapingResult &bufferedResult() { return m_bufferedResult; }
+    BatchOutput &batchOutput() { return m_batchOutput; }
+
+    void shapeText(ShapingResult &shapingResult, const jchar *codeUnits, jint charStart, jint charEnd);
+    void shapeBatchRun(Typeface *typeface, jfloat typeSize, uint32_t scriptTag, uint32_t languageTag,
+                       WritingDirection writingDirection, ShapingOrder shapingOrder,
+                       const jchar *codeUnits, jint charStart, jint charEnd);
 
 private:
     Typeface *m_typeface;
     jfloat m_typeSize;
     uint32_t m_scriptTag;
     uint32_t m_languageTag;
-    std::vector<uint32_t> m_featureTags;
-    std::vector<uint16_t> m_featureValues;
+    const FeatureSet *m_featureSet;
     ShapingOrder m_shapingOrder;
     WritingDirection m_writingDirection;
+    std::vector<jchar> m_codeUnits;
+    ShapingResult m_bufferedResult;
+    BatchOutput m_batchOutput;
+
+    /* The configuration whose shape plan has already been resolved by this engine. */
+    struct PlanKey {
+        const Typeface *typeface;
+        const FeatureSet *featureSet;
+        uint32_t scriptTag;
+        uint32_t languageTag;
+        WritingDirection writingDirection;
+    } m_planKey;
 
     bool isRTL();
+    bool resolvePlanKey();
 };
 
 }
@@ -27,13 +27,19 @@ void *StreamUtils::toRawBuffer(const JavaBridge &bridge, jobject stream, size_t
 {
     JNIEnv *env = bridge.env();
 
-    const jint chunkLength = 4096;
+    /* Larger chunks keep the number of calls into the stream low for big fonts. */
+    const jint chunkLength = 64 * 1024;
     jbyteArray chunkArray = env->NewByteArray(chunkLength);
 
-    size_t bufferCapacity = chunkLength;
+    /*
+     * NOTE:
+     *      Most of the streams of files and assets report their whole length as available, so the
+     *      buffer can be allocated upfront, avoiding reallocations while reading.
+     */
+    jint available = bridge.InputStream_available(stream);
+    size_t bufferCapacity = static_cast<size_t>(available > 0 ? available : chunkLength);
     void *streamBuffer = malloc(bufferCapacity);
 
-    size_t bufferOffset = 0;
     *length = 0;
 
     jint bytesRead;
@@ -48,13 +54,17 @@ void *StreamUtils::toRawBuffer(const JavaBridge &bridge, jobject stream, size_t
             streamBuffer = realloc(streamBuffer, bufferCapacity);
         }
 
-        void *chunkData = env->GetPrimitiveArrayCritical(chunkArray, nullptr);
-        memcpy((uint8_t *)streamBuffer + bufferOffset, chunkData, (size_t)bytesRead);
-        env->ReleasePrimitiveArrayCritical(chunkArray, chunkData, 0);
+        auto target = reinterpret_cast<jbyte *>(static_cast<uint8_t *>(streamBuffer) + *length);
+        env->GetByteArrayRegion(chunkArray, 0, bytesRead, target);
 
-        bufferOffset += bytesRead;
         *length = newLength;
     }
 
+    env->DeleteLocalRef(chunkArray);
+
+    if (*length == bufferCapacity) {
+        return streamBuffer;
+    }
+
     return realloc(streamBuffer, *length);
 }
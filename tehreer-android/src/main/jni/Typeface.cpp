@@ -152,8 +152,11 @@ Typeface::Typeface(RenderableFace &renderableFace)
     , m_palette({})
 {
     setupSize();
+    setupDefaultCoordinates();
     setupHarfBuzz();
     setupDefaultDescription();
+    setupDefaultPalette();
+    setupStrikeout();
 }
 
 Typeface::Typeface(const Typeface &parent, RenderableFace &renderableFace)
@@ -168,6 +171,7 @@ Typeface::Typeface(const Typeface &parent, RenderableFace &renderableFace)
 {
     setupSize();
     setupHarfBuzz(parent.m_shapableFace);
+    setupStrikeout();
 }
 
 Typeface::Typeface(const Typeface &parent, const FT_Color *colorArray, size_t colorCount)
@@ -184,14 +188,35 @@ Typeface::Typeface(const Typeface &parent, const FT_Color *colorArray, size_t co
     setupColors(colorArray, colorCount);
 }
 
-void Typeface::setupCoordinates(const float *coordArray, size_t coordCount)
+void Typeface::setupSize()
 {
-    m_renderableFace.setupCoordinates(coordArray, coordCount);
+    FT_New_Size(m_renderableFace.ftFace(), &m_ftSize);
 }
 
-void Typeface::setupSize()
+void Typeface::setupDefaultCoordinates()
 {
-    FT_New_Size(m_renderableFace.ftFace(), &m_ftSize);
+    FT_Face ftFace = m_renderableFace.ftFace();
+    if (!FT_HAS_MULTIPLE_MASTERS(ftFace)) {
+        return;
+    }
+
+    FT_MM_Var *mmVar;
+    if (FT_Get_MM_Var(ftFace, &mmVar) != FT_Err_Ok) {
+        return;
+    }
+
+    size_t axisCount = mmVar->num_axis;
+    if (axisCount > 0) {
+        float coordArray[axisCount];
+
+        for (size_t i = 0; i < axisCount; i++) {
+            coordArray[i] = f16Dot16toFloat(mmVar->axis[i].def);
+        }
+
+        m_renderableFace.setupCoordinates(coordArray, axisCount);
+    }
+
+    FT_Done_MM_Var(FreeType::library(), mmVar);
 }
 
 void Typeface::setupDefaultDescription()
@@ -233,6 +258,22 @@ void Typeface::setupDefaultDescription()
     m_defaults.description = description;
 }
 
+void Typeface::setupDefaultPalette()
+{
+    FT_Face ftFace = m_renderableFace.ftFace();
+    FT_Palette_Data paletteData;
+
+    if (FT_Palette_Data_Get(ftFace, &paletteData) != FT_Err_Ok || paletteData.num_palettes == 0) {
+        return;
+    }
+
+    /* NOTE: Selecting a palette reloads its original colors from the CPAL table. */
+    FT_Color *colorArray;
+    if (FT_Palette_Select(ftFace, 0, &colorArray) == FT_Err_Ok) {
+        setupColors(colorArray, paletteData.num_palette_entries);
+    }
+}
+
 void Typeface::setupStrikeout()
 {
     FT_Face ftFace = m_renderableFace.ftFace();
@@ -320,10 +361,18 @@ FT_Stroker Typeface::ftStroker()
 
 size_t Typeface::getTableLength(uint32_t tag)
 {
+    FontFile &fontFile = m_renderableFace.fontFile();
+    FT_Long faceIndex = m_renderableFace.ftFace()->face_index;
+    FT_ULong offset = 0;
+    FT_ULong length = 0;
+
+    if (fontFile.locateTable(faceIndex, tag, &offset, &length)) {
+        return length;
+    }
+
     FaceLock lock(m_renderableFace);
     FT_Face ftFace = m_renderableFace.ftFace();
 
-    FT_ULong length = 0;
     FT_Load_Sfnt_Table(ftFace, tag, 0, nullptr, &length);
 
     return length;
@@ -331,6 +380,17 @@ size_t Typeface::getTableLength(uint32_t tag)
 
 void Typeface::getTableData(uint32_t tag, void *buffer)
 {
+    FontFile &fontFile = m_renderableFace.fontFile();
+    FT_Long faceIndex = m_renderableFace.ftFace()->face_index;
+    FT_ULong offset = 0;
+    FT_ULong length = 0;
+
+    /* Copy the table right from the font data without locking the face if possible. */
+    if (fontFile.locateTable(faceIndex, tag, &offset, &length)) {
+        memcpy(buffer, fontFile.data() + offset, length);
+        return;
+    }
+
     FaceLock lock(m_renderableFace);
     FT_Face ftFace = m_renderableFace.ftFace();
 
@@ -377,13 +437,35 @@ jstring Typeface::getNameString(const JavaBridge &javaBridge, int32_t nameIndex)
 }
 
 uint16_t Typeface::getGlyphID(uint32_t codePoint)
+{
+    return m_shapableFace->getGlyphID(codePoint);
+}
+
+vector<uint32_t> Typeface::getCoverageRanges()
 {
     FaceLock lock(m_renderableFace);
 
     FT_Face ftFace = m_renderableFace.ftFace();
-    FT_UInt glyphID = FT_Get_Char_Index(ftFace, codePoint);
+    vector<uint32_t> ranges;
+
+    FT_UInt glyphIndex;
+    FT_ULong codePoint = FT_Get_First_Char(ftFace, &glyphIndex);
+
+    /* Merge the consecutive code points into inclusive start and end pairs. */
+    while (glyphIndex != 0) {
+        auto current = static_cast<uint32_t>(codePoint);
+
+        if (!ranges.empty() && ranges.back() + 1 == current) {
+            ranges.back() = current;
+        } else {
+            ranges.push_back(current);
+            ranges.push_back(current);
+        }
 
-    return static_cast<uint16_t>(glyphID);
+        codePoint = FT_Get_Next_Char(ftFace, codePoint, &glyphIndex);
+    }
+
+    return ranges;
 }
 
 float Typeface::getGlyphAdvance(uint16_t glyphID, float typeSize, bool vertical)
@@ -406,11 +488,11 @@ float Typeface::getGlyphAdvance(uint16_t glyphID, float typeSize, bool vertical)
     return f16Dot16toFloat(advance);
 }
 
-jobject Typeface::unsafeGetGlyphPath(JavaBridge bridge, uint16_t glyphID)
+jobject Typeface::unsafeGetGlyphPath(JavaBridge bridge, FT_Face ftFace, uint16_t glyphID)
 {
     jobject glyphPath = nullptr;
 
-    FT_Error error = FT_Load_Glyph(ftFace(), glyphID, FT_LOAD_NO_BITMAP);
+    FT_Error error = FT_Load_Glyph(ftFace, glyphID, FT_LOAD_NO_BITMAP);
     if (error == FT_Err_Ok) {
         struct PathContext {
             JavaBridge bridge;
@@ -454,7 +536,7 @@ jobject Typeface::unsafeGetGlyphPath(JavaBridge bridge, uint16_t glyphID)
 
         PathContext context = { bridge, bridge.Path_construct() };
 
-        FT_Outline *outline = &ftFace()->glyph->outline;
+        FT_Outline *outline = &ftFace->glyph->outline;
         error = FT_Outline_Decompose(outline, &funcs, &context);
         if (error == FT_Err_Ok) {
             glyphPath = context.path;
@@ -495,7 +577,7 @@ jobject Typeface::getGlyphPath(JavaBridge bridge, uint16_t glyphID, float typeSi
     FT_Set_Char_Size(ftFace, 0, toF26Dot6(typeSize), 0, 0);
     FT_Set_Transform(ftFace, &matrix, &delta);
 
-    return unsafeGetGlyphPath(bridge, glyphID);
+    return unsafeGetGlyphPath(bridge, ftFace, glyphID);
 }
 
 static jlong createWithAsset(JNIEnv *env, jobject obj, jobject assetManager, jstring path)
@@ -506,6 +588,10 @@ static jlong createWithAsset(JNIEnv *env, jobject obj, jobject assetManager, jst
         FontFile *fontFile = FontFile::createFromAsset(nativeAssetManager, utfChars);
         Typeface *typeface = Typeface::createFromFile(fontFile, 0);
 
+        if (fontFile) {
+            fontFile->release();
+        }
+
         env->ReleaseStringUTFChars(path, utfChars);
 
         return reinterpret_cast<jlong>(typeface);
@@ -521,6 +607,10 @@ static jlong createWithFile(JNIEnv *env, jobject obj, jstring path)
         FontFile *fontFile = FontFile::createFromPath(utfChars);
         Typeface *typeface = Typeface::createFromFile(fontFile, 0);
 
+        if (fontFile) {
+            fontFile->release();
+        }
+
         env->ReleaseStringUTFChars(path, utfChars);
 
         return reinterpret_cast<jlong>(typeface);
@@ -535,52 +625,30 @@ static jlong createFromStream(JNIEnv *env, jobject obj, jobject stream)
         FontFile *fontFile = FontFile::createFromStream(JavaBridge(env), stream);
         Typeface *typeface = Typeface::createFromFile(fontFile, 0);
 
+        if (fontFile) {
+            fontFile->release();
+        }
+
         return reinterpret_cast<jlong>(typeface);
     }
 
     return 0;
 }
 
-void setupCoordinates(JNIEnv *env, jobject obj, jlong typefaceHandle, jfloatArray coordinates)
+static jlong createFromBuffer(JNIEnv *env, jobject obj, jobject buffer, jint offset, jint length)
 {
-    auto typeface = reinterpret_cast<Typeface *>(typefaceHandle);
-
-    jint coordLength = env->GetArrayLength(coordinates);
-    void *coordBuffer = env->GetPrimitiveArrayCritical(coordinates, nullptr);
-
-    auto *coordArray = static_cast<float *>(coordBuffer);
-    auto coordCount = static_cast<size_t>(coordLength);
-
-    typeface->setupCoordinates(coordArray, coordCount);
-
-    env->ReleasePrimitiveArrayCritical(coordinates, coordBuffer, 0);
-}
-
-void setupStrikeout(JNIEnv *env, jobject obj, jlong typefaceHandle)
-{
-    auto typeface = reinterpret_cast<Typeface *>(typefaceHandle);
-    typeface->setupStrikeout();
-}
-
-void setupColors(JNIEnv *env, jobject obj, jlong typefaceHandle, jintArray colors)
-{
-    auto typeface = reinterpret_cast<Typeface *>(typefaceHandle);
-
-    jint numColors = env->GetArrayLength(colors);
-    void *colorBuffer = env->GetPrimitiveArrayCritical(colors, nullptr);
-
-    auto *intColors = static_cast<uint32_t *>(colorBuffer);
-    auto colorCount = static_cast<size_t>(numColors);
+    if (buffer) {
+        FontFile *fontFile = FontFile::createFromBuffer(JavaBridge(env), buffer, offset, length);
+        Typeface *typeface = Typeface::createFromFile(fontFile, 0);
 
-    FT_Color colorArray[colorCount];
+        if (fontFile) {
+            fontFile->release();
+        }
 
-    for (size_t i = 0; i < colorCount; i++) {
-        colorArray[i] = toFTColor(intColors[i]);
+        return reinterpret_cast<jlong>(typeface);
     }
 
-    typeface->setupColors(colorArray, colorCount);
-
-    env->ReleasePrimitiveArrayCritical(colors, colorBuffer, 0);
+    return 0;
 }
 
 static void dispose(JNIEnv *env, jobject obj, jlong typefaceHandle)
@@ -646,6 +714,12 @@ static jint getDefaultSlope(JNIEnv *env, jobject obj, jlong typefaceHandle)
     return static_cast<jint>(slope);
 }
 
+static jboolean isVariable(JNIEnv *env, jobject obj, jlong typefaceHandle)
+{
+    auto typeface = reinterpret_cast<Typeface *>(typefaceHandle);
+    return static_cast<jboolean>(typeface->isVariable());
+}
+
 static jlong getVariationInstance(JNIEnv *env, jobject obj, jlong typefaceHandle, jfloatArray coordinates)
 {
     auto typeface = reinterpret_cast<Typeface *>(typefaceHandle);
@@ -730,6 +804,30 @@ static jbyteArray getTableData(JNIEnv *env, jobject obj, jlong typefaceHandle, j
     return dataArray;
 }
 
+static jlong getSharedTableSize(JNIEnv *env, jobject obj, jlong typefaceHandle)
+{
+    auto typeface = reinterpret_cast<Typeface *>(typefaceHandle);
+    size_t sharedTableSize = typeface->shapableFace().sharedTableSize();
+
+    return static_cast<jlong>(sharedTableSize);
+}
+
+static jboolean hasSpaceLookups(JNIEnv *env, jobject obj, jlong typefaceHandle)
+{
+    auto typeface = reinterpret_cast<Typeface *>(typefaceHandle);
+    bool hasLookups = typeface->shapableFace().hasSpaceLookups();
+
+    return static_cast<jboolean>(hasLookups);
+}
+
+static jboolean hasSizedDevices(JNIEnv *env, jobject obj, jlong typefaceHandle)
+{
+    auto typeface = reinterpret_cast<Typeface *>(typefaceHandle);
+    bool hasDevices = typeface->shapableFace().hasSizedDevices();
+
+    return static_cast<jboolean>(hasDevices);
+}
+
 static jint getUnitsPerEm(JNIEnv *env, jobject obj, jlong typefaceHandle)
 {
     auto typeface = reinterpret_cast<Typeface *>(typefaceHandle);
@@ -779,6 +877,20 @@ static jint getGlyphId(JNIEnv *env, jobject obj, jlong typefaceHandle, jint code
     return static_cast<jint>(glyphId);
 }
 
+static jintArray getCoverageRanges(JNIEnv *env, jobject obj, jlong typefaceHandle)
+{
+    auto typeface = reinterpret_cast<Typeface *>(typefaceHandle);
+    vector<uint32_t> ranges = typeface->getCoverageRanges();
+
+    auto length = static_cast<jsize>(ranges.size());
+    jintArray rangeArray = env->NewIntArray(length);
+    if (rangeArray && length > 0) {
+        env->SetIntArrayRegion(rangeArray, 0, length, reinterpret_cast<const jint *>(ranges.data()));
+    }
+
+    return rangeArray;
+}
+
 static jfloat getGlyphAdvance(JNIEnv *env, jobject obj, jlong typefaceHandle,
     jint glyphId, jfloat typeSize, jboolean vertical)
 {
@@ -848,9 +960,7 @@ static JNINativeMethod JNI_METHODS[] = {
     { "nCreateWithAsset", "(Landroid/content/res/AssetManager;Ljava/lang/String;)J", (void *)createWithAsset },
     { "nCreateWithFile", "(Ljava/lang/String;)J", (void *)createWithFile },
     { "nCreateFromStream", "(Ljava/io/InputStream;)J", (void *)createFromStream },
-    { "nSetupCoordinates", "(J[F)V", (void *)setupCoordinates },
-    { "nSetupStrikeout", "(J)V", (void *)setupStrikeout },
-    { "nSetupColors", "(J[I)V", (void *)setupColors },
+    { "nCreateFromBuffer", "(Ljava/nio/ByteBuffer;II)J", (void *)createFromBuffer },
     { "nDispose", "(J)V", (void *)dispose },
     { "nSearchNameString", "(JI)Ljava/lang/String;", (void *)searchNameString },
     { "nGetDefaultFamilyName", "(J)Ljava/lang/String;", (void *)getDefaultFamilyName },
@@ -859,17 +969,22 @@ static JNINativeMethod JNI_METHODS[] = {
     { "nGetDefaultWeight", "(J)I", (void *)getDefaultWeight },
     { "nGetDefaultWidth", "(J)I", (void *)getDefaultWidth },
     { "nGetDefaultSlope", "(J)I", (void *)getDefaultSlope },
+    { "nIsVariable", "(J)Z", (void *)isVariable },
     { "nGetVariationInstance", "(J[F)J", (void *)getVariationInstance },
     { "nGetVariationCoordinates", "(J[F)V", (void *)getVariationCoordinates },
     { "nGetColorInstance", "(J[I)J", (void *)getColorInstance },
     { "nGetAssociatedColors", "(J[I)V", (void *)getAssociatedColors },
     { "nGetTableData", "(JI)[B", (void *)getTableData },
+    { "nGetSharedTableSize", "(J)J", (void *)getSharedTableSize },
+    { "nHasSpaceLookups", "(J)Z", (void *)hasSpaceLookups },
+    { "nHasSizedDevices", "(J)Z", (void *)hasSizedDevices },
     { "nGetUnitsPerEm", "(J)I", (void *)getUnitsPerEm },
     { "nGetAscent", "(J)I", (void *)getAscent },
     { "nGetDescent", "(J)I", (void *)getDescent },
     { "nGetLeading", "(J)I", (void *)getLeading },
     { "nGetGlyphCount", "(J)I", (void *)getGlyphCount },
     { "nGetGlyphId", "(JI)I", (void *)getGlyphId },
+    { "nGetCoverageRanges", "(J)[I", (void *)getCoverageRanges },
     { "nGetGlyphAdvance", "(JIFZ)F", (void *)getGlyphAdvance },
     { "nGetGlyphPath", "(JIF[F)Landroid/graphics/Path;", (void *)getGlyphPath },
     { "nGetBoundingBox", "(JLandroid/graphics/Rect;)V", (void *)getBoundingBox },
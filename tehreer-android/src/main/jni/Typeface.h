@@ -51,10 +51,6 @@ public:
 
     static Typeface *createFromFile(FontFile *fontFile, FT_Long faceIndex);
 
-    void setupCoordinates(const float *coordArray, size_t coordCount);
-    void setupStrikeout();
-    void setupColors(const FT_Color *colorArray, size_t colorCount);
-
     ~Typeface();
 
     Typeface *deriveVariation(const float *coordArray, size_t coordCount);
@@ -71,6 +67,7 @@ public:
     inline ShapableFace &shapableFace() const { return *m_shapableFace; }
     inline hb_font_t *hbFont() const { return shapableFace().hbFont(); }
 
+    inline bool isVariable() const { return coordinates() != nullptr; }
     inline const CoordArray *coordinates() const { return m_renderableFace.coordinates(); }
     inline const Palette *palette() const { return m_palette.size() == 0 ? nullptr : &m_palette; }
 
@@ -103,9 +100,10 @@ public:
     jstring getNameString(const JavaBridge &javaBridge, int32_t nameIndex);
 
     uint16_t getGlyphID(uint32_t codePoint);
+    std::vector<uint32_t> getCoverageRanges();
     float getGlyphAdvance(uint16_t glyphID, float typeSize, bool vertical);
 
-    jobject unsafeGetGlyphPath(JavaBridge bridge, uint16_t glyphID);
+    jobject unsafeGetGlyphPath(JavaBridge bridge, FT_Face ftFace, uint16_t glyphID);
     jobject getGlyphPath(JavaBridge bridge, uint16_t glyphID, float typeSize, float *transform);
 
 private:
@@ -153,8 +151,12 @@ private:
     Typeface(const Typeface &parent, const FT_Color *colorArray, size_t colorCount);
 
     void setupSize();
+    void setupDefaultCoordinates();
     void setupDefaultDescription();
+    void setupDefaultPalette();
+    void setupStrikeout();
     void setupHarfBuzz(ShapableFace *parent = nullptr);
+    void setupColors(const FT_Color *colorArray, size_t colorCount);
 };
 
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Test
+
+class GlyphBoundsTableTest {
+    private fun pack(left: Int, top: Int, right: Int, bottom: Int): Long {
+        return ((left.toLong() and 0xFFFF) shl 48) or
+            ((top.toLong() and 0xFFFF) shl 32) or
+            ((right.toLong() and 0xFFFF) shl 16) or
+            (bottom.toLong() and 0xFFFF)
+    }
+
+    @Test
+    fun testUnpackSignedValues() {
+        val bounds = pack(-3, 12, 7, -1)
+
+        assertEquals(-3, GlyphBounds.left(bounds))
+        assertEquals(12, GlyphBounds.top(bounds))
+        assertEquals(7, GlyphBounds.right(bounds))
+        assertEquals(-1, GlyphBounds.bottom(bounds))
+    }
+
+    @Test
+    fun testMissingEntriesAreUnknown() {
+        val table = GlyphBoundsTable()
+        table.set(10, pack(1, 2, 3, 4))
+
+        assertEquals(GlyphBounds.UNKNOWN, table[0])
+        assertEquals(GlyphBounds.UNKNOWN, table[11])
+        assertEquals(GlyphBounds.UNKNOWN, table[0xFFFF])
+    }
+
+    @Test
+    fun testStoredEntriesAreReturned() {
+        val table = GlyphBoundsTable()
+        val first = pack(0, 0, 0, 0)
+        val last = pack(-5, 20, 15, 30)
+
+        table.set(0, first)
+        table.set(0xFFFF, last)
+
+        assertEquals(first, table[0])
+        assertEquals(last, table[0xFFFF])
+    }
+
+    @Test
+    fun testNewPageIsReportedOnce() {
+        val table = GlyphBoundsTable()
+
+        assertNotNull(table.set(1, 0L))
+        assertNull(table.set(2, 0L))
+        assertNotNull(table.set(256, 0L))
+    }
+
+    @Test
+    fun testRemovedPageForgetsEntries() {
+        val table = GlyphBoundsTable()
+        val page = table.set(300, 0L)!!
+
+        table.removePage(GlyphBoundsTable.pageIndex(300), page)
+
+        assertEquals(GlyphBounds.UNKNOWN, table[300])
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class GlyphCacheStatsTest {
+    private static GlyphCacheStats createStats(long[] histogram) {
+        int kindCount = GlyphCacheStats.Kind.values().length;
+        long[] hitCounts = new long[kindCount];
+        long[] missCounts = new long[kindCount];
+
+        hitCounts[GlyphCacheStats.Kind.MASK.ordinal()] = 3;
+        missCounts[GlyphCacheStats.Kind.MASK.ordinal()] = 1;
+
+        return new GlyphCacheStats(hitCounts, missCounts, 0, 0, 0, 0, 0, 0, 0, histogram);
+    }
+
+    @Test
+    public void testHitRate() {
+        GlyphCacheStats stats = createStats(new long[GlyphCacheStats.HISTOGRAM_SIZE]);
+
+        assertEquals(3, stats.getHitCount(GlyphCacheStats.Kind.MASK));
+        assertEquals(1, stats.getMissCount(GlyphCacheStats.Kind.MASK));
+        assertEquals(0.75f, stats.getHitRate(), 0.0f);
+    }
+
+    @Test
+    public void testHistogramBucket() {
+        assertEquals(0, GlyphCacheStats.histogramBucket(0));
+        assertEquals(0, GlyphCacheStats.histogramBucket(1));
+        assertEquals(10, GlyphCacheStats.histogramBucket(1024));
+        assertEquals(GlyphCacheStats.HISTOGRAM_SIZE - 1, GlyphCacheStats.histogramBucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testRasterizationTimePercentile() {
+        long[] histogram = new long[GlyphCacheStats.HISTOGRAM_SIZE];
+        histogram[10] = 90;
+        histogram[20] = 10;
+
+        GlyphCacheStats stats = createStats(histogram);
+
+        assertEquals(1L << 11, stats.getRasterizationTimePercentile(50.0f));
+        assertEquals(1L << 11, stats.getRasterizationTimePercentile(90.0f));
+        assertEquals(1L << 21, stats.getRasterizationTimePercentile(99.0f));
+    }
+
+    @Test
+    public void testEmptyPercentile() {
+        GlyphCacheStats stats = createStats(new long[GlyphCacheStats.HISTOGRAM_SIZE]);
+        assertEquals(0, stats.getRasterizationTimePercentile(50.0f));
+    }
+}
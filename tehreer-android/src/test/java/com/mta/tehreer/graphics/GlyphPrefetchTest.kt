@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics
+
+import com.mta.tehreer.collections.IntList
+import org.junit.Assert.assertArrayEquals
+import org.junit.Test
+
+class GlyphPrefetchTest {
+    @Test
+    fun testDistinctGlyphIds() {
+        val glyphIds = IntList.of(7, 3, 7, 1, 3, 3, 9)
+
+        assertArrayEquals(intArrayOf(1, 3, 7, 9), GlyphPrefetch.distinctGlyphIds(glyphIds))
+    }
+
+    @Test
+    fun testDistinctGlyphIdsOfEmptyList() {
+        assertArrayEquals(intArrayOf(), GlyphPrefetch.distinctGlyphIds(IntList.of()))
+    }
+}
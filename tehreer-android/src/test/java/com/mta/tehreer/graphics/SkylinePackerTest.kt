@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class SkylinePackerTest {
+    private class Area(val x: Int, val y: Int, val width: Int, val height: Int) {
+        fun intersects(other: Area): Boolean {
+            return x < other.x + other.width && other.x < x + width
+                && y < other.y + other.height && other.y < y + height
+        }
+    }
+
+    @Test
+    fun testFirstRectangleIsPlacedAtOrigin() {
+        val packer = SkylinePacker(64, 64)
+        val position = packer.pack(10, 20)
+
+        assertEquals(0, SkylinePacker.unpackX(position))
+        assertEquals(0, SkylinePacker.unpackY(position))
+    }
+
+    @Test
+    fun testRectanglesFillRowBeforeMovingUp() {
+        val packer = SkylinePacker(32, 32)
+
+        val first = packer.pack(16, 8)
+        val second = packer.pack(16, 8)
+        val third = packer.pack(16, 8)
+
+        assertEquals(0, SkylinePacker.unpackY(first))
+        assertEquals(16, SkylinePacker.unpackX(second))
+        assertEquals(0, SkylinePacker.unpackY(second))
+        assertEquals(8, SkylinePacker.unpackY(third))
+    }
+
+    @Test
+    fun testOversizedRectangleIsRejected() {
+        val packer = SkylinePacker(32, 32)
+
+        assertEquals(-1, packer.pack(33, 1))
+        assertEquals(-1, packer.pack(1, 33))
+        assertEquals(-1, packer.pack(0, 1))
+    }
+
+    @Test
+    fun testPackedRectanglesDoNotOverlap() {
+        val packer = SkylinePacker(128, 128)
+        val areas = ArrayList<Area>()
+
+        for (i in 0 until 200) {
+            val width = 3 + (i * 7) % 13
+            val height = 2 + (i * 5) % 11
+            val position = packer.pack(width, height)
+            if (position < 0) {
+                break
+            }
+
+            val area = Area(
+                SkylinePacker.unpackX(position), SkylinePacker.unpackY(position),
+                width, height
+            )
+            assertTrue(area.x + area.width <= 128)
+            assertTrue(area.y + area.height <= 128)
+
+            for (other in areas) {
+                assertFalse(area.intersects(other))
+            }
+            areas.add(area)
+        }
+
+        assertTrue(areas.size > 50)
+    }
+
+    @Test
+    fun testFullAreaRejectsMoreRectangles() {
+        val packer = SkylinePacker(16, 16)
+
+        for (i in 0 until 4) {
+            assertTrue(packer.pack(8, 8) >= 0)
+        }
+
+        assertEquals(-1, packer.pack(1, 1))
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics
+
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class TypefaceDescriptorTest {
+    private fun descriptor(
+        styleName: String,
+        weight: TypeWeight = TypeWeight.REGULAR,
+        slope: TypeSlope = TypeSlope.PLAIN,
+        coverageRanges: IntArray = IntArray(0)
+    ): TypefaceDescriptor {
+        return TypefaceDescriptor(
+            "Family", styleName, "Family $styleName",
+            weight, TypeWidth.NORMAL, slope, null, coverageRanges,
+            TypefaceDescriptor.Loader { throw AssertionError("Typeface must not be loaded") }
+        )
+    }
+
+    @Test
+    fun testCodePointCoverage() {
+        val ranges = intArrayOf(0x20, 0x7E, 0x600, 0x6FF, 0x1F600, 0x1F600)
+        val descriptor = descriptor("Regular", coverageRanges = ranges)
+
+        assertTrue(descriptor.hasCodePoint(0x20))
+        assertTrue(descriptor.hasCodePoint(0x41))
+        assertTrue(descriptor.hasCodePoint(0x6FF))
+        assertTrue(descriptor.hasCodePoint(0x1F600))
+
+        assertFalse(descriptor.hasCodePoint(0x1F))
+        assertFalse(descriptor.hasCodePoint(0x7F))
+        assertFalse(descriptor.hasCodePoint(0x700))
+        assertFalse(descriptor.hasCodePoint(0x1F601))
+    }
+
+    @Test
+    fun testEmptyCoverage() {
+        assertFalse(descriptor("Regular").hasCodePoint(0x41))
+    }
+
+    @Test
+    fun testStyleIsResolvedWithoutLoading() {
+        val regular = descriptor("Regular")
+        val bold = descriptor("Bold", weight = TypeWeight.BOLD)
+        val italic = descriptor("Italic", slope = TypeSlope.ITALIC)
+        val family = TypeFamily.ofDescriptors("Family", listOf(regular, bold, italic))
+
+        val boldMatch = family.getDescriptorByStyle(
+            TypeWidth.NORMAL, TypeWeight.SEMI_BOLD, TypeSlope.PLAIN
+        )
+        val italicMatch = family.getDescriptorByStyle(
+            TypeWidth.NORMAL, TypeWeight.REGULAR, TypeSlope.OBLIQUE
+        )
+
+        assertSame(bold, boldMatch)
+        assertSame(italic, italicMatch)
+        assertFalse(boldMatch.isLoaded)
+        assertFalse(italicMatch.isLoaded)
+    }
+}
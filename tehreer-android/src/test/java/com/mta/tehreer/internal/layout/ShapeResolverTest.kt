@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.internal.layout
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Test
+
+class ShapeResolverTest {
+    private fun paragraphs(vararg lengths: Int, separator: String = "\n"): String {
+        val builder = StringBuilder()
+        for (length in lengths) {
+            repeat(length - separator.length) { builder.append('a') }
+            builder.append(separator)
+        }
+
+        return builder.toString()
+    }
+
+    @Test
+    fun testShortTextIsNotSplit() {
+        val text = paragraphs(10, 10, 10)
+
+        assertArrayEquals(intArrayOf(0, 30), ShapeResolver.splitChunks(text, 4))
+    }
+
+    @Test
+    fun testChunksEndAfterSeparators() {
+        val text = paragraphs(3000, 3000, 3000, 3000)
+
+        assertArrayEquals(intArrayOf(0, 6000, 12000), ShapeResolver.splitChunks(text, 4))
+    }
+
+    @Test
+    fun testCarriageReturnIsKeptWithLineFeed() {
+        val text = paragraphs(4096, 4096, separator = "\r\n")
+
+        assertArrayEquals(intArrayOf(0, 4096, 8192), ShapeResolver.splitChunks(text, 2))
+    }
+
+    @Test
+    fun testLineFeedIsKeptWithScannedCarriageReturn() {
+        // The scan of each chunk starts exactly at the carriage return of its paragraph.
+        val text = paragraphs(4097, 4097, separator = "\r\n")
+
+        assertArrayEquals(intArrayOf(0, 4097, 8194), ShapeResolver.splitChunks(text, 2))
+    }
+
+    @Test
+    fun testTextWithoutSeparatorIsSingleChunk() {
+        val text = "a".repeat(20000)
+
+        assertArrayEquals(intArrayOf(0, 20000), ShapeResolver.splitChunks(text, 8))
+    }
+}
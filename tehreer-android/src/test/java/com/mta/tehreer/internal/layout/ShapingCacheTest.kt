@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.internal.layout
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class ShapingCacheTest {
+    private fun word(vararg glyphIds: Int, clusterMap: IntArray): ShapedText {
+        return ShapedText(
+            glyphIds = glyphIds,
+            glyphOffsets = FloatArray(glyphIds.size * 2) {
+                (glyphIds[it / 2] * 10 + it % 2).toFloat()
+            },
+            glyphAdvances = FloatArray(glyphIds.size) { glyphIds[it].toFloat() },
+            clusterMap = clusterMap
+        )
+    }
+
+    @Test
+    fun testForwardWordsAreAppended() {
+        val first = word(1, 2, clusterMap = intArrayOf(0, 1, 1))
+        val second = word(3, clusterMap = intArrayOf(0, 0))
+
+        val joined = ShapingCache.concat(listOf(first, second), false, 5)
+
+        assertArrayEquals(intArrayOf(1, 2, 3), joined.glyphIds)
+        assertArrayEquals(floatArrayOf(1f, 2f, 3f), joined.glyphAdvances, 0f)
+        assertArrayEquals(floatArrayOf(10f, 11f, 20f, 21f, 30f, 31f), joined.glyphOffsets, 0f)
+        assertArrayEquals(intArrayOf(0, 1, 1, 2, 2), joined.clusterMap)
+    }
+
+    @Test
+    fun testBackwardWordsArePrepended() {
+        // Backward glyphs of each word are in reverse logical order.
+        val first = word(2, 1, clusterMap = intArrayOf(1, 0, 0))
+        val second = word(4, 3, clusterMap = intArrayOf(1, 0))
+
+        val joined = ShapingCache.concat(listOf(first, second), true, 5)
+
+        assertArrayEquals(intArrayOf(4, 3, 2, 1), joined.glyphIds)
+        assertArrayEquals(floatArrayOf(4f, 3f, 2f, 1f), joined.glyphAdvances, 0f)
+        assertArrayEquals(intArrayOf(3, 2, 2, 1, 0), joined.clusterMap)
+    }
+
+    private fun collectWords(text: String, isSplittable: Boolean): List<String> {
+        val words = ArrayList<String>()
+        ShapingCache.forEachWord(text, 0, text.length, isSplittable) { start, end ->
+            words.add(text.substring(start, end))
+        }
+
+        return words
+    }
+
+    @Test
+    fun testSplittableTextIsSplitAfterSpaces() {
+        assertEquals(listOf("one ", "two ", " ", "three"), collectWords("one two  three", true))
+        assertEquals(listOf("one ", "two "), collectWords("one two ", true))
+    }
+
+    @Test
+    fun testSpaceIsNotSplitFromCombiningMark() {
+        assertEquals(listOf("one \u064Btwo ", "three"), collectWords("one \u064Btwo three", true))
+        assertEquals(listOf("one ", " \u0651two"), collectWords("one  \u0651two", true))
+    }
+
+    @Test
+    fun testUnsplittableTextIsSingleWord() {
+        assertEquals(listOf("one two three"), collectWords("one two three", false))
+    }
+
+    @Test
+    fun testSingleWordIsCopied() {
+        val only = word(7, 8, clusterMap = intArrayOf(0, 1))
+        val joined = ShapingCache.concat(listOf(only), false, 2)
+
+        joined.glyphIds[0] = 0
+
+        assertArrayEquals(intArrayOf(7, 8), only.glyphIds)
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.internal.util
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Before
+import org.junit.Test
+import java.util.concurrent.CountDownLatch
+
+class LruCacheTest {
+    private class TestCache(
+        capacity: Int,
+        private val poolCount: Int = 1
+    ) : LruCache<Int>(capacity, poolCount) {
+        inner class TestSegment {
+            // Odd keys go to the second pool if there is one.
+            private val segment = object : Segment<Int>(this@TestCache) {
+                override fun poolOf(key: Int, value: Any?) = key % poolCount
+            }
+
+            operator fun get(key: Int): Any? = segment[key]
+            fun put(key: Int, value: Any?) = segment.put(key, value)
+            fun remove(key: Int) = segment.remove(key)
+            fun remove(key: Int, value: Any?) = segment.remove(key, value)
+            fun clear() = segment.clear()
+        }
+    }
+
+    private lateinit var cache: TestCache
+
+    @Before
+    fun setUp() {
+        cache = TestCache(4)
+    }
+
+    @Test
+    fun testPutAndGet() {
+        val segment = cache.TestSegment()
+
+        segment.put(1, "one")
+        segment.put(2, "two")
+
+        assertEquals("one", segment[1])
+        assertEquals("two", segment[2])
+        assertNull(segment[3])
+        assertEquals(2, cache.size())
+    }
+
+    @Test
+    fun testReplaceKeepsSize() {
+        val segment = cache.TestSegment()
+
+        segment.put(1, "one")
+        segment.put(1, "uno")
+
+        assertEquals("uno", segment[1])
+        assertEquals(1, cache.size())
+    }
+
+    @Test
+    fun testRemove() {
+        val segment = cache.TestSegment()
+
+        segment.put(1, "one")
+        segment.remove(1)
+
+        assertNull(segment[1])
+        assertEquals(0, cache.size())
+    }
+
+    @Test
+    fun testConditionalRemove() {
+        val segment = cache.TestSegment()
+        val value = "one"
+
+        segment.put(1, value)
+        segment.remove(1, String(charArrayOf('o', 'n', 'e')))
+        assertEquals(value, segment[1])
+
+        segment.remove(1, value)
+        assertNull(segment[1])
+        assertEquals(0, cache.size())
+    }
+
+    @Test
+    fun testEvictionAcrossSegments() {
+        val first = cache.TestSegment()
+        val second = cache.TestSegment()
+
+        first.put(1, "one")
+        second.put(1, "uno")
+        first.put(2, "two")
+        second.put(2, "dos")
+        first.put(3, "three")
+
+        assertEquals(4, cache.size())
+        assertNull(first[1])
+        assertEquals("uno", second[1])
+    }
+
+    @Test
+    fun testRecentlyReadEntryIsRetained() {
+        val segment = cache.TestSegment()
+
+        segment.put(1, "one")
+        segment.put(2, "two")
+        segment.put(3, "three")
+        segment.put(4, "four")
+
+        segment[1]
+        segment.put(5, "five")
+
+        assertEquals("one", segment[1])
+        assertNull(segment[2])
+    }
+
+    @Test
+    fun testClear() {
+        val segment = cache.TestSegment()
+
+        segment.put(1, "one")
+        segment.put(2, "two")
+        cache.clear()
+
+        assertNull(segment[1])
+        assertNull(segment[2])
+        assertEquals(0, cache.size())
+    }
+
+    @Test
+    fun testSegmentClear() {
+        val first = cache.TestSegment()
+        val second = cache.TestSegment()
+
+        first.put(1, "one")
+        first.put(2, "two")
+        second.put(1, "uno")
+        first.clear()
+
+        assertNull(first[1])
+        assertNull(first[2])
+        assertEquals("uno", second[1])
+        assertEquals(1, cache.size())
+    }
+
+    @Test
+    fun testConcurrentAccess() {
+        val cache = TestCache(64)
+        val segment = cache.TestSegment()
+        val threadCount = 8
+        val startSignal = CountDownLatch(1)
+
+        for (i in 0 until 32) {
+            segment.put(i, i)
+        }
+
+        val threads = List(threadCount) { index ->
+            Thread {
+                startSignal.await()
+
+                for (i in 0 until 10_000) {
+                    val key = (i + index) % 48
+                    if (segment[key] == null) {
+                        segment.put(key, key)
+                    }
+                }
+            }
+        }
+
+        threads.forEach { it.start() }
+        startSignal.countDown()
+        threads.forEach { it.join() }
+
+        assertEquals(48, cache.size())
+        for (i in 0 until 48) {
+            assertEquals(i, segment[i])
+        }
+    }
+
+    @Test
+    fun testPoolCapacityIsRespected() {
+        val cache = TestCache(8, 2)
+        val segment = cache.TestSegment()
+
+        cache.setPoolCapacity(1, 2)
+        segment.put(1, "one")
+        segment.put(3, "three")
+        segment.put(5, "five")
+        segment.put(2, "two")
+        segment.put(4, "four")
+
+        assertNull(segment[1])
+        assertEquals(2, cache.poolSize(1))
+        assertEquals(2, cache.poolSize(0))
+    }
+
+    @Test
+    fun testRaisingCapacityLetsUnsetPoolGrow() {
+        val cache = TestCache(2, 2)
+        val segment = cache.TestSegment()
+
+        cache.setCapacity(4)
+        segment.put(2, "two")
+        segment.put(4, "four")
+        segment.put(6, "six")
+        segment.put(8, "eight")
+
+        assertEquals(Int.MAX_VALUE, cache.poolCapacity(0))
+        assertEquals(4, cache.poolSize(0))
+        assertEquals("two", segment[2])
+    }
+
+    @Test
+    fun testOverallEvictionPicksOldestPool() {
+        val cache = TestCache(3, 2)
+        val segment = cache.TestSegment()
+
+        segment.put(2, "two")
+        segment.put(1, "one")
+        segment.put(4, "four")
+        segment.put(3, "three")
+
+        assertNull(segment[2])
+        assertEquals("one", segment[1])
+        assertEquals(3, cache.size())
+    }
+
+    @Test
+    fun testShrinkingCapacityEvicts() {
+        val segment = cache.TestSegment()
+
+        segment.put(1, "one")
+        segment.put(2, "two")
+        segment.put(3, "three")
+        cache.setCapacity(1)
+
+        assertEquals(1, cache.size())
+        assertEquals("three", segment[3])
+    }
+}
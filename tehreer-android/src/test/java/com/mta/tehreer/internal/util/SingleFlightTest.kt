@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.internal.util
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertSame
+import org.junit.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicInteger
+
+class SingleFlightTest {
+    @Test
+    fun testSequentialCallsExecuteSeparately() {
+        val flight = SingleFlight<Int>()
+        val counter = AtomicInteger()
+
+        assertEquals(1, flight.execute(0) { counter.incrementAndGet() })
+        assertEquals(2, flight.execute(0) { counter.incrementAndGet() })
+    }
+
+    @Test
+    fun testConcurrentCallsShareResult() {
+        val flight = SingleFlight<Int>()
+        val counter = AtomicInteger()
+        val taskStarted = CountDownLatch(1)
+        val releaseTask = CountDownLatch(1)
+        val result = Any()
+
+        val owner = Thread {
+            flight.execute<Any>(0) {
+                taskStarted.countDown()
+                releaseTask.await()
+                counter.incrementAndGet()
+                result
+            }
+        }
+        owner.start()
+        taskStarted.await()
+
+        var waiterResult: Any? = null
+        val waiter = Thread {
+            waiterResult = flight.execute(0) {
+                counter.incrementAndGet()
+                Any()
+            }
+        }
+        waiter.start()
+
+        // Give the waiter a chance to join the pending task.
+        waiter.join(100)
+        releaseTask.countDown()
+        owner.join()
+        waiter.join()
+
+        assertEquals(1, counter.get())
+        assertSame(result, waiterResult)
+    }
+
+    @Test
+    fun testDifferentKeysDoNotBlock() {
+        val flight = SingleFlight<Int>()
+        val releaseTask = CountDownLatch(1)
+        val taskStarted = CountDownLatch(1)
+
+        val owner = Thread {
+            flight.execute(0) {
+                taskStarted.countDown()
+                releaseTask.await()
+            }
+        }
+        owner.start()
+        taskStarted.await()
+
+        assertEquals("other", flight.execute(1) { "other" })
+
+        releaseTask.countDown()
+        owner.join()
+    }
+
+    @Test(expected = IllegalStateException::class)
+    fun testFailureIsPropagated() {
+        val flight = SingleFlight<Int>()
+        flight.execute(0) { throw IllegalStateException() }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2023 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.internal.util
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class StripedCounterTest {
+    @Test
+    fun testSumOfConcurrentUpdates() {
+        val counter = StripedCounter()
+        val threads = List(8) {
+            Thread {
+                for (i in 0 until 10_000) {
+                    counter.increment()
+                }
+            }
+        }
+
+        threads.forEach { it.start() }
+        threads.forEach { it.join() }
+
+        assertEquals(80_000L, counter.sum())
+    }
+
+    @Test
+    fun testSumThenReset() {
+        val counter = StripedCounter()
+        counter.add(5)
+        counter.add(7)
+
+        assertEquals(12L, counter.sumThenReset())
+        assertEquals(0L, counter.sum())
+    }
+}